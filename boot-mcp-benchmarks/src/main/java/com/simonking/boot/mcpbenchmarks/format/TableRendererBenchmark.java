@@ -0,0 +1,150 @@
+package com.simonking.boot.mcpbenchmarks.format;
+
+import com.simonking.boot.mcpbenchmarks.support.SyntheticRows;
+import com.simonking.boot.mcpserver.format.TableRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * <p>PURPOSE: 表格渲染基准测试
+ * <p>DESCRIPTION: 对比原 formatAsTable（每个单元格一次String.format）与 TableRenderer 三种格式，
+ * 数据为仿 hif_cert_stt_d（8列）和 hif_bank_doc_d（26列）的分页结果。配合 -prof gc 查看 gc.alloc.rate.norm（每次调用分配字节数）
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableRendererBenchmark {
+
+    @Param({SyntheticRows.CERT_STT, SyntheticRows.BANK_DOC})
+    private String table;
+
+    @Param({"20", "100"})
+    private int rows;
+
+    private List<Map<String, Object>> mapRows;
+    private String[] columns;
+    private List<String[]> cellRows;
+
+    private final TableRenderer fixedWidth = new TableRenderer(TableRenderer.Mode.FIXED_WIDTH);
+    private final TableRenderer markdown = new TableRenderer(TableRenderer.Mode.MARKDOWN);
+    private final TableRenderer csv = new TableRenderer(TableRenderer.Mode.CSV);
+
+    @Setup
+    public void setup() {
+        mapRows = SyntheticRows.rows(table, rows);
+        columns = mapRows.get(0).keySet().toArray(new String[0]);
+        cellRows = new ArrayList<>(rows);
+        for (Map<String, Object> row : mapRows) {
+            String[] cells = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                cells[i] = TableRenderer.cellText(row.get(columns[i]));
+            }
+            cellRows.add(cells);
+        }
+    }
+
+    @Benchmark
+    public String legacyStringFormat() {
+        return legacyFormatAsTable(mapRows);
+    }
+
+    @Benchmark
+    public String rendererFixedWidth() {
+        return fixedWidth.render(columns, cellRows);
+    }
+
+    @Benchmark
+    public String rendererMarkdown() {
+        return markdown.render(columns, cellRows);
+    }
+
+    @Benchmark
+    public String rendererCsv() {
+        return csv.render(columns, cellRows);
+    }
+
+    /**
+     * 原 SqlQueryServiceHif0911.formatAsTable 实现，作为对比基线
+     */
+    static String legacyFormatAsTable(List<Map<String, Object>> data) {
+        if (data.isEmpty()) return "无数据";
+
+        Set<String> allColumns = new LinkedHashSet<>();
+        for (Map<String, Object> row : data) {
+            allColumns.addAll(row.keySet());
+        }
+
+        List<String> columns = new ArrayList<>(allColumns);
+        StringBuilder sb = new StringBuilder();
+
+        Map<String, Integer> columnWidths = new HashMap<>();
+        for (String col : columns) {
+            int maxWidth = col.length();
+            for (Map<String, Object> row : data) {
+                Object value = row.get(col);
+                String strValue = value != null ? value.toString() : "NULL";
+                maxWidth = Math.max(maxWidth, strValue.length());
+            }
+            columnWidths.put(col, Math.min(maxWidth, 25));
+        }
+
+        sb.append("```\n");
+        for (String col : columns) {
+            sb.append(String.format("%-" + columnWidths.get(col) + "s | ", col));
+        }
+        sb.append("\n");
+
+        for (String col : columns) {
+            sb.append(String.join("", Collections.nCopies(columnWidths.get(col), "-")));
+            sb.append("-+-");
+        }
+        sb.append("\n");
+
+        for (Map<String, Object> row : data) {
+            for (String col : columns) {
+                Object value = row.get(col);
+                String strValue = value != null ? value.toString() : "NULL";
+                if (strValue.length() > 25) {
+                    strValue = strValue.substring(0, 22) + "...";
+                }
+                sb.append(String.format("%-" + columnWidths.get(col) + "s | ", strValue));
+            }
+            sb.append("\n");
+        }
+        sb.append("```\n");
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,191 @@
+package com.simonking.boot.mcpbenchmarks.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * <p>PURPOSE: HTTP并发压测
+ * <p>DESCRIPTION: 以固定并发数对运行中的应用发送请求，输出吞吐量、延迟分位数、最大同时在途请求数和错误分布，
+ * 用于对比 spring.threads.virtual.enabled 开关前后的并发能力。每个并发连接一个线程，阻塞等待响应。
+ * <p>对比方法（Java 21）：分别以 SPRING_THREADS_VIRTUAL_ENABLED=false/true 启动server和client，
+ * 先调用一次 /hif/sql 得到 queryHandle，再以超过Tomcat默认最大线程数（200）的并发压 /hif/sql/page
+ * （经客户端Web层、MCP传输、服务端工具到JDBC，不经过模型），请求体写在文件中，如 page.json 为
+ * {"queryHandle":"...","page":2,"size":20}：
+ * <pre>
+ * mvn -Pbenchmarks -pl boot-mcp-benchmarks -am process-classes -Dload.skip=false \
+ *     -Dload.args="--url http://localhost:8070/hif/sql/page --method POST --body @/tmp/page.json --concurrency 800 --requests 8000"
+ * </pre>
+ * 参数：--url（必填）、--method（GET/POST，默认GET）、--body（请求体，@开头表示文件）、--concurrency（默认200）、
+ * --requests（默认2000）、--warmup（预热请求数，默认100）、--timeout（单个请求超时秒数，默认120）
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public final class HttpLoadDriver {
+
+    private final HttpClient client;
+    private final HttpRequest request;
+    private final int concurrency;
+    private final Duration timeout;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+    private HttpLoadDriver(HttpRequest request, int concurrency, Duration timeout) {
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+        this.request = request;
+        this.concurrency = concurrency;
+        this.timeout = timeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String url = options.get("url");
+        if (url == null) {
+            System.err.println("缺少参数 --url，用法见类注释");
+            System.exit(2);
+        }
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "2000"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "100"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "120")));
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(timeout);
+        String body = options.get("body");
+        if (body != null && body.startsWith("@")) {
+            body = Files.readString(Path.of(body.substring(1)), StandardCharsets.UTF_8);
+        }
+        if ("POST".equalsIgnoreCase(options.getOrDefault("method", "GET"))) {
+            builder.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body != null ? body : "{}", StandardCharsets.UTF_8));
+        } else {
+            builder.GET();
+        }
+
+        HttpLoadDriver driver = new HttpLoadDriver(builder.build(), concurrency, timeout);
+        if (warmup > 0) {
+            driver.run(warmup);
+            driver.errors.clear();
+            driver.peakInFlight.set(0);
+        }
+        System.out.printf("压测 %s %s，并发 %d，请求数 %d%n", driver.request.method(), url, concurrency, requests);
+        driver.report(driver.run(requests));
+        System.exit(0);
+    }
+
+    /**
+     * 发送count个请求，返回每个请求的耗时（纳秒，失败为-1）和总耗时
+     */
+    private Result run(int count) throws InterruptedException {
+        long[] latencies = new long[count];
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                try {
+                    int index;
+                    while ((index = next.getAndIncrement()) < count) {
+                        latencies[index] = send();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        workers.shutdown();
+        return new Result(latencies, elapsed);
+    }
+
+    private long send() {
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 != 2) {
+                error("HTTP " + response.statusCode());
+                return -1;
+            }
+            return System.nanoTime() - start;
+        } catch (IOException e) {
+            error(e.getClass().getSimpleName());
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error("Interrupted");
+            return -1;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void error(String kind) {
+        errors.computeIfAbsent(kind, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private void report(Result result) {
+        long[] ok = Arrays.stream(result.latencies()).filter(l -> l >= 0).sorted().toArray();
+        double seconds = result.elapsedNanos() / 1e9;
+        System.out.printf("总耗时 %.2fs，成功 %d，失败 %d，吞吐量 %.1f req/s，最大在途 %d%n",
+                seconds, ok.length, result.latencies().length - ok.length, ok.length / seconds, peakInFlight.get());
+        if (ok.length > 0) {
+            System.out.printf("延迟 p50 %dms，p90 %dms，p99 %dms，max %dms%n",
+                    millis(ok, 0.50), millis(ok, 0.90), millis(ok, 0.99), ok[ok.length - 1] / 1_000_000);
+        }
+        if (!errors.isEmpty()) {
+            System.out.println("错误：" + new TreeMap<>(errors));
+        }
+        System.out.printf("单请求超时 %ds%n", timeout.toSeconds());
+    }
+
+    private static long millis(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("参数格式应为 --name value：" + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private record Result(long[] latencies, long elapsedNanos) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.simonking.boot.mcpbenchmarks.query;
+
+import com.simonking.boot.mcpbenchmarks.support.EmbeddedQueryContext;
+import com.simonking.boot.mcpbenchmarks.support.SyntheticRows;
+import com.simonking.boot.mcpserver.service.SqlQueryServiceHif0911;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * <p>PURPOSE: executeQuery端到端吞吐基准测试
+ * <p>DESCRIPTION: 在H2内存库（MySQL兼容模式）上调用 SqlQueryServiceHif0911.executeQuery，
+ * 覆盖校验、总数（缓存）、分页改写、流式读取和表格渲染的完整链路，分别测首页和深分页，
+ * 以及文本表格（text）与列式JSON（json）两种结果格式
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecuteQueryBenchmark {
+
+    private static final int TABLE_ROWS = 20_000;
+
+    @Param({SyntheticRows.CERT_STT, SyntheticRows.BANK_DOC})
+    private String table;
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    @Param({"text", "json"})
+    private String resultFormat;
+
+    private AnnotationConfigApplicationContext context;
+    private SqlQueryServiceHif0911 service;
+    private String sql;
+    private int deepPage;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = EmbeddedQueryContext.start(TABLE_ROWS);
+        service = context.getBean(SqlQueryServiceHif0911.class);
+        sql = "SELECT * FROM " + table + " WHERE admdvs = '440100' ORDER BY biz_date";
+        deepPage = TABLE_ROWS / 6 / pageSize - 1;
+        String check = service.executeQuery(sql, 1, pageSize, null, null, resultFormat);
+        if (!check.startsWith("json".equals(resultFormat) ? "{\"success\":true" : "✅")) {
+            throw new IllegalStateException("基准测试查询执行失败:\n" + check);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String firstPage() {
+        return service.executeQuery(sql, 1, pageSize, null, null, resultFormat);
+    }
+
+    @Benchmark
+    public String deepPage() {
+        return service.executeQuery(sql, deepPage, pageSize, null, null, resultFormat);
+    }
+}
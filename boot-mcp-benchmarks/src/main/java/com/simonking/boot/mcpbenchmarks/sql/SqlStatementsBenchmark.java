@@ -0,0 +1,114 @@
+package com.simonking.boot.mcpbenchmarks.sql;
+
+import com.simonking.boot.mcpserver.cache.SqlCacheStore;
+import com.simonking.boot.mcpserver.sql.KeysetPaginator;
+import com.simonking.boot.mcpserver.sql.ParsedSql;
+import com.simonking.boot.mcpserver.sql.SqlNormalizer;
+import com.simonking.boot.mcpserver.sql.SqlStatements;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * <p>PURPOSE: SQL校验与改写基准测试
+ * <p>DESCRIPTION: 单独测量每次executeQuery都会经过的纯CPU路径：只读校验、SQL清理、COUNT语句、
+ * LIMIT分页语句、游标分页计划、SQL规范化和查询描述缓存键。校验和改写命中解析缓存，parseUncached为首次解析的开销
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlStatementsBenchmark {
+
+    private static final Map<String, String> SQLS = Map.of(
+            "simple", "SELECT `admdvs`, `biz_date`, `cert_cnt` FROM `hif_cert_stt_d` "
+                    + "WHERE `biz_date` BETWEEN '20240101' AND '20241231' AND `admdvs` = '440100' ORDER BY `biz_date` DESC;",
+            "groupBy", "SELECT `admdvs`, SUM(`iption_cnt`) AS total FROM `hif_iption_type_stt_d` "
+                    + "WHERE `biz_mon` LIKE '2024%' GROUP BY `admdvs` ORDER BY total DESC",
+            "join", "SELECT d.`bank_doc_id`, d.`amt`, t.`insutype`, t.`set_sum_amt` FROM `hif_bank_doc_d` d "
+                    + "JOIN `hif_bank_doc_detl_d` t ON d.`bank_doc_id` = t.`bank_doc_id` "
+                    + "WHERE d.`doc_type` = '6501' AND d.`cert_date` >= '20240101' ORDER BY d.`cert_date`"
+    );
+
+    @Param({"simple", "groupBy", "join"})
+    private String kind;
+
+    private String sql;
+    private String cleanSql;
+    private String description;
+
+    @Setup
+    public void setup() {
+        sql = SQLS.get(kind);
+        cleanSql = SqlStatements.clean(sql);
+        description = "查询2024年广州市各月凭证统计的归集条数  " + kind;
+    }
+
+    /**
+     * 不走缓存的完整解析（首次遇到一条SQL时的开销）
+     */
+    @Benchmark
+    public ParsedSql parseUncached() {
+        return ParsedSql.parse(cleanSql);
+    }
+
+    @Benchmark
+    public boolean isValidSelectQuery() {
+        return SqlStatements.isValidSelectQuery(sql);
+    }
+
+    @Benchmark
+    public String clean() {
+        return SqlStatements.clean(sql);
+    }
+
+    @Benchmark
+    public String countSql() {
+        return SqlStatements.countSql(cleanSql);
+    }
+
+    @Benchmark
+    public String paginatedSql() {
+        return SqlStatements.paginatedSql(cleanSql, 50, 20);
+    }
+
+    @Benchmark
+    public Optional<KeysetPaginator.Plan> keysetPlan() {
+        return KeysetPaginator.plan(cleanSql);
+    }
+
+    @Benchmark
+    public String normalize() {
+        return SqlNormalizer.normalize(cleanSql);
+    }
+
+    @Benchmark
+    public String cacheKey() {
+        return SqlCacheStore.keyOf(description);
+    }
+}
@@ -0,0 +1,123 @@
+package com.simonking.boot.mcpbenchmarks.support;
+
+import com.simonking.boot.mcpserver.cache.QueryResultCache;
+import com.simonking.boot.mcpserver.cache.SqlCacheStore;
+import com.simonking.boot.mcpserver.config.ExecutorConfig;
+import com.simonking.boot.mcpserver.config.SqlQueryProperties;
+import com.simonking.boot.mcpserver.service.ColumnarCacheService;
+import com.simonking.boot.mcpserver.service.QueryCountService;
+import com.simonking.boot.mcpserver.service.QueryCostService;
+import com.simonking.boot.mcpserver.service.QueryGuard;
+import com.simonking.boot.mcpserver.service.RollupService;
+import com.simonking.boot.mcpserver.service.SchemaCatalogService;
+import com.simonking.boot.mcpserver.service.SchemaResourceService;
+import com.simonking.boot.mcpserver.service.SqlQueryServiceHif0911;
+import com.simonking.boot.mcpserver.service.SqlStatsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * <p>PURPOSE: 端到端基准测试的Spring上下文
+ * <p>DESCRIPTION: 使用H2内存库（MySQL兼容模式）建 hif_cert_stt_d、hif_bank_doc_d 两张表并写入仿真数据，
+ * 只装配 executeQuery 链路上的Bean（不启动Web和MCP），配置均取默认值
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Configuration
+@Import({SqlQueryProperties.class, ExecutorConfig.class, QueryGuard.class, QueryCostService.class, QueryCountService.class,
+        QueryResultCache.class, SqlCacheStore.class, SchemaResourceService.class, SchemaCatalogService.class,
+        SqlStatsService.class, RollupService.class, ColumnarCacheService.class, SqlQueryServiceHif0911.class})
+public class EmbeddedQueryContext {
+
+    private static final String CERT_STT_DDL = """
+            CREATE TABLE hif_cert_stt_d (
+                biz_date varchar(8) NOT NULL, biz_mon varchar(6) NOT NULL, biz_msg_no varchar(6) NOT NULL,
+                prov_admdvs varchar(6) NOT NULL, admdvs varchar(6) NOT NULL, bankacct varchar(50) NOT NULL,
+                bank_acct_name varchar(200) NOT NULL, cert_cnt int NOT NULL,
+                PRIMARY KEY (biz_date, biz_msg_no, admdvs, bankacct, bank_acct_name))
+            """;
+    private static final String BANK_DOC_DDL = """
+            CREATE TABLE hif_bank_doc_d (
+                bank_doc_id varchar(20) NOT NULL, admdvs varchar(6) NOT NULL, year varchar(4) NOT NULL,
+                hi_bank_docno varchar(30) NOT NULL, cert_date varchar(8) NOT NULL, gena_time datetime,
+                bank_cert_no varchar(50) NOT NULL, bank_docno varchar(30) NOT NULL, doc_type varchar(6),
+                bank_type_code varchar(6) NOT NULL, payter_acct_name varchar(50) NOT NULL,
+                payter_bankacct varchar(50) NOT NULL, payter_bank_name varchar(100) NOT NULL,
+                payter_bankcode varchar(30) NOT NULL, rcvber_bankacct varchar(50) NOT NULL,
+                rcvber_acct_name varchar(50) NOT NULL, rcvber_bank_name varchar(100) NOT NULL,
+                entry_date varchar(8) NOT NULL, trns_optins varchar(30), opter varchar(50), cury varchar(3) NOT NULL,
+                cury_name varchar(40) NOT NULL, amt decimal(16, 2) NOT NULL, memo longtext,
+                vali_flag varchar(3) NOT NULL DEFAULT '1', biz_date varchar(20) NOT NULL,
+                PRIMARY KEY (bank_doc_id))
+            """;
+
+    @Bean
+    public DataSource dataSource() {
+        return new DriverManagerDataSource(
+                "jdbc:h2:mem:mcp-bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR,VALUE;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    /**
+     * 启动上下文并写入每张表rows行仿真数据
+     */
+    public static AnnotationConfigApplicationContext start(int rows) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(EmbeddedQueryContext.class);
+        try {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            jdbcTemplate.execute("DROP TABLE IF EXISTS hif_cert_stt_d");
+            jdbcTemplate.execute("DROP TABLE IF EXISTS hif_bank_doc_d");
+            jdbcTemplate.execute(CERT_STT_DDL);
+            jdbcTemplate.execute(BANK_DOC_DDL);
+            insert(jdbcTemplate, SyntheticRows.CERT_STT, SyntheticRows.rows(SyntheticRows.CERT_STT, rows));
+            insert(jdbcTemplate, SyntheticRows.BANK_DOC, SyntheticRows.rows(SyntheticRows.BANK_DOC, rows));
+            // 建表后刷新元数据快照，使游标分页能取到主键
+            context.getBean(SchemaCatalogService.class).refresh();
+            return context;
+        } catch (RuntimeException e) {
+            // 关闭上下文，避免调度线程残留导致JMH子进程无法退出
+            context.close();
+            throw e;
+        }
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, String table, List<Map<String, Object>> rows) {
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", columns.stream().map(c -> "?").toList()) + ")";
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            args.add(columns.stream().map(row::get).toArray());
+        }
+        jdbcTemplate.batchUpdate(sql, args);
+    }
+}
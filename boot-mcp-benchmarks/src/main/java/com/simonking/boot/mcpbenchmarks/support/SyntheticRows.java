@@ -0,0 +1,90 @@
+package com.simonking.boot.mcpbenchmarks.support;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * <p>PURPOSE: 基准测试用的仿真数据
+ * <p>DESCRIPTION: 按 database-tablestructural.txt 中 hif_cert_stt_d（8列）和 hif_bank_doc_d（26列）的字段生成行数据，
+ * 值的长度和中文占比接近生产数据，同一序号生成的行固定不变
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public final class SyntheticRows {
+
+    public static final String CERT_STT = "hif_cert_stt_d";
+    public static final String BANK_DOC = "hif_bank_doc_d";
+
+    private static final String[] ADMDVS = {"440100", "440300", "440400", "440600", "441900", "442000"};
+    private static final String[] ACCT_NAMES = {"广州市医疗保障局基金专户", "深圳市社会保险基金管理局", "珠海市医疗保障基金收入户"};
+
+    private SyntheticRows() {
+    }
+
+    /**
+     * 生成指定表的前count行
+     */
+    public static List<Map<String, Object>> rows(String table, int count) {
+        List<Map<String, Object>> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(BANK_DOC.equals(table) ? bankDoc(i) : certStt(i));
+        }
+        return rows;
+    }
+
+    public static Map<String, Object> certStt(int i) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("biz_date", String.format("2024%02d%02d", i % 12 + 1, i % 28 + 1));
+        row.put("biz_mon", String.format("2024%02d", i % 12 + 1));
+        row.put("biz_msg_no", String.format("%06d", i / 336));
+        row.put("prov_admdvs", "440000");
+        row.put("admdvs", ADMDVS[i % ADMDVS.length]);
+        row.put("bankacct", "36020001092001" + String.format("%05d", i % 97));
+        row.put("bank_acct_name", ACCT_NAMES[i % ACCT_NAMES.length]);
+        row.put("cert_cnt", i % 1000 + 1);
+        return row;
+    }
+
+    public static Map<String, Object> bankDoc(int i) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("bank_doc_id", String.format("BD%018d", i));
+        row.put("admdvs", ADMDVS[i % ADMDVS.length]);
+        row.put("year", "2024");
+        row.put("hi_bank_docno", "HB2024" + (100000 + i));
+        row.put("cert_date", String.format("2024%02d%02d", i % 12 + 1, i % 28 + 1));
+        row.put("gena_time", "2024-01-15 10:20:30");
+        row.put("bank_cert_no", "CERT-" + i * 7919L);
+        row.put("bank_docno", "DOC" + i);
+        row.put("doc_type", i % 2 == 0 ? "6501" : "6502");
+        row.put("bank_type_code", "102");
+        row.put("payter_acct_name", ACCT_NAMES[i % ACCT_NAMES.length]);
+        row.put("payter_bankacct", "3602000109200123456");
+        row.put("payter_bank_name", "中国工商银行股份有限公司广州第一支行");
+        row.put("payter_bankcode", "102581000013");
+        row.put("rcvber_bankacct", "44050142000800001234");
+        row.put("rcvber_acct_name", "广州市第一人民医院");
+        row.put("rcvber_bank_name", "中国建设银行广州分行营业部");
+        row.put("entry_date", String.format("2024%02d%02d", i % 12 + 1, i % 28 + 1));
+        row.put("trns_optins", "广州市医保中心");
+        row.put("opter", "张三");
+        row.put("cury", "CNY");
+        row.put("cury_name", "人民币");
+        row.put("amt", new BigDecimal("123456.78").add(BigDecimal.valueOf(i)));
+        row.put("memo", i % 5 == 0 ? null : "备注信息" + i);
+        row.put("vali_flag", "1");
+        row.put("biz_date", String.format("2024-%02d-%02d", i % 12 + 1, i % 28 + 1));
+        return row;
+    }
+}
@@ -0,0 +1,54 @@
+package com.simonking.boot.mcp.client.config;
+
+import com.simonking.boot.mcp.client.tool.ParallelToolCallingManager;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.model.tool.DefaultToolCallingManager;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+
+/**
+ * <p>PURPOSE: 工具调用执行配置
+ * <p>DESCRIPTION: 注册 {@link ParallelToolCallingManager}，Spring AI自动配置的ToolCallingManager
+ * （@ConditionalOnMissingBean）随之不再创建，OpenAI模型在同步和流式对话中都改用并行执行。
+ * 并发数、等待队列长度、超时和需要顺序执行的工具见 mcp.client.tool-execution
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Configuration
+public class ToolExecutionConfig {
+
+    @Bean
+    public ParallelToolCallingManager toolCallingManager(
+            ToolCallbackResolver toolCallbackResolver,
+            ToolExecutionExceptionProcessor toolExecutionExceptionProcessor,
+            ObjectProvider<ObservationRegistry> observationRegistry,
+            @Value("${mcp.client.tool-execution.max-concurrency:8}") int maxConcurrency,
+            @Value("${mcp.client.tool-execution.queue-capacity:64}") int queueCapacity,
+            @Value("${mcp.client.tool-execution.timeout:60s}") Duration timeout,
+            @Value("${mcp.client.tool-execution.sequential-tools:clearSqlCache,invalidateResultCache,manageRollups,manageLocalCache}")
+            List<String> sequentialTools) {
+        DefaultToolCallingManager delegate = DefaultToolCallingManager.builder()
+                .observationRegistry(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP))
+                .toolCallbackResolver(toolCallbackResolver)
+                .toolExecutionExceptionProcessor(toolExecutionExceptionProcessor)
+                .build();
+        return new ParallelToolCallingManager(delegate, toolCallbackResolver, toolExecutionExceptionProcessor,
+                maxConcurrency, queueCapacity, timeout, sequentialTools);
+    }
+}
@@ -1,38 +1,66 @@
 package com.simonking.boot.mcp.client.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.simonking.boot.mcp.client.dto.AntdTableResponseDTO;
+import com.simonking.boot.mcp.client.dto.QueryHandlePageRequestDTO;
 import com.simonking.boot.mcp.client.dto.QueryPageRequestDTO;
+import com.simonking.boot.mcp.client.tool.ObservedToolCallback;
+import com.simonking.boot.mcp.client.tool.ProgressReportingToolCallback;
+import com.simonking.boot.mcp.client.tool.QueryHandleStore;
+import com.simonking.boot.mcp.client.tool.QueryResultCapture;
+import com.simonking.boot.mcp.client.tool.QueryResultCapturingToolCallback;
+import com.simonking.boot.mcp.client.tool.QueryToolClient;
+import com.simonking.boot.mcp.client.tool.ToolProgress;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
+@Slf4j
 @RestController
 @RequestMapping("/hif")
 public class HifController {
 
     private final ChatClient chatClient;
-
-    public HifController(ChatClient.Builder aiClientBuilder, ToolCallbackProvider mcpTools) {
+    private final QueryToolClient queryToolClient;
+    private final QueryHandleStore queryHandleStore;
+
+    public HifController(ChatClient.Builder aiClientBuilder, ToolCallbackProvider mcpTools,
+                         QueryToolClient queryToolClient, QueryHandleStore queryHandleStore,
+                         ObservationRegistry observationRegistry) {
+        this.queryToolClient = queryToolClient;
+        this.queryHandleStore = queryHandleStore;
         Map<String, String> commonHeaders = new HashMap<>();
         OpenAiChatOptions options = OpenAiChatOptions.builder()
                 .httpHeaders(commonHeaders)
                 .build();
 
+        // executeQuery的结果由客户端直接转换为表格，行数据不经过模型；流式请求时报告工具调用进度；
+        // 每次工具往返记录为链路追踪的span和耗时指标
+        ToolCallbackProvider tools = QueryResultCapturingToolCallback.wrap(mcpTools);
+        tools = ProgressReportingToolCallback.wrap(tools);
+        tools = ObservedToolCallback.wrap(tools, observationRegistry);
         this.chatClient = aiClientBuilder
-                .defaultTools(mcpTools)
+                .defaultTools(tools)
                 .defaultOptions(options)
                 .defaultSystem(getSystemPrompt())
                 .build();
@@ -43,18 +71,85 @@ public class HifController {
      * POST方式的SQL查询接口 - 支持分页和缓存
      */
     @PostMapping("/sql")
-    public ResponseEntity<Object> executeSqlQuery(@RequestBody QueryPageRequestDTO request) {
+    public ResponseEntity<AntdTableResponseDTO> executeSqlQuery(@RequestBody QueryPageRequestDTO request) {
         String queryDescription = request.getQuery();
-        System.err.println("SQL查询请求: " + queryDescription);
-        System.err.println("分页参数: page=" + request.getPage() + ", size=" + request.getSize());
+        log.info("SQL查询请求: {}", queryDescription);
+        log.info("分页参数: page={}, size={}", request.getPage(), request.getSize());
 
+        QueryResultCapture capture = new QueryResultCapture();
         String response = this.chatClient
                 .prompt(buildSqlQueryPrompt(request))
+                .toolContext(capture.toolContext())
                 .call().content();
-        // todo 将response结构化为AntdTableResponseDTO
-        AntdTableResponseDTO tableResponse = AntdTableResponseDTO.builder()
-                .build();
-        return ResponseEntity.ok(response);
+        if (capture.getResult() == null) {
+            // 模型没有成功执行查询（如SQL被拒绝或执行出错），只在提示信息中返回模型的说明
+            return ResponseEntity.ok(AntdTableResponseDTO.textOnly(response));
+        }
+        AntdTableResponseDTO tableResponse = AntdTableResponseDTO.fromQueryResult(capture.getResult(), response);
+        // 登记查询句柄，后续翻页走 /sql/page，不再经过模型
+        tableResponse.setQueryHandle(queryHandleStore.register(capture.getResult().path("sql").asText(), response));
+        return ResponseEntity.ok(tableResponse);
+    }
+
+    /**
+     * 流式SQL查询接口（text/event-stream），不占用请求线程等待模型和工具：
+     * progress 工具调用进度，answer 模型回答片段，table 查询结果表格，error 出错，done 结束
+     */
+    @PostMapping(value = "/sql/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamSqlQuery(@RequestBody QueryPageRequestDTO request) {
+        log.info("SQL流式查询请求: {}", request.getQuery());
+
+        QueryResultCapture capture = new QueryResultCapture();
+        ToolProgress progress = new ToolProgress();
+        Map<String, Object> toolContext = new HashMap<>(capture.toolContext());
+        toolContext.putAll(progress.toolContext());
+
+        StringBuilder answer = new StringBuilder();
+        Flux<ServerSentEvent<Object>> answerEvents = this.chatClient
+                .prompt(buildSqlQueryPrompt(request))
+                .toolContext(toolContext)
+                .stream().content()
+                .doOnNext(answer::append)
+                .map(text -> event("answer", text))
+                .concatWith(Flux.defer(() -> {
+                    if (capture.getResult() == null) {
+                        return Flux.empty();
+                    }
+                    AntdTableResponseDTO tableResponse = AntdTableResponseDTO.fromQueryResult(capture.getResult(),
+                            answer.toString());
+                    tableResponse.setQueryHandle(queryHandleStore.register(
+                            capture.getResult().path("sql").asText(), answer.toString()));
+                    return Flux.just(event("table", tableResponse));
+                }))
+                .doFinally(signal -> progress.complete());
+
+        return Flux.merge(progress.events().map(e -> event("progress", e)), answerEvents)
+                .onErrorResume(e -> Mono.just(event("error", String.valueOf(e.getMessage()))))
+                .concatWith(Mono.just(event("done", "")));
+    }
+
+    /**
+     * 按查询句柄翻页：直接调用executeQuery工具，不经过模型
+     */
+    @PostMapping("/sql/page")
+    public ResponseEntity<Object> pageSqlQuery(@RequestBody QueryHandlePageRequestDTO request) {
+        QueryHandleStore.QueryHandle query = queryHandleStore.get(request.getQueryHandle()).orElse(null);
+        if (query == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("查询句柄不存在或已过期，请重新发起查询");
+        }
+
+        // 请求中显式传null时不会使用DTO的默认值
+        int page = request.getPage() != null ? request.getPage() : 1;
+        int size = request.getSize() != null ? request.getSize() : 10;
+        JsonNode result;
+        try {
+            result = queryToolClient.executeQuery(query.sql(), page, size, request.getCursor());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        AntdTableResponseDTO tableResponse = AntdTableResponseDTO.fromQueryResult(result, query.summary());
+        tableResponse.setQueryHandle(request.getQueryHandle());
+        return ResponseEntity.ok(tableResponse);
     }
 
 
@@ -63,7 +158,7 @@ public class HifController {
      */
     @GetMapping("/sql/cache")
     public ResponseEntity<String> getCachedSql(@RequestParam(name = "query") String queryDescription) {
-        System.err.println("获取缓存SQL请求: " + queryDescription);
+        log.info("获取缓存SQL请求: {}", queryDescription);
 
         String cachePrompt = String.format("""
             用户想要获取之前缓存的SQL语句：%s
@@ -82,7 +177,7 @@ public class HifController {
      */
     @PostMapping("/sql/cache/clear")
     public ResponseEntity<String> clearSqlCache() {
-        System.err.println("清空SQL缓存请求");
+        log.info("清空SQL缓存请求");
 
         String response = this.chatClient
                 .prompt("请使用clearSqlCache工具清空所有缓存的SQL语句。")
@@ -95,7 +190,7 @@ public class HifController {
      */
     @GetMapping("/sql/cache/list")
     public ResponseEntity<String> listCachedSqls() {
-        System.err.println("查看缓存SQL列表请求");
+        log.info("查看缓存SQL列表请求");
 
         String response = this.chatClient
                 .prompt("请使用listCachedSqls工具显示当前所有缓存的SQL语句。")
@@ -103,6 +198,10 @@ public class HifController {
         return ResponseEntity.ok(response);
     }
 
+    private static ServerSentEvent<Object> event(String name, Object data) {
+        return ServerSentEvent.builder(data).event(name).build();
+    }
+
     private String getSystemPrompt() {
         try {
             ClassPathResource resource = new ClassPathResource("prompt/system-prompt.txt");
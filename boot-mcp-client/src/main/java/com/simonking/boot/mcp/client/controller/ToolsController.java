@@ -2,37 +2,48 @@ package com.simonking.boot.mcp.client.controller;
 
 import com.simonking.boot.mcp.client.dto.PageRequestDTO;
 import com.simonking.boot.mcp.client.dto.QueryPageRequestDTO;
+import com.simonking.boot.mcp.client.tool.ObservedToolCallback;
+import com.simonking.boot.mcp.client.tool.ProgressReportingToolCallback;
+import com.simonking.boot.mcp.client.tool.ToolProgress;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
+@Slf4j
 @RestController
 @RequestMapping("/tools")
 public class ToolsController {
 
     private final ChatClient chatClient ;
 
-    public ToolsController(ChatClient.Builder aiClientBuilder, ToolCallbackProvider mcpTools) {
+    public ToolsController(ChatClient.Builder aiClientBuilder, ToolCallbackProvider mcpTools,
+                           ObservationRegistry observationRegistry) {
         Map<String, String> commonHeaders = new HashMap<>();
         OpenAiChatOptions options = OpenAiChatOptions.builder()
                 .httpHeaders(commonHeaders)
                 .build();
 
         this.chatClient = aiClientBuilder
-                .defaultTools(mcpTools)
+                .defaultTools(ObservedToolCallback.wrap(ProgressReportingToolCallback.wrap(mcpTools), observationRegistry))
                 .defaultOptions(options)
                 .defaultSystem(getSystemPrompt())
                 .build();
@@ -40,7 +51,7 @@ public class ToolsController {
 
     @GetMapping("/word")
     public ResponseEntity<String> getWordGeneration(@RequestParam(name = "prompt") String prompt) {
-        System.err.println("词汇生成请求: " + prompt);
+        log.info("词汇生成请求: {}", prompt);
         String response = this.chatClient
                 .prompt(prompt)
                 .call().content();
@@ -50,7 +61,7 @@ public class ToolsController {
     @PostMapping("/sql")
     public ResponseEntity<String> executeSqlQuery(@RequestBody QueryPageRequestDTO request) {
         String queryDescription = request.getQuery();
-        System.err.println("SQL查询请求: " + queryDescription);
+        log.info("SQL查询请求: {}", queryDescription);
 
         String response = this.chatClient
                 .prompt(buildSqlQueryPrompt(request))
@@ -60,7 +71,7 @@ public class ToolsController {
 
     @GetMapping("/sql")
     public ResponseEntity<String> executeSqlQueryGet(@RequestParam(name = "query") String queryDescription) {
-        System.err.println("SQL查询请求: " + queryDescription);
+        log.info("SQL查询请求: {}", queryDescription);
         QueryPageRequestDTO queryPageRequestDTO = new QueryPageRequestDTO();
         queryPageRequestDTO.setQuery(queryDescription);
         String response = this.chatClient
@@ -69,6 +80,47 @@ public class ToolsController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping(value = "/word/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamWordGeneration(@RequestParam(name = "prompt") String prompt) {
+        log.info("词汇生成流式请求: {}", prompt);
+        return stream(prompt);
+    }
+
+    @PostMapping(value = "/sql/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamSqlQuery(@RequestBody QueryPageRequestDTO request) {
+        log.info("SQL流式查询请求: {}", request.getQuery());
+        return stream(buildSqlQueryPrompt(request));
+    }
+
+    @GetMapping(value = "/sql/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamSqlQueryGet(@RequestParam(name = "query") String queryDescription) {
+        log.info("SQL流式查询请求: {}", queryDescription);
+        QueryPageRequestDTO queryPageRequestDTO = new QueryPageRequestDTO();
+        queryPageRequestDTO.setQuery(queryDescription);
+        return stream(buildSqlQueryPrompt(queryPageRequestDTO));
+    }
+
+    /**
+     * 流式对话：progress 工具调用进度，answer 模型回答片段，error 出错，done 结束
+     */
+    private Flux<ServerSentEvent<Object>> stream(String prompt) {
+        ToolProgress progress = new ToolProgress();
+        Flux<ServerSentEvent<Object>> answerEvents = this.chatClient
+                .prompt(prompt)
+                .toolContext(progress.toolContext())
+                .stream().content()
+                .map(text -> event("answer", text))
+                .doFinally(signal -> progress.complete());
+
+        return Flux.merge(progress.events().map(e -> event("progress", e)), answerEvents)
+                .onErrorResume(e -> Mono.just(event("error", String.valueOf(e.getMessage()))))
+                .concatWith(Mono.just(event("done", "")));
+    }
+
+    private static ServerSentEvent<Object> event(String name, Object data) {
+        return ServerSentEvent.builder(data).event(name).build();
+    }
+
     private String getSystemPrompt() {
         try {
             ClassPathResource resource = new ClassPathResource("prompt/system-prompt.txt");
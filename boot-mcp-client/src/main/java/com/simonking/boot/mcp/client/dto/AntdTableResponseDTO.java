@@ -1,11 +1,18 @@
 package com.simonking.boot.mcp.client.dto;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
 import lombok.Data;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * created on 2025-06-27 09:01
@@ -32,6 +39,113 @@ public class AntdTableResponseDTO {
     @Schema(description = "分页信息", requiredMode = Schema.RequiredMode.REQUIRED)
     private Pagination pagination;
 
+    @Schema(description = "查询句柄，翻页时传入，不再经过模型")
+    private String queryHandle;
+
+    /**
+     * 由executeQuery的JSON结果（resultFormat=json）构造表格响应，行数据不经过模型
+     *
+     * @param result  executeQuery返回的JSON（data.columns、data.rows、pagination）
+     * @param topText 模型对查询的说明
+     */
+    public static AntdTableResponseDTO fromQueryResult(JsonNode result, String topText) {
+        JsonNode data = result.path("data");
+        List<String> labels = new ArrayList<>();
+        for (JsonNode column : data.path("columns")) {
+            labels.add(column.path("name").asText());
+        }
+        // 多表查询中同名的列（如两张表的admdvs）作为dataIndex和行数据的键会互相覆盖，先改为唯一的列名
+        List<String> names = uniqueNames(labels);
+        List<Column> columns = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.add(new Column(names.get(i), jdbcTypeClass(data.path("columns").get(i).path("type").asText())));
+        }
+
+        List<Map<String, Object>> dataSource = new ArrayList<>();
+        for (JsonNode row : data.path("rows")) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                record.put(names.get(i), jsonValue(row.get(i)));
+            }
+            dataSource.add(record);
+        }
+
+        JsonNode page = result.path("pagination");
+        String bottomText = String.format("共%d条记录%s，第%d/%d页，查询耗时%dms",
+                page.path("total").asLong(), page.path("totalExact").asBoolean(true) ? "" : "（估算）",
+                page.path("current").asInt(1), page.path("totalPages").asInt(), result.path("executionMs").asLong());
+        return AntdTableResponseDTO.builder()
+                .columns(columns)
+                .dataSource(dataSource)
+                .topText(topText)
+                .bottomText(bottomText)
+                .pagination(Pagination.builder()
+                        .total(page.path("total").asLong())
+                        .current(page.path("current").asInt(1))
+                        .pageSize(page.path("pageSize").asInt())
+                        .nextCursor(page.path("nextCursor").isTextual() ? page.path("nextCursor").asText() : null)
+                        .build())
+                .build();
+    }
+
+    /**
+     * 只有提示信息、没有表格数据的响应（如模型没有成功执行查询时返回模型的说明）
+     */
+    public static AntdTableResponseDTO textOnly(String topText) {
+        return AntdTableResponseDTO.builder()
+                .columns(List.of())
+                .dataSource(List.of())
+                .topText(topText)
+                .build();
+    }
+
+    /**
+     * 重复的列名依次加上序号后缀（admdvs、admdvs_2），跳过已被其他列占用的名称
+     */
+    static List<String> uniqueNames(List<String> labels) {
+        Set<String> used = new HashSet<>(labels);
+        Set<String> seen = new HashSet<>();
+        List<String> names = new ArrayList<>(labels.size());
+        for (String label : labels) {
+            String name = label;
+            if (!seen.add(label)) {
+                int suffix = 2;
+                while (used.contains(label + "_" + suffix)) {
+                    suffix++;
+                }
+                name = label + "_" + suffix;
+                used.add(name);
+            }
+            names.add(name);
+        }
+        return names;
+    }
+
+    /**
+     * JDBC类型名对应的Java类型（只区分数值、日期时间和文本，用于列宽和对齐）
+     */
+    private static Class<?> jdbcTypeClass(String jdbcType) {
+        return switch (jdbcType) {
+            case "TINYINT", "SMALLINT", "INTEGER", "BIGINT" -> Long.class;
+            case "DECIMAL", "NUMERIC", "FLOAT", "REAL", "DOUBLE" -> BigDecimal.class;
+            case "DATE", "TIME", "TIMESTAMP", "TIME_WITH_TIMEZONE", "TIMESTAMP_WITH_TIMEZONE" -> LocalDateTime.class;
+            default -> String.class;
+        };
+    }
+
+    private static Object jsonValue(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        if (node.isNumber()) {
+            return node.numberValue();
+        }
+        if (node.isBoolean()) {
+            return node.booleanValue();
+        }
+        return node.asText();
+    }
+
     public static boolean isNumberClass(Class<?> clazz) {
         if (clazz == null) {
             return false;
@@ -125,6 +239,8 @@ public class AntdTableResponseDTO {
         private int current;
         @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
         private int pageSize;
+        @Schema(description = "下一页游标")
+        private String nextCursor;
     }
 
 
@@ -0,0 +1,29 @@
+package com.simonking.boot.mcp.client.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * 按查询句柄翻页的请求对象，句柄由第一页结果返回
+ *
+ * @author wanjian
+ **/
+@EqualsAndHashCode(callSuper = true)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "查询句柄翻页请求对象")
+public class QueryHandlePageRequestDTO extends PageRequestDTO {
+
+    @Schema(description = "查询句柄（第一页结果中的queryHandle）", requiredMode = Schema.RequiredMode.REQUIRED)
+    private String queryHandle;
+
+    @Schema(description = "游标（上一页结果中的pagination.nextCursor，下一页时传入可避免深分页）")
+    private String cursor;
+
+}
@@ -0,0 +1,101 @@
+package com.simonking.boot.mcp.client.tool;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+
+/**
+ * <p>PURPOSE: 包装工具回调的基类
+ * <p>DESCRIPTION: 工具定义和不带ToolContext的调用直接委托给被包装的工具。ToolContext只继续传给本包的包装回调，
+ * MCP工具本身不支持ToolContext（上下文非空时会抛出异常），调用时去掉上下文
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+abstract class DelegatingToolCallback implements ToolCallback {
+
+    // MCP客户端的工具名带有客户端和连接名前缀，按后缀匹配
+    private static final String QUERY_TOOL_SUFFIX = "executeQuery";
+
+    protected final ToolCallback delegate;
+
+    protected DelegatingToolCallback(ToolCallback delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * 包装工具提供者中的每个ToolCallback，每次获取工具时重新包装（MCP工具列表可能变化）
+     */
+    // Spring AI 1.0.0-M7 的ToolCallbackProvider只能以已废弃的FunctionCallback[]返回工具，废弃类型只在本类中出现
+    @SuppressWarnings("deprecation")
+    static ToolCallbackProvider wrapEach(ToolCallbackProvider provider, UnaryOperator<ToolCallback> wrapper) {
+        return () -> Arrays.stream(provider.getToolCallbacks())
+                .map(callback -> callback instanceof ToolCallback tool ? wrapper.apply(tool) : callback)
+                .toArray(FunctionCallback[]::new);
+    }
+
+    /**
+     * 工具提供者中的ToolCallback
+     */
+    // 同上，ToolCallbackProvider.getToolCallbacks() 返回已废弃的FunctionCallback[]
+    @SuppressWarnings("deprecation")
+    static List<ToolCallback> toolCallbacks(ToolCallbackProvider provider) {
+        return Arrays.stream(provider.getToolCallbacks())
+                .filter(ToolCallback.class::isInstance)
+                .map(ToolCallback.class::cast)
+                .toList();
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return delegate.call(toolInput);
+    }
+
+    /**
+     * 调用被包装的工具，ToolContext只传给本包的包装回调
+     */
+    protected String callDelegate(String toolInput, ToolContext toolContext) {
+        return delegate instanceof DelegatingToolCallback
+                ? delegate.call(toolInput, toolContext) : delegate.call(toolInput);
+    }
+
+    /**
+     * 是否为（包装后的）executeQuery工具
+     */
+    static boolean isQueryTool(ToolCallback tool) {
+        return tool.getToolDefinition().name().endsWith(QUERY_TOOL_SUFFIX);
+    }
+
+    /**
+     * 去掉MCP客户端加在工具名前的 客户端名_连接名_ 前缀
+     */
+    static String simpleName(String name) {
+        int index = name.lastIndexOf('_');
+        return index >= 0 ? name.substring(index + 1) : name;
+    }
+}
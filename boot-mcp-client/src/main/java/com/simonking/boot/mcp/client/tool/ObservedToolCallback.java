@@ -0,0 +1,63 @@
+package com.simonking.boot.mcp.client.tool;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+
+import java.util.function.Supplier;
+
+
+/**
+ * <p>PURPOSE: 可观测的工具回调
+ * <p>DESCRIPTION: 把每次MCP工具往返（客户端发起调用到收到结果）记录为 mcp.client.tool 观测：
+ * 生成链路追踪的span（作为当前对话请求和模型调用span的子span，同一traceId），并以
+ * mcp_client_tool_seconds 指标（tool、error标签）导出到 /actuator/prometheus，
+ * 与Spring AI自带的对话（spring.ai.chat.client）和模型调用（gen_ai.client.operation）观测一起区分模型耗时和工具耗时
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public class ObservedToolCallback extends DelegatingToolCallback {
+
+    private final ObservationRegistry registry;
+    private final String toolName;
+
+    public ObservedToolCallback(ToolCallback delegate, ObservationRegistry registry) {
+        super(delegate);
+        this.registry = registry;
+        this.toolName = simpleName(delegate.getToolDefinition().name());
+    }
+
+    /**
+     * 包装工具提供者，每次获取工具时重新包装（MCP工具列表可能变化）
+     */
+    public static ToolCallbackProvider wrap(ToolCallbackProvider provider, ObservationRegistry registry) {
+        return wrapEach(provider, tool -> new ObservedToolCallback(tool, registry));
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return observe(() -> delegate.call(toolInput));
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        return observe(() -> callDelegate(toolInput, toolContext));
+    }
+
+    private String observe(Supplier<String> invocation) {
+        return Observation.createNotStarted("mcp.client.tool", registry)
+                .contextualName("mcp tool " + toolName)
+                .lowCardinalityKeyValue("tool", toolName)
+                .observe(invocation);
+    }
+}
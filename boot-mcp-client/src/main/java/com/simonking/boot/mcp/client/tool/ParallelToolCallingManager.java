@@ -0,0 +1,274 @@
+package com.simonking.boot.mcp.client.tool;
+
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.ai.model.function.FunctionCallingOptions;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.CollectionUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * <p>PURPOSE: 并行执行工具调用
+ * <p>DESCRIPTION: 替换Spring AI默认的 DefaultToolCallingManager（逐个执行同一条模型回复中的工具调用）。
+ * 模型在一轮中同时请求多个互不依赖的工具（如getDatabaseTables、getDatabaseStructure、getCachedSql）时，
+ * 提交到有界线程池并发执行，每个调用有超时（超时后取消并把超时说明作为该工具的结果返回给模型），
+ * 线程池的等待队列也有上限，队列满时放不进去的调用在当前线程直接执行（不受超时限制），不拒绝也不无限堆积，
+ * 结果按模型请求的原始顺序合并为ToolResponseMessage。会修改服务端状态的工具（清缓存、刷新汇总表等）作为屏障：
+ * 等前面的调用全部完成后单独执行，之后的调用再继续并发。只有一个调用时直接在当前线程执行。
+ * 提交时捕获当前线程的上下文（链路追踪的observation等），工具span仍挂在本次模型调用之下。
+ * 工具定义的解析、ToolContext和对话历史的构建与默认实现一致
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see org.springframework.ai.model.tool.DefaultToolCallingManager
+ * @since java 1.8
+ */
+@Slf4j
+// Spring AI 1.0.0-M7的ToolCallbackProvider、ToolCallbackResolver和ToolContext仍以FunctionCallback/FunctionCallingOptions传递，与DefaultToolCallingManager相同
+@SuppressWarnings("deprecation")
+public class ParallelToolCallingManager implements ToolCallingManager, DisposableBean {
+
+    private final ToolCallingManager delegate;
+    private final ToolCallbackResolver toolCallbackResolver;
+    private final ToolExecutionExceptionProcessor exceptionProcessor;
+    private final Duration timeout;
+    private final Set<String> sequentialTools;
+    private final ThreadPoolExecutor executor;
+    private final ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+
+    /**
+     * @param delegate        默认实现，用于解析工具定义
+     * @param maxConcurrency  同时执行的工具调用数上限（所有对话共享）
+     * @param queueCapacity   线程全忙时等待执行的工具调用数上限（所有对话共享），超出的调用在提交线程执行
+     * @param timeout         单个工具调用从提交到返回的最长时间（含排队）
+     * @param sequentialTools 需要单独按顺序执行的工具（去掉MCP客户端前缀后的工具名）
+     */
+    public ParallelToolCallingManager(ToolCallingManager delegate, ToolCallbackResolver toolCallbackResolver,
+                                      ToolExecutionExceptionProcessor exceptionProcessor, int maxConcurrency,
+                                      int queueCapacity, Duration timeout, Collection<String> sequentialTools) {
+        this.delegate = delegate;
+        this.toolCallbackResolver = toolCallbackResolver;
+        this.exceptionProcessor = exceptionProcessor;
+        this.timeout = timeout;
+        this.sequentialTools = Set.copyOf(sequentialTools);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "mcp-tool-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return delegate.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        AssistantMessage assistantMessage = chatResponse.getResults().stream()
+                .map(Generation::getOutput)
+                .filter(output -> output != null && !CollectionUtils.isEmpty(output.getToolCalls()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No tool call requested by the chat model"));
+        ToolContext toolContext = buildToolContext(prompt, assistantMessage);
+        List<AssistantMessage.ToolCall> toolCalls = assistantMessage.getToolCalls();
+
+        // 先在当前线程解析全部工具，找不到工具时与默认实现一样直接失败
+        List<FunctionCallback> callbacks = availableCallbacks(prompt);
+        List<FunctionCallback> resolved = new ArrayList<>(toolCalls.size());
+        boolean returnDirect = true;
+        for (AssistantMessage.ToolCall toolCall : toolCalls) {
+            FunctionCallback callback = resolve(toolCall.name(), callbacks);
+            resolved.add(callback);
+            returnDirect = returnDirect && callback instanceof ToolCallback tool && tool.getToolMetadata().returnDirect();
+        }
+
+        // 以需要顺序执行的工具为界分段，段内并发
+        String[] results = new String[toolCalls.size()];
+        int start = 0;
+        for (int i = 0; i <= toolCalls.size(); i++) {
+            if (i < toolCalls.size() && !isSequential(toolCalls.get(i).name())) {
+                continue;
+            }
+            callConcurrently(toolCalls, resolved, start, i, toolContext, results);
+            if (i < toolCalls.size()) {
+                results[i] = call(resolved.get(i), toolCalls.get(i), toolContext);
+            }
+            start = i + 1;
+        }
+
+        List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(toolCalls.size());
+        for (int i = 0; i < toolCalls.size(); i++) {
+            AssistantMessage.ToolCall toolCall = toolCalls.get(i);
+            responses.add(new ToolResponseMessage.ToolResponse(toolCall.id(), toolCall.name(), results[i]));
+        }
+        List<Message> conversationHistory = new ArrayList<>(prompt.copy().getInstructions());
+        conversationHistory.add(assistantMessage);
+        conversationHistory.add(new ToolResponseMessage(responses, Map.of()));
+        return ToolExecutionResult.builder()
+                .conversationHistory(conversationHistory)
+                .returnDirect(returnDirect)
+                .build();
+    }
+
+    /**
+     * 并发执行 [from, to) 内的工具调用，结果按下标写入results
+     */
+    private void callConcurrently(List<AssistantMessage.ToolCall> toolCalls, List<FunctionCallback> callbacks,
+                                  int from, int to, ToolContext toolContext, String[] results) {
+        if (to - from <= 1) {
+            if (to - from == 1) {
+                results[from] = call(callbacks.get(from), toolCalls.get(from), toolContext);
+            }
+            return;
+        }
+        ContextSnapshot snapshot = snapshotFactory.captureAll();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<Future<String>> futures = new ArrayList<>(to - from);
+        List<Integer> inline = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            FunctionCallback callback = callbacks.get(i);
+            AssistantMessage.ToolCall toolCall = toolCalls.get(i);
+            Callable<String> task = () -> call(callback, toolCall, toolContext);
+            try {
+                futures.add(executor.submit(snapshot.wrap(task)));
+            } catch (RejectedExecutionException e) {
+                futures.add(null);
+                inline.add(i);
+            }
+        }
+        log.debug("并发执行 {} 个工具调用，队列已满在当前线程执行 {} 个", futures.size() - inline.size(), inline.size());
+        try {
+            // 队列满时放不进去的调用等其余调用提交后在当前线程执行
+            for (int i : inline) {
+                results[i] = call(callbacks.get(i), toolCalls.get(i), toolContext);
+            }
+            for (int i = from; i < to; i++) {
+                if (futures.get(i - from) != null) {
+                    results[i] = await(futures.get(i - from), toolCalls.get(i).name(), deadline);
+                }
+            }
+        } finally {
+            // 出错时不再等待其余调用
+            futures.stream().filter(Objects::nonNull).forEach(future -> future.cancel(true));
+        }
+    }
+
+    private String await(Future<String> future, String toolName, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("工具 {} 调用超过 {} 秒，已取消", toolName, timeout.toSeconds());
+            return "工具 " + DelegatingToolCallback.simpleName(toolName) + " 调用超时（超过 "
+                    + timeout.toSeconds() + " 秒），已取消";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待工具 " + toolName + " 返回时被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("工具 " + toolName + " 调用失败", e.getCause());
+        }
+    }
+
+    private String call(FunctionCallback callback, AssistantMessage.ToolCall toolCall, ToolContext toolContext) {
+        log.debug("Executing tool call: {}", toolCall.name());
+        try {
+            return callback.call(toolCall.arguments(), toolContext);
+        } catch (ToolExecutionException e) {
+            return exceptionProcessor.process(e);
+        }
+    }
+
+    private boolean isSequential(String toolName) {
+        return sequentialTools.contains(DelegatingToolCallback.simpleName(toolName));
+    }
+
+    private FunctionCallback resolve(String toolName, List<FunctionCallback> callbacks) {
+        return callbacks.stream()
+                .filter(callback -> toolName.equals(callback.getName()))
+                .findFirst()
+                .or(() -> Optional.ofNullable(toolCallbackResolver.resolve(toolName)))
+                .orElseThrow(() -> new IllegalStateException("No ToolCallback found for tool name: " + toolName));
+    }
+
+    private static List<FunctionCallback> availableCallbacks(Prompt prompt) {
+        if (prompt.getOptions() instanceof ToolCallingChatOptions options) {
+            return options.getToolCallbacks();
+        }
+        if (prompt.getOptions() instanceof FunctionCallingOptions options) {
+            return options.getFunctionCallbacks();
+        }
+        return List.of();
+    }
+
+    /**
+     * 与默认实现相同：传入了toolContext时附加本轮之前的对话历史
+     */
+    private static ToolContext buildToolContext(Prompt prompt, AssistantMessage assistantMessage) {
+        Map<String, Object> context = Map.of();
+        if (prompt.getOptions() instanceof FunctionCallingOptions options
+                && !CollectionUtils.isEmpty(options.getToolContext())) {
+            context = new HashMap<>(options.getToolContext());
+            List<Message> history = new ArrayList<>(prompt.copy().getInstructions());
+            history.add(new AssistantMessage(assistantMessage.getText(), assistantMessage.getMetadata(),
+                    assistantMessage.getToolCalls()));
+            context.put(ToolContext.TOOL_CALL_HISTORY, history);
+        }
+        return new ToolContext(context);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,97 @@
+package com.simonking.boot.mcp.client.tool;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+
+
+
+/**
+ * <p>PURPOSE: 报告进度的工具回调
+ * <p>DESCRIPTION: 包装所有MCP工具：ToolContext中带有 {@link ToolProgress} 时，在工具开始、结束、失败时发出进度事件；
+ * 没有进度对象时直接调用
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public class ProgressReportingToolCallback extends DelegatingToolCallback {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String toolName;
+
+    public ProgressReportingToolCallback(ToolCallback delegate) {
+        super(delegate);
+        this.toolName = simpleName(delegate.getToolDefinition().name());
+    }
+
+    /**
+     * 包装工具提供者，每次获取工具时重新包装（MCP工具列表可能变化）
+     */
+    public static ToolCallbackProvider wrap(ToolCallbackProvider provider) {
+        return wrapEach(provider, ProgressReportingToolCallback::new);
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        if (toolContext == null || !(toolContext.getContext().get(ToolProgress.CONTEXT_KEY)
+                instanceof ToolProgress progress)) {
+            return callDelegate(toolInput, toolContext);
+        }
+        progress.emit(new ToolProgress.Event(toolName, "start", startMessage(), null, null));
+        long startTime = System.currentTimeMillis();
+        try {
+            String output = callDelegate(toolInput, toolContext);
+            long elapsed = System.currentTimeMillis() - startTime;
+            Long rowCount = isQuery() ? rowCount(output) : null;
+            progress.emit(new ToolProgress.Event(toolName, "end",
+                    rowCount != null ? "查询结果已就绪，共" + rowCount + "行" : toolName + " 已完成", elapsed, rowCount));
+            return output;
+        } catch (RuntimeException e) {
+            progress.emit(new ToolProgress.Event(toolName, "error", toolName + " 调用失败：" + e.getMessage(),
+                    System.currentTimeMillis() - startTime, null));
+            throw e;
+        }
+    }
+
+    private boolean isQuery() {
+        return isQueryTool(delegate);
+    }
+
+    private String startMessage() {
+        if (isQuery()) {
+            return "正在执行SQL";
+        }
+        if (toolName.equals("adviseQuery")) {
+            return "正在分析执行计划";
+        }
+        if (toolName.startsWith("getDatabase") || toolName.equals("getTableStructure")) {
+            return "正在获取表结构";
+        }
+        if (toolName.contains("CachedSql")) {
+            return "正在查找缓存的SQL";
+        }
+        return "正在调用 " + toolName;
+    }
+
+    /**
+     * executeQuery结果（JSON结果或返回给模型的摘要）中的行数，文本结果或失败时为null
+     */
+    private static Long rowCount(String output) {
+        try {
+            JsonNode result = MAPPER.readTree(QueryResultCapturingToolCallback.textContent(output));
+            return result.path("rowCount").isNumber() ? result.path("rowCount").asLong() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
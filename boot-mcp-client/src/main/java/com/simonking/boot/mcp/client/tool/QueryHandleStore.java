@@ -0,0 +1,99 @@
+package com.simonking.boot.mcp.client.tool;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+
+/**
+ * <p>PURPOSE: 查询句柄
+ * <p>DESCRIPTION: 首次查询成功后按SQL的哈希登记句柄，随第一页结果返回给前端；翻页时前端只传句柄和页码，
+ * 客户端据此找回SQL直接调用executeQuery，不再经过模型。句柄只保存在客户端内存中（按最近访问淘汰、带有效期），
+ * 前端无法借此提交任意SQL
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Component
+public class QueryHandleStore {
+
+    private final Duration ttl;
+    private final Map<String, QueryHandle> handles;
+
+    public QueryHandleStore(@Value("${mcp.client.query-handle.ttl:30m}") Duration ttl,
+                            @Value("${mcp.client.query-handle.max-entries:1000}") int maxEntries) {
+        this.ttl = ttl;
+        this.handles = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, QueryHandle> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * 登记查询，返回句柄（同一SQL得到同一句柄）
+     *
+     * @param sql     模型生成并执行成功的SQL（不含分页）
+     * @param summary 模型对查询的说明，翻页时沿用
+     */
+    public String register(String sql, String summary) {
+        String handle = hash(sql);
+        handles.put(handle, new QueryHandle(sql, summary, Instant.now()));
+        return handle;
+    }
+
+    /**
+     * 查找句柄，不存在或已过期时返回空
+     */
+    public Optional<QueryHandle> get(String handle) {
+        if (handle == null) {
+            return Optional.empty();
+        }
+        QueryHandle query = handles.get(handle);
+        if (query == null) {
+            return Optional.empty();
+        }
+        if (query.createdAt().plus(ttl).isBefore(Instant.now())) {
+            handles.remove(handle);
+            return Optional.empty();
+        }
+        return Optional.of(query);
+    }
+
+    private static String hash(String sql) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sql.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 已登记的查询
+     *
+     * @param sql       SQL（不含分页）
+     * @param summary   模型对查询的说明
+     * @param createdAt 登记时间
+     */
+    public record QueryHandle(String sql, String summary, Instant createdAt) {
+    }
+}
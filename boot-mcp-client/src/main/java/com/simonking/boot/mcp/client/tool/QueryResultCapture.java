@@ -0,0 +1,50 @@
+package com.simonking.boot.mcp.client.tool;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Map;
+
+
+/**
+ * <p>PURPOSE: 查询结果捕获
+ * <p>DESCRIPTION: 单次对话请求内executeQuery返回的JSON结果的存放位置，通过ToolContext传给
+ * {@link QueryResultCapturingToolCallback}。行数据只保存在这里直接交给前端表格，不经过模型；
+ * 同一请求中模型多次执行查询时保留最后一次成功的结果（同一轮并发执行的多个查询以最后返回的为准）
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public class QueryResultCapture {
+
+    /**
+     * ToolContext中的键
+     */
+    public static final String CONTEXT_KEY = "queryResultCapture";
+
+    private volatile JsonNode result;
+
+    /**
+     * 作为ChatClient的toolContext传入
+     */
+    public Map<String, Object> toolContext() {
+        return Map.of(CONTEXT_KEY, this);
+    }
+
+    /**
+     * 捕获到的executeQuery结果（含data、pagination等），未成功执行查询时为null
+     */
+    public JsonNode getResult() {
+        return result;
+    }
+
+    void setResult(JsonNode result) {
+        this.result = result;
+    }
+}
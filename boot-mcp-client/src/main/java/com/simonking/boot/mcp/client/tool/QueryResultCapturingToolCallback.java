@@ -0,0 +1,119 @@
+package com.simonking.boot.mcp.client.tool;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+
+
+
+/**
+ * <p>PURPOSE: 捕获executeQuery结果的工具回调
+ * <p>DESCRIPTION: 包装MCP服务端的executeQuery工具：ToolContext中带有 {@link QueryResultCapture} 时，
+ * 强制以 resultFormat=json 调用，把完整结果（含行数据）存入捕获对象，只把列名、行数和分页信息返回给模型，
+ * 行数据不再经过模型转述；没有捕获对象或查询失败时原样透传。其他工具不受影响
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public class QueryResultCapturingToolCallback extends DelegatingToolCallback {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public QueryResultCapturingToolCallback(ToolCallback delegate) {
+        super(delegate);
+    }
+
+    /**
+     * 包装工具提供者，每次获取工具时重新包装（MCP工具列表可能变化）
+     */
+    public static ToolCallbackProvider wrap(ToolCallbackProvider provider) {
+        return wrapEach(provider, tool -> isQueryTool(tool) ? new QueryResultCapturingToolCallback(tool) : tool);
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        if (toolContext == null || !(toolContext.getContext().get(QueryResultCapture.CONTEXT_KEY)
+                instanceof QueryResultCapture capture)) {
+            return callDelegate(toolInput, toolContext);
+        }
+        ObjectNode input;
+        try {
+            input = (ObjectNode) MAPPER.readTree(toolInput);
+            input.put("resultFormat", "json");
+        } catch (JsonProcessingException | ClassCastException e) {
+            return callDelegate(toolInput, toolContext);
+        }
+
+        String output = callDelegate(input.toString(), toolContext);
+        JsonNode result = successResult(output);
+        if (result == null) {
+            // 查询失败（服务端返回的是错误提示文本），原样交给模型处理
+            return output;
+        }
+        capture.setResult(result);
+        return summaryForModel(result).toString();
+    }
+
+    /**
+     * 解析executeQuery的JSON结果，不是成功的JSON结果时返回null
+     */
+    static JsonNode successResult(String output) {
+        try {
+            JsonNode result = MAPPER.readTree(textContent(output));
+            return result.path("success").asBoolean(false) ? result : null;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * MCP工具结果为内容列表 [{"type":"text","text":"..."}]，取第一段文本
+     */
+    static String textContent(String output) {
+        try {
+            JsonNode node = MAPPER.readTree(output);
+            if (node.isArray()) {
+                for (JsonNode content : node) {
+                    if ("text".equals(content.path("type").asText())) {
+                        return content.path("text").asText();
+                    }
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // 不是内容列表，按原文处理
+        }
+        return output;
+    }
+
+    /**
+     * 返回给模型的摘要：去掉行数据，只保留列、行数、分页和执行计划
+     */
+    private static ObjectNode summaryForModel(JsonNode result) {
+        ObjectNode summary = MAPPER.createObjectNode();
+        summary.put("success", true);
+        summary.set("sql", result.get("sql"));
+        summary.set("rowCount", result.get("rowCount"));
+        summary.set("pagination", result.get("pagination"));
+        if (result.has("plan")) {
+            summary.set("plan", result.get("plan"));
+        }
+        ArrayNode columns = summary.putArray("columns");
+        for (JsonNode column : result.path("data").path("columns")) {
+            columns.add(column.path("name").asText());
+        }
+        summary.put("note", "查询结果已直接以表格形式返回给用户，请不要在回复中复述数据，只需用一两句话说明查询了什么及结果概况");
+        return summary;
+    }
+}
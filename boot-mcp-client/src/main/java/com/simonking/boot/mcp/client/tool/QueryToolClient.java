@@ -0,0 +1,73 @@
+package com.simonking.boot.mcp.client.tool;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * <p>PURPOSE: 直接调用executeQuery工具
+ * <p>DESCRIPTION: 通过MCP的ToolCallbackProvider直接调用服务端executeQuery（resultFormat=json），
+ * 不经过对话模型，用于对已生成的查询翻页
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Component
+public class QueryToolClient {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ToolCallbackProvider mcpTools;
+    private final ObservationRegistry observationRegistry;
+
+    public QueryToolClient(ToolCallbackProvider mcpTools, ObservationRegistry observationRegistry) {
+        this.mcpTools = mcpTools;
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * 执行查询的一页
+     *
+     * @param cursor 上一页结果中的nextCursor（可选）
+     * @return executeQuery的JSON结果
+     * @throws IllegalStateException 找不到executeQuery工具或查询失败（消息为服务端的错误提示）
+     */
+    public JsonNode executeQuery(String sql, int page, int pageSize, String cursor) {
+        ObjectNode input = MAPPER.createObjectNode();
+        input.put("sql", sql);
+        input.put("page", page);
+        input.put("pageSize", pageSize);
+        if (cursor != null && !cursor.isBlank()) {
+            input.put("cursor", cursor);
+        }
+        input.put("resultFormat", "json");
+
+        String output = new ObservedToolCallback(queryTool(), observationRegistry).call(input.toString());
+        JsonNode result = QueryResultCapturingToolCallback.successResult(output);
+        if (result == null) {
+            throw new IllegalStateException(QueryResultCapturingToolCallback.textContent(output));
+        }
+        return result;
+    }
+
+    private ToolCallback queryTool() {
+        for (ToolCallback tool : DelegatingToolCallback.toolCallbacks(mcpTools)) {
+            if (DelegatingToolCallback.isQueryTool(tool)) {
+                return tool;
+            }
+        }
+        throw new IllegalStateException("MCP服务端没有提供executeQuery工具");
+    }
+}
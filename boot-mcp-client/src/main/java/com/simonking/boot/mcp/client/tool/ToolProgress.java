@@ -0,0 +1,72 @@
+package com.simonking.boot.mcp.client.tool;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+
+
+/**
+ * <p>PURPOSE: 工具调用进度
+ * <p>DESCRIPTION: 单次流式对话请求内的工具调用进度事件流，通过ToolContext传给 {@link ProgressReportingToolCallback}，
+ * 工具开始、结束、失败时各发出一个事件（如“正在获取表结构”“正在执行SQL”“查询结果已就绪”），
+ * 由控制器与模型的回答片段合并为SSE推送给前端。工具在模型的工作线程或并行执行的线程池上执行，发送事件需加锁
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public class ToolProgress {
+
+    /**
+     * ToolContext中的键
+     */
+    public static final String CONTEXT_KEY = "toolProgress";
+
+    private final Sinks.Many<Event> sink = Sinks.many().unicast().onBackpressureBuffer();
+
+    /**
+     * 作为ChatClient的toolContext传入
+     */
+    public Map<String, Object> toolContext() {
+        return Map.of(CONTEXT_KEY, this);
+    }
+
+    /**
+     * 进度事件流，调用 {@link #complete()} 后结束（只能订阅一次）
+     */
+    public Flux<Event> events() {
+        return sink.asFlux();
+    }
+
+    /**
+     * 对话结束，结束事件流
+     */
+    public synchronized void complete() {
+        sink.tryEmitComplete();
+    }
+
+    synchronized void emit(Event event) {
+        sink.tryEmitNext(event);
+    }
+
+    /**
+     * 进度事件
+     *
+     * @param tool      工具名（去掉MCP客户端前缀）
+     * @param phase     阶段：start、end、error
+     * @param message   进度说明
+     * @param elapsedMs 工具耗时（start时为null）
+     * @param rowCount  查询结果行数（仅executeQuery结束时）
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Event(String tool, String phase, String message, Long elapsedMs, Long rowCount) {
+    }
+}
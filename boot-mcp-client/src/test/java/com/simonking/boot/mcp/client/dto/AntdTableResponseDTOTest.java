@@ -0,0 +1,53 @@
+package com.simonking.boot.mcp.client.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AntdTableResponseDTOTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void duplicateLabelsBecomeUniqueInColumnsAndRows() throws Exception {
+        JsonNode result = MAPPER.readTree("""
+                {"data": {"columns": [{"name": "admdvs", "type": "VARCHAR"}, {"name": "admdvs", "type": "VARCHAR"},
+                                      {"name": "cert_cnt", "type": "BIGINT"}],
+                          "rows": [["110000", "110100", 5]]},
+                 "pagination": {"total": 1, "current": 1, "pageSize": 10, "totalPages": 1},
+                 "executionMs": 3}
+                """);
+
+        AntdTableResponseDTO response = AntdTableResponseDTO.fromQueryResult(result, "说明");
+
+        assertEquals(List.of("admdvs", "admdvs_2", "cert_cnt"),
+                response.getColumns().stream().map(AntdTableResponseDTO.Column::getDataIndex).toList());
+        Map<String, Object> row = response.getDataSource().get(0);
+        assertEquals("110000", row.get("admdvs"));
+        assertEquals("110100", row.get("admdvs_2"));
+        assertEquals(5, row.get("cert_cnt"));
+    }
+
+    @Test
+    void suffixSkipsNamesUsedByOtherColumns() {
+        assertEquals(List.of("admdvs", "admdvs_2", "admdvs_3", "admdvs_4"),
+                AntdTableResponseDTO.uniqueNames(List.of("admdvs", "admdvs_2", "admdvs", "admdvs")));
+    }
+
+    @Test
+    void textOnlyHasNoTable() {
+        AntdTableResponseDTO response = AntdTableResponseDTO.textOnly("SQL被拒绝");
+
+        assertEquals("SQL被拒绝", response.getTopText());
+        assertTrue(response.getColumns().isEmpty());
+        assertTrue(response.getDataSource().isEmpty());
+        assertNull(response.getPagination());
+    }
+}
@@ -0,0 +1,253 @@
+package com.simonking.boot.mcp.client.tool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.DefaultToolCallingManager;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.DefaultToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.ai.tool.resolution.StaticToolCallbackResolver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelToolCallingManagerTest {
+
+    private static final String PREFIX = "client_server_";
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, String> threads = new ConcurrentHashMap<>();
+    private final List<ToolCallback> tools = new ArrayList<>();
+    private ParallelToolCallingManager manager;
+
+    @AfterEach
+    void shutdown() {
+        if (manager != null) {
+            manager.destroy();
+        }
+    }
+
+    /**
+     * 记录开始、结束事件和执行线程的桩工具
+     */
+    private void tool(String name, Function<String, String> body) {
+        ToolDefinition definition = ToolDefinition.builder().name(PREFIX + name).description(name).inputSchema("{}").build();
+        tools.add(new ToolCallback() {
+            @Override
+            public ToolDefinition getToolDefinition() {
+                return definition;
+            }
+
+            @Override
+            public String call(String toolInput) {
+                threads.put(name, Thread.currentThread().getName());
+                events.add("start " + name);
+                try {
+                    return body.apply(name);
+                } finally {
+                    events.add("end " + name);
+                }
+            }
+        });
+    }
+
+    private void sleepingTool(String name, long millis) {
+        tool(name, n -> {
+            sleep(millis);
+            return n + " done";
+        });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ParallelToolCallingManager manager(int maxConcurrency, int queueCapacity, Duration timeout) {
+        manager = new ParallelToolCallingManager(DefaultToolCallingManager.builder().build(),
+                new StaticToolCallbackResolver(new ArrayList<>(tools)), DefaultToolExecutionExceptionProcessor.builder().build(),
+                maxConcurrency, queueCapacity, timeout, List.of("clearSqlCache"));
+        return manager;
+    }
+
+    private List<String> execute(String... names) {
+        List<AssistantMessage.ToolCall> calls = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            calls.add(new AssistantMessage.ToolCall("call-" + i, "function", PREFIX + names[i], "{}"));
+        }
+        ChatResponse response = new ChatResponse(List.of(new Generation(new AssistantMessage("", Map.of(), calls))));
+        Prompt prompt = new Prompt("统计", ToolCallingChatOptions.builder().toolCallbacks(new ArrayList<>(tools)).build());
+        ToolExecutionResult result = manager.executeToolCalls(prompt, response);
+        ToolResponseMessage message = (ToolResponseMessage) result.conversationHistory()
+                .get(result.conversationHistory().size() - 1);
+        List<String> data = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            ToolResponseMessage.ToolResponse toolResponse = message.getResponses().get(i);
+            assertEquals("call-" + i, toolResponse.id());
+            data.add(toolResponse.responseData());
+        }
+        return data;
+    }
+
+    @Test
+    void resultsKeepRequestOrderWhileRunningConcurrently() {
+        sleepingTool("getDatabaseTables", 400);
+        sleepingTool("getDatabaseStructure", 200);
+        sleepingTool("getCachedSql", 0);
+        manager(8, 8, Duration.ofSeconds(5));
+
+        long start = System.nanoTime();
+        List<String> results = execute("getDatabaseTables", "getDatabaseStructure", "getCachedSql");
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(List.of("getDatabaseTables done", "getDatabaseStructure done", "getCachedSql done"), results);
+        assertTrue(elapsed < 550, "顺序执行需要600ms，实际 " + elapsed + "ms");
+        assertTrue(threads.values().stream().allMatch(name -> name.startsWith("mcp-tool-")), threads.toString());
+    }
+
+    @Test
+    void singleCallRunsOnCallerThread() {
+        sleepingTool("getCachedSql", 0);
+        manager(8, 8, Duration.ofSeconds(5));
+
+        assertEquals(List.of("getCachedSql done"), execute("getCachedSql"));
+        assertEquals(Thread.currentThread().getName(), threads.get("getCachedSql"));
+    }
+
+    @Test
+    void sequentialToolIsABarrier() {
+        sleepingTool("getDatabaseTables", 200);
+        sleepingTool("clearSqlCache", 50);
+        sleepingTool("getDatabaseStructure", 0);
+        sleepingTool("getCachedSql", 0);
+        manager(8, 8, Duration.ofSeconds(5));
+
+        execute("getDatabaseTables", "clearSqlCache", "getDatabaseStructure", "getCachedSql");
+
+        int barrierStart = events.indexOf("start clearSqlCache");
+        int barrierEnd = events.indexOf("end clearSqlCache");
+        assertTrue(events.indexOf("end getDatabaseTables") < barrierStart, events.toString());
+        assertTrue(barrierEnd < events.indexOf("start getDatabaseStructure"), events.toString());
+        assertTrue(barrierEnd < events.indexOf("start getCachedSql"), events.toString());
+        assertEquals(Thread.currentThread().getName(), threads.get("clearSqlCache"));
+    }
+
+    @Test
+    void timedOutCallIsCancelledAndReported() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        tool("getDatabaseStructure", n -> {
+            try {
+                Thread.sleep(10_000);
+                return "不应返回";
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                return "interrupted";
+            }
+        });
+        sleepingTool("getCachedSql", 0);
+        manager(8, 8, Duration.ofMillis(200));
+
+        long start = System.nanoTime();
+        List<String> results = execute("getDatabaseStructure", "getCachedSql");
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2_000);
+        assertTrue(results.get(0).contains("getDatabaseStructure") && results.get(0).contains("超时"), results.get(0));
+        assertEquals("getCachedSql done", results.get(1));
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS), "超时的调用没有被中断");
+    }
+
+    @Test
+    void toolExecutionExceptionBecomesResult() {
+        tool("getDatabaseStructure", n -> {
+            throw new ToolExecutionException(tools.get(0).getToolDefinition(), new IllegalArgumentException("表不存在"));
+        });
+        sleepingTool("getCachedSql", 0);
+        manager(8, 8, Duration.ofSeconds(5));
+
+        List<String> results = execute("getDatabaseStructure", "getCachedSql");
+
+        assertEquals("表不存在", results.get(0));
+        assertEquals("getCachedSql done", results.get(1));
+    }
+
+    @Test
+    void otherExceptionsPropagateAndCancelRemainingCalls() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        // 等另一个调用开始后再失败，确保被取消的是正在执行的调用，而不是尚未开始的任务
+        tool("getDatabaseTables", n -> {
+            try {
+                started.await(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("连接失败");
+        });
+        tool("getDatabaseStructure", n -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+                return "不应返回";
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                return "interrupted";
+            }
+        });
+        manager(8, 8, Duration.ofSeconds(30));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> execute("getDatabaseTables", "getDatabaseStructure"));
+
+        assertEquals("连接失败", e.getMessage());
+        assertEquals(0, started.getCount(), "其余调用没有开始执行");
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS), "其余调用没有被取消");
+    }
+
+    @Test
+    void unknownToolFailsBeforeAnyCall() {
+        sleepingTool("getCachedSql", 0);
+        manager(8, 8, Duration.ofSeconds(5));
+
+        assertThrows(IllegalStateException.class, () -> execute("getCachedSql", "dropTable"));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void fullQueueRunsOverflowOnCallerThread() {
+        sleepingTool("getDatabaseTables", 200);
+        sleepingTool("getDatabaseStructure", 0);
+        sleepingTool("getCachedSql", 0);
+        manager(1, 1, Duration.ofSeconds(5));
+
+        List<String> results = execute("getDatabaseTables", "getDatabaseStructure", "getCachedSql");
+
+        assertEquals(List.of("getDatabaseTables done", "getDatabaseStructure done", "getCachedSql done"), results);
+        assertNotEquals(Thread.currentThread().getName(), threads.get("getDatabaseTables"));
+        assertNotEquals(Thread.currentThread().getName(), threads.get("getDatabaseStructure"));
+        assertEquals(Thread.currentThread().getName(), threads.get("getCachedSql"));
+    }
+}
@@ -0,0 +1,30 @@
+package com.simonking.boot.mcpserver.cache;
+
+import java.time.Instant;
+
+
+/**
+ * <p>PURPOSE: 缓存的SQL
+ * <p>DESCRIPTION: 查询描述与其生成的SQL
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @param description 原始查询描述
+ * @param sql         不含分页的SQL
+ * @param cacheTime   缓存时间
+ * @author wanjian
+ * @version 1.0
+ * @since java 1.8
+ */
+public record CachedSql(String description, String sql, Instant cacheTime) {
+
+    /**
+     * 缓存权重：查询描述与SQL的字符数
+     */
+    public int weight() {
+        return description.length() + sql.length();
+    }
+}
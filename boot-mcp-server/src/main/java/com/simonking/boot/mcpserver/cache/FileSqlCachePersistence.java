@@ -0,0 +1,156 @@
+package com.simonking.boot.mcpserver.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.simonking.boot.mcpserver.config.SqlQueryProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * <p>PURPOSE: SQL缓存持久化到本地追加日志
+ * <p>DESCRIPTION: 每行一条JSON记录（put/clear），启动时顺序回放恢复缓存，并用存活条目重写日志以控制文件大小
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "mcp.sql.sql-cache.persistence", name = "type", havingValue = "FILE")
+public class FileSqlCachePersistence implements SqlCachePersistence {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Autowired
+    private SqlQueryProperties properties;
+
+    private BufferedWriter writer;
+
+    @Override
+    public Map<String, CachedSql> loadAll() throws IOException {
+        Map<String, CachedSql> entries = new LinkedHashMap<>();
+        Path path = logPath();
+        if (!Files.exists(path)) {
+            return entries;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                JsonNode record;
+                try {
+                    record = MAPPER.readTree(line);
+                } catch (IOException e) {
+                    // 进程异常退出可能留下不完整的最后一行
+                    log.warn("跳过无法解析的SQL缓存日志行: {}", line);
+                    continue;
+                }
+                if ("clear".equals(record.path("op").asText())) {
+                    entries.clear();
+                } else {
+                    String key = record.path("key").asText();
+                    entries.remove(key);
+                    entries.put(key, new CachedSql(record.path("description").asText(),
+                            record.path("sql").asText(), Instant.ofEpochMilli(record.path("cacheTime").asLong())));
+                }
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public synchronized void save(String key, CachedSql value) throws IOException {
+        ObjectNode record = MAPPER.createObjectNode();
+        record.put("op", "put");
+        record.put("key", key);
+        record.put("description", value.description());
+        record.put("sql", value.sql());
+        record.put("cacheTime", value.cacheTime().toEpochMilli());
+        append(record);
+    }
+
+    @Override
+    public synchronized void clear() throws IOException {
+        ObjectNode record = MAPPER.createObjectNode();
+        record.put("op", "clear");
+        append(record);
+    }
+
+    @Override
+    public synchronized void compact(Map<String, CachedSql> live) throws IOException {
+        closeWriter();
+        Path path = logPath();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, CachedSql> entry : live.entrySet()) {
+                ObjectNode record = MAPPER.createObjectNode();
+                record.put("op", "put");
+                record.put("key", entry.getKey());
+                record.put("description", entry.getValue().description());
+                record.put("sql", entry.getValue().sql());
+                record.put("cacheTime", entry.getValue().cacheTime().toEpochMilli());
+                out.write(MAPPER.writeValueAsString(record));
+                out.newLine();
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        try {
+            closeWriter();
+        } catch (IOException e) {
+            log.warn("关闭SQL缓存日志失败: {}", e.getMessage());
+        }
+    }
+
+    private void append(JsonNode record) throws IOException {
+        if (writer == null) {
+            Path path = logPath();
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        writer.write(MAPPER.writeValueAsString(record));
+        writer.newLine();
+        writer.flush();
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private Path logPath() {
+        return Paths.get(properties.getSqlCache().getPersistence().getFile());
+    }
+}
@@ -0,0 +1,85 @@
+package com.simonking.boot.mcpserver.cache;
+
+import com.simonking.boot.mcpserver.config.SqlQueryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * <p>PURPOSE: SQL缓存持久化到MySQL表
+ * <p>DESCRIPTION: 使用现有数据源，表不存在时自动创建；写入为按缓存键的upsert
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "mcp.sql.sql-cache.persistence", name = "type", havingValue = "JDBC")
+public class JdbcSqlCachePersistence implements SqlCachePersistence {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SqlQueryProperties properties;
+
+    private volatile boolean tableReady;
+
+    @Override
+    public Map<String, CachedSql> loadAll() {
+        ensureTable();
+        Map<String, CachedSql> entries = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT cache_key, description, sql_text, cache_time FROM " + table()
+                + " ORDER BY cache_time", rs -> {
+            entries.put(rs.getString("cache_key"), new CachedSql(rs.getString("description"),
+                    rs.getString("sql_text"), rs.getTimestamp("cache_time").toInstant()));
+        });
+        return entries;
+    }
+
+    @Override
+    public void save(String key, CachedSql value) {
+        ensureTable();
+        jdbcTemplate.update("INSERT INTO " + table() + " (cache_key, description, sql_text, cache_time)"
+                        + " VALUES (?, ?, ?, ?)"
+                        + " ON DUPLICATE KEY UPDATE description = VALUES(description),"
+                        + " sql_text = VALUES(sql_text), cache_time = VALUES(cache_time)",
+                key, value.description(), value.sql(), Timestamp.from(value.cacheTime()));
+    }
+
+    @Override
+    public void clear() {
+        ensureTable();
+        jdbcTemplate.update("DELETE FROM " + table());
+    }
+
+    private void ensureTable() {
+        if (tableReady) return;
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table() + " ("
+                + " cache_key VARCHAR(500) NOT NULL COMMENT '缓存键（规范化的查询描述）',"
+                + " description VARCHAR(1000) NOT NULL COMMENT '原始查询描述',"
+                + " sql_text TEXT NOT NULL COMMENT 'SQL语句',"
+                + " cache_time DATETIME(3) NOT NULL COMMENT '缓存时间',"
+                + " PRIMARY KEY (cache_key)"
+                + ") COMMENT 'MCP服务SQL缓存'");
+        tableReady = true;
+    }
+
+    private String table() {
+        return properties.getSqlCache().getPersistence().getTable();
+    }
+}
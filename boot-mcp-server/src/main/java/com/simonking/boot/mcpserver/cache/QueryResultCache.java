@@ -0,0 +1,168 @@
+package com.simonking.boot.mcpserver.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.simonking.boot.mcpserver.config.SqlQueryProperties;
+import com.simonking.boot.mcpserver.sql.SqlNormalizer;
+import com.simonking.boot.mcpserver.sql.SqlTables;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * <p>PURPOSE: 查询结果缓存
+ * <p>DESCRIPTION: 按规范化SQL+分页参数缓存executeQuery的分页结果，
+ * 有效期按查询涉及的表配置（取最短），总占用按估算字节数限制，支持按表手动失效。
+ * 默认关闭，通过 mcp.sql.result-cache.enabled 开启
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Component
+@Slf4j
+public class QueryResultCache {
+
+    @Autowired
+    private SqlQueryProperties properties;
+
+    private Cache<String, Entry> cache;
+
+    @PostConstruct
+    public void init() {
+        SqlQueryProperties.ResultCache config = properties.getResultCache();
+        cache = Caffeine.newBuilder()
+                .maximumWeight(config.isEnabled() ? config.getMaxBytes() : 0)
+                .weigher((String key, Entry entry) -> (int) Math.min(Integer.MAX_VALUE, entry.weight()))
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return entry.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return properties.getResultCache().isEnabled();
+    }
+
+    /**
+     * 生成缓存键：规范化SQL + 页码 + 每页大小 + 游标（传入游标时页码由游标决定）+ 结果格式
+     */
+    public static String keyOf(String sql, int page, int pageSize, String cursor, String format) {
+        boolean hasCursor = cursor != null && !cursor.trim().isEmpty();
+        return SqlNormalizer.normalize(sql) + "|" + (hasCursor ? 0 : page) + "|" + pageSize
+                + "|" + (hasCursor ? cursor.trim() : "") + "|" + format;
+    }
+
+    public Entry get(String key) {
+        return isEnabled() ? cache.getIfPresent(key) : null;
+    }
+
+    public void put(String key, String sql, Map<String, Object> result) {
+        if (!isEnabled()) return;
+        Set<String> tables = SqlTables.extract(sql);
+        Duration ttl = ttlFor(tables);
+        if (ttl.isZero() || ttl.isNegative()) return;
+        cache.put(key, new Entry(result, tables, Instant.now(), ttl, estimateWeight(key, result)));
+    }
+
+    /**
+     * 使涉及指定表的缓存结果失效，表名为空时清空全部
+     *
+     * @return 失效的条数
+     */
+    public long invalidate(String tableName) {
+        if (tableName == null || tableName.trim().isEmpty()) {
+            long size = cache.estimatedSize();
+            cache.invalidateAll();
+            return size;
+        }
+        String table = tableName.trim().replace("`", "").toLowerCase(Locale.ROOT);
+        long before = cache.estimatedSize();
+        cache.asMap().values().removeIf(entry -> entry.tables().stream().anyMatch(t -> SqlTables.matches(table, t)));
+        return before - cache.estimatedSize();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private Duration ttlFor(Set<String> tables) {
+        SqlQueryProperties.ResultCache config = properties.getResultCache();
+        Duration ttl = null;
+        for (String table : tables) {
+            Duration tableTtl = config.getDefaultTtl();
+            for (Map.Entry<String, Duration> configured : config.getTableTtl().entrySet()) {
+                if (SqlTables.matches(configured.getKey(), table)) {
+                    tableTtl = configured.getValue();
+                    break;
+                }
+            }
+            if (ttl == null || tableTtl.compareTo(ttl) < 0) {
+                ttl = tableTtl;
+            }
+        }
+        return ttl != null ? ttl : config.getDefaultTtl();
+    }
+
+    /**
+     * 估算结果占用的字节数：字符按2字节计，每个值另加固定开销
+     */
+    private long estimateWeight(String key, Map<String, Object> result) {
+        long weight = 64L + key.length() * 2L;
+        for (Object value : result.values()) {
+            weight += 32;
+            if (value instanceof CharSequence text) {
+                weight += text.length() * 2L;
+            } else if (value instanceof Map<?, ?> map) {
+                weight += map.size() * 64L;
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * 缓存条目
+     *
+     * @param result   executeWithPagination返回的分页结果
+     * @param tables   查询涉及的表
+     * @param cachedAt 缓存时间
+     * @param ttl      有效期
+     * @param weight   估算字节数
+     */
+    public record Entry(Map<String, Object> result, Set<String> tables, Instant cachedAt, Duration ttl, long weight) {
+    }
+}
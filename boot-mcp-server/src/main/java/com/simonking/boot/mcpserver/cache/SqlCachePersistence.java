@@ -0,0 +1,47 @@
+package com.simonking.boot.mcpserver.cache;
+
+import java.util.Map;
+
+
+/**
+ * <p>PURPOSE: SQL缓存持久化
+ * <p>DESCRIPTION: 由 {@link SqlCacheStore} 在后台单线程中调用写入方法，启动时调用 {@link #loadAll()} 恢复缓存。
+ * 实现通过 mcp.sql.sql-cache.persistence.type 选择
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public interface SqlCachePersistence {
+
+    /**
+     * 加载全部已持久化的缓存，按写入顺序返回
+     *
+     * @return key -> 缓存的SQL
+     */
+    Map<String, CachedSql> loadAll() throws Exception;
+
+    /**
+     * 写入一条缓存
+     */
+    void save(String key, CachedSql value) throws Exception;
+
+    /**
+     * 清空已持久化的缓存
+     */
+    void clear() throws Exception;
+
+    /**
+     * 恢复完成后调用，实现可在此压缩存储（如重写追加日志）
+     *
+     * @param live 恢复后仍在缓存中的条目
+     */
+    default void compact(Map<String, CachedSql> live) throws Exception {
+    }
+}
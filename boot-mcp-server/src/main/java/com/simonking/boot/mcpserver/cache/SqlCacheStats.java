@@ -0,0 +1,29 @@
+package com.simonking.boot.mcpserver.cache;
+
+
+/**
+ * <p>PURPOSE: SQL缓存统计
+ * <p>DESCRIPTION: 命中、未命中、淘汰次数及当前容量
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @param policy    淘汰策略
+ * @param size      当前条数
+ * @param weight    当前权重
+ * @param hits      命中次数
+ * @param misses    未命中次数
+ * @param evictions 淘汰次数（容量或过期）
+ * @author wanjian
+ * @version 1.0
+ * @since java 1.8
+ */
+public record SqlCacheStats(String policy, long size, long weight, long hits, long misses, long evictions) {
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
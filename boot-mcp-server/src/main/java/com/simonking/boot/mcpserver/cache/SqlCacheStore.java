@@ -0,0 +1,435 @@
+package com.simonking.boot.mcpserver.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.simonking.boot.mcpserver.config.SqlQueryProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+
+/**
+ * <p>PURPOSE: 查询描述 -> SQL 缓存
+ * <p>DESCRIPTION: 有界缓存，支持按条数/权重限制、TTL过期，淘汰策略可选LRU或W-TinyLFU，
+ * 并记录命中、未命中、淘汰次数；同时维护查询描述的相似度索引，支持模糊查找。
+ * 配置了持久化时，写入在后台单线程异步落盘，启动时批量恢复，恢复条数和耗时导出为
+ * mcp.sql.cache.restored.entries、mcp.sql.cache.restore.duration 指标
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Component
+@Slf4j
+public class SqlCacheStore {
+
+    @Autowired
+    private SqlQueryProperties properties;
+
+    @Autowired(required = false)
+    private SqlCachePersistence persistence;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final SqlSimilarityIndex similarityIndex = new SqlSimilarityIndex();
+
+    private Backend backend;
+
+    // 持久化写入线程，单线程保证写入顺序
+    private ExecutorService persistExecutor;
+
+    // 启动恢复指标
+    private volatile long restoredEntries;
+    private volatile long restoreMillis;
+
+    @PostConstruct
+    public void init() {
+        SqlQueryProperties.SqlCache config = properties.getSqlCache();
+        // 淘汰或过期的条目同步移出相似度索引
+        Consumer<String> onEvict = similarityIndex::remove;
+        if (config.getEviction() != SqlQueryProperties.Eviction.LRU && config.getMaxWeight() > 0) {
+            // Caffeine只能按条数或按权重二选一限制，LRU策略两者同时生效
+            log.warn("SQL缓存策略TINY_LFU配置了max-weight={}，按权重淘汰，max-entries={}不生效；需要同时限制条数和权重请使用LRU",
+                    config.getMaxWeight(), config.getMaxEntries());
+        }
+        backend = config.getEviction() == SqlQueryProperties.Eviction.LRU
+                ? new LruBackend(config.getMaxEntries(), config.getMaxWeight(), config.getTtl(), onEvict)
+                : new CaffeineBackend(config.getMaxEntries(), config.getMaxWeight(), config.getTtl(), onEvict);
+        log.info("SQL缓存初始化完成: 策略={}, 最大条数={}, 最大权重={}, 有效期={}",
+                config.getEviction(), config.getMaxEntries(), config.getMaxWeight(), config.getTtl());
+
+        if (persistence != null) {
+            persistExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "sql-cache-persist");
+                thread.setDaemon(true);
+                return thread;
+            });
+            restore(config.getTtl());
+        }
+        registerRestoreMetrics();
+    }
+
+    /**
+     * 启动恢复指标（未配置持久化时为0）
+     */
+    private void registerRestoreMetrics() {
+        String type = getPersistenceType().name().toLowerCase();
+        Gauge.builder("mcp.sql.cache.restored.entries", this, SqlCacheStore::getRestoredEntries)
+                .description("启动时从持久化存储恢复的SQL缓存条数")
+                .tag("persistence", type)
+                .register(meterRegistry);
+        TimeGauge.builder("mcp.sql.cache.restore.duration", this, TimeUnit.MILLISECONDS, SqlCacheStore::getRestoreMillis)
+                .description("启动时恢复SQL缓存的耗时")
+                .tag("persistence", type)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (persistExecutor != null) {
+            persistExecutor.shutdown();
+            if (!persistExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("SQL缓存持久化队列未在5秒内写完，剩余写入将丢失");
+            }
+        }
+    }
+
+    /**
+     * 从持久化存储批量恢复未过期的缓存
+     */
+    private void restore(Duration ttl) {
+        long start = System.nanoTime();
+        try {
+            Map<String, CachedSql> loaded = persistence.loadAll();
+            Instant expiredBefore = Instant.now().minus(ttl);
+            for (Map.Entry<String, CachedSql> entry : loaded.entrySet()) {
+                if (entry.getValue().cacheTime().isAfter(expiredBefore)) {
+                    backend.put(entry.getKey(), entry.getValue());
+                    similarityIndex.add(entry.getKey(), entry.getValue().description());
+                }
+            }
+            restoredEntries = backend.size();
+            restoreMillis = (System.nanoTime() - start) / 1_000_000;
+            log.info("SQL缓存恢复完成: 读取{}条, 恢复{}条, 耗时{}ms", loaded.size(), restoredEntries, restoreMillis);
+
+            Map<String, CachedSql> live = new LinkedHashMap<>();
+            backend.snapshot().forEach(e -> live.put(e.getKey(), e.getValue()));
+            persistAsync("压缩", () -> persistence.compact(live));
+        } catch (Exception e) {
+            log.error("SQL缓存恢复失败，将以空缓存启动", e);
+        }
+    }
+
+    private void persistAsync(String action, PersistTask task) {
+        if (persistExecutor == null) return;
+        persistExecutor.execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.warn("SQL缓存持久化{}失败: {}", action, e.getMessage());
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface PersistTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * 生成缓存键：简化查询描述，去除特殊字符和多余空格，转小写
+     */
+    public static String keyOf(String queryDescription) {
+        return queryDescription.trim().toLowerCase()
+                .replaceAll("[^a-zA-Z0-9\\u4e00-\\u9fa5\\s]", "")
+                .replaceAll("\\s+", " ");
+    }
+
+    public CachedSql get(String key) {
+        return backend.get(key);
+    }
+
+    public void put(String key, CachedSql value) {
+        backend.put(key, value);
+        similarityIndex.add(key, value.description());
+        persistAsync("写入", () -> persistence.save(key, value));
+    }
+
+    /**
+     * 按查询描述相似度查找缓存的SQL（不影响命中统计）
+     *
+     * @param queryDescription 查询描述
+     * @return 相似度不低于阈值的缓存SQL，按相似度降序
+     */
+    public List<SimilarSql> findSimilar(String queryDescription) {
+        SqlQueryProperties.SqlCache config = properties.getSqlCache();
+        List<SimilarSql> result = new ArrayList<>();
+        for (SqlSimilarityIndex.Match match : similarityIndex.search(queryDescription,
+                config.getSimilarityThreshold(), config.getSimilarityMaxResults())) {
+            CachedSql cached = backend.peek(match.key());
+            if (cached != null) {
+                result.add(new SimilarSql(cached, match.score()));
+            } else {
+                similarityIndex.remove(match.key());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 清空缓存
+     *
+     * @return 清空前的条数
+     */
+    public long clear() {
+        long size = backend.size();
+        backend.clear();
+        similarityIndex.clear();
+        persistAsync("清空", () -> persistence.clear());
+        return size;
+    }
+
+    public long size() {
+        return backend.size();
+    }
+
+    /**
+     * 当前缓存内容快照（不影响访问顺序和命中统计）
+     */
+    public List<Map.Entry<String, CachedSql>> snapshot() {
+        return backend.snapshot();
+    }
+
+    public SqlCacheStats stats() {
+        return backend.stats();
+    }
+
+    /**
+     * 启动时从持久化存储恢复的条数
+     */
+    public long getRestoredEntries() {
+        return restoredEntries;
+    }
+
+    /**
+     * 启动恢复耗时（毫秒）
+     */
+    public long getRestoreMillis() {
+        return restoreMillis;
+    }
+
+    /**
+     * 持久化方式
+     */
+    public SqlQueryProperties.PersistenceType getPersistenceType() {
+        return persistence == null ? SqlQueryProperties.PersistenceType.NONE
+                : properties.getSqlCache().getPersistence().getType();
+    }
+
+    /**
+     * 相似匹配的缓存SQL
+     *
+     * @param cachedSql 缓存的SQL
+     * @param score     相似度（0~1）
+     */
+    public record SimilarSql(CachedSql cachedSql, double score) {
+    }
+
+    private interface Backend {
+        CachedSql get(String key);
+
+        CachedSql peek(String key);
+
+        void put(String key, CachedSql value);
+
+        void clear();
+
+        long size();
+
+        List<Map.Entry<String, CachedSql>> snapshot();
+
+        SqlCacheStats stats();
+    }
+
+    /**
+     * W-TinyLFU：基于Caffeine，配置了最大权重时只按权重限制（Caffeine不支持同时限制条数和权重）
+     */
+    private static final class CaffeineBackend implements Backend {
+        private final Cache<String, CachedSql> cache;
+        private final boolean weighted;
+
+        CaffeineBackend(long maxEntries, long maxWeight, Duration ttl, Consumer<String> onEvict) {
+            Caffeine<String, CachedSql> builder = Caffeine.newBuilder().expireAfterWrite(ttl).recordStats()
+                    .evictionListener((String key, CachedSql value, RemovalCause cause) -> onEvict.accept(key));
+            this.weighted = maxWeight > 0;
+            if (weighted) {
+                builder.maximumWeight(maxWeight);
+                this.cache = builder.weigher((String key, CachedSql value) -> value.weight()).build();
+            } else {
+                this.cache = builder.maximumSize(maxEntries).build();
+            }
+        }
+
+        @Override
+        public CachedSql get(String key) {
+            return cache.getIfPresent(key);
+        }
+
+        @Override
+        public CachedSql peek(String key) {
+            return cache.policy().getIfPresentQuietly(key);
+        }
+
+        @Override
+        public void put(String key, CachedSql value) {
+            cache.put(key, value);
+        }
+
+        @Override
+        public void clear() {
+            cache.invalidateAll();
+        }
+
+        @Override
+        public long size() {
+            return cache.estimatedSize();
+        }
+
+        @Override
+        public List<Map.Entry<String, CachedSql>> snapshot() {
+            return new ArrayList<>(Map.copyOf(cache.asMap()).entrySet());
+        }
+
+        @Override
+        public SqlCacheStats stats() {
+            CacheStats stats = cache.stats();
+            long weight = weighted
+                    ? cache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L)
+                    : cache.asMap().values().stream().mapToLong(CachedSql::weight).sum();
+            return new SqlCacheStats("TINY_LFU", cache.estimatedSize(), weight,
+                    stats.hitCount(), stats.missCount(), stats.evictionCount());
+        }
+    }
+
+    /**
+     * LRU：访问顺序的LinkedHashMap，按条数和权重淘汰最久未访问的条目
+     */
+    private static final class LruBackend implements Backend {
+        private final LinkedHashMap<String, CachedSql> map = new LinkedHashMap<>(16, 0.75f, true);
+        private final long maxEntries;
+        private final long maxWeight;
+        private final Duration ttl;
+        private final Consumer<String> onEvict;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private long weight;
+
+        LruBackend(long maxEntries, long maxWeight, Duration ttl, Consumer<String> onEvict) {
+            this.maxEntries = maxEntries;
+            this.maxWeight = maxWeight;
+            this.ttl = ttl;
+            this.onEvict = onEvict;
+        }
+
+        @Override
+        public synchronized CachedSql get(String key) {
+            CachedSql value = map.get(key);
+            if (value != null && isExpired(value)) {
+                remove(key);
+                evictions.increment();
+                onEvict.accept(key);
+                value = null;
+            }
+            (value != null ? hits : misses).increment();
+            return value;
+        }
+
+        @Override
+        public synchronized CachedSql peek(String key) {
+            // 不计入命中统计，但与一次访问一样会刷新LRU顺序
+            CachedSql value = map.get(key);
+            return value != null && !isExpired(value) ? value : null;
+        }
+
+        @Override
+        public synchronized void put(String key, CachedSql value) {
+            CachedSql previous = map.put(key, value);
+            weight += value.weight() - (previous != null ? previous.weight() : 0);
+            Iterator<Map.Entry<String, CachedSql>> eldest = map.entrySet().iterator();
+            while (eldest.hasNext() && (map.size() > maxEntries || maxWeight > 0 && weight > maxWeight)) {
+                Map.Entry<String, CachedSql> entry = eldest.next();
+                if (entry.getKey().equals(key) && map.size() == 1) break;
+                weight -= entry.getValue().weight();
+                eldest.remove();
+                evictions.increment();
+                onEvict.accept(entry.getKey());
+            }
+        }
+
+        @Override
+        public synchronized void clear() {
+            map.clear();
+            weight = 0;
+        }
+
+        @Override
+        public synchronized long size() {
+            return map.size();
+        }
+
+        @Override
+        public synchronized List<Map.Entry<String, CachedSql>> snapshot() {
+            List<Map.Entry<String, CachedSql>> entries = new ArrayList<>(map.size());
+            for (Map.Entry<String, CachedSql> entry : map.entrySet()) {
+                if (!isExpired(entry.getValue())) {
+                    entries.add(Map.entry(entry.getKey(), entry.getValue()));
+                }
+            }
+            return entries;
+        }
+
+        @Override
+        public synchronized SqlCacheStats stats() {
+            return new SqlCacheStats("LRU", map.size(), weight, hits.sum(), misses.sum(), evictions.sum());
+        }
+
+        private void remove(String key) {
+            CachedSql removed = map.remove(key);
+            if (removed != null) {
+                weight -= removed.weight();
+            }
+        }
+
+        private boolean isExpired(CachedSql value) {
+            return value.cacheTime().plus(ttl).isBefore(Instant.now());
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.simonking.boot.mcpserver.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+
+/**
+ * <p>PURPOSE: 查询描述相似度索引
+ * <p>DESCRIPTION: 对查询描述取字符2-gram/3-gram集合，计算MinHash签名并按LSH分桶，
+ * 查询时只比较同桶候选的签名，估算Jaccard相似度，万级条目下可在亚毫秒内返回最相似的缓存描述。
+ * 例如 "查询2024年各区划归集总数" 与 "2024年每个区划的归集总量"
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public class SqlSimilarityIndex {
+
+    private static final int NUM_HASHES = 64;
+    private static final int BANDS = 16;
+    private static final int ROWS_PER_BAND = NUM_HASHES / BANDS;
+    private static final long[] SEEDS_A = new long[NUM_HASHES];
+    private static final long[] SEEDS_B = new long[NUM_HASHES];
+
+    // 描述中的通用词，不参与相似度计算
+    private static final String[] STOP_WORDS = {"查询", "统计", "一下", "请", "帮我", "的", "每个", "各"};
+
+    static {
+        Random random = new Random(20261017L);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            SEEDS_A[i] = random.nextLong() | 1L;
+            SEEDS_B[i] = random.nextLong();
+        }
+    }
+
+    // key -> MinHash签名
+    private final Map<String, int[]> signatures = new ConcurrentHashMap<>();
+    // 每个band一张桶表：band哈希 -> key集合
+    private final List<Map<Long, Set<String>>> buckets = new ArrayList<>(BANDS);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public SqlSimilarityIndex() {
+        for (int i = 0; i < BANDS; i++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    public void add(String key, String description) {
+        int[] signature = signature(description);
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+            signatures.put(key, signature);
+            for (int band = 0; band < BANDS; band++) {
+                buckets.get(band).computeIfAbsent(bandHash(signature, band), k -> new HashSet<>()).add(key);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            signatures.clear();
+            buckets.forEach(Map::clear);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+
+    /**
+     * 查找相似度不低于阈值的描述，按相似度降序
+     *
+     * @param description 查询描述
+     * @param threshold   相似度阈值（0~1，估算的Jaccard系数）
+     * @param limit       最多返回条数
+     */
+    public List<Match> search(String description, double threshold, int limit) {
+        int[] query = signature(description);
+        Set<String> candidates = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            for (int band = 0; band < BANDS; band++) {
+                Set<String> bucket = buckets.get(band).get(bandHash(query, band));
+                if (bucket != null) {
+                    candidates.addAll(bucket);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (String key : candidates) {
+            int[] signature = signatures.get(key);
+            if (signature == null) continue;
+            int same = 0;
+            for (int i = 0; i < NUM_HASHES; i++) {
+                if (signature[i] == query[i]) same++;
+            }
+            double score = (double) same / NUM_HASHES;
+            if (score >= threshold) {
+                matches.add(new Match(key, score));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Match::score).reversed());
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    private void removeLocked(String key) {
+        int[] signature = signatures.remove(key);
+        if (signature == null) return;
+        for (int band = 0; band < BANDS; band++) {
+            long hash = bandHash(signature, band);
+            Set<String> bucket = buckets.get(band).get(hash);
+            if (bucket != null) {
+                bucket.remove(key);
+                if (bucket.isEmpty()) {
+                    buckets.get(band).remove(hash);
+                }
+            }
+        }
+    }
+
+    /**
+     * 计算字符2-gram和3-gram集合的MinHash签名
+     */
+    static int[] signature(String description) {
+        String text = SqlCacheStore.keyOf(description).replace(" ", "");
+        for (String stopWord : STOP_WORDS) {
+            text = text.replace(stopWord, "");
+        }
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        if (text.length() < 2) {
+            updateSignature(signature, text.hashCode());
+            return signature;
+        }
+        for (int n = 2; n <= 3; n++) {
+            for (int i = 0; i + n <= text.length(); i++) {
+                updateSignature(signature, text.substring(i, i + n).hashCode() * 31 + n);
+            }
+        }
+        return signature;
+    }
+
+    private static void updateSignature(int[] signature, int shingleHash) {
+        for (int i = 0; i < NUM_HASHES; i++) {
+            int hash = (int) ((SEEDS_A[i] * shingleHash + SEEDS_B[i]) >>> 32);
+            if (hash < signature[i]) {
+                signature[i] = hash;
+            }
+        }
+    }
+
+    private static long bandHash(int[] signature, int band) {
+        long hash = band;
+        for (int i = band * ROWS_PER_BAND; i < (band + 1) * ROWS_PER_BAND; i++) {
+            hash = hash * 1_000_003L + signature[i];
+        }
+        return hash;
+    }
+
+    /**
+     * 相似匹配结果
+     *
+     * @param key   缓存键
+     * @param score 估算的Jaccard相似度
+     */
+    public record Match(String key, double score) {
+    }
+}
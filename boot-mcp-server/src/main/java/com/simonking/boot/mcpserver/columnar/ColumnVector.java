@@ -0,0 +1,441 @@
+package com.simonking.boot.mcpserver.columnar;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * <p>PURPOSE: 列存储
+ * <p>DESCRIPTION: 本地列式缓存中的一列，按列类型选择存储方式：整数和小数（精度不超过18位）保存为long数组（小数按scale放大），
+ * 浮点数保存为double数组，字符串按字典编码为int数组，其他类型（日期时间、大字段等）按对象保存，只能原样输出不参与计算。
+ * 空值用位图记录。列创建后不再修改，刷新时整列重建
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public abstract class ColumnVector {
+
+    private final String name;
+    private final int sqlType;
+    private final String typeName;
+    protected final BitSet nulls;
+    protected final int size;
+
+    ColumnVector(String name, int sqlType, String typeName, BitSet nulls, int size) {
+        this.name = name;
+        this.sqlType = sqlType;
+        this.typeName = typeName;
+        this.nulls = nulls;
+        this.size = size;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int sqlType() {
+        return sqlType;
+    }
+
+    public String typeName() {
+        return typeName;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int row) {
+        return nulls.get(row);
+    }
+
+    /**
+     * 与JDBC驱动返回类型一致的值，空值返回null
+     */
+    public abstract Object get(int row);
+
+    /**
+     * 估算占用的堆内存（字节）
+     */
+    public abstract long estimatedBytes();
+
+    /**
+     * 按JDBC列类型创建构建器
+     *
+     * @param precision 小数精度（列元数据）
+     * @param scale     小数位数（列元数据）
+     */
+    public static Builder builder(String name, int sqlType, String typeName, int precision, int scale) {
+        return switch (sqlType) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT -> new LongColumn.Builder(name, sqlType, typeName, 0);
+            case Types.DECIMAL, Types.NUMERIC -> scale >= 0 && scale <= 9 && precision > 0 && precision <= 18
+                    ? new LongColumn.Builder(name, sqlType, typeName, scale)
+                    : new ObjectColumn.Builder(name, sqlType, typeName);
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> new DoubleColumn.Builder(name, sqlType, typeName);
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR ->
+                    new DictionaryColumn.Builder(name, sqlType, typeName);
+            default -> new ObjectColumn.Builder(name, sqlType, typeName);
+        };
+    }
+
+    /**
+     * 按同一列的已有向量创建构建器（增量刷新时合并新旧数据）
+     */
+    public static Builder builderLike(ColumnVector vector) {
+        if (vector instanceof LongColumn column) {
+            return new LongColumn.Builder(column.name(), column.sqlType(), column.typeName(), column.scale());
+        }
+        if (vector instanceof DoubleColumn) {
+            return new DoubleColumn.Builder(vector.name(), vector.sqlType(), vector.typeName());
+        }
+        if (vector instanceof DictionaryColumn) {
+            return new DictionaryColumn.Builder(vector.name(), vector.sqlType(), vector.typeName());
+        }
+        return new ObjectColumn.Builder(vector.name(), vector.sqlType(), vector.typeName());
+    }
+
+    /**
+     * 列构建器，按行追加值
+     */
+    public abstract static class Builder {
+        protected final String name;
+        protected final int sqlType;
+        protected final String typeName;
+        protected final BitSet nulls = new BitSet();
+        protected int size;
+
+        Builder(String name, int sqlType, String typeName) {
+            this.name = name;
+            this.sqlType = sqlType;
+            this.typeName = typeName;
+        }
+
+        /**
+         * 追加一个值，类型与列不符时抛出 {@link IllegalArgumentException}
+         */
+        public final void append(Object value) {
+            if (value == null) {
+                nulls.set(size);
+                appendNull();
+            } else {
+                appendValue(value);
+            }
+            size++;
+        }
+
+        protected abstract void appendNull();
+
+        protected abstract void appendValue(Object value);
+
+        public abstract ColumnVector build();
+
+        protected static int grow(int length, int size) {
+            return size < length ? length : Math.max(16, length + (length >> 1));
+        }
+    }
+
+    /**
+     * 整数或定点小数列（小数保存按scale放大后的long）
+     */
+    public static final class LongColumn extends ColumnVector {
+        private final long[] values;
+        private final int scale;
+
+        private LongColumn(String name, int sqlType, String typeName, BitSet nulls, int size, long[] values, int scale) {
+            super(name, sqlType, typeName, nulls, size);
+            this.values = values;
+            this.scale = scale;
+        }
+
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        public int scale() {
+            return scale;
+        }
+
+        /**
+         * 是否为定点小数（取值为BigDecimal）
+         */
+        public boolean isDecimal() {
+            return sqlType() == Types.DECIMAL || sqlType() == Types.NUMERIC;
+        }
+
+        @Override
+        public Object get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            if (isDecimal()) {
+                return BigDecimal.valueOf(values[row], scale);
+            }
+            long value = values[row];
+            // INT UNSIGNED 的驱动取值为Long
+            return sqlType() == Types.BIGINT || value != (int) value ? Long.valueOf(value) : Integer.valueOf((int) value);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return 8L * values.length;
+        }
+
+        static final class Builder extends ColumnVector.Builder {
+            private final int scale;
+            private long[] values = new long[16];
+
+            Builder(String name, int sqlType, String typeName, int scale) {
+                super(name, sqlType, typeName);
+                this.scale = scale;
+            }
+
+            @Override
+            protected void appendNull() {
+                add(0);
+            }
+
+            @Override
+            protected void appendValue(Object value) {
+                if (value instanceof BigDecimal decimal) {
+                    // 超出scale或long范围时抛出ArithmeticException，由加载方放弃缓存该表
+                    add(decimal.setScale(scale).unscaledValue().longValueExact());
+                } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                    add(BigDecimal.valueOf(((Number) value).longValue()).setScale(scale).unscaledValue().longValueExact());
+                } else {
+                    throw new IllegalArgumentException("列 " + name + " 的值类型不是整数或小数: " + value.getClass().getName());
+                }
+            }
+
+            private void add(long value) {
+                values = values.length == size ? Arrays.copyOf(values, grow(values.length, size)) : values;
+                values[size] = value;
+            }
+
+            @Override
+            public ColumnVector build() {
+                return new LongColumn(name, sqlType, typeName, nulls, size, Arrays.copyOf(values, size), scale);
+            }
+        }
+    }
+
+    /**
+     * 浮点数列
+     */
+    public static final class DoubleColumn extends ColumnVector {
+        private final double[] values;
+
+        private DoubleColumn(String name, int sqlType, String typeName, BitSet nulls, int size, double[] values) {
+            super(name, sqlType, typeName, nulls, size);
+            this.values = values;
+        }
+
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public Object get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            return sqlType() == Types.REAL ? Float.valueOf((float) values[row]) : Double.valueOf(values[row]);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return 8L * values.length;
+        }
+
+        static final class Builder extends ColumnVector.Builder {
+            private double[] values = new double[16];
+
+            Builder(String name, int sqlType, String typeName) {
+                super(name, sqlType, typeName);
+            }
+
+            @Override
+            protected void appendNull() {
+                add(0);
+            }
+
+            @Override
+            protected void appendValue(Object value) {
+                if (!(value instanceof Number number)) {
+                    throw new IllegalArgumentException("列 " + name + " 的值类型不是数值: " + value.getClass().getName());
+                }
+                add(number.doubleValue());
+            }
+
+            private void add(double value) {
+                values = values.length == size ? Arrays.copyOf(values, grow(values.length, size)) : values;
+                values[size] = value;
+            }
+
+            @Override
+            public ColumnVector build() {
+                return new DoubleColumn(name, sqlType, typeName, nulls, size, Arrays.copyOf(values, size));
+            }
+        }
+    }
+
+    /**
+     * 字典编码的字符串列：每行保存字典下标（空值为-1），相同取值只保存一份。
+     * 另记录每个字典项的规范编码（忽略大小写和末尾空格后第一个相同取值的下标），与MySQL默认的排序规则一致地分组和关联
+     */
+    public static final class DictionaryColumn extends ColumnVector {
+        private final int[] codes;
+        private final String[] dictionary;
+        private final int[] canonical;
+
+        private DictionaryColumn(String name, int sqlType, String typeName, BitSet nulls, int size, int[] codes,
+                                 String[] dictionary, int[] canonical) {
+            super(name, sqlType, typeName, nulls, size);
+            this.codes = codes;
+            this.dictionary = dictionary;
+            this.canonical = canonical;
+        }
+
+        /**
+         * 行的字典下标，空值为-1
+         */
+        public int code(int row) {
+            return codes[row];
+        }
+
+        /**
+         * 行的规范编码（忽略大小写和末尾空格），空值为-1
+         */
+        public int canonicalCode(int row) {
+            int code = codes[row];
+            return code < 0 ? -1 : canonical[code];
+        }
+
+        public String value(int code) {
+            return dictionary[code];
+        }
+
+        public int dictionarySize() {
+            return dictionary.length;
+        }
+
+        @Override
+        public Object get(int row) {
+            int code = codes[row];
+            return code < 0 ? null : dictionary[code];
+        }
+
+        @Override
+        public long estimatedBytes() {
+            long bytes = 8L * codes.length;
+            for (String value : dictionary) {
+                bytes += 48 + 2L * value.length();
+            }
+            return bytes;
+        }
+
+        static final class Builder extends ColumnVector.Builder {
+            private final Map<String, Integer> index = new HashMap<>();
+            private final Map<String, Integer> folded = new HashMap<>();
+            private final List<String> dictionary = new ArrayList<>();
+            private final List<Integer> canonical = new ArrayList<>();
+            private int[] codes = new int[16];
+
+            Builder(String name, int sqlType, String typeName) {
+                super(name, sqlType, typeName);
+            }
+
+            @Override
+            protected void appendNull() {
+                add(-1);
+            }
+
+            @Override
+            protected void appendValue(Object value) {
+                String text = value.toString();
+                Integer code = index.get(text);
+                if (code == null) {
+                    code = dictionary.size();
+                    index.put(text, code);
+                    dictionary.add(text);
+                    canonical.add(folded.computeIfAbsent(Values.foldText(text), key -> dictionary.size() - 1));
+                }
+                add(code);
+            }
+
+            private void add(int code) {
+                codes = codes.length == size ? Arrays.copyOf(codes, grow(codes.length, size)) : codes;
+                codes[size] = code;
+            }
+
+            @Override
+            public ColumnVector build() {
+                return new DictionaryColumn(name, sqlType, typeName, nulls, size, Arrays.copyOf(codes, size),
+                        dictionary.toArray(new String[0]), canonical.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+    }
+
+    /**
+     * 其他类型的列，按对象保存，只能输出
+     */
+    public static final class ObjectColumn extends ColumnVector {
+        private final Object[] values;
+
+        private ObjectColumn(String name, int sqlType, String typeName, BitSet nulls, int size, Object[] values) {
+            super(name, sqlType, typeName, nulls, size);
+            this.values = values;
+        }
+
+        @Override
+        public Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long estimatedBytes() {
+            // 只计引用，对象本身按每个32字节粗略估算
+            return 40L * values.length;
+        }
+
+        static final class Builder extends ColumnVector.Builder {
+            private Object[] values = new Object[16];
+
+            Builder(String name, int sqlType, String typeName) {
+                super(name, sqlType, typeName);
+            }
+
+            @Override
+            protected void appendNull() {
+                add(null);
+            }
+
+            @Override
+            protected void appendValue(Object value) {
+                add(value);
+            }
+
+            private void add(Object value) {
+                values = values.length == size ? Arrays.copyOf(values, grow(values.length, size)) : values;
+                values[size] = value;
+            }
+
+            @Override
+            public ColumnVector build() {
+                return new ObjectColumn(name, sqlType, typeName, nulls, size, Arrays.copyOf(values, size));
+            }
+        }
+    }
+}
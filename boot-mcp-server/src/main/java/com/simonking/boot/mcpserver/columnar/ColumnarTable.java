@@ -0,0 +1,235 @@
+package com.simonking.boot.mcpserver.columnar;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+
+/**
+ * <p>PURPOSE: 本地列式缓存表
+ * <p>DESCRIPTION: 一张表（或一个时间窗口内的分区）的不可变列式快照。只缓存最近分区时记录覆盖起点 coveredFrom
+ * （增量列大于等于该值的行都在快照中），查询必须带有不早于覆盖起点的增量列条件才能在本地执行。
+ * 刷新时生成新快照整体替换，正在执行的本地查询继续使用旧快照
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public final class ColumnarTable {
+
+    private final String name;
+    private final List<ColumnVector> columns;
+    private final Map<String, Integer> index;
+    private final int rowCount;
+    private final String partitionColumn;
+    private final Object coveredFrom;
+    private final Instant loadedAt;
+
+    private ColumnarTable(String name, List<ColumnVector> columns, int rowCount, String partitionColumn,
+                          Object coveredFrom, Instant loadedAt) {
+        this.name = name;
+        this.columns = Collections.unmodifiableList(columns);
+        this.rowCount = rowCount;
+        this.partitionColumn = partitionColumn;
+        this.coveredFrom = coveredFrom;
+        this.loadedAt = loadedAt;
+        this.index = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            index.putIfAbsent(columns.get(i).name().toLowerCase(Locale.ROOT), i);
+        }
+    }
+
+    /**
+     * 从结果集构建快照
+     *
+     * @param partitionColumn 增量列，全表缓存时为null
+     * @param coveredFrom     覆盖起点，全表缓存时为null
+     * @param maxRows         行数上限，超过时抛出 {@link TooManyRowsException}
+     */
+    public static ColumnarTable load(String name, ResultSet rs, String partitionColumn, Object coveredFrom, int maxRows)
+            throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        ColumnVector.Builder[] builders = new ColumnVector.Builder[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            builders[i] = ColumnVector.builder(metaData.getColumnLabel(i + 1), metaData.getColumnType(i + 1),
+                    metaData.getColumnTypeName(i + 1), metaData.getPrecision(i + 1), metaData.getScale(i + 1));
+        }
+        int rows = 0;
+        while (rs.next()) {
+            if (maxRows > 0 && rows >= maxRows) {
+                throw new TooManyRowsException(name, maxRows);
+            }
+            for (int i = 0; i < columnCount; i++) {
+                builders[i].append(rs.getObject(i + 1));
+            }
+            rows++;
+        }
+        return new ColumnarTable(name, build(builders), rows, partitionColumn, coveredFrom, Instant.now());
+    }
+
+    /**
+     * 增量合并：保留旧快照中增量列在 [coveredFrom, reloadFrom) 内的行，再追加重新加载的行
+     *
+     * @param reloaded    增量列大于等于reloadFrom的最新数据（列与旧快照相同）
+     * @param reloadFrom  重新加载的起点
+     * @param coveredFrom 新快照的覆盖起点，为null时保留全部旧行
+     * @param maxRows     行数上限
+     */
+    public ColumnarTable merge(ColumnarTable reloaded, Object reloadFrom, Object coveredFrom, int maxRows) {
+        int partition = columnIndex(partitionColumn);
+        if (partition < 0 || reloaded.columns.size() != columns.size()) {
+            throw new IllegalStateException("表 " + name + " 的列已变化，需要全量加载");
+        }
+        ColumnVector.Builder[] builders = new ColumnVector.Builder[columns.size()];
+        for (int i = 0; i < builders.length; i++) {
+            builders[i] = ColumnVector.builderLike(columns.get(i));
+        }
+        ColumnVector partitionVector = columns.get(partition);
+        int rows = 0;
+        for (int row = 0; row < rowCount; row++) {
+            Object value = partitionVector.get(row);
+            if (value == null || Values.compare(value, reloadFrom) >= 0
+                    || (coveredFrom != null && Values.compare(value, coveredFrom) < 0)) {
+                continue;
+            }
+            for (int i = 0; i < builders.length; i++) {
+                builders[i].append(columns.get(i).get(row));
+            }
+            rows++;
+        }
+        for (int row = 0; row < reloaded.rowCount; row++) {
+            for (int i = 0; i < builders.length; i++) {
+                builders[i].append(reloaded.columns.get(i).get(row));
+            }
+            rows++;
+        }
+        if (maxRows > 0 && rows > maxRows) {
+            throw new TooManyRowsException(name, maxRows);
+        }
+        return new ColumnarTable(name, build(builders), rows, partitionColumn, coveredFrom, Instant.now());
+    }
+
+    /**
+     * 由本地查询结果构建临时表（FROM中的子查询）
+     */
+    static ColumnarTable of(String name, List<String> labels, List<ColumnVector.Builder> builders, int rowCount) {
+        List<ColumnVector> columns = new ArrayList<>(builders.size());
+        for (ColumnVector.Builder builder : builders) {
+            columns.add(builder.build());
+        }
+        return new ColumnarTable(name, columns, rowCount, null, null, Instant.now());
+    }
+
+    private static List<ColumnVector> build(ColumnVector.Builder[] builders) {
+        List<ColumnVector> columns = new ArrayList<>(builders.length);
+        for (ColumnVector.Builder builder : builders) {
+            columns.add(builder.build());
+        }
+        return columns;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public List<ColumnVector> columns() {
+        return columns;
+    }
+
+    public ColumnVector column(int index) {
+        return columns.get(index);
+    }
+
+    /**
+     * 列下标（大小写不敏感），不存在时返回-1
+     */
+    public int columnIndex(String column) {
+        if (column == null) {
+            return -1;
+        }
+        Integer i = index.get(column.toLowerCase(Locale.ROOT));
+        return i != null ? i : -1;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public String partitionColumn() {
+        return partitionColumn;
+    }
+
+    /**
+     * 覆盖起点，全表缓存时为null
+     */
+    public Object coveredFrom() {
+        return coveredFrom;
+    }
+
+    public Instant loadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * 增量列的最大值，没有数据时返回null
+     */
+    public Object maxPartitionValue() {
+        int partition = columnIndex(partitionColumn);
+        if (partition < 0) {
+            return null;
+        }
+        ColumnVector vector = columns.get(partition);
+        Object max = null;
+        if (vector instanceof ColumnVector.DictionaryColumn dictionary) {
+            // 字典列只需比较字典项
+            for (int code = 0; code < dictionary.dictionarySize(); code++) {
+                String value = dictionary.value(code);
+                if (max == null || Values.compare(value, max) > 0) {
+                    max = value;
+                }
+            }
+            return max;
+        }
+        for (int row = 0; row < rowCount; row++) {
+            Object value = vector.get(row);
+            if (value != null && (max == null || Values.compare(value, max) > 0)) {
+                max = value;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 估算占用的堆内存（字节）
+     */
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (ColumnVector column : columns) {
+            bytes += column.estimatedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * 加载行数超过上限
+     */
+    public static final class TooManyRowsException extends RuntimeException {
+        TooManyRowsException(String table, int maxRows) {
+            super("表 " + table + " 超过本地缓存行数上限 " + maxRows);
+        }
+    }
+}
@@ -0,0 +1,1876 @@
+package com.simonking.boot.mcpserver.columnar;
+
+import com.simonking.boot.mcpserver.sql.ParsedSql;
+import net.sf.jsqlparser.expression.AllValue;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.DoubleValue;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.JdbcParameter;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.NotExpression;
+import net.sf.jsqlparser.expression.NullValue;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.SignedExpression;
+import net.sf.jsqlparser.expression.StringValue;
+import net.sf.jsqlparser.expression.operators.arithmetic.Addition;
+import net.sf.jsqlparser.expression.operators.arithmetic.Division;
+import net.sf.jsqlparser.expression.operators.arithmetic.Modulo;
+import net.sf.jsqlparser.expression.operators.arithmetic.Multiplication;
+import net.sf.jsqlparser.expression.operators.arithmetic.Subtraction;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+import net.sf.jsqlparser.expression.operators.relational.Between;
+import net.sf.jsqlparser.expression.operators.relational.ComparisonOperator;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.InExpression;
+import net.sf.jsqlparser.expression.operators.relational.IsNullExpression;
+import net.sf.jsqlparser.expression.operators.relational.LikeExpression;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.NotEqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.ParenthesedExpressionList;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.select.AllColumns;
+import net.sf.jsqlparser.statement.select.AllTableColumns;
+import net.sf.jsqlparser.statement.select.FromItem;
+import net.sf.jsqlparser.statement.select.GroupByElement;
+import net.sf.jsqlparser.statement.select.Join;
+import net.sf.jsqlparser.statement.select.Limit;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import net.sf.jsqlparser.statement.select.ParenthesedSelect;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectItem;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.JDBCType;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+
+/**
+ * <p>PURPOSE: 本地列式缓存上的查询执行
+ * <p>DESCRIPTION: 在 {@link ColumnarTable} 快照上执行简单查询，只引用已缓存表的查询不再访问数据库：
+ * 单表或多表等值连接（INNER/LEFT JOIN，按连接键建哈希表）、FROM中的子查询、
+ * WHERE中的比较、IN、BETWEEN、LIKE、IS NULL及其AND/OR/NOT组合、四则运算、
+ * GROUP BY与COUNT/SUM/AVG/MIN/MAX（含DISTINCT）、HAVING、DISTINCT、ORDER BY、LIMIT。
+ * 只涉及一个字符串列的条件先对字典逐项求值，扫描时每行只查一次数组；只涉及一张表的条件在连接前过滤。
+ * 只缓存了最近分区的表，WHERE或ON中必须有不早于覆盖起点的增量列条件。
+ * 其他语法（函数、CASE、子查询条件、UNION、窗口函数等）、字符串与数值混合比较、整数溢出都放弃本地执行，由调用方回退到JDBC
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public final class LocalQueryEngine {
+
+    private static final Set<String> AGGREGATES = Set.of("COUNT", "SUM", "AVG", "MIN", "MAX");
+
+    private LocalQueryEngine() {
+    }
+
+    /**
+     * 本地缓存表目录
+     */
+    @FunctionalInterface
+    public interface Catalog {
+        /**
+         * 按FROM中的库名（可为null）和表名取快照，未缓存时返回null
+         */
+        ColumnarTable table(String schema, String name);
+    }
+
+    /**
+     * 为SQL生成本地执行计划，不能在本地执行时返回空
+     *
+     * @param args PreparedStatement参数
+     */
+    public static Optional<Plan> plan(String sql, Object[] args, Catalog catalog) {
+        ParsedSql parsed = ParsedSql.of(sql);
+        if (!parsed.isParsed() || !(parsed.getSelect() instanceof PlainSelect plain)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new Planner(args, catalog).plan(plain));
+        } catch (Unsupported | ArithmeticException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 执行结果
+     *
+     * @param labels    列名
+     * @param sqlTypes  JDBC类型
+     * @param typeNames 类型名
+     * @param rows      行数据
+     */
+    public record Result(List<String> labels, int[] sqlTypes, String[] typeNames, List<Object[]> rows) {
+    }
+
+    /**
+     * 不能在本地执行（在编译和执行阶段抛出，不记录堆栈）
+     */
+    static final class Unsupported extends RuntimeException {
+        Unsupported(String reason) {
+            super(reason, null, false, false);
+        }
+    }
+
+    // ==================== 表达式 ====================
+
+    /**
+     * 求值上下文：扫描阶段为各表的行号（LEFT JOIN未匹配时为-1），聚合阶段为分组键和聚合结果
+     */
+    static final class Frame {
+        int[] ids;
+        Object[] keys;
+        Object[] aggregates;
+    }
+
+    @FunctionalInterface
+    interface Expr {
+        Object eval(Frame frame);
+    }
+
+    /**
+     * 编译后的表达式
+     *
+     * @param expr      求值函数
+     * @param kind      取值类别
+     * @param predicate 是否为条件（取值为Boolean，null表示未知）
+     * @param constant  是否为常量（不依赖行）
+     * @param column    直接引用的缓存列，其他表达式为null
+     * @param sqlType   输出的JDBC类型
+     * @param typeName  输出的类型名
+     */
+    record Typed(Expr expr, Values.Kind kind, boolean predicate, boolean constant, ColumnRef column,
+                 int sqlType, String typeName) {
+
+        static Typed value(Expr expr, Values.Kind kind, boolean constant) {
+            return new Typed(expr, kind, false, constant, null, kind.sqlType(), jdbcTypeName(kind.sqlType()));
+        }
+
+        static Typed predicate(Expr expr, boolean constant) {
+            return new Typed(expr, Values.Kind.OTHER, true, constant, null, Types.BOOLEAN, "BOOLEAN");
+        }
+
+        static Typed constant(Object value, Values.Kind kind) {
+            return value(frame -> value, kind, true);
+        }
+
+        Object constantValue() {
+            return expr.eval(null);
+        }
+    }
+
+    /**
+     * 对某个来源表某一列的引用
+     */
+    record ColumnRef(int source, int column, ColumnVector vector) {
+    }
+
+    private static String jdbcTypeName(int sqlType) {
+        try {
+            return JDBCType.valueOf(sqlType).getName();
+        } catch (IllegalArgumentException e) {
+            return "OTHER";
+        }
+    }
+
+    // ==================== 计划 ====================
+
+    /**
+     * FROM中的一个来源
+     */
+    private static final class Source {
+        private final String qualifier;
+        private final String tableName;
+        private final ColumnarTable table;
+        private final boolean leftJoined;
+
+        private Source(String qualifier, String tableName, ColumnarTable table, boolean leftJoined) {
+            this.qualifier = qualifier;
+            this.tableName = tableName;
+            this.table = table;
+            this.leftJoined = leftJoined;
+        }
+    }
+
+    /**
+     * 连接步骤：右表按连接键建哈希表，左侧每行按键探测
+     */
+    private record JoinStep(int source, boolean left, List<Typed> leftKeys, List<Typed> rightKeys,
+                            Typed buildFilter, Typed matchFilter) {
+    }
+
+    /**
+     * 聚合函数定义
+     */
+    private record Aggregate(String name, boolean distinct, Typed argument, Values.Kind kind, int scale) {
+    }
+
+    /**
+     * 排序键
+     */
+    private record SortKey(Typed key, boolean asc, boolean nullsFirst) {
+    }
+
+    /**
+     * 本地执行计划
+     */
+    public static final class Plan {
+        private final List<Source> sources = new ArrayList<>();
+        private final Map<Integer, Typed> pushdown = new HashMap<>();
+        private final List<JoinStep> joins = new ArrayList<>();
+        private Typed where;
+        private boolean aggregate;
+        private final List<Typed> groupKeys = new ArrayList<>();
+        private final List<Aggregate> aggregates = new ArrayList<>();
+        private Typed having;
+        private final List<String> labels = new ArrayList<>();
+        private final List<Typed> outputs = new ArrayList<>();
+        private final List<SortKey> orderBy = new ArrayList<>();
+        private boolean distinct;
+        private long offset;
+        private long limit = -1;
+
+        /**
+         * 查询引用的缓存表
+         */
+        public List<String> tables() {
+            List<String> tables = new ArrayList<>();
+            for (Source source : sources) {
+                if (source.tableName != null) {
+                    tables.add(source.tableName);
+                }
+            }
+            return tables;
+        }
+
+        /**
+         * 执行
+         *
+         * @param maxRows 最大返回行数，为0时不限制
+         */
+        public Result run(int maxRows) {
+            long wanted = limit >= 0 ? offset + limit : Long.MAX_VALUE;
+            if (maxRows > 0) {
+                wanted = Math.min(wanted, offset + maxRows);
+            }
+            // 单表、无聚合/排序/去重时扫描到足够行数即停止
+            boolean streaming = !aggregate && orderBy.isEmpty() && !distinct && joins.isEmpty() && where == null;
+            RowSet rows = scan(streaming ? wanted : Long.MAX_VALUE);
+            for (JoinStep join : joins) {
+                rows = join(rows, join);
+            }
+            if (where != null) {
+                rows = filter(rows, where);
+            }
+            List<Object[]> output = aggregate ? aggregateRows(rows) : projectRows(rows, wanted);
+            if (distinct) {
+                output = distinctRows(output);
+            }
+            int from = (int) Math.min(offset, output.size());
+            int to = (int) Math.min(limit >= 0 ? offset + limit : output.size(), output.size());
+            if (maxRows > 0) {
+                to = Math.min(to, from + maxRows);
+            }
+            List<Object[]> page = from == 0 && to == output.size() ? output : new ArrayList<>(output.subList(from, to));
+
+            int[] sqlTypes = new int[outputs.size()];
+            String[] typeNames = new String[outputs.size()];
+            for (int i = 0; i < outputs.size(); i++) {
+                sqlTypes[i] = outputs.get(i).sqlType();
+                typeNames[i] = outputs.get(i).typeName();
+            }
+            return new Result(List.copyOf(labels), sqlTypes, typeNames, page);
+        }
+
+        private RowSet scan(long wanted) {
+            ColumnarTable table = sources.get(0).table;
+            Typed filter = pushdown.get(0);
+            RowSet rows = new RowSet(sources.size(), filter == null ? table.rowCount() : 64);
+            Frame frame = new Frame();
+            frame.ids = new int[sources.size()];
+            Arrays.fill(frame.ids, -1);
+            for (int row = 0; row < table.rowCount() && rows.size < wanted; row++) {
+                frame.ids[0] = row;
+                if (filter == null || Boolean.TRUE.equals(filter.expr().eval(frame))) {
+                    rows.add(frame.ids);
+                }
+            }
+            return rows;
+        }
+
+        private RowSet join(RowSet input, JoinStep join) {
+            // 1. 右表（先按只涉及右表的条件过滤）按连接键建哈希表
+            ColumnarTable right = sources.get(join.source()).table;
+            Frame frame = new Frame();
+            frame.ids = new int[sources.size()];
+            Arrays.fill(frame.ids, -1);
+            Map<Object, IntList> hash = new HashMap<>();
+            for (int row = 0; row < right.rowCount(); row++) {
+                frame.ids[join.source()] = row;
+                if (join.buildFilter() != null && !Boolean.TRUE.equals(join.buildFilter().expr().eval(frame))) {
+                    continue;
+                }
+                Object key = joinKey(join.rightKeys(), frame);
+                if (key != null) {
+                    hash.computeIfAbsent(key, k -> new IntList()).add(row);
+                }
+            }
+
+            // 2. 左侧逐行探测
+            RowSet output = new RowSet(sources.size(), input.size);
+            for (int i = 0; i < input.size; i++) {
+                input.load(i, frame.ids);
+                frame.ids[join.source()] = -1;
+                IntList matches = hash.get(joinKey(join.leftKeys(), frame));
+                boolean matched = false;
+                if (matches != null) {
+                    for (int m = 0; m < matches.size; m++) {
+                        frame.ids[join.source()] = matches.values[m];
+                        if (join.matchFilter() == null || Boolean.TRUE.equals(join.matchFilter().expr().eval(frame))) {
+                            output.add(frame.ids);
+                            matched = true;
+                        }
+                    }
+                }
+                if (!matched && join.left()) {
+                    frame.ids[join.source()] = -1;
+                    output.add(frame.ids);
+                }
+            }
+            return output;
+        }
+
+        private static Object joinKey(List<Typed> keys, Frame frame) {
+            if (keys.size() == 1) {
+                Object value = keys.get(0).expr().eval(frame);
+                return value == null ? null : Values.key(value);
+            }
+            Object[] parts = new Object[keys.size()];
+            for (int i = 0; i < parts.length; i++) {
+                Object value = keys.get(i).expr().eval(frame);
+                if (value == null) {
+                    return null;
+                }
+                parts[i] = Values.key(value);
+            }
+            return Arrays.asList(parts);
+        }
+
+        private RowSet filter(RowSet input, Typed predicate) {
+            RowSet output = new RowSet(sources.size(), Math.max(16, input.size / 4));
+            Frame frame = new Frame();
+            frame.ids = new int[sources.size()];
+            for (int i = 0; i < input.size; i++) {
+                input.load(i, frame.ids);
+                if (Boolean.TRUE.equals(predicate.expr().eval(frame))) {
+                    output.add(frame.ids);
+                }
+            }
+            return output;
+        }
+
+        private List<Object[]> projectRows(RowSet rows, long wanted) {
+            Frame frame = new Frame();
+            frame.ids = new int[sources.size()];
+            int[] order = null;
+            if (!orderBy.isEmpty()) {
+                // 先只计算排序键排序，再投影需要的行
+                Object[][] keys = new Object[rows.size][];
+                for (int i = 0; i < rows.size; i++) {
+                    rows.load(i, frame.ids);
+                    keys[i] = sortKeys(frame);
+                }
+                order = sortedOrder(keys);
+            }
+            int count = distinct ? rows.size : (int) Math.min(rows.size, wanted);
+            List<Object[]> output = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.load(order != null ? order[i] : i, frame.ids);
+                output.add(project(frame));
+            }
+            return output;
+        }
+
+        private List<Object[]> aggregateRows(RowSet rows) {
+            Frame frame = new Frame();
+            frame.ids = new int[sources.size()];
+            Map<Object, Group> groups = new LinkedHashMap<>();
+            for (int i = 0; i < rows.size; i++) {
+                rows.load(i, frame.ids);
+                Object key = groupKey(frame);
+                Group group = groups.get(key);
+                if (group == null) {
+                    group = new Group(groupKeyValues(frame), newAccumulators());
+                    groups.put(key, group);
+                }
+                for (Accumulator accumulator : group.accumulators) {
+                    accumulator.add(frame);
+                }
+            }
+            // 没有GROUP BY的聚合查询总是返回一行
+            if (groupKeys.isEmpty() && groups.isEmpty()) {
+                groups.put(List.of(), new Group(new Object[0], newAccumulators()));
+            }
+
+            List<Object[]> output = new ArrayList<>(groups.size());
+            List<Object[]> keys = orderBy.isEmpty() ? null : new ArrayList<>(groups.size());
+            Frame groupFrame = new Frame();
+            for (Group group : groups.values()) {
+                groupFrame.keys = group.keys;
+                groupFrame.aggregates = new Object[group.accumulators.length];
+                for (int i = 0; i < group.accumulators.length; i++) {
+                    groupFrame.aggregates[i] = group.accumulators[i].result();
+                }
+                if (having != null && !Boolean.TRUE.equals(having.expr().eval(groupFrame))) {
+                    continue;
+                }
+                output.add(project(groupFrame));
+                if (keys != null) {
+                    keys.add(sortKeys(groupFrame));
+                }
+            }
+            if (keys == null) {
+                return output;
+            }
+            int[] order = sortedOrder(keys.toArray(new Object[0][]));
+            List<Object[]> sorted = new ArrayList<>(output.size());
+            for (int i : order) {
+                sorted.add(output.get(i));
+            }
+            return sorted;
+        }
+
+        private Object groupKey(Frame frame) {
+            if (groupKeys.size() == 1) {
+                return groupKeyPart(groupKeys.get(0), frame);
+            }
+            Object[] parts = new Object[groupKeys.size()];
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = groupKeyPart(groupKeys.get(i), frame);
+            }
+            return Arrays.asList(parts);
+        }
+
+        private static Object groupKeyPart(Typed key, Frame frame) {
+            // 字典列按规范编码分组，不必逐行转小写
+            if (key.column() != null && key.column().vector() instanceof ColumnVector.DictionaryColumn dictionary) {
+                int id = frame.ids[key.column().source()];
+                return id < 0 ? null : dictionary.canonicalCode(id);
+            }
+            Object value = key.expr().eval(frame);
+            return value == null ? null : Values.key(value);
+        }
+
+        private Object[] groupKeyValues(Frame frame) {
+            Object[] values = new Object[groupKeys.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = groupKeys.get(i).expr().eval(frame);
+            }
+            return values;
+        }
+
+        private Accumulator[] newAccumulators() {
+            Accumulator[] accumulators = new Accumulator[aggregates.size()];
+            for (int i = 0; i < accumulators.length; i++) {
+                accumulators[i] = new Accumulator(aggregates.get(i));
+            }
+            return accumulators;
+        }
+
+        private Object[] project(Frame frame) {
+            Object[] row = new Object[outputs.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = outputs.get(i).expr().eval(frame);
+            }
+            return row;
+        }
+
+        private Object[] sortKeys(Frame frame) {
+            Object[] keys = new Object[orderBy.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = orderBy.get(i).key().expr().eval(frame);
+            }
+            return keys;
+        }
+
+        private int[] sortedOrder(Object[][] keys) {
+            Integer[] order = new Integer[keys.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> {
+                for (int k = 0; k < orderBy.size(); k++) {
+                    SortKey sortKey = orderBy.get(k);
+                    Object x = keys[a][k];
+                    Object y = keys[b][k];
+                    int c;
+                    if (x == null || y == null) {
+                        c = x == y ? 0 : (x == null) == sortKey.nullsFirst() ? -1 : 1;
+                    } else {
+                        c = sortKey.asc() ? Values.compare(x, y) : Values.compare(y, x);
+                    }
+                    if (c != 0) {
+                        return c;
+                    }
+                }
+                return Integer.compare(a, b);
+            });
+            return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+        }
+
+        private static List<Object[]> distinctRows(List<Object[]> rows) {
+            Set<List<Object>> seen = new HashSet<>();
+            List<Object[]> output = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                Object[] key = new Object[row.length];
+                for (int i = 0; i < row.length; i++) {
+                    key[i] = row[i] == null ? null : Values.key(row[i]);
+                }
+                if (seen.add(Arrays.asList(key))) {
+                    output.add(row);
+                }
+            }
+            return output;
+        }
+    }
+
+    /**
+     * 扫描和连接的中间结果：每行为各来源表的行号
+     */
+    private static final class RowSet {
+        private final int width;
+        private int[] data;
+        private int size;
+
+        private RowSet(int width, int capacity) {
+            this.width = width;
+            this.data = new int[Math.max(1, capacity) * width];
+        }
+
+        private void add(int[] ids) {
+            if ((size + 1) * width > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, (size + 1) * width));
+            }
+            System.arraycopy(ids, 0, data, size * width, width);
+            size++;
+        }
+
+        private void load(int row, int[] ids) {
+            System.arraycopy(data, row * width, ids, 0, width);
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[2];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    private record Group(Object[] keys, Accumulator[] accumulators) {
+    }
+
+    /**
+     * 聚合累加器
+     */
+    private static final class Accumulator {
+        private final Aggregate aggregate;
+        private final Set<Object> seen;
+        private long count;
+        private long longSum;
+        private BigDecimal decimalSum;
+        private double doubleSum;
+        private Object extreme;
+
+        private Accumulator(Aggregate aggregate) {
+            this.aggregate = aggregate;
+            this.seen = aggregate.distinct() ? new HashSet<>() : null;
+        }
+
+        private void add(Frame frame) {
+            if (aggregate.argument() == null) {
+                count++;
+                return;
+            }
+            Object value = aggregate.argument().expr().eval(frame);
+            if (value == null || (seen != null && !seen.add(Values.key(value)))) {
+                return;
+            }
+            count++;
+            switch (aggregate.name()) {
+                case "SUM", "AVG" -> addToSum(value);
+                case "MIN" -> extreme = extreme == null || Values.compare(value, extreme) < 0 ? value : extreme;
+                case "MAX" -> extreme = extreme == null || Values.compare(value, extreme) > 0 ? value : extreme;
+                default -> {
+                }
+            }
+        }
+
+        private void addToSum(Object value) {
+            switch (aggregate.kind()) {
+                case DOUBLE -> doubleSum += ((Number) value).doubleValue();
+                case INTEGER -> {
+                    long v = ((Number) value).longValue();
+                    long r = longSum + v;
+                    // 溢出时转为BigDecimal累加
+                    if (((longSum ^ r) & (v ^ r)) < 0) {
+                        decimalSum = (decimalSum != null ? decimalSum : BigDecimal.ZERO).add(BigDecimal.valueOf(longSum)).add(BigDecimal.valueOf(v));
+                        longSum = 0;
+                    } else {
+                        longSum = r;
+                    }
+                }
+                default -> decimalSum = decimalSum != null ? decimalSum.add((BigDecimal) value) : (BigDecimal) value;
+            }
+        }
+
+        private Object result() {
+            switch (aggregate.name()) {
+                case "COUNT":
+                    return count;
+                case "MIN", "MAX":
+                    return extreme;
+                default:
+                    break;
+            }
+            if (count == 0) {
+                return null;
+            }
+            if (aggregate.kind() == Values.Kind.DOUBLE) {
+                return "SUM".equals(aggregate.name()) ? doubleSum : doubleSum / count;
+            }
+            BigDecimal sum = aggregate.kind() == Values.Kind.INTEGER
+                    ? BigDecimal.valueOf(longSum).add(decimalSum != null ? decimalSum : BigDecimal.ZERO)
+                    : decimalSum.setScale(aggregate.scale(), RoundingMode.UNNECESSARY);
+            if ("SUM".equals(aggregate.name())) {
+                return sum;
+            }
+            return sum.divide(BigDecimal.valueOf(count), aggregate.scale() + Values.DIV_PRECISION_INCREMENT, RoundingMode.HALF_UP);
+        }
+    }
+
+    // ==================== 编译 ====================
+
+    /**
+     * 叶子节点解析：扫描阶段解析为列引用，聚合阶段解析为分组键和聚合结果
+     */
+    @FunctionalInterface
+    private interface Leaves {
+        /**
+         * 解析表达式，不是本阶段的叶子节点时返回null
+         */
+        Typed resolve(Expression expression);
+    }
+
+    private static final class Planner {
+        private final Object[] args;
+        private final Catalog catalog;
+        private Plan plan;
+
+        private Planner(Object[] args, Catalog catalog) {
+            this.args = args != null ? args : new Object[0];
+            this.catalog = catalog;
+        }
+
+        private Plan plan(PlainSelect select) {
+            rejectUnsupportedClauses(select);
+            plan = new Plan();
+
+            // 1. FROM和JOIN
+            addSource(select.getFromItem(), false);
+            List<Join> joins = select.getJoins() != null ? select.getJoins() : List.of();
+            for (Join join : joins) {
+                boolean left = join.isLeft() && !join.isRight() && !join.isFull();
+                boolean inner = !join.isLeft() && !join.isRight() && !join.isFull() && !join.isCross()
+                        && !join.isSimple() && !join.isSemi() && !join.isApply();
+                if ((!left && !inner) || join.isNatural() || join.isStraight()
+                        || (join.getUsingColumns() != null && !join.getUsingColumns().isEmpty())
+                        || join.getOnExpressions() == null || join.getOnExpressions().size() != 1) {
+                    throw new Unsupported("连接方式");
+                }
+                addSource(join.getFromItem(), left);
+            }
+
+            // 2. WHERE：只涉及一张表（非LEFT JOIN右表）的条件在连接前过滤
+            List<Expression> whereConjuncts = conjuncts(select.getWhere());
+            Map<Integer, List<Typed>> pushed = new HashMap<>();
+            List<Typed> residual = new ArrayList<>();
+            for (Expression conjunct : whereConjuncts) {
+                Set<Integer> used = sourcesOf(conjunct);
+                Typed predicate = rowPredicate(conjunct);
+                if (used.size() == 1 && !plan.sources.get(used.iterator().next()).leftJoined) {
+                    pushed.computeIfAbsent(used.iterator().next(), k -> new ArrayList<>()).add(predicate);
+                } else {
+                    residual.add(predicate);
+                }
+            }
+            if (pushed.containsKey(0)) {
+                plan.pushdown.put(0, and(pushed.get(0)));
+            }
+            plan.where = residual.isEmpty() ? null : and(residual);
+
+            // 3. 连接键
+            for (int j = 0; j < joins.size(); j++) {
+                planJoin(j + 1, joins.get(j), pushed.getOrDefault(j + 1, List.of()));
+            }
+
+            // 4. 只缓存了最近分区的表必须带覆盖范围内的增量列条件
+            for (int s = 0; s < plan.sources.size(); s++) {
+                checkCoverage(s, whereConjuncts, s > 0 ? conjuncts(joins.get(s - 1).getOnExpressions().iterator().next()) : List.of());
+            }
+
+            // 5. SELECT、GROUP BY、HAVING、ORDER BY
+            planOutputs(select);
+
+            // 6. LIMIT
+            Limit limit = select.getLimit();
+            if (limit != null) {
+                if (limit.getRowCount() instanceof AllValue) {
+                    throw new Unsupported("LIMIT ALL");
+                }
+                if (limit.getRowCount() != null && !(limit.getRowCount() instanceof NullValue)) {
+                    plan.limit = constantLong(limit.getRowCount());
+                }
+                if (limit.getOffset() != null) {
+                    plan.offset = constantLong(limit.getOffset());
+                }
+            }
+            if (select.getOffset() != null) {
+                plan.offset = constantLong(select.getOffset().getOffset());
+            }
+            if (plan.limit < -1 || plan.offset < 0) {
+                throw new Unsupported("LIMIT");
+            }
+            return plan;
+        }
+
+        private static void rejectUnsupportedClauses(PlainSelect select) {
+            if ((select.getWithItemsList() != null && !select.getWithItemsList().isEmpty())
+                    || (select.getIntoTables() != null && !select.getIntoTables().isEmpty())
+                    || select.getForMode() != null || select.getFetch() != null || select.getTop() != null
+                    || select.getFirst() != null || select.getSkip() != null || select.getFromItem() == null
+                    || (select.getWindowDefinitions() != null && !select.getWindowDefinitions().isEmpty())
+                    || (select.getDistinct() != null && (select.getDistinct().getOnSelectItems() != null
+                    || select.getDistinct().isUseUnique()))
+                    || select.getOrderByElements() != null && select.isOracleSiblings()) {
+                throw new Unsupported("子句");
+            }
+        }
+
+        private void addSource(FromItem item, boolean leftJoined) {
+            String alias = item.getAlias() != null ? unquote(item.getAlias().getName()).toLowerCase(Locale.ROOT) : null;
+            if (item instanceof Table table) {
+                String name = unquote(table.getName());
+                String schema = table.getSchemaName() != null ? unquote(table.getSchemaName()) : null;
+                ColumnarTable snapshot = catalog.table(schema, name);
+                if (snapshot == null) {
+                    throw new Unsupported("未缓存的表 " + name);
+                }
+                String lower = name.toLowerCase(Locale.ROOT);
+                plan.sources.add(new Source(alias != null ? alias : lower, lower, snapshot, leftJoined));
+                return;
+            }
+            if (item instanceof ParenthesedSelect derived && alias != null
+                    && derived.getSelect() instanceof PlainSelect inner) {
+                Plan innerPlan = new Planner(args, catalog).plan(inner);
+                plan.sources.add(new Source(alias, null, materialize(alias, innerPlan.run(0)), leftJoined));
+                return;
+            }
+            throw new Unsupported("FROM");
+        }
+
+        /**
+         * FROM中的子查询结果转为临时列式表
+         */
+        private static ColumnarTable materialize(String name, Result result) {
+            List<ColumnVector.Builder> builders = new ArrayList<>(result.labels().size());
+            Set<String> names = new HashSet<>();
+            for (int i = 0; i < result.labels().size(); i++) {
+                if (!names.add(result.labels().get(i).toLowerCase(Locale.ROOT))) {
+                    throw new Unsupported("子查询列名重复");
+                }
+                int scale = 0;
+                if (Values.Kind.of(result.sqlTypes()[i]) == Values.Kind.DECIMAL) {
+                    for (Object[] row : result.rows()) {
+                        if (row[i] instanceof BigDecimal decimal) {
+                            scale = Math.max(scale, decimal.scale());
+                        }
+                    }
+                }
+                builders.add(ColumnVector.builder(result.labels().get(i), result.sqlTypes()[i], result.typeNames()[i], 18, scale));
+            }
+            try {
+                for (Object[] row : result.rows()) {
+                    for (int i = 0; i < row.length; i++) {
+                        builders.get(i).append(row[i]);
+                    }
+                }
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                throw new Unsupported("子查询结果类型");
+            }
+            return ColumnarTable.of(name, result.labels(), builders, result.rows().size());
+        }
+
+        private void planJoin(int source, Join join, List<Typed> whereFilters) {
+            List<Typed> leftKeys = new ArrayList<>();
+            List<Typed> rightKeys = new ArrayList<>();
+            List<Typed> buildFilters = new ArrayList<>(whereFilters);
+            List<Typed> matchFilters = new ArrayList<>();
+            for (Expression conjunct : conjuncts(join.getOnExpressions().iterator().next())) {
+                Set<Integer> used = sourcesOf(conjunct);
+                if (used.stream().anyMatch(s -> s > source)) {
+                    throw new Unsupported("ON引用了后面的表");
+                }
+                if (conjunct instanceof EqualsTo equals) {
+                    Set<Integer> leftUsed = sourcesOf(equals.getLeftExpression());
+                    Set<Integer> rightUsed = sourcesOf(equals.getRightExpression());
+                    Expression probe = null;
+                    Expression build = null;
+                    if (!leftUsed.isEmpty() && !leftUsed.contains(source) && rightUsed.equals(Set.of(source))) {
+                        probe = equals.getLeftExpression();
+                        build = equals.getRightExpression();
+                    } else if (!rightUsed.isEmpty() && !rightUsed.contains(source) && leftUsed.equals(Set.of(source))) {
+                        probe = equals.getRightExpression();
+                        build = equals.getLeftExpression();
+                    }
+                    if (probe != null) {
+                        Typed probeKey = rowValue(probe);
+                        Typed buildKey = rowValue(build);
+                        if (!probeKey.kind().comparableWith(buildKey.kind())
+                                || !(probeKey.kind() == Values.Kind.STRING || probeKey.kind().isNumeric())) {
+                            throw new Unsupported("连接键类型");
+                        }
+                        leftKeys.add(probeKey);
+                        rightKeys.add(buildKey);
+                        continue;
+                    }
+                }
+                Typed predicate = rowPredicate(conjunct);
+                if (used.equals(Set.of(source))) {
+                    buildFilters.add(predicate);
+                } else {
+                    matchFilters.add(predicate);
+                }
+            }
+            if (leftKeys.isEmpty()) {
+                throw new Unsupported("没有等值连接键");
+            }
+            plan.joins.add(new JoinStep(source, plan.sources.get(source).leftJoined, leftKeys, rightKeys,
+                    buildFilters.isEmpty() ? null : and(buildFilters), matchFilters.isEmpty() ? null : and(matchFilters)));
+        }
+
+        private void checkCoverage(int source, List<Expression> where, List<Expression> on) {
+            ColumnarTable table = plan.sources.get(source).table;
+            if (table.coveredFrom() == null) {
+                return;
+            }
+            int partition = table.columnIndex(table.partitionColumn());
+            List<Expression> candidates = new ArrayList<>(where);
+            candidates.addAll(on);
+            for (Expression conjunct : candidates) {
+                if (boundsFrom(conjunct, source, partition, table.coveredFrom())) {
+                    return;
+                }
+            }
+            throw new Unsupported("表 " + table.name() + " 只缓存了 " + table.partitionColumn() + " >= " + table.coveredFrom());
+        }
+
+        /**
+         * 条件是否保证增量列不早于覆盖起点
+         */
+        private boolean boundsFrom(Expression conjunct, int source, int partition, Object coveredFrom) {
+            Expression e = unwrap(conjunct);
+            List<Expression> lowerBounds = new ArrayList<>();
+            Expression column = null;
+            if (e instanceof GreaterThanEquals || e instanceof GreaterThan || e instanceof EqualsTo
+                    || e instanceof MinorThanEquals || e instanceof MinorThan) {
+                BinaryExpression binary = (BinaryExpression) e;
+                boolean columnLeft = isPartition(binary.getLeftExpression(), source, partition);
+                boolean columnRight = isPartition(binary.getRightExpression(), source, partition);
+                boolean lower = e instanceof EqualsTo
+                        || (columnLeft && (e instanceof GreaterThanEquals || e instanceof GreaterThan))
+                        || (columnRight && (e instanceof MinorThanEquals || e instanceof MinorThan));
+                if ((columnLeft || columnRight) && lower) {
+                    column = columnLeft ? binary.getLeftExpression() : binary.getRightExpression();
+                    lowerBounds.add(columnLeft ? binary.getRightExpression() : binary.getLeftExpression());
+                }
+            } else if (e instanceof Between between && !between.isNot()
+                    && isPartition(between.getLeftExpression(), source, partition)) {
+                column = between.getLeftExpression();
+                lowerBounds.add(between.getBetweenExpressionStart());
+            } else if (e instanceof InExpression in && !in.isNot() && isPartition(in.getLeftExpression(), source, partition)
+                    && in.getRightExpression() instanceof ExpressionList<?> list) {
+                column = in.getLeftExpression();
+                lowerBounds.addAll(list);
+            }
+            if (column == null || lowerBounds.isEmpty()) {
+                return false;
+            }
+            for (Expression bound : lowerBounds) {
+                Typed value = rowValue(bound);
+                if (!value.constant()) {
+                    return false;
+                }
+                Object constant = value.constantValue();
+                if (constant == null || !Values.kindOf(coveredFrom).comparableWith(value.kind())
+                        || Values.compare(constant, coveredFrom) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isPartition(Expression expression, int source, int partition) {
+            Expression e = unwrap(expression);
+            if (!(e instanceof Column column)) {
+                return false;
+            }
+            ColumnRef ref = resolveColumn(column);
+            return ref != null && ref.source() == source && ref.column() == partition;
+        }
+
+        private void planOutputs(PlainSelect select) {
+            // SELECT列表
+            List<Expression> items = new ArrayList<>();
+            List<String> labels = new ArrayList<>();
+            for (SelectItem<?> item : select.getSelectItems()) {
+                Expression expression = item.getExpression();
+                if (expression instanceof AllColumns && !(expression instanceof AllTableColumns)) {
+                    for (int s = 0; s < plan.sources.size(); s++) {
+                        expandColumns(s, items, labels);
+                    }
+                } else if (expression instanceof AllTableColumns all) {
+                    expandColumns(sourceOf(all.getTable()), items, labels);
+                } else {
+                    items.add(expression);
+                    labels.add(item.getAlias() != null ? unquote(item.getAlias().getName())
+                            : expression instanceof Column column ? unquote(column.getColumnName()) : expression.toString());
+                }
+            }
+            plan.labels.addAll(labels);
+            plan.distinct = select.getDistinct() != null;
+
+            GroupByElement groupBy = select.getGroupBy();
+            List<OrderByElement> orderBy = select.getOrderByElements() != null ? select.getOrderByElements() : List.of();
+            plan.aggregate = groupBy != null || select.getHaving() != null || items.stream().anyMatch(LocalQueryEngine::hasAggregate)
+                    || orderBy.stream().anyMatch(element -> hasAggregate(element.getExpression()));
+
+            if (!plan.aggregate) {
+                Leaves leaves = this::rowLeaf;
+                for (Expression item : items) {
+                    plan.outputs.add(value(item, leaves));
+                }
+                for (OrderByElement element : orderBy) {
+                    Typed key = outputReference(element.getExpression(), items, labels, leaves, true);
+                    if (plan.distinct && !plan.outputs.contains(key) && !key.constant()) {
+                        throw new Unsupported("DISTINCT的ORDER BY列不在SELECT列表中");
+                    }
+                    plan.orderBy.add(sortKey(element, key));
+                }
+                return;
+            }
+
+            // GROUP BY：先按FROM中的列解析，再按SELECT别名和序号解析（与MySQL一致）
+            List<Expression> keyExpressions = new ArrayList<>();
+            if (groupBy != null) {
+                if (groupBy.getGroupingSets() != null && !groupBy.getGroupingSets().isEmpty()) {
+                    throw new Unsupported("GROUPING SETS");
+                }
+                for (Object key : groupBy.getGroupByExpressionList()) {
+                    Expression expression = unwrap((Expression) key);
+                    if (expression instanceof LongValue position) {
+                        expression = selectItemAt(items, position);
+                    } else if (expression instanceof Column column && column.getTable() == null
+                            && resolveColumnOrNull(column) == null) {
+                        int index = indexOfLabel(labels, unquote(column.getColumnName()));
+                        if (index < 0) {
+                            throw new Unsupported("GROUP BY列");
+                        }
+                        expression = items.get(index);
+                    }
+                    if (hasAggregate(expression)) {
+                        throw new Unsupported("GROUP BY聚合函数");
+                    }
+                    keyExpressions.add(expression);
+                    plan.groupKeys.add(rowValue(expression));
+                }
+            }
+            Leaves leaves = expression -> groupLeaf(expression, keyExpressions);
+            for (Expression item : items) {
+                plan.outputs.add(value(item, leaves));
+            }
+            if (select.getHaving() != null) {
+                plan.having = predicate(resolveAliases(select.getHaving(), items, labels), leaves);
+            }
+            for (OrderByElement element : orderBy) {
+                plan.orderBy.add(sortKey(element, outputReference(element.getExpression(), items, labels, leaves, true)));
+            }
+        }
+
+        private void expandColumns(int source, List<Expression> items, List<String> labels) {
+            Source from = plan.sources.get(source);
+            for (ColumnVector vector : from.table.columns()) {
+                items.add(new Column(new Table(from.qualifier), vector.name()));
+                labels.add(vector.name());
+            }
+        }
+
+        /**
+         * ORDER BY项：序号和SELECT别名引用对应的输出列，其他按表达式编译
+         */
+        private Typed outputReference(Expression expression, List<Expression> items, List<String> labels, Leaves leaves,
+                                      boolean aliasFirst) {
+            Expression e = unwrap(expression);
+            if (e instanceof LongValue position) {
+                return plan.outputs.get(items.indexOf(selectItemAt(items, position)));
+            }
+            if (aliasFirst && e instanceof Column column && column.getTable() == null) {
+                int index = indexOfLabel(labels, unquote(column.getColumnName()));
+                if (index >= 0 && !(items.get(index) instanceof Column && resolveColumnOrNull(column) != null
+                        && !unquote(((Column) items.get(index)).getColumnName()).equalsIgnoreCase(unquote(column.getColumnName())))) {
+                    return plan.outputs.get(index);
+                }
+            }
+            return value(expression, leaves);
+        }
+
+        private static Expression selectItemAt(List<Expression> items, LongValue position) {
+            long index = position.getValue();
+            if (index < 1 || index > items.size()) {
+                throw new Unsupported("列序号");
+            }
+            return items.get((int) index - 1);
+        }
+
+        private static int indexOfLabel(List<String> labels, String name) {
+            int found = -1;
+            for (int i = 0; i < labels.size(); i++) {
+                if (labels.get(i).equalsIgnoreCase(name)) {
+                    if (found >= 0) {
+                        throw new Unsupported("别名重复");
+                    }
+                    found = i;
+                }
+            }
+            return found;
+        }
+
+        /**
+         * HAVING中引用的SELECT别名替换为对应表达式（只替换无法按FROM列解析的列名）
+         */
+        private Expression resolveAliases(Expression expression, List<Expression> items, List<String> labels) {
+            Expression e = unwrap(expression);
+            if (e instanceof Column column && column.getTable() == null && resolveColumnOrNull(column) == null) {
+                int index = indexOfLabel(labels, unquote(column.getColumnName()));
+                return index >= 0 ? items.get(index) : expression;
+            }
+            if (e instanceof AndExpression and) {
+                return new AndExpression(resolveAliases(and.getLeftExpression(), items, labels),
+                        resolveAliases(and.getRightExpression(), items, labels));
+            }
+            if (e instanceof OrExpression or) {
+                return new OrExpression(resolveAliases(or.getLeftExpression(), items, labels),
+                        resolveAliases(or.getRightExpression(), items, labels));
+            }
+            if (e instanceof NotExpression not) {
+                return new NotExpression(resolveAliases(not.getExpression(), items, labels));
+            }
+            if (e instanceof ComparisonOperator comparison) {
+                ComparisonOperator copy = copyComparison(comparison);
+                copy.setLeftExpression(resolveAliases(comparison.getLeftExpression(), items, labels));
+                copy.setRightExpression(resolveAliases(comparison.getRightExpression(), items, labels));
+                return copy;
+            }
+            return expression;
+        }
+
+        private static ComparisonOperator copyComparison(ComparisonOperator comparison) {
+            if (comparison instanceof EqualsTo) return new EqualsTo();
+            if (comparison instanceof NotEqualsTo notEquals) return new NotEqualsTo(notEquals.getStringExpression());
+            if (comparison instanceof GreaterThan) return new GreaterThan();
+            if (comparison instanceof GreaterThanEquals) return new GreaterThanEquals();
+            if (comparison instanceof MinorThan) return new MinorThan();
+            if (comparison instanceof MinorThanEquals) return new MinorThanEquals();
+            throw new Unsupported("比较运算 " + comparison.getStringExpression());
+        }
+
+        private static SortKey sortKey(OrderByElement element, Typed key) {
+            if (key.predicate() || key.kind() == Values.Kind.OTHER) {
+                throw new Unsupported("排序列类型");
+            }
+            boolean asc = element.isAsc();
+            boolean nullsFirst = element.getNullOrdering() == null ? asc
+                    : element.getNullOrdering() == OrderByElement.NullOrdering.NULLS_FIRST;
+            return new SortKey(key, asc, nullsFirst);
+        }
+
+        // ---------- 叶子节点 ----------
+
+        private Typed rowLeaf(Expression expression) {
+            if (expression instanceof Column column) {
+                ColumnRef ref = resolveColumn(column);
+                if (ref == null) {
+                    throw new Unsupported("列 " + column);
+                }
+                return columnValue(ref);
+            }
+            if (expression instanceof Function) {
+                throw new Unsupported("函数 " + expression);
+            }
+            return null;
+        }
+
+        private static Typed columnValue(ColumnRef ref) {
+            ColumnVector vector = ref.vector();
+            int source = ref.source();
+            Values.Kind kind = Values.Kind.of(vector.sqlType());
+            if (kind == Values.Kind.DECIMAL && !(vector instanceof ColumnVector.LongColumn)) {
+                kind = Values.Kind.OTHER;
+            }
+            Expr expr = frame -> {
+                int id = frame.ids[source];
+                return id < 0 ? null : vector.get(id);
+            };
+            return new Typed(expr, kind, false, false, ref, vector.sqlType(), vector.typeName());
+        }
+
+        private Typed groupLeaf(Expression expression, List<Expression> keyExpressions) {
+            Expression e = unwrap(expression);
+            for (int i = 0; i < keyExpressions.size(); i++) {
+                if (sameExpression(e, unwrap(keyExpressions.get(i)))) {
+                    Typed key = plan.groupKeys.get(i);
+                    int index = i;
+                    return new Typed(frame -> frame.keys[index], key.kind(), false, false, null, key.sqlType(), key.typeName());
+                }
+            }
+            if (e instanceof Function function) {
+                return aggregateLeaf(function);
+            }
+            if (e instanceof Column) {
+                throw new Unsupported("非分组列 " + e);
+            }
+            return null;
+        }
+
+        private boolean sameExpression(Expression a, Expression b) {
+            if (a instanceof Column x && b instanceof Column y) {
+                ColumnRef refX = resolveColumnOrNull(x);
+                ColumnRef refY = resolveColumnOrNull(y);
+                return refX != null && refY != null && refX.source() == refY.source() && refX.column() == refY.column();
+            }
+            return !(a instanceof Column) && !(b instanceof Column) && a.toString().equalsIgnoreCase(b.toString());
+        }
+
+        private Typed aggregateLeaf(Function function) {
+            String name = function.getName() != null ? function.getName().toUpperCase(Locale.ROOT) : "";
+            if (!AGGREGATES.contains(name) || function.isUnique() || function.getKeep() != null
+                    || function.getOrderByElements() != null || function.isIgnoreNulls()
+                    || function.getNamedParameters() != null) {
+                throw new Unsupported("函数 " + function);
+            }
+            ExpressionList<?> parameters = function.getParameters();
+            boolean star = function.isAllColumns()
+                    || (parameters != null && parameters.size() == 1 && parameters.get(0) instanceof AllColumns);
+            if (star && (!"COUNT".equals(name) || function.isDistinct())) {
+                throw new Unsupported("函数 " + function);
+            }
+            if (!star && (parameters == null || parameters.size() != 1)) {
+                throw new Unsupported("函数参数 " + function);
+            }
+            Typed argument = null;
+            Values.Kind kind = Values.Kind.INTEGER;
+            int scale = 0;
+            int sqlType = Types.BIGINT;
+            String typeName = "BIGINT";
+            if (!star) {
+                Expression parameter = parameters.get(0);
+                if (hasAggregate(parameter)) {
+                    throw new Unsupported("嵌套聚合");
+                }
+                argument = rowValue(parameter);
+                boolean constantCount = "COUNT".equals(name) && argument.constant() && !function.isDistinct()
+                        && argument.constantValue() != null;
+                if (constantCount) {
+                    // COUNT(1) 等同 COUNT(*)
+                    argument = null;
+                } else if (!"COUNT".equals(name)) {
+                    kind = argument.kind();
+                    if ("SUM".equals(name) || "AVG".equals(name)) {
+                        if (!kind.isNumeric()) {
+                            throw new Unsupported("聚合参数类型");
+                        }
+                        scale = argument.column() != null && argument.column().vector() instanceof ColumnVector.LongColumn column
+                                ? column.scale() : 0;
+                        if (kind == Values.Kind.DECIMAL && argument.column() == null) {
+                            throw new Unsupported("小数表达式的聚合");
+                        }
+                        sqlType = kind == Values.Kind.DOUBLE ? Types.DOUBLE : Types.DECIMAL;
+                        typeName = jdbcTypeName(sqlType);
+                    } else {
+                        if (kind == Values.Kind.OTHER || kind == Values.Kind.NULL || argument.predicate()) {
+                            throw new Unsupported("聚合参数类型");
+                        }
+                        sqlType = argument.sqlType();
+                        typeName = argument.typeName();
+                    }
+                } else if (argument.kind() == Values.Kind.OTHER && function.isDistinct()) {
+                    throw new Unsupported("聚合参数类型");
+                }
+            }
+            Aggregate aggregate = new Aggregate(name, function.isDistinct(), argument, kind, scale);
+            int index = plan.aggregates.indexOf(aggregate);
+            if (index < 0) {
+                index = plan.aggregates.size();
+                plan.aggregates.add(aggregate);
+            }
+            int slot = index;
+            Values.Kind resultKind = "COUNT".equals(name) ? Values.Kind.INTEGER
+                    : ("SUM".equals(name) || "AVG".equals(name)) && kind != Values.Kind.DOUBLE ? Values.Kind.DECIMAL : kind;
+            return new Typed(frame -> frame.aggregates[slot], resultKind, false, false, null, sqlType, typeName);
+        }
+
+        // ---------- 列解析 ----------
+
+        private ColumnRef resolveColumn(Column column) {
+            ColumnRef ref = resolveColumnOrNull(column);
+            if (ref == null) {
+                throw new Unsupported("列 " + column);
+            }
+            return ref;
+        }
+
+        private ColumnRef resolveColumnOrNull(Column column) {
+            String name = unquote(column.getColumnName());
+            Table table = column.getTable();
+            if (table != null && table.getName() != null) {
+                int source = sourceOf(table);
+                int index = plan.sources.get(source).table.columnIndex(name);
+                return index >= 0 ? new ColumnRef(source, index, plan.sources.get(source).table.column(index)) : null;
+            }
+            ColumnRef found = null;
+            for (int s = 0; s < plan.sources.size(); s++) {
+                int index = plan.sources.get(s).table.columnIndex(name);
+                if (index >= 0) {
+                    if (found != null) {
+                        throw new Unsupported("列名不明确 " + name);
+                    }
+                    found = new ColumnRef(s, index, plan.sources.get(s).table.column(index));
+                }
+            }
+            return found;
+        }
+
+        private int sourceOf(Table table) {
+            String qualifier = unquote(table.getName()).toLowerCase(Locale.ROOT);
+            for (int s = 0; s < plan.sources.size(); s++) {
+                if (plan.sources.get(s).qualifier.equals(qualifier)) {
+                    return s;
+                }
+            }
+            throw new Unsupported("表别名 " + table);
+        }
+
+        /**
+         * 表达式引用的来源表
+         */
+        private Set<Integer> sourcesOf(Expression expression) {
+            Set<Integer> used = new LinkedHashSet<>();
+            collectSources(expression, used);
+            return used;
+        }
+
+        private void collectSources(Expression expression, Set<Integer> used) {
+            Expression e = unwrap(expression);
+            if (e instanceof Column column) {
+                used.add(resolveColumn(column).source());
+            } else if (e instanceof BinaryExpression binary) {
+                collectSources(binary.getLeftExpression(), used);
+                collectSources(binary.getRightExpression(), used);
+            } else if (e instanceof NotExpression not) {
+                collectSources(not.getExpression(), used);
+            } else if (e instanceof SignedExpression signed) {
+                collectSources(signed.getExpression(), used);
+            } else if (e instanceof IsNullExpression isNull) {
+                collectSources(isNull.getLeftExpression(), used);
+            } else if (e instanceof Between between) {
+                collectSources(between.getLeftExpression(), used);
+                collectSources(between.getBetweenExpressionStart(), used);
+                collectSources(between.getBetweenExpressionEnd(), used);
+            } else if (e instanceof InExpression in) {
+                collectSources(in.getLeftExpression(), used);
+                if (in.getRightExpression() instanceof ExpressionList<?> list) {
+                    for (Expression item : list) {
+                        collectSources(item, used);
+                    }
+                } else {
+                    throw new Unsupported("IN子查询");
+                }
+            } else if (e instanceof ExpressionList<?> list) {
+                for (Expression item : list) {
+                    collectSources(item, used);
+                }
+            }
+        }
+
+        // ---------- 表达式编译 ----------
+
+        private Typed rowValue(Expression expression) {
+            return value(expression, this::rowLeaf);
+        }
+
+        /**
+         * 编译扫描阶段的条件：只涉及一个字典列时预先对字典逐项求值
+         */
+        private Typed rowPredicate(Expression expression) {
+            Typed predicate = predicate(expression, this::rowLeaf);
+            ColumnRef only = singleColumn(expression);
+            if (only == null || predicate.constant()
+                    || !(only.vector() instanceof ColumnVector.DictionaryColumn dictionary)) {
+                return predicate;
+            }
+            Object[] holder = new Object[1];
+            Frame empty = new Frame();
+            Typed probe = predicate(expression, e -> {
+                if (e instanceof Column) {
+                    return new Typed(frame -> holder[0], Values.Kind.STRING, false, false, null, Types.VARCHAR, "VARCHAR");
+                }
+                return rowLeaf(e);
+            });
+            // 0 未知，1 成立，2 不成立
+            byte[] results = new byte[dictionary.dictionarySize()];
+            for (int code = 0; code < results.length; code++) {
+                holder[0] = dictionary.value(code);
+                Object result = probe.expr().eval(empty);
+                results[code] = result == null ? 0 : Boolean.TRUE.equals(result) ? (byte) 1 : (byte) 2;
+            }
+            holder[0] = null;
+            Object onNull = probe.expr().eval(empty);
+            int source = only.source();
+            return Typed.predicate(frame -> {
+                int id = frame.ids[source];
+                int code = id < 0 ? -1 : dictionary.code(id);
+                if (code < 0) {
+                    return onNull;
+                }
+                byte result = results[code];
+                return result == 0 ? null : result == 1;
+            }, false);
+        }
+
+        /**
+         * 表达式中只引用了一个列（可出现多次）时返回该列
+         */
+        private ColumnRef singleColumn(Expression expression) {
+            List<ColumnRef> refs = new ArrayList<>();
+            collectColumns(expression, refs);
+            if (refs.isEmpty()) {
+                return null;
+            }
+            ColumnRef first = refs.get(0);
+            for (ColumnRef ref : refs) {
+                if (ref.source() != first.source() || ref.column() != first.column()) {
+                    return null;
+                }
+            }
+            return first;
+        }
+
+        private void collectColumns(Expression expression, List<ColumnRef> refs) {
+            Expression e = unwrap(expression);
+            if (e instanceof Column column) {
+                refs.add(resolveColumn(column));
+            } else if (e instanceof BinaryExpression binary) {
+                collectColumns(binary.getLeftExpression(), refs);
+                collectColumns(binary.getRightExpression(), refs);
+            } else if (e instanceof NotExpression not) {
+                collectColumns(not.getExpression(), refs);
+            } else if (e instanceof SignedExpression signed) {
+                collectColumns(signed.getExpression(), refs);
+            } else if (e instanceof IsNullExpression isNull) {
+                collectColumns(isNull.getLeftExpression(), refs);
+            } else if (e instanceof Between between) {
+                collectColumns(between.getLeftExpression(), refs);
+                collectColumns(between.getBetweenExpressionStart(), refs);
+                collectColumns(between.getBetweenExpressionEnd(), refs);
+            } else if (e instanceof InExpression in) {
+                collectColumns(in.getLeftExpression(), refs);
+                if (in.getRightExpression() instanceof ExpressionList<?> list) {
+                    for (Expression item : list) {
+                        collectColumns(item, refs);
+                    }
+                }
+            }
+        }
+
+        private Typed value(Expression expression, Leaves leaves) {
+            Typed typed = compile(expression, leaves);
+            if (typed.predicate()) {
+                throw new Unsupported("条件表达式作为取值");
+            }
+            return typed;
+        }
+
+        private Typed predicate(Expression expression, Leaves leaves) {
+            Typed typed = compile(expression, leaves);
+            if (!typed.predicate()) {
+                throw new Unsupported("取值作为条件");
+            }
+            return typed;
+        }
+
+        private Typed compile(Expression expression, Leaves leaves) {
+            Typed leaf = leaves.resolve(expression);
+            if (leaf != null) {
+                return leaf;
+            }
+            Expression e = expression;
+            if (e instanceof Parenthesis parenthesis) {
+                return compile(parenthesis.getExpression(), leaves);
+            }
+            if (e instanceof ParenthesedExpressionList<?> list && list.size() == 1) {
+                return compile(list.get(0), leaves);
+            }
+            if (e instanceof StringValue string) {
+                return Typed.constant(stringLiteral(string), Values.Kind.STRING);
+            }
+            if (e instanceof LongValue number) {
+                if (number.getBigIntegerValue().bitLength() >= 64) {
+                    throw new Unsupported("整数超出范围");
+                }
+                return Typed.constant(number.getValue(), Values.Kind.INTEGER);
+            }
+            if (e instanceof DoubleValue number) {
+                String text = number.toString();
+                if (text.contains("e") || text.contains("E")) {
+                    return Typed.constant(number.getValue(), Values.Kind.DOUBLE);
+                }
+                // MySQL中不带指数的小数字面量为DECIMAL
+                return Typed.constant(new BigDecimal(text), Values.Kind.DECIMAL);
+            }
+            if (e instanceof NullValue) {
+                return Typed.constant(null, Values.Kind.NULL);
+            }
+            if (e instanceof JdbcParameter parameter) {
+                return parameter(parameter);
+            }
+            if (e instanceof SignedExpression signed) {
+                Typed operand = value(signed.getExpression(), leaves);
+                if (!operand.kind().isNumeric() && operand.kind() != Values.Kind.NULL) {
+                    throw new Unsupported("符号运算类型");
+                }
+                if (signed.getSign() == '+') {
+                    return operand;
+                }
+                if (signed.getSign() != '-') {
+                    throw new Unsupported("运算符 " + signed.getSign());
+                }
+                Values.Kind kind = operand.kind();
+                Expr inner = operand.expr();
+                return fold(Typed.value(frame -> {
+                    Object v = inner.eval(frame);
+                    return v == null ? null : Values.negate(v, kind);
+                }, kind, operand.constant()));
+            }
+            if (e instanceof Addition || e instanceof Subtraction || e instanceof Multiplication
+                    || e instanceof Division || e instanceof Modulo) {
+                return arithmetic((BinaryExpression) e, leaves);
+            }
+            if (e instanceof AndExpression and) {
+                return logical(predicate(and.getLeftExpression(), leaves), predicate(and.getRightExpression(), leaves), true);
+            }
+            if (e instanceof OrExpression or) {
+                return logical(predicate(or.getLeftExpression(), leaves), predicate(or.getRightExpression(), leaves), false);
+            }
+            if (e instanceof NotExpression not) {
+                Typed operand = predicate(not.getExpression(), leaves);
+                Expr inner = operand.expr();
+                return fold(Typed.predicate(frame -> {
+                    Object v = inner.eval(frame);
+                    return v == null ? null : !((Boolean) v);
+                }, operand.constant()));
+            }
+            if (e instanceof ComparisonOperator comparison) {
+                return comparison(comparison, leaves);
+            }
+            if (e instanceof InExpression in) {
+                return in(in, leaves);
+            }
+            if (e instanceof Between between) {
+                return between(between, leaves);
+            }
+            if (e instanceof LikeExpression like) {
+                return like(like, leaves);
+            }
+            if (e instanceof IsNullExpression isNull) {
+                Typed operand = value(isNull.getLeftExpression(), leaves);
+                Expr inner = operand.expr();
+                boolean not = isNull.isNot();
+                return fold(Typed.predicate(frame -> (inner.eval(frame) == null) != not, operand.constant()));
+            }
+            throw new Unsupported("表达式 " + e.getClass().getSimpleName());
+        }
+
+        private Typed parameter(JdbcParameter parameter) {
+            int index = parameter.getIndex() != null ? parameter.getIndex() - 1 : -1;
+            if (index < 0 || index >= args.length) {
+                throw new Unsupported("参数");
+            }
+            Object value = Values.normalize(args[index]);
+            Values.Kind kind = Values.kindOf(value);
+            if (kind == Values.Kind.OTHER) {
+                throw new Unsupported("参数类型");
+            }
+            return Typed.constant(value, kind);
+        }
+
+        private static String stringLiteral(StringValue string) {
+            String value = string.getValue();
+            if (value.indexOf('\\') >= 0 || string.getPrefix() != null) {
+                throw new Unsupported("字符串转义");
+            }
+            return value.replace("''", "'");
+        }
+
+        private long constantLong(Expression expression) {
+            Typed typed = value(expression, e -> {
+                if (e instanceof Column || e instanceof Function) {
+                    throw new Unsupported("LIMIT");
+                }
+                return null;
+            });
+            if (!typed.constant() || typed.kind() != Values.Kind.INTEGER) {
+                throw new Unsupported("LIMIT");
+            }
+            return ((Number) typed.constantValue()).longValue();
+        }
+
+        private Typed arithmetic(BinaryExpression e, Leaves leaves) {
+            Typed left = value(e.getLeftExpression(), leaves);
+            Typed right = value(e.getRightExpression(), leaves);
+            if (!(left.kind().isNumeric() || left.kind() == Values.Kind.NULL)
+                    || !(right.kind().isNumeric() || right.kind() == Values.Kind.NULL)) {
+                throw new Unsupported("算术运算类型");
+            }
+            Values.Kind operands = left.kind() == Values.Kind.NULL ? right.kind()
+                    : right.kind() == Values.Kind.NULL ? left.kind() : left.kind().widen(right.kind());
+            if (operands == Values.Kind.NULL) {
+                return Typed.constant(null, Values.Kind.NULL);
+            }
+            Expr l = left.expr();
+            Expr r = right.expr();
+            Values.Kind kind = e instanceof Division && operands != Values.Kind.DOUBLE ? Values.Kind.DECIMAL : operands;
+            Expr expr;
+            if (e instanceof Addition) {
+                expr = frame -> binary(l, r, frame, (a, b) -> Values.add(a, b, operands));
+            } else if (e instanceof Subtraction) {
+                expr = frame -> binary(l, r, frame, (a, b) -> Values.subtract(a, b, operands));
+            } else if (e instanceof Multiplication) {
+                expr = frame -> binary(l, r, frame, (a, b) -> Values.multiply(a, b, operands));
+            } else if (e instanceof Division) {
+                expr = frame -> binary(l, r, frame, (a, b) -> Values.divide(a, b, operands));
+            } else {
+                expr = frame -> binary(l, r, frame, (a, b) -> Values.modulo(a, b, operands));
+            }
+            return fold(Typed.value(expr, kind, left.constant() && right.constant()));
+        }
+
+        private static Object binary(Expr left, Expr right, Frame frame, java.util.function.BinaryOperator<Object> operator) {
+            Object a = left.eval(frame);
+            if (a == null) {
+                return null;
+            }
+            Object b = right.eval(frame);
+            return b == null ? null : operator.apply(a, b);
+        }
+
+        private static Typed logical(Typed left, Typed right, boolean and) {
+            Expr l = left.expr();
+            Expr r = right.expr();
+            Expr expr = and ? frame -> {
+                Object a = l.eval(frame);
+                if (Boolean.FALSE.equals(a)) return false;
+                Object b = r.eval(frame);
+                if (Boolean.FALSE.equals(b)) return false;
+                return a == null || b == null ? null : true;
+            } : frame -> {
+                Object a = l.eval(frame);
+                if (Boolean.TRUE.equals(a)) return true;
+                Object b = r.eval(frame);
+                if (Boolean.TRUE.equals(b)) return true;
+                return a == null || b == null ? null : false;
+            };
+            return fold(Typed.predicate(expr, left.constant() && right.constant()));
+        }
+
+        private static Typed and(List<Typed> predicates) {
+            Typed result = predicates.get(0);
+            for (int i = 1; i < predicates.size(); i++) {
+                result = logical(result, predicates.get(i), true);
+            }
+            return result;
+        }
+
+        private Typed comparison(ComparisonOperator e, Leaves leaves) {
+            Typed left = value(e.getLeftExpression(), leaves);
+            Typed right = value(e.getRightExpression(), leaves);
+            checkComparable(left, right);
+            java.util.function.IntPredicate test;
+            if (e instanceof EqualsTo) {
+                test = c -> c == 0;
+            } else if (e instanceof NotEqualsTo) {
+                test = c -> c != 0;
+            } else if (e instanceof GreaterThan) {
+                test = c -> c > 0;
+            } else if (e instanceof GreaterThanEquals) {
+                test = c -> c >= 0;
+            } else if (e instanceof MinorThan) {
+                test = c -> c < 0;
+            } else if (e instanceof MinorThanEquals) {
+                test = c -> c <= 0;
+            } else {
+                throw new Unsupported("比较运算 " + e.getStringExpression());
+            }
+            if (e.getOldOracleJoinSyntax() != 0) {
+                throw new Unsupported("Oracle连接语法");
+            }
+            Expr l = left.expr();
+            Expr r = right.expr();
+            return fold(Typed.predicate(frame -> {
+                Object a = l.eval(frame);
+                if (a == null) return null;
+                Object b = r.eval(frame);
+                return b == null ? null : test.test(Values.compare(a, b));
+            }, left.constant() && right.constant()));
+        }
+
+        private Typed in(InExpression e, Leaves leaves) {
+            if (!(e.getRightExpression() instanceof ExpressionList<?> list) || e.isGlobal()
+                    || e.getOldOracleJoinSyntax() != 0 || list.isEmpty()) {
+                throw new Unsupported("IN");
+            }
+            Typed left = value(e.getLeftExpression(), leaves);
+            List<Typed> items = new ArrayList<>(list.size());
+            boolean constants = true;
+            for (Expression item : list) {
+                Typed typed = value(item, leaves);
+                checkComparable(left, typed);
+                constants &= typed.constant();
+                items.add(typed);
+            }
+            boolean not = e.isNot();
+            Expr l = left.expr();
+            Expr expr;
+            if (constants) {
+                // 常量列表预先转为键集合
+                Set<Object> keys = new HashSet<>();
+                boolean hasNull = false;
+                for (Typed item : items) {
+                    Object value = item.constantValue();
+                    if (value == null) {
+                        hasNull = true;
+                    } else {
+                        keys.add(Values.key(value));
+                    }
+                }
+                boolean listHasNull = hasNull;
+                expr = frame -> {
+                    Object a = l.eval(frame);
+                    if (a == null) return null;
+                    if (keys.contains(Values.key(a))) return !not;
+                    return listHasNull ? null : not;
+                };
+            } else {
+                expr = frame -> {
+                    Object a = l.eval(frame);
+                    if (a == null) return null;
+                    boolean unknown = false;
+                    for (Typed item : items) {
+                        Object b = item.expr().eval(frame);
+                        if (b == null) {
+                            unknown = true;
+                        } else if (Values.compare(a, b) == 0) {
+                            return !not;
+                        }
+                    }
+                    return unknown ? null : not;
+                };
+            }
+            return fold(Typed.predicate(expr, left.constant() && constants));
+        }
+
+        private Typed between(Between e, Leaves leaves) {
+            Typed value = value(e.getLeftExpression(), leaves);
+            Typed start = value(e.getBetweenExpressionStart(), leaves);
+            Typed end = value(e.getBetweenExpressionEnd(), leaves);
+            checkComparable(value, start);
+            checkComparable(value, end);
+            Expr v = value.expr();
+            Expr s = start.expr();
+            Expr t = end.expr();
+            boolean not = e.isNot();
+            return fold(Typed.predicate(frame -> {
+                Object a = v.eval(frame);
+                if (a == null) return null;
+                Object low = s.eval(frame);
+                Object high = t.eval(frame);
+                Boolean aboveLow = low == null ? null : Values.compare(a, low) >= 0;
+                Boolean belowHigh = high == null ? null : Values.compare(a, high) <= 0;
+                Boolean inside = Boolean.FALSE.equals(aboveLow) || Boolean.FALSE.equals(belowHigh) ? Boolean.FALSE
+                        : aboveLow == null || belowHigh == null ? null : Boolean.TRUE;
+                return inside == null ? null : inside != not;
+            }, value.constant() && start.constant() && end.constant()));
+        }
+
+        private Typed like(LikeExpression e, Leaves leaves) {
+            if (e.getLikeKeyWord() != LikeExpression.KeyWord.LIKE || e.getEscape() != null || e.isUseBinary()) {
+                throw new Unsupported("LIKE");
+            }
+            Typed value = value(e.getLeftExpression(), leaves);
+            Typed pattern = value(e.getRightExpression(), leaves);
+            if (value.kind() != Values.Kind.STRING && value.kind() != Values.Kind.NULL
+                    || !pattern.constant() || pattern.kind() != Values.Kind.STRING) {
+                throw new Unsupported("LIKE");
+            }
+            Pattern regex = likePattern((String) pattern.constantValue());
+            Expr v = value.expr();
+            boolean not = e.isNot();
+            return fold(Typed.predicate(frame -> {
+                Object a = v.eval(frame);
+                return a == null ? null : regex.matcher((String) a).matches() != not;
+            }, value.constant()));
+        }
+
+        /**
+         * LIKE模式转为正则（不区分大小写，反斜杠转义%和_）
+         */
+        private static Pattern likePattern(String like) {
+            StringBuilder regex = new StringBuilder();
+            for (int i = 0; i < like.length(); i++) {
+                char c = like.charAt(i);
+                if (c == '%') {
+                    regex.append(".*");
+                } else if (c == '_') {
+                    regex.append('.');
+                } else {
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                }
+            }
+            return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+        }
+
+        private static void checkComparable(Typed a, Typed b) {
+            if (a.predicate() || b.predicate() || a.kind() == Values.Kind.OTHER || b.kind() == Values.Kind.OTHER
+                    || !a.kind().comparableWith(b.kind())) {
+                throw new Unsupported("比较类型");
+            }
+        }
+
+        /**
+         * 常量表达式折叠为常量
+         */
+        private static Typed fold(Typed typed) {
+            if (!typed.constant()) {
+                return typed;
+            }
+            Object value = typed.expr().eval(null);
+            return new Typed(frame -> value, typed.kind(), typed.predicate(), true, null, typed.sqlType(), typed.typeName());
+        }
+    }
+
+    // ==================== 工具 ====================
+
+    private static List<Expression> conjuncts(Expression expression) {
+        List<Expression> result = new ArrayList<>();
+        if (expression != null) {
+            collectConjuncts(expression, result);
+        }
+        return result;
+    }
+
+    private static void collectConjuncts(Expression expression, List<Expression> result) {
+        Expression e = unwrap(expression);
+        if (e instanceof AndExpression and) {
+            collectConjuncts(and.getLeftExpression(), result);
+            collectConjuncts(and.getRightExpression(), result);
+        } else {
+            result.add(e);
+        }
+    }
+
+    private static Expression unwrap(Expression expression) {
+        Expression e = expression;
+        while (true) {
+            if (e instanceof Parenthesis parenthesis) {
+                e = parenthesis.getExpression();
+            } else if (e instanceof ParenthesedExpressionList<?> list && list.size() == 1) {
+                e = list.get(0);
+            } else {
+                return e;
+            }
+        }
+    }
+
+    private static boolean hasAggregate(Expression expression) {
+        Expression e = unwrap(expression);
+        if (e instanceof Function function) {
+            if (function.getName() != null && AGGREGATES.contains(function.getName().toUpperCase(Locale.ROOT))) {
+                return true;
+            }
+            return function.getParameters() != null && function.getParameters().stream().anyMatch(LocalQueryEngine::hasAggregate);
+        }
+        if (e instanceof BinaryExpression binary) {
+            return hasAggregate(binary.getLeftExpression()) || hasAggregate(binary.getRightExpression());
+        }
+        if (e instanceof SignedExpression signed) {
+            return hasAggregate(signed.getExpression());
+        }
+        if (e instanceof NotExpression not) {
+            return hasAggregate(not.getExpression());
+        }
+        return false;
+    }
+
+    private static String unquote(String identifier) {
+        if (identifier != null && identifier.length() >= 2) {
+            char first = identifier.charAt(0);
+            char last = identifier.charAt(identifier.length() - 1);
+            if ((first == '`' && last == '`') || (first == '"' && last == '"')) {
+                return identifier.substring(1, identifier.length() - 1);
+            }
+        }
+        return identifier;
+    }
+}
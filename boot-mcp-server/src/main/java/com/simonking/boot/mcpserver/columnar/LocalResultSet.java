@@ -0,0 +1,198 @@
+package com.simonking.boot.mcpserver.columnar;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+
+
+/**
+ * <p>PURPOSE: 本地查询结果的只读结果集
+ * <p>DESCRIPTION: 把本地执行的结果包装为只能向前读取的 {@link ResultSet}，使现有的结果集提取器
+ * （StreamingTableExtractor、JsonTableExtractor、COUNT读取）无需区分结果来自JDBC还是本地缓存。
+ * 只实现提取器用到的方法，其余方法抛出 {@link SQLFeatureNotSupportedException}
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public final class LocalResultSet {
+
+    private LocalResultSet() {
+    }
+
+    /**
+     * 创建结果集
+     */
+    public static ResultSet of(LocalQueryEngine.Result result) {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(LocalResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, new MetaDataHandler(result));
+        return (ResultSet) Proxy.newProxyInstance(LocalResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, new RowsHandler(result.rows(), result.labels(), metaData));
+    }
+
+    private static final class RowsHandler implements InvocationHandler {
+        private final List<Object[]> rows;
+        private final List<String> labels;
+        private final ResultSetMetaData metaData;
+        private int cursor = -1;
+        private boolean wasNull;
+        private boolean closed;
+
+        private RowsHandler(List<Object[]> rows, List<String> labels, ResultSetMetaData metaData) {
+            this.rows = rows;
+            this.labels = labels;
+            this.metaData = metaData;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    cursor = Math.min(cursor + 1, rows.size());
+                    return cursor < rows.size();
+                case "getMetaData":
+                    return metaData;
+                case "wasNull":
+                    return wasNull;
+                case "getRow":
+                    return cursor >= 0 && cursor < rows.size() ? cursor + 1 : 0;
+                case "findColumn":
+                    return findColumn((String) args[0]);
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getWarnings", "clearWarnings", "setFetchSize":
+                    return null;
+                case "getFetchSize":
+                    return 0;
+                case "getType":
+                    return ResultSet.TYPE_FORWARD_ONLY;
+                case "getConcurrency":
+                    return ResultSet.CONCUR_READ_ONLY;
+                case "unwrap":
+                    throw new SQLException("不支持 unwrap");
+                case "isWrapperFor":
+                    return false;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "LocalResultSet[" + rows.size() + " rows]";
+                default:
+                    if (method.getName().startsWith("get") && args != null && args.length >= 1) {
+                        int column = args[0] instanceof String label ? findColumn(label) : (Integer) args[0];
+                        return convert(value(column), method.getReturnType(), args);
+                    }
+                    throw new SQLFeatureNotSupportedException("本地结果集不支持 " + method.getName());
+            }
+        }
+
+        private Object value(int column) throws SQLException {
+            if (cursor < 0 || cursor >= rows.size()) {
+                throw new SQLException("结果集没有当前行");
+            }
+            if (column < 1 || column > labels.size()) {
+                throw new SQLException("列下标越界: " + column);
+            }
+            Object value = rows.get(cursor)[column - 1];
+            wasNull = value == null;
+            return value;
+        }
+
+        private int findColumn(String label) throws SQLException {
+            for (int i = 0; i < labels.size(); i++) {
+                if (labels.get(i).equalsIgnoreCase(label)) {
+                    return i + 1;
+                }
+            }
+            throw new SQLException("列不存在: " + label);
+        }
+
+        private static Object convert(Object value, Class<?> type, Object[] args) throws SQLException {
+            if (type == Object.class) {
+                return value;
+            }
+            if (type == String.class) {
+                return value != null ? value.toString() : null;
+            }
+            if (type == BigDecimal.class) {
+                return value == null ? null : value instanceof Number number ? Values.decimal(number) : new BigDecimal(value.toString());
+            }
+            if (type.isPrimitive() && type != boolean.class) {
+                Number number = value == null ? 0 : value instanceof Number n ? n : new BigDecimal(value.toString());
+                if (type == long.class) return number.longValue();
+                if (type == int.class) return number.intValue();
+                if (type == double.class) return number.doubleValue();
+                if (type == float.class) return number.floatValue();
+                if (type == short.class) return number.shortValue();
+                if (type == byte.class) return number.byteValue();
+            }
+            if (type == boolean.class) {
+                return value instanceof Number number ? number.intValue() != 0 : value != null && "1".equals(value.toString());
+            }
+            if (args.length == 2 && args[1] instanceof Class<?> target && (value == null || target.isInstance(value))) {
+                return value;
+            }
+            throw new SQLFeatureNotSupportedException("本地结果集不支持按 " + type.getSimpleName() + " 读取");
+        }
+    }
+
+    private static final class MetaDataHandler implements InvocationHandler {
+        private final LocalQueryEngine.Result result;
+
+        private MetaDataHandler(LocalQueryEngine.Result result) {
+            this.result = result;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return result.labels().size();
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "LocalResultSetMetaData" + result.labels();
+                case "isWrapperFor":
+                    return false;
+                default:
+                    break;
+            }
+            if (args == null || args.length != 1 || !(args[0] instanceof Integer column)
+                    || column < 1 || column > result.labels().size()) {
+                throw new SQLFeatureNotSupportedException("本地结果集元数据不支持 " + method.getName());
+            }
+            int i = column - 1;
+            return switch (method.getName()) {
+                case "getColumnLabel", "getColumnName" -> result.labels().get(i);
+                case "getColumnType" -> result.sqlTypes()[i];
+                case "getColumnTypeName" -> result.typeNames()[i];
+                case "getColumnClassName" -> Object.class.getName();
+                case "getTableName", "getSchemaName", "getCatalogName" -> "";
+                case "getPrecision", "getScale", "getColumnDisplaySize" -> 0;
+                case "isNullable" -> ResultSetMetaData.columnNullableUnknown;
+                case "isAutoIncrement", "isCaseSensitive", "isCurrency", "isDefinitelyWritable", "isWritable",
+                     "isSigned" -> false;
+                case "isSearchable", "isReadOnly" -> true;
+                default -> throw new SQLFeatureNotSupportedException("本地结果集元数据不支持 " + method.getName());
+            };
+        }
+    }
+}
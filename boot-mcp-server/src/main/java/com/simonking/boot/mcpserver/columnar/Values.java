@@ -0,0 +1,261 @@
+package com.simonking.boot.mcpserver.columnar;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Types;
+import java.util.Locale;
+
+
+/**
+ * <p>PURPOSE: 本地查询的取值比较与运算
+ * <p>DESCRIPTION: 与MySQL默认行为保持一致的最小实现：字符串按不区分大小写、忽略末尾空格（utf8mb4_general_ci 为 PAD SPACE，
+ * 'abc ' = 'abc'）比较，整数运算为long（溢出时放弃本地执行），
+ * 含小数时按BigDecimal精确计算，除法结果保留被除数小数位数+4位，除数为0时结果为NULL，含浮点数时按double计算。
+ * 字符串和数值之间不做隐式转换，由调用方在编译阶段拒绝
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+final class Values {
+
+    // MySQL div_precision_increment 默认值
+    static final int DIV_PRECISION_INCREMENT = 4;
+
+    private Values() {
+    }
+
+    /**
+     * 取值的类别
+     */
+    enum Kind {
+        STRING, INTEGER, DECIMAL, DOUBLE, NULL, OTHER;
+
+        boolean isNumeric() {
+            return this == INTEGER || this == DECIMAL || this == DOUBLE;
+        }
+
+        /**
+         * 与另一个取值能否比较（NULL与任何类别都可以比较，结果为未知）
+         */
+        boolean comparableWith(Kind other) {
+            if (this == NULL || other == NULL) return true;
+            if (this == STRING) return other == STRING;
+            return isNumeric() && other.isNumeric();
+        }
+
+        /**
+         * 算术运算结果的类别
+         */
+        Kind widen(Kind other) {
+            if (this == DOUBLE || other == DOUBLE) return DOUBLE;
+            if (this == DECIMAL || other == DECIMAL) return DECIMAL;
+            return INTEGER;
+        }
+
+        static Kind of(int sqlType) {
+            return switch (sqlType) {
+                case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT -> INTEGER;
+                case Types.DECIMAL, Types.NUMERIC -> DECIMAL;
+                case Types.REAL, Types.FLOAT, Types.DOUBLE -> DOUBLE;
+                case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR -> STRING;
+                case Types.NULL -> NULL;
+                default -> OTHER;
+            };
+        }
+
+        int sqlType() {
+            return switch (this) {
+                case STRING -> Types.VARCHAR;
+                case INTEGER -> Types.BIGINT;
+                case DECIMAL -> Types.DECIMAL;
+                case DOUBLE -> Types.DOUBLE;
+                case NULL -> Types.NULL;
+                case OTHER -> Types.OTHER;
+            };
+        }
+    }
+
+    /**
+     * 比较两个非空值（类别已在编译阶段校验）
+     */
+    static int compare(Object left, Object right) {
+        if (left instanceof String a && right instanceof String b) {
+            return compareText(a, b);
+        }
+        Number a = (Number) left;
+        Number b = (Number) right;
+        if (isInteger(a) && isInteger(b)) {
+            return Long.compare(a.longValue(), b.longValue());
+        }
+        if (a instanceof Double || a instanceof Float || b instanceof Double || b instanceof Float) {
+            return Double.compare(a.doubleValue(), b.doubleValue());
+        }
+        return decimal(a).compareTo(decimal(b));
+    }
+
+    /**
+     * PAD SPACE比较：较短的字符串按末尾补空格后逐字符比较，大小写规则与 {@link String#compareToIgnoreCase} 相同
+     */
+    static int compareText(String a, String b) {
+        int lengthA = paddedLength(a);
+        int lengthB = paddedLength(b);
+        for (int i = 0, n = Math.max(lengthA, lengthB); i < n; i++) {
+            char x = i < lengthA ? a.charAt(i) : ' ';
+            char y = i < lengthB ? b.charAt(i) : ' ';
+            if (x != y) {
+                x = Character.toLowerCase(Character.toUpperCase(x));
+                y = Character.toLowerCase(Character.toUpperCase(y));
+                if (x != y) {
+                    return x - y;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 字符串的分组键：去掉末尾空格后转小写，与 {@link #compareText} 判断相等的取值得到相同的键
+     */
+    static String foldText(String text) {
+        return text.substring(0, paddedLength(text)).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 去掉末尾空格（只有空格，不含制表符等其他空白）后的长度
+     */
+    private static int paddedLength(String text) {
+        int length = text.length();
+        while (length > 0 && text.charAt(length - 1) == ' ') {
+            length--;
+        }
+        return length;
+    }
+
+    /**
+     * 分组、去重、关联使用的键：字符串去掉末尾空格后转小写，数值统一为去掉末尾0的BigDecimal（整数为Long）
+     */
+    static Object key(Object value) {
+        if (value instanceof String text) {
+            return foldText(text);
+        }
+        if (value instanceof Number number) {
+            if (isInteger(number)) {
+                return number.longValue();
+            }
+            if (number instanceof Double || number instanceof Float) {
+                double d = number.doubleValue();
+                return d == Math.rint(d) && Math.abs(d) < 1e15 ? (Object) (long) d : (Object) d;
+            }
+            BigDecimal decimal = ((BigDecimal) number).stripTrailingZeros();
+            return decimal.scale() <= 0 && decimal.toBigInteger().bitLength() < 64 ? (Object) decimal.longValueExact() : decimal;
+        }
+        return value;
+    }
+
+    static Object add(Object a, Object b, Kind kind) {
+        return switch (kind) {
+            case INTEGER -> Math.addExact(((Number) a).longValue(), ((Number) b).longValue());
+            case DOUBLE -> ((Number) a).doubleValue() + ((Number) b).doubleValue();
+            default -> decimal((Number) a).add(decimal((Number) b));
+        };
+    }
+
+    static Object subtract(Object a, Object b, Kind kind) {
+        return switch (kind) {
+            case INTEGER -> Math.subtractExact(((Number) a).longValue(), ((Number) b).longValue());
+            case DOUBLE -> ((Number) a).doubleValue() - ((Number) b).doubleValue();
+            default -> decimal((Number) a).subtract(decimal((Number) b));
+        };
+    }
+
+    static Object multiply(Object a, Object b, Kind kind) {
+        return switch (kind) {
+            case INTEGER -> Math.multiplyExact(((Number) a).longValue(), ((Number) b).longValue());
+            case DOUBLE -> ((Number) a).doubleValue() * ((Number) b).doubleValue();
+            default -> decimal((Number) a).multiply(decimal((Number) b));
+        };
+    }
+
+    /**
+     * 除法：整数和小数相除结果为DECIMAL，除数为0时返回null
+     */
+    static Object divide(Object a, Object b, Kind kind) {
+        if (kind == Kind.DOUBLE) {
+            double divisor = ((Number) b).doubleValue();
+            return divisor == 0 ? null : ((Number) a).doubleValue() / divisor;
+        }
+        BigDecimal divisor = decimal((Number) b);
+        if (divisor.signum() == 0) {
+            return null;
+        }
+        BigDecimal dividend = decimal((Number) a);
+        return dividend.divide(divisor, Math.max(0, dividend.scale()) + DIV_PRECISION_INCREMENT, RoundingMode.HALF_UP);
+    }
+
+    static Object modulo(Object a, Object b, Kind kind) {
+        switch (kind) {
+            case INTEGER -> {
+                long divisor = ((Number) b).longValue();
+                return divisor == 0 ? null : ((Number) a).longValue() % divisor;
+            }
+            case DOUBLE -> {
+                double divisor = ((Number) b).doubleValue();
+                return divisor == 0 ? null : ((Number) a).doubleValue() % divisor;
+            }
+            default -> {
+                BigDecimal divisor = decimal((Number) b);
+                return divisor.signum() == 0 ? null : decimal((Number) a).remainder(divisor);
+            }
+        }
+    }
+
+    static Object negate(Object value, Kind kind) {
+        return switch (kind) {
+            case INTEGER -> Math.negateExact(((Number) value).longValue());
+            case DOUBLE -> -((Number) value).doubleValue();
+            default -> decimal((Number) value).negate();
+        };
+    }
+
+    static BigDecimal decimal(Number number) {
+        if (number instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        if (isInteger(number)) {
+            return BigDecimal.valueOf(number.longValue());
+        }
+        return BigDecimal.valueOf(number.doubleValue());
+    }
+
+    static boolean isInteger(Number number) {
+        return number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte;
+    }
+
+    /**
+     * 参数值（PreparedStatement参数）的类别，不支持的类型返回 {@link Kind#OTHER}
+     */
+    static Kind kindOf(Object value) {
+        if (value == null) return Kind.NULL;
+        if (value instanceof String) return Kind.STRING;
+        if (value instanceof Number number) {
+            if (isInteger(number)) return Kind.INTEGER;
+            if (number instanceof BigDecimal) return Kind.DECIMAL;
+            if (number instanceof Double || number instanceof Float) return Kind.DOUBLE;
+        }
+        return Kind.OTHER;
+    }
+
+    /**
+     * 参数值统一为引擎内部表示：整数为Long
+     */
+    static Object normalize(Object value) {
+        return value instanceof Number number && isInteger(number) ? (Object) number.longValue() : value;
+    }
+}
@@ -0,0 +1,72 @@
+package com.simonking.boot.mcpserver.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+
+/**
+ * <p>PURPOSE: 数据源与连接池配置
+ * <p>DESCRIPTION: 同一数据库（spring.datasource的URL和账号）建立两个Hikari连接池：
+ * interactive（spring.datasource.hikari）供分页查询、EXPLAIN、元数据等交互请求使用，为主数据源；
+ * analytical（mcp.sql.analytical-pool）供精确COUNT和超出代价上限的重量级查询使用，连接数少、排队时间长，
+ * 大查询再多也不会占满交互连接池。两个连接池的活跃/空闲/等待连接数、获取连接耗时和超时次数
+ * 由actuator以 hikaricp_* 指标（pool标签区分）导出到 /actuator/prometheus
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    /**
+     * 交互连接池（主数据源）
+     */
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * 分析连接池，与主数据源连接同一数据库
+     */
+    @Bean
+    @ConfigurationProperties("mcp.sql.analytical-pool")
+    public HikariDataSource analyticalDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public JdbcTemplate analyticalJdbcTemplate(@Qualifier("analyticalDataSource") DataSource analyticalDataSource) {
+        return new JdbcTemplate(analyticalDataSource);
+    }
+}
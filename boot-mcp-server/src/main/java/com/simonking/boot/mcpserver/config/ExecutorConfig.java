@@ -0,0 +1,37 @@
+package com.simonking.boot.mcpserver.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+
+/**
+ * <p>PURPOSE: 后台任务线程池配置
+ * <p>DESCRIPTION: 用于不阻塞工具调用的后台SQL任务（如精确总数计算），并开启定时任务（如元数据快照刷新）
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Configuration
+@EnableScheduling
+public class ExecutorConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor sqlBackgroundExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("sql-bg-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
@@ -0,0 +1,422 @@
+package com.simonking.boot.mcpserver.config;
+
+import com.simonking.boot.mcpserver.format.TableRenderer;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * <p>PURPOSE: SQL查询相关配置
+ * <p>DESCRIPTION: 对应application.yml中 mcp.sql 前缀的配置项
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "mcp.sql")
+public class SqlQueryProperties {
+
+    /**
+     * executeQuery结果表格格式：FIXED_WIDTH（定宽文本）/ MARKDOWN / CSV
+     */
+    private TableRenderer.Mode tableFormat = TableRenderer.Mode.FIXED_WIDTH;
+
+    /**
+     * 分页总数查询配置
+     */
+    private Count count = new Count();
+
+    /**
+     * 查询描述 -> SQL 缓存配置
+     */
+    private SqlCache sqlCache = new SqlCache();
+
+    /**
+     * 查询结果缓存配置
+     */
+    private ResultCache resultCache = new ResultCache();
+
+    /**
+     * 表名、表结构说明文件配置
+     */
+    private Schema schema = new Schema();
+
+    /**
+     * 数据库元数据目录配置
+     */
+    private Catalog catalog = new Catalog();
+
+    /**
+     * 单条查询的资源预算（执行时间、返回行数）
+     */
+    private Budget budget = new Budget();
+
+    /**
+     * 执行前的EXPLAIN代价检查
+     */
+    private CostGuard costGuard = new CostGuard();
+
+    /**
+     * 按SQL指纹汇总的执行统计和慢查询日志
+     */
+    private Stats stats = new Stats();
+
+    /**
+     * 预聚合汇总表及聚合查询自动改写
+     */
+    private Rollup rollup = new Rollup();
+
+    /**
+     * 热点维表、统计表的本地列式缓存
+     */
+    private LocalCache localCache = new LocalCache();
+
+    @Data
+    public static class Count {
+        /**
+         * 总数缓存有效期，为0时不缓存
+         */
+        private Duration cacheTtl = Duration.ofMinutes(5);
+        /**
+         * 总数缓存最大条数
+         */
+        private long cacheMaxEntries = 2000;
+        /**
+         * 是否先返回EXPLAIN估算的总数，精确总数在后台计算后写入缓存
+         */
+        private boolean estimateFirst = false;
+    }
+
+    @Data
+    public static class SqlCache {
+        /**
+         * 最大缓存条数
+         */
+        private long maxEntries = 1000;
+        /**
+         * 最大缓存权重（按查询描述+SQL的字符数计算），为0时只按条数限制
+         */
+        private long maxWeight = 0;
+        /**
+         * 缓存有效期（自写入起）
+         */
+        private Duration ttl = Duration.ofDays(7);
+        /**
+         * 淘汰策略
+         */
+        private Eviction eviction = Eviction.TINY_LFU;
+        /**
+         * 相似查找阈值（0~1，按查询描述字符n-gram的Jaccard相似度估算）
+         */
+        private double similarityThreshold = 0.6;
+        /**
+         * 相似查找最多返回条数
+         */
+        private int similarityMaxResults = 3;
+        /**
+         * 持久化配置
+         */
+        private Persistence persistence = new Persistence();
+    }
+
+    @Data
+    public static class Persistence {
+        /**
+         * 持久化方式
+         */
+        private PersistenceType type = PersistenceType.NONE;
+        /**
+         * FILE方式的追加日志文件路径
+         */
+        private String file = "./data/sql-cache.log";
+        /**
+         * JDBC方式使用的表名（不存在时自动创建）
+         */
+        private String table = "mcp_sql_cache";
+    }
+
+    /**
+     * SQL缓存持久化方式
+     */
+    public enum PersistenceType {
+        /**
+         * 不持久化，重启后缓存丢失
+         */
+        NONE,
+        /**
+         * 本地追加日志文件
+         */
+        FILE,
+        /**
+         * 现有MySQL数据源中的表
+         */
+        JDBC
+    }
+
+    @Data
+    public static class ResultCache {
+        /**
+         * 是否启用查询结果缓存
+         */
+        private boolean enabled = false;
+        /**
+         * 结果缓存占用内存上限（按结果数据估算的字节数）
+         */
+        private long maxBytes = 64L * 1024 * 1024;
+        /**
+         * 未匹配到表级配置时的默认有效期
+         */
+        private Duration defaultTtl = Duration.ofMinutes(5);
+        /**
+         * 表级有效期，key为表名，支持*通配符（如 hif_*_stt_d），查询涉及多张表时取最短有效期
+         */
+        private Map<String, Duration> tableTtl = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class Schema {
+        /**
+         * 说明文件所在位置（Spring资源路径前缀），如 classpath: 或 file:./schema/
+         */
+        private String location = "classpath:";
+        /**
+         * 表名说明文件
+         */
+        private String tablesFile = "database-info.txt";
+        /**
+         * 表结构说明文件
+         */
+        private String structureFile = "database-tablestructural.txt";
+        /**
+         * 是否监听文件修改并自动重新加载（仅对文件系统中的说明文件有效）
+         */
+        private boolean watch = false;
+    }
+
+    @Data
+    public static class Catalog {
+        /**
+         * 元数据快照刷新间隔（同时作为 @Scheduled 的间隔，见 SchemaCatalogService）
+         */
+        private Duration refreshInterval = Duration.ofMinutes(10);
+        /**
+         * 元数据所属的库，为空时使用当前连接的库
+         */
+        private String schema;
+    }
+
+    @Data
+    public static class Budget {
+        /**
+         * 数据查询的执行时间上限（Statement.setQueryTimeout），为0时不限制
+         */
+        private Duration queryTimeout = Duration.ofSeconds(30);
+        /**
+         * 分页总数COUNT和EXPLAIN的执行时间上限，为0时不限制
+         */
+        private Duration countTimeout = Duration.ofSeconds(10);
+        /**
+         * 是否同时添加MySQL服务端 MAX_EXECUTION_TIME 优化器提示（仅对SELECT开头的语句生效，其他数据库视为注释）
+         */
+        private boolean serverHint = true;
+        /**
+         * 超过执行时间上限后再等待多久仍未结束时，由看门狗主动取消语句
+         */
+        private Duration cancelGrace = Duration.ofSeconds(2);
+        /**
+         * JDBC最大返回行数（Statement.setMaxRows），超出部分被截断，为0时不限制
+         */
+        private int maxRows = 1000;
+        /**
+         * JDBC每次从服务端抓取的行数（Statement.setFetchSize），为0时使用驱动默认值
+         */
+        private int fetchSize = 200;
+    }
+
+    @Data
+    public static class CostGuard {
+        /**
+         * 检查方式
+         */
+        private CostGuardMode mode = CostGuardMode.WARN;
+        /**
+         * 估算扫描行数上限，超过时按检查方式警告或拒绝执行
+         */
+        private long maxExaminedRows = 1_000_000;
+        /**
+         * 执行计划缓存有效期（按规范化SQL缓存，翻页时不重复EXPLAIN）
+         */
+        private Duration planCacheTtl = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Stats {
+        /**
+         * 是否统计SQL执行情况
+         */
+        private boolean enabled = true;
+        /**
+         * 最多保留的指纹数，超出时淘汰最久未执行的指纹
+         */
+        private long maxFingerprints = 500;
+        /**
+         * 指纹多久未执行后丢弃统计
+         */
+        private Duration retention = Duration.ofHours(24);
+        /**
+         * 慢查询阈值，执行（或总数统计）耗时达到该值时写入慢查询日志（logger: mcp.sql.slow），为0时不记录
+         */
+        private Duration slowThreshold = Duration.ofSeconds(3);
+        /**
+         * 每个指纹保留最近多少次执行耗时用于计算p50/p99
+         */
+        private int sampleSize = 256;
+    }
+
+    @Data
+    public static class Rollup {
+        /**
+         * 是否维护汇总表并改写匹配的聚合查询（需要在业务库中建表、写表的权限）
+         */
+        private boolean enabled = false;
+        /**
+         * 增量刷新间隔（同时作为 @Scheduled 的间隔，见 RollupService）
+         */
+        private Duration refreshInterval = Duration.ofMinutes(10);
+        /**
+         * 每次增量刷新重新汇总最近几个月（含当月），更早的月份只在全量重建时刷新
+         */
+        private int refreshMonths = 2;
+        /**
+         * 汇总表定义，同一源表有多个汇总表时按顺序取第一个能改写的
+         */
+        private List<RollupTable> tables = new ArrayList<>();
+    }
+
+    @Data
+    public static class RollupTable {
+        /**
+         * 汇总名称
+         */
+        private String name;
+        /**
+         * 源表
+         */
+        private String source;
+        /**
+         * 汇总表（不存在时自动创建）
+         */
+        private String table;
+        /**
+         * 月份列（yyyyMM），增量刷新按该列删除并重新汇总，必须是维度列之一
+         */
+        private String monthColumn = "biz_mon";
+        /**
+         * 源表日期列，查询中按整月对齐的日期条件会转换为月份列条件，为空时不转换
+         */
+        private String dateColumn = "biz_date";
+        /**
+         * 日期列的字符串格式，只有与该格式一致的日期字面量会转换为月份条件（年、月、日须按此顺序排列）
+         */
+        private String datePattern = "yyyyMMdd";
+        /**
+         * 维度列（汇总表的分组列）
+         */
+        private List<String> dimensions = new ArrayList<>();
+        /**
+         * 度量列（汇总表中保存 sum_列名 合计）
+         */
+        private List<String> measures = new ArrayList<>();
+    }
+
+    @Data
+    public static class LocalCache {
+        /**
+         * 是否把配置的表加载到内存，并在本地执行只引用这些表的查询
+         */
+        private boolean enabled = false;
+        /**
+         * 增量刷新间隔（同时作为 @Scheduled 的间隔，见 ColumnarCacheService）
+         */
+        private Duration refreshInterval = Duration.ofMinutes(5);
+        /**
+         * 缓存的表
+         */
+        private List<LocalCacheTable> tables = new ArrayList<>();
+    }
+
+    @Data
+    public static class LocalCacheTable {
+        /**
+         * 表名，可带库名（库名.表名），查询中带或不带库名都能匹配
+         */
+        private String table;
+        /**
+         * 增量列（如 biz_date），为空时全表缓存、每次全量刷新
+         */
+        private String incrementalColumn;
+        /**
+         * 只缓存增量列最大值往前多少天内的数据，为0时缓存全部
+         */
+        private int windowDays = 0;
+        /**
+         * 增量列为字符串时的日期格式
+         */
+        private String datePattern = "yyyy-MM-dd";
+        /**
+         * 每次增量刷新重新加载已缓存的最大值往前几天的数据（覆盖迟到和修正的数据）
+         */
+        private int refreshDays = 1;
+        /**
+         * 行数上限，超过时不缓存该表
+         */
+        private int maxRows = 500_000;
+    }
+
+    /**
+     * EXPLAIN代价检查方式
+     */
+    public enum CostGuardMode {
+        /**
+         * 不检查
+         */
+        OFF,
+        /**
+         * 超过上限时照常执行，在结果中附带警告和优化建议
+         */
+        WARN,
+        /**
+         * 超过上限时拒绝执行，返回优化建议
+         */
+        REJECT
+    }
+
+    /**
+     * 缓存淘汰策略
+     */
+    public enum Eviction {
+        /**
+         * 最近最少使用
+         */
+        LRU,
+        /**
+         * W-TinyLFU（Caffeine默认策略，兼顾访问频率与时效）
+         */
+        TINY_LFU
+    }
+}
@@ -1,6 +1,8 @@
 package com.simonking.boot.mcpserver.config;
 
+import com.simonking.boot.mcpserver.metrics.MeteredToolCallback;
 import com.simonking.boot.mcpserver.service.SqlQueryServiceHif0911;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.ai.tool.method.MethodToolCallbackProvider;
 import org.springframework.context.annotation.Bean;
@@ -16,7 +18,8 @@ import org.springframework.context.annotation.Configuration;
 public class ToolCallbackProviderConfig {
 
     @Bean
-    public ToolCallbackProvider gzhRecommendTools(SqlQueryServiceHif0911 gzhService) {
-        return MethodToolCallbackProvider.builder().toolObjects(gzhService).build();
+    public ToolCallbackProvider gzhRecommendTools(SqlQueryServiceHif0911 gzhService, MeterRegistry meterRegistry) {
+        // 每个工具调用记录耗时、失败次数和参数/结果大小
+        return MeteredToolCallback.wrap(MethodToolCallbackProvider.builder().toolObjects(gzhService).build(), meterRegistry);
     }
 }
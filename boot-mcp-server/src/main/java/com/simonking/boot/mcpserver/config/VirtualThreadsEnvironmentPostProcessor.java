@@ -0,0 +1,54 @@
+package com.simonking.boot.mcpserver.config;
+
+import org.apache.commons.logging.Log;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+
+/**
+ * <p>PURPOSE: 虚拟线程执行模式
+ * <p>DESCRIPTION: spring.threads.virtual.enabled=true 时（需Java 21+），Spring Boot让Tomcat请求线程、
+ * 异步请求和定时任务使用虚拟线程；本类在Reactor初始化之前同时打开
+ * reactor.schedulers.defaultBoundedElasticOnVirtualThreads，MCP同步工具在boundedElastic上执行，开启后工具调用（JDBC查询）也不再受其线程数上限（CPU核数×10）限制。
+ * Java 21以下开关不生效，启动时给出提示。通过 META-INF/spring.factories 注册
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public class VirtualThreadsEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    private static final String REACTOR_VIRTUAL_PROPERTY = "reactor.schedulers.defaultBoundedElasticOnVirtualThreads";
+
+    private final Log log;
+
+    public VirtualThreadsEnvironmentPostProcessor(DeferredLogFactory logFactory) {
+        this.log = logFactory.getLog(VirtualThreadsEnvironmentPostProcessor.class);
+    }
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            return;
+        }
+        if (!JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            log.warn("spring.threads.virtual.enabled=true 需要Java 21及以上，当前为 "
+                    + System.getProperty("java.version") + "，仍使用平台线程");
+            return;
+        }
+        // 显式配置过的以配置为准
+        if (System.getProperty(REACTOR_VIRTUAL_PROPERTY) == null) {
+            System.setProperty(REACTOR_VIRTUAL_PROPERTY, "true");
+        }
+        log.info("已开启虚拟线程：Tomcat请求、异步任务及Reactor boundedElastic调度器");
+    }
+}
@@ -0,0 +1,46 @@
+package com.simonking.boot.mcpserver.controller;
+
+import com.simonking.boot.mcpserver.service.SqlStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+
+/**
+ * <p>PURPOSE: SQL指纹执行统计接口
+ * <p>DESCRIPTION: 供运维直接查看最耗资源的SQL指纹（不经过模型），GET /sql/stats?top=20&amp;orderBy=p99，
+ * orderBy 取值 total、p99、count、rows、count_time；DELETE /sql/stats 清空统计
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@RestController
+@RequestMapping("/sql/stats")
+public class SqlStatsController {
+
+    @Autowired
+    private SqlStatsService sqlStatsService;
+
+    @GetMapping
+    public List<SqlStatsService.Snapshot> top(@RequestParam(name = "top", defaultValue = "20") int top,
+                                              @RequestParam(name = "orderBy", required = false) String orderBy) {
+        return sqlStatsService.top(Math.min(top, 500), SqlStatsService.Order.parse(orderBy));
+    }
+
+    @DeleteMapping
+    public void reset() {
+        sqlStatsService.reset();
+    }
+}
@@ -0,0 +1,297 @@
+package com.simonking.boot.mcpserver.format;
+
+import java.util.List;
+
+
+/**
+ * <p>PURPOSE: 查询结果表格渲染
+ * <p>DESCRIPTION: 将列名和单元格直接写入调用方提供的StringBuilder，不使用String.format，
+ * 填充空格按显示宽度计算（中日韩全角字符按2列），支持定宽文本、Markdown表格和CSV三种格式。
+ * 渲染器无状态，可在多线程间共享
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public final class TableRenderer {
+
+    // 默认最大列宽（显示宽度），超出部分以...截断
+    public static final int DEFAULT_MAX_WIDTH = 25;
+
+    private static final String NULL_TEXT = "NULL";
+    private static final String ELLIPSIS = "...";
+
+    private final Mode mode;
+    private final int maxWidth;
+
+    public TableRenderer(Mode mode) {
+        this(mode, DEFAULT_MAX_WIDTH);
+    }
+
+    public TableRenderer(Mode mode, int maxWidth) {
+        this.mode = mode;
+        this.maxWidth = Math.max(ELLIPSIS.length() + 1, maxWidth);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * 是否需要预先计算列宽（只有定宽文本需要）
+     */
+    public boolean needsWidths() {
+        return mode == Mode.FIXED_WIDTH;
+    }
+
+    /**
+     * 单元格文本，NULL值显示为NULL
+     */
+    public static String cellText(Object value) {
+        return value != null ? value.toString() : NULL_TEXT;
+    }
+
+    /**
+     * 单元格在定宽文本中占用的列宽（不超过最大列宽）
+     */
+    public int cellWidth(String text) {
+        return Math.min(displayWidth(text), maxWidth);
+    }
+
+    /**
+     * 写表头（含定宽文本的代码块起始和分隔线、Markdown的分隔行）
+     *
+     * @param widths 各列宽度，仅定宽文本使用，其他格式可传null
+     */
+    public void header(StringBuilder sb, String[] columns, int[] widths) {
+        switch (mode) {
+            case FIXED_WIDTH -> {
+                sb.append("```\n");
+                for (int i = 0; i < columns.length; i++) {
+                    sb.append(columns[i]);
+                    pad(sb, widths[i] - displayWidth(columns[i]));
+                    sb.append(" | ");
+                }
+                sb.append('\n');
+                for (int width : widths) {
+                    repeat(sb, '-', width);
+                    sb.append("-+-");
+                }
+                sb.append('\n');
+            }
+            case MARKDOWN -> {
+                sb.append('|');
+                for (String column : columns) {
+                    sb.append(' ');
+                    appendMarkdownCell(sb, column);
+                    sb.append(" |");
+                }
+                sb.append("\n|");
+                for (int i = 0; i < columns.length; i++) {
+                    sb.append(" --- |");
+                }
+                sb.append('\n');
+            }
+            case CSV -> csvRow(sb, columns);
+        }
+    }
+
+    /**
+     * 写一行数据，超过最大列宽的值以...截断（CSV不截断）
+     */
+    public void row(StringBuilder sb, String[] cells, int[] widths) {
+        switch (mode) {
+            case FIXED_WIDTH -> {
+                for (int i = 0; i < cells.length; i++) {
+                    int written = appendTruncated(sb, cells[i]);
+                    pad(sb, widths[i] - written);
+                    sb.append(" | ");
+                }
+                sb.append('\n');
+            }
+            case MARKDOWN -> {
+                sb.append('|');
+                for (String cell : cells) {
+                    sb.append(' ');
+                    int start = sb.length();
+                    appendTruncated(sb, cell);
+                    escapeMarkdown(sb, start);
+                    sb.append(" |");
+                }
+                sb.append('\n');
+            }
+            case CSV -> csvRow(sb, cells);
+        }
+    }
+
+    /**
+     * 写表格结尾
+     */
+    public void footer(StringBuilder sb) {
+        if (mode == Mode.FIXED_WIDTH) {
+            sb.append("```\n");
+        }
+    }
+
+    /**
+     * 渲染已在内存中的行（列宽按全部行计算）
+     */
+    public String render(String[] columns, List<String[]> rows) {
+        int[] widths = null;
+        if (needsWidths()) {
+            widths = new int[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                widths[i] = cellWidth(columns[i]);
+            }
+            for (String[] row : rows) {
+                for (int i = 0; i < columns.length; i++) {
+                    widths[i] = Math.max(widths[i], cellWidth(row[i]));
+                }
+            }
+        }
+        StringBuilder sb = new StringBuilder(64 + rows.size() * columns.length * 12);
+        header(sb, columns, widths);
+        for (String[] row : rows) {
+            row(sb, row, widths);
+        }
+        footer(sb);
+        return sb.toString();
+    }
+
+    /**
+     * 字符串的显示宽度：中日韩文字、全角符号及常见emoji按2列，其余按1列
+     */
+    public static int displayWidth(CharSequence text) {
+        int width = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = Character.codePointAt(text, i);
+            width += isWide(codePoint) ? 2 : 1;
+            i += Character.charCount(codePoint);
+        }
+        return width;
+    }
+
+    static boolean isWide(int cp) {
+        if (cp < 0x1100) return false;
+        return cp <= 0x115F                                  // 韩文字母
+                || (cp >= 0x2E80 && cp <= 0xA4CF && cp != 0x303F) // 中日韩部首、标点、假名、汉字
+                || (cp >= 0xAC00 && cp <= 0xD7A3)            // 韩文音节
+                || (cp >= 0xF900 && cp <= 0xFAFF)            // 兼容汉字
+                || (cp >= 0xFE30 && cp <= 0xFE4F)            // 兼容形式
+                || (cp >= 0xFF00 && cp <= 0xFF60)            // 全角字符
+                || (cp >= 0xFFE0 && cp <= 0xFFE6)
+                || (cp >= 0x1F300 && cp <= 0x1F64F)          // emoji
+                || (cp >= 0x1F900 && cp <= 0x1F9FF)
+                || (cp >= 0x20000 && cp <= 0x3FFFD);         // 扩展汉字
+    }
+
+    /**
+     * 写入单元格，显示宽度超过最大列宽时截断并追加...
+     *
+     * @return 写入内容的显示宽度
+     */
+    private int appendTruncated(StringBuilder sb, String text) {
+        int width = 0;
+        int limit = maxWidth - ELLIPSIS.length();
+        // 截断位置：显示宽度不超过limit的最长前缀
+        int cut = -1;
+        int cutWidth = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            int next = width + (isWide(codePoint) ? 2 : 1);
+            if (cut < 0 && next > limit) {
+                cut = i;
+                cutWidth = width;
+            }
+            width = next;
+            if (width > maxWidth) {
+                sb.append(text, 0, cut).append(ELLIPSIS);
+                return cutWidth + ELLIPSIS.length();
+            }
+            i += Character.charCount(codePoint);
+        }
+        sb.append(text);
+        return width;
+    }
+
+    private static void appendMarkdownCell(StringBuilder sb, String text) {
+        int start = sb.length();
+        sb.append(text);
+        escapeMarkdown(sb, start);
+    }
+
+    /**
+     * 转义Markdown单元格中的竖线，换行替换为空格
+     */
+    private static void escapeMarkdown(StringBuilder sb, int start) {
+        for (int i = start; i < sb.length(); i++) {
+            char c = sb.charAt(i);
+            if (c == '|') {
+                sb.insert(i++, '\\');
+            } else if (c == '\n' || c == '\r') {
+                sb.setCharAt(i, ' ');
+            }
+        }
+    }
+
+    private static void csvRow(StringBuilder sb, String[] cells) {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) sb.append(',');
+            String cell = cells[i];
+            if (needsQuote(cell)) {
+                sb.append('"');
+                for (int j = 0; j < cell.length(); j++) {
+                    char c = cell.charAt(j);
+                    if (c == '"') sb.append('"');
+                    sb.append(c);
+                }
+                sb.append('"');
+            } else {
+                sb.append(cell);
+            }
+        }
+        sb.append('\n');
+    }
+
+    private static boolean needsQuote(String cell) {
+        for (int i = 0; i < cell.length(); i++) {
+            char c = cell.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+
+    private static void pad(StringBuilder sb, int count) {
+        repeat(sb, ' ', count);
+    }
+
+    private static void repeat(StringBuilder sb, char c, int count) {
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
+    }
+
+    /**
+     * 表格格式
+     */
+    public enum Mode {
+        /**
+         * 定宽文本（代码块内按列对齐）
+         */
+        FIXED_WIDTH,
+        /**
+         * Markdown表格（不做对齐填充，字符更少）
+         */
+        MARKDOWN,
+        /**
+         * CSV（RFC 4180转义，不截断）
+         */
+        CSV
+    }
+}
@@ -0,0 +1,128 @@
+package com.simonking.boot.mcpserver.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+
+/**
+ * <p>PURPOSE: 记录指标的工具回调
+ * <p>DESCRIPTION: 包装通过MCP暴露的每个工具，记录以下指标（tool标签为工具名）：
+ * mcp.tool.invocations 调用耗时（outcome: success/失败原因），mcp.tool.errors 失败次数（reason），
+ * mcp.tool.request.size、mcp.tool.response.size 参数和结果的字节数分布。
+ * 工具方法返回错误提示时通过 {@link ToolOutcome} 标记失败原因，抛出异常时原因为异常类名
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public class MeteredToolCallback implements ToolCallback {
+
+    private final ToolCallback delegate;
+    private final MeterRegistry registry;
+    private final String toolName;
+    private final DistributionSummary requestSize;
+    private final DistributionSummary responseSize;
+
+    public MeteredToolCallback(ToolCallback delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.toolName = delegate.getToolDefinition().name();
+        this.requestSize = payloadSummary("mcp.tool.request.size", "工具调用参数大小");
+        this.responseSize = payloadSummary("mcp.tool.response.size", "工具返回结果大小");
+    }
+
+    /**
+     * 包装工具提供者中的所有工具
+     */
+    // Spring AI 1.0.0-M7 的ToolCallbackProvider只能以已废弃的FunctionCallback[]返回工具，废弃类型只在此方法中出现
+    @SuppressWarnings("deprecation")
+    public static ToolCallbackProvider wrap(ToolCallbackProvider provider, MeterRegistry registry) {
+        FunctionCallback[] callbacks = Arrays.stream(provider.getToolCallbacks())
+                .map(callback -> callback instanceof ToolCallback tool ? new MeteredToolCallback(tool, registry) : callback)
+                .toArray(FunctionCallback[]::new);
+        return () -> callbacks;
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return record(toolInput, () -> delegate.call(toolInput));
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        return record(toolInput, () -> delegate.call(toolInput, toolContext));
+    }
+
+    private String record(String toolInput, Supplier<String> invocation) {
+        requestSize.record(bytes(toolInput));
+        ToolOutcome.reset();
+        Timer.Sample sample = Timer.start(registry);
+        String failure = null;
+        try {
+            String output = invocation.get();
+            responseSize.record(bytes(output));
+            failure = ToolOutcome.failure();
+            return output;
+        } catch (RuntimeException e) {
+            failure = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            ToolOutcome.reset();
+            sample.stop(Timer.builder("mcp.tool.invocations")
+                    .description("MCP工具调用耗时")
+                    .tag("tool", toolName)
+                    .tag("outcome", failure != null ? failure : "success")
+                    .publishPercentileHistogram()
+                    .register(registry));
+            if (failure != null) {
+                Counter.builder("mcp.tool.errors")
+                        .description("MCP工具调用失败次数")
+                        .tag("tool", toolName)
+                        .tag("reason", failure)
+                        .register(registry)
+                        .increment();
+            }
+        }
+    }
+
+    private DistributionSummary payloadSummary(String name, String description) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit("bytes")
+                .tag("tool", toolName)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static long bytes(String text) {
+        return text != null ? text.getBytes(StandardCharsets.UTF_8).length : 0;
+    }
+}
@@ -0,0 +1,45 @@
+package com.simonking.boot.mcpserver.metrics;
+
+
+/**
+ * <p>PURPOSE: 工具调用结果
+ * <p>DESCRIPTION: 工具方法出错时大多返回给模型一段错误提示而不是抛出异常，由工具方法在返回前调用 {@link #fail(String)}
+ * 标记失败原因，{@link MeteredToolCallback} 据此记录调用结果和错误次数。只在工具调用线程内有效
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public final class ToolOutcome {
+
+    private static final ThreadLocal<String> FAILURE = new ThreadLocal<>();
+
+    private ToolOutcome() {
+    }
+
+    /**
+     * 标记本次工具调用失败
+     *
+     * @param reason 失败原因（作为指标标签，取值应有限，如 rejected、budget_exceeded、error）
+     */
+    public static void fail(String reason) {
+        FAILURE.set(reason);
+    }
+
+    static void reset() {
+        FAILURE.remove();
+    }
+
+    /**
+     * 本次调用的失败原因，成功时为null
+     */
+    static String failure() {
+        return FAILURE.get();
+    }
+}
@@ -0,0 +1,371 @@
+package com.simonking.boot.mcpserver.service;
+
+import com.simonking.boot.mcpserver.cache.QueryResultCache;
+import com.simonking.boot.mcpserver.columnar.ColumnarTable;
+import com.simonking.boot.mcpserver.columnar.LocalQueryEngine;
+import com.simonking.boot.mcpserver.config.SqlQueryProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+
+/**
+ * <p>PURPOSE: 热点表本地列式缓存
+ * <p>DESCRIPTION: 按 mcp.sql.local-cache 配置把维表（如区划表 admdvs_a）整表、把统计表最近 window-days 天的分区
+ * 加载为内存中的列式快照（见 {@link ColumnarTable}），启动后立即加载，之后每个刷新间隔按增量列重新加载最近 refresh-days 天
+ * 并与旧快照合并。只引用已缓存表、且 {@link LocalQueryEngine} 能处理的查询由 {@link QueryGuard} 直接在本地执行，
+ * 其他查询（包括缓存表与未缓存表的连接）仍访问数据库。刷新后使该表的查询结果缓存失效；刷新失败时保留旧快照
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Service
+@Slf4j
+public class ColumnarCacheService {
+
+    // 配置中的表名（可带库名）、列名只允许字母、数字和下划线（直接拼接到SQL中）
+    private static final Pattern TABLE = Pattern.compile("[A-Za-z][A-Za-z0-9_]*(\\.[A-Za-z][A-Za-z0-9_]*)?");
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z][A-Za-z0-9_]*");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 加载大表使用分析连接池，不占用交互查询的连接
+    @Autowired(required = false)
+    @Qualifier("analyticalJdbcTemplate")
+    private JdbcTemplate analyticalJdbcTemplate;
+
+    @Autowired
+    private QueryResultCache queryResultCache;
+
+    // 总数查询经由QueryGuard依赖本服务，延迟注入避免循环依赖
+    @Lazy
+    @Autowired
+    private QueryCountService queryCountService;
+
+    @Autowired
+    private SqlQueryProperties properties;
+
+    // 表名（小写，不含库名） -> 缓存项，按配置顺序
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    // 定时刷新与手动刷新互斥
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    @PostConstruct
+    public void init() {
+        entries.clear();
+        for (SqlQueryProperties.LocalCacheTable table : properties.getLocalCache().getTables()) {
+            Entry entry = toEntry(table);
+            if (entry != null) {
+                entries.put(entry.name, entry);
+            }
+        }
+    }
+
+    /**
+     * 定时增量刷新，首次在启动后立即执行（全量加载）
+     */
+    @Scheduled(fixedDelayString = "${mcp.sql.local-cache.refresh-interval:5m}", initialDelay = 0)
+    public void scheduledRefresh() {
+        if (isEnabled() && !entries.isEmpty()) {
+            refresh(null, false);
+        }
+    }
+
+    /**
+     * 刷新缓存表
+     *
+     * @param table 表名，为空时刷新全部
+     * @param full  是否全量重新加载
+     * @return 刷新后的状态
+     */
+    public List<Status> refresh(String table, boolean full) {
+        refreshLock.lock();
+        try {
+            for (Entry entry : entries.values()) {
+                if (table == null || table.isBlank() || entry.matches(table.trim())) {
+                    refreshOne(entry, full);
+                }
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+        return status();
+    }
+
+    /**
+     * 在本地执行查询，未开启、引用了未缓存的表或引擎不支持时返回空
+     *
+     * @param maxRows 最大返回行数，为0时不限制
+     * @param args    PreparedStatement参数
+     */
+    public Optional<LocalQueryEngine.Result> execute(String sql, int maxRows, Object... args) {
+        if (!isEnabled() || entries.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<LocalQueryEngine.Plan> plan = LocalQueryEngine.plan(sql, args, this::lookup);
+        if (plan.isEmpty()) {
+            return Optional.empty();
+        }
+        LocalQueryEngine.Result result;
+        try {
+            result = plan.get().run(maxRows);
+        } catch (RuntimeException e) {
+            // 执行阶段才发现的不支持情况（如整数溢出），回退到数据库
+            log.debug("本地执行失败，回退到数据库: {}, SQL: {}", e.toString(), sql);
+            return Optional.empty();
+        }
+        for (String table : plan.get().tables()) {
+            Entry entry = entries.get(table);
+            if (entry != null) {
+                entry.hits.increment();
+            }
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * 查询能否在本地执行（执行前的EXPLAIN代价检查据此跳过）
+     */
+    public boolean canServe(String sql) {
+        return isEnabled() && !entries.isEmpty() && LocalQueryEngine.plan(sql, null, this::lookup).isPresent();
+    }
+
+    /**
+     * 各缓存表的状态
+     */
+    public List<Status> status() {
+        List<Status> result = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            ColumnarTable snapshot = entry.snapshot;
+            result.add(new Status(entry.table, entry.incrementalColumn, snapshot != null,
+                    snapshot != null ? snapshot.rowCount() : 0, snapshot != null ? snapshot.estimatedBytes() : 0,
+                    snapshot != null && snapshot.coveredFrom() != null ? snapshot.coveredFrom().toString() : null,
+                    snapshot != null ? snapshot.loadedAt() : null, entry.refreshMillis, entry.hits.sum(), entry.lastError));
+        }
+        return result;
+    }
+
+    public boolean isEnabled() {
+        return properties.getLocalCache().isEnabled();
+    }
+
+    /**
+     * 按FROM中的库名和表名查找快照：库名为空或与配置相同时按表名匹配
+     */
+    private ColumnarTable lookup(String schema, String name) {
+        Entry entry = entries.get(name.toLowerCase(Locale.ROOT));
+        if (entry == null || (schema != null && entry.schema != null && !entry.schema.equalsIgnoreCase(schema))) {
+            return null;
+        }
+        return entry.snapshot;
+    }
+
+    private void refreshOne(Entry entry, boolean full) {
+        long start = System.currentTimeMillis();
+        try {
+            ColumnarTable current = entry.snapshot;
+            ColumnarTable next;
+            String mode;
+            if (entry.incrementalColumn == null) {
+                next = load(entry, null, null);
+                mode = "全表";
+            } else if (full || current == null || current.maxPartitionValue() == null) {
+                // 覆盖起点按表中增量列的最大值往前推，历史数据也能缓存最近的分区
+                Object coveredFrom = entry.windowDays > 0 ? shift(entry, queryMax(entry), -entry.windowDays) : null;
+                next = load(entry, coveredFrom, coveredFrom);
+                mode = coveredFrom == null ? "全量" : "自" + coveredFrom + "起";
+            } else {
+                Object reloadFrom = shift(entry, current.maxPartitionValue(), -entry.refreshDays);
+                ColumnarTable reloaded = load(entry, reloadFrom, null);
+                Object max = max(current.maxPartitionValue(), reloaded.maxPartitionValue());
+                Object coveredFrom = current.coveredFrom();
+                if (entry.windowDays > 0) {
+                    Object windowFrom = shift(entry, max, -entry.windowDays);
+                    coveredFrom = coveredFrom == null ? windowFrom : max(coveredFrom, windowFrom);
+                }
+                next = current.merge(reloaded, reloadFrom, coveredFrom, entry.maxRows);
+                mode = "增量自" + reloadFrom + "起";
+            }
+            entry.snapshot = next;
+            entry.refreshMillis = System.currentTimeMillis() - start;
+            entry.lastError = null;
+            queryResultCache.invalidate(entry.name);
+            queryCountService.invalidate(entry.name);
+            log.info("本地缓存表 {} 刷新完成({}): {}行, 约{}KB, 耗时{}ms", entry.table, mode, next.rowCount(),
+                    next.estimatedBytes() / 1024, entry.refreshMillis);
+        } catch (Exception e) {
+            // 刷新失败时保留旧快照
+            entry.lastError = e.getMessage();
+            log.warn("本地缓存表 {} 刷新失败: {}", entry.table, e.getMessage());
+        }
+    }
+
+    /**
+     * 加载快照，from不为空时只加载增量列大于等于from的行
+     */
+    private ColumnarTable load(Entry entry, Object from, Object coveredFrom) {
+        String sql = "SELECT * FROM " + entry.table + (from != null ? " WHERE " + entry.incrementalColumn + " >= ?" : "");
+        int fetchSize = properties.getBudget().getFetchSize();
+        return loadTemplate().query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            if (fetchSize > 0) {
+                ps.setFetchSize(fetchSize);
+            }
+            if (from != null) {
+                ps.setObject(1, from);
+            }
+            return ps;
+        }, (ResultSetExtractor<ColumnarTable>) rs -> ColumnarTable.load(entry.name, rs, entry.incrementalColumn,
+                coveredFrom, entry.maxRows));
+    }
+
+    private Object queryMax(Entry entry) {
+        Object max = loadTemplate().queryForObject("SELECT MAX(" + entry.incrementalColumn + ") FROM " + entry.table, Object.class);
+        if (max == null) {
+            throw new IllegalStateException("表为空");
+        }
+        return max;
+    }
+
+    private JdbcTemplate loadTemplate() {
+        return analyticalJdbcTemplate != null ? analyticalJdbcTemplate : jdbcTemplate;
+    }
+
+    /**
+     * 增量列取值按日期加减天数，保持原来的类型和格式（字符串或 yyyyMMdd 形式的整数）
+     */
+    private static Object shift(Entry entry, Object value, int days) {
+        try {
+            if (value instanceof String text) {
+                return LocalDate.parse(text.trim(), entry.dateFormat).plusDays(days).format(entry.dateFormat);
+            }
+            if (value instanceof Integer || value instanceof Long) {
+                String shifted = LocalDate.parse(value.toString(), entry.dateFormat).plusDays(days).format(entry.dateFormat);
+                return value instanceof Integer ? (Object) Integer.valueOf(shifted) : (Object) Long.valueOf(shifted);
+            }
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalStateException("增量列 " + entry.incrementalColumn + " 的取值 " + value
+                    + " 不符合日期格式 " + entry.datePattern, e);
+        }
+        throw new IllegalStateException("增量列 " + entry.incrementalColumn + " 的类型不支持: " + value.getClass().getName());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object max(Object a, Object b) {
+        if (a == null || b == null) {
+            return a != null ? a : b;
+        }
+        if (a instanceof Number x && b instanceof Number y) {
+            return x.longValue() >= y.longValue() ? a : b;
+        }
+        return ((Comparable) a).compareTo(b) >= 0 ? a : b;
+    }
+
+    /**
+     * 校验配置，配置有误时记录日志并跳过
+     */
+    private static Entry toEntry(SqlQueryProperties.LocalCacheTable table) {
+        String name = table.getTable() != null ? table.getTable().trim() : "";
+        boolean incremental = table.getIncrementalColumn() != null && !table.getIncrementalColumn().isBlank();
+        String column = incremental ? table.getIncrementalColumn().trim() : null;
+        DateTimeFormatter dateFormat;
+        try {
+            dateFormat = DateTimeFormatter.ofPattern(table.getDatePattern());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            dateFormat = null;
+        }
+        if (!TABLE.matcher(name).matches() || (incremental && !IDENTIFIER.matcher(column).matches())
+                || (incremental && dateFormat == null) || table.getWindowDays() < 0 || table.getRefreshDays() < 0) {
+            log.warn("本地缓存表配置无效，已忽略: {}（表名、增量列只能包含字母、数字和下划线，date-pattern须为有效的日期格式）",
+                    table.getTable());
+            return null;
+        }
+        return new Entry(name, column, table.getWindowDays(), table.getDatePattern(), dateFormat,
+                table.getRefreshDays(), table.getMaxRows());
+    }
+
+    /**
+     * 缓存表状态
+     *
+     * @param table             表名
+     * @param incrementalColumn 增量列，全表缓存时为null
+     * @param loaded            是否已加载（参与本地执行）
+     * @param rows              行数
+     * @param bytes             估算占用的堆内存（字节）
+     * @param coveredFrom       覆盖起点（增量列大于等于该值的数据都已缓存），全表缓存时为null
+     * @param loadedAt          最近刷新成功时间
+     * @param refreshMillis     最近刷新耗时
+     * @param hits              在本地执行的查询次数
+     * @param lastError         最近一次刷新失败原因
+     */
+    public record Status(String table, String incrementalColumn, boolean loaded, int rows, long bytes,
+                         String coveredFrom, Instant loadedAt, long refreshMillis, long hits, String lastError) {
+    }
+
+    /**
+     * 缓存项（在刷新锁内修改，查询时读取当前快照）
+     */
+    private static final class Entry {
+        private final String table;
+        private final String schema;
+        private final String name;
+        private final String incrementalColumn;
+        private final int windowDays;
+        private final String datePattern;
+        private final DateTimeFormatter dateFormat;
+        private final int refreshDays;
+        private final int maxRows;
+        private final LongAdder hits = new LongAdder();
+        private volatile ColumnarTable snapshot;
+        private volatile long refreshMillis;
+        private volatile String lastError;
+
+        private Entry(String table, String incrementalColumn, int windowDays, String datePattern,
+                      DateTimeFormatter dateFormat, int refreshDays, int maxRows) {
+            int dot = table.indexOf('.');
+            this.table = table;
+            this.schema = dot > 0 ? table.substring(0, dot) : null;
+            this.name = table.substring(dot + 1).toLowerCase(Locale.ROOT);
+            this.incrementalColumn = incrementalColumn;
+            this.windowDays = windowDays;
+            this.datePattern = datePattern;
+            this.dateFormat = dateFormat;
+            this.refreshDays = refreshDays;
+            this.maxRows = maxRows;
+        }
+
+        private boolean matches(String table) {
+            return this.table.equalsIgnoreCase(table) || name.equalsIgnoreCase(table);
+        }
+    }
+}
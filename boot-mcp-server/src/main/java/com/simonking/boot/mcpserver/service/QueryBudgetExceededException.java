@@ -0,0 +1,77 @@
+package com.simonking.boot.mcpserver.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * <p>PURPOSE: 查询超出资源预算
+ * <p>DESCRIPTION: 查询执行超时或被取消时由 {@link QueryGuard} 抛出，携带预算类型、上限和实际耗时，
+ * 由工具方法转换为模型可以据此调整SQL的结构化错误
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public class QueryBudgetExceededException extends RuntimeException {
+
+    private final Reason reason;
+    private final long limitMillis;
+    private final long elapsedMillis;
+
+    public QueryBudgetExceededException(Reason reason, long limitMillis, long elapsedMillis, Throwable cause) {
+        super(reason.message + "（上限" + limitMillis + "ms，已执行" + elapsedMillis + "ms）", cause);
+        this.reason = reason;
+        this.limitMillis = limitMillis;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public long getLimitMillis() {
+        return limitMillis;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * 结构化的错误信息
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("error", reason.name());
+        map.put("limitMs", limitMillis);
+        map.put("elapsedMs", elapsedMillis);
+        return map;
+    }
+
+    /**
+     * 超出预算的原因
+     */
+    public enum Reason {
+        /**
+         * 执行时间超过上限（JDBC超时、MySQL MAX_EXECUTION_TIME 或看门狗取消）
+         */
+        QUERY_TIMEOUT("查询执行时间超过上限"),
+        /**
+         * 调用方已放弃（调用线程被中断）或服务关闭，查询被取消
+         */
+        QUERY_CANCELLED("查询已被取消");
+
+        private final String message;
+
+        Reason(String message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.simonking.boot.mcpserver.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.simonking.boot.mcpserver.config.SqlQueryProperties;
+import com.simonking.boot.mcpserver.sql.ExplainPlan;
+import com.simonking.boot.mcpserver.sql.PredicateColumns;
+import com.simonking.boot.mcpserver.sql.SqlNormalizer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+
+/**
+ * <p>PURPOSE: 查询代价检查与优化建议
+ * <p>DESCRIPTION: 执行前对SQL做EXPLAIN，估算扫描行数并判断是否使用了索引，超过 mcp.sql.cost-guard 配置的上限时
+ * 警告或拒绝执行；结合WHERE条件和数据库元数据中的索引，给出补充过滤条件、改写条件或新建索引的建议。
+ * 执行计划按规范化SQL缓存，同一查询翻页时不重复EXPLAIN
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Service
+@Slf4j
+public class QueryCostService {
+
+    // 统计表的常用过滤列：业务日期、医保区划
+    private static final List<String> COMMON_FILTERS = List.of("biz_date", "admdvs");
+
+    @Autowired
+    private QueryGuard queryGuard;
+
+    @Autowired
+    private SchemaCatalogService schemaCatalogService;
+
+    @Autowired
+    private SqlQueryProperties properties;
+
+    @Autowired
+    private ColumnarCacheService columnarCacheService;
+
+    // 执行计划缓存 key: 规范化后的SQL
+    private Cache<String, ExplainPlan> planCache;
+
+    @PostConstruct
+    public void init() {
+        planCache = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(properties.getCostGuard().getPlanCacheTtl())
+                .build();
+    }
+
+    /**
+     * 获取SQL的执行计划（带缓存），EXPLAIN失败或数据库不支持时返回不可用的计划
+     */
+    public ExplainPlan explain(String sql) {
+        // 不用 Cache.get(key, loader)：加载函数在ConcurrentHashMap的桶锁内执行EXPLAIN，虚拟线程会占住载体线程；
+        // 并发未命中时可能重复EXPLAIN，代价可以接受
+        String key = SqlNormalizer.normalize(sql);
+        ExplainPlan plan = planCache.getIfPresent(key);
+        if (plan == null) {
+            plan = runExplain(sql);
+            planCache.put(key, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * 执行前检查，未开启检查、查询在本地缓存上执行或没有可用的执行计划时返回null
+     */
+    public Verdict check(String sql) {
+        SqlQueryProperties.CostGuard config = properties.getCostGuard();
+        if (config.getMode() == SqlQueryProperties.CostGuardMode.OFF || columnarCacheService.canServe(sql)) {
+            return null;
+        }
+        ExplainPlan plan = explain(sql);
+        if (!plan.isAvailable()) {
+            return null;
+        }
+        boolean exceeded = plan.getExaminedRows() > config.getMaxExaminedRows();
+        return new Verdict(plan, config.getMaxExaminedRows(), exceeded,
+                exceeded && config.getMode() == SqlQueryProperties.CostGuardMode.REJECT,
+                exceeded ? suggestions(sql, plan) : List.of());
+    }
+
+    /**
+     * 分析SQL并给出优化建议（不受检查方式影响）
+     */
+    public Verdict advise(String sql) {
+        ExplainPlan plan = explain(sql);
+        long limit = properties.getCostGuard().getMaxExaminedRows();
+        return new Verdict(plan, limit, plan.getExaminedRows() > limit, false, suggestions(sql, plan));
+    }
+
+    /**
+     * 根据执行计划和过滤条件生成建议
+     */
+    List<String> suggestions(String sql, ExplainPlan plan) {
+        PredicateColumns predicates = PredicateColumns.of(sql);
+        Set<String> suggestions = new LinkedHashSet<>(predicates.getIssues());
+        for (String table : predicates.getUnfilteredTables()) {
+            suggestions.add("表 " + table + " 没有WHERE条件，将读取全表数据，请增加过滤条件");
+        }
+
+        for (ExplainPlan.Step step : plan.fullScans()) {
+            String table = predicates.tableOf(step.table());
+            SchemaCatalogService.TableInfo info = schemaCatalogService.table(table);
+            for (String column : COMMON_FILTERS) {
+                if (hasColumn(info, column) && !predicates.isFiltered(table, column)) {
+                    suggestions.add("表 " + table + " 缺少 " + column + " 过滤条件，"
+                            + ("biz_date".equals(column) ? "建议限定日期范围，如 biz_date BETWEEN '20250101' AND '20250131'"
+                            : "建议限定医保区划，如 admdvs = '440100'"));
+                }
+            }
+
+            // 等值条件列在前、第一个范围条件列在后，组成联合索引
+            List<String> indexColumns = new ArrayList<>(predicates.equalityColumns(table));
+            predicates.rangeColumns(table).stream()
+                    .filter(column -> !indexColumns.contains(column))
+                    .findFirst()
+                    .ifPresent(indexColumns::add);
+            if (indexColumns.isEmpty()) {
+                continue;
+            }
+            if (!hasLeadingIndex(info, indexColumns)) {
+                List<String> columns = indexColumns.subList(0, Math.min(3, indexColumns.size()));
+                suggestions.add(String.format("表 %s 的过滤列没有可用索引，建议创建：CREATE INDEX idx_%s_%s ON %s (%s)",
+                        table, table, String.join("_", columns), table, String.join(", ", columns)));
+            } else if (step.key() == null) {
+                suggestions.add("表 " + table + " 上有可用索引但未被选择，请检查条件是否对列做了函数运算、类型转换或使用了OR");
+            }
+        }
+
+        for (ExplainPlan.Step step : plan.getSteps()) {
+            if (step.hasExtra("Using filesort")) {
+                suggestions.add("ORDER BY 需要额外排序（Using filesort），建议先缩小范围或按索引列排序");
+            }
+            if (step.hasExtra("Using temporary")) {
+                suggestions.add("GROUP BY/DISTINCT 使用了临时表（Using temporary），建议先缩小范围或按索引列分组");
+            }
+        }
+        return new ArrayList<>(suggestions);
+    }
+
+    private ExplainPlan runExplain(String sql) {
+        try {
+            return ExplainPlan.from(queryGuard.count("EXPLAIN " + sql,
+                    new RowMapperResultSetExtractor<>(new ColumnMapRowMapper())));
+        } catch (Exception e) {
+            log.debug("EXPLAIN失败: {}", e.getMessage());
+            return ExplainPlan.empty();
+        }
+    }
+
+    private static boolean hasColumn(SchemaCatalogService.TableInfo info, String column) {
+        if (info == null) return false;
+        for (SchemaCatalogService.ColumnInfo columnInfo : info.columns()) {
+            if (columnInfo.name().toLowerCase(Locale.ROOT).equals(column)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 主键或索引的第一列是否为过滤列之一（元数据不可用时视为没有）
+     */
+    private static boolean hasLeadingIndex(SchemaCatalogService.TableInfo info, List<String> columns) {
+        if (info == null) return false;
+        if (!info.primaryKey().isEmpty() && columns.contains(info.primaryKey().get(0).toLowerCase(Locale.ROOT))) {
+            return true;
+        }
+        for (SchemaCatalogService.IndexInfo index : info.indexes()) {
+            if (!index.columns().isEmpty() && columns.contains(index.columns().get(0).toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 检查结果
+     *
+     * @param plan        执行计划
+     * @param limit       扫描行数上限
+     * @param exceeded    估算扫描行数是否超过上限
+     * @param rejected    是否拒绝执行
+     * @param suggestions 优化建议
+     */
+    public record Verdict(ExplainPlan plan, long limit, boolean exceeded, boolean rejected, List<String> suggestions) {
+
+        /**
+         * 索引使用情况说明
+         */
+        public String indexSummary() {
+            if (!plan.isAvailable()) {
+                return "未知（无法获取执行计划）";
+            }
+            List<String> fullScans = new ArrayList<>();
+            Set<String> keys = new LinkedHashSet<>();
+            for (ExplainPlan.Step step : plan.getSteps()) {
+                if (step.isFullScan()) {
+                    fullScans.add(step.table() + "(" + step.accessType() + ")");
+                } else if (step.key() != null) {
+                    keys.add(step.table() + "." + step.key());
+                }
+            }
+            if (fullScans.isEmpty()) {
+                return keys.isEmpty() ? "无需访问表" : "已使用索引 " + String.join("、", keys);
+            }
+            return "全表扫描 " + String.join("、", fullScans) + (keys.isEmpty() ? "" : "，已使用索引 " + String.join("、", keys));
+        }
+    }
+}
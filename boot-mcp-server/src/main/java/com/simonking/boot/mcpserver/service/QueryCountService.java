@@ -0,0 +1,207 @@
+package com.simonking.boot.mcpserver.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.simonking.boot.mcpserver.config.SqlQueryProperties;
+import com.simonking.boot.mcpserver.sql.CountPlanner;
+import com.simonking.boot.mcpserver.sql.SqlNormalizer;
+import com.simonking.boot.mcpserver.sql.SqlTables;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * <p>PURPOSE: 分页总数查询
+ * <p>DESCRIPTION: 按规范化后的基础SQL缓存总数（带TTL），并可先返回EXPLAIN估算值、
+ * 在后台计算精确总数，避免每次翻页都执行一次全量COUNT。总数与查询结果缓存一起按表失效
+ * （invalidateResultCache工具、汇总表和本地缓存表刷新后），避免总数与分页数据不一致
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Service
+@Slf4j
+public class QueryCountService {
+
+    @Autowired
+    private QueryGuard queryGuard;
+
+    @Autowired
+    private QueryCostService queryCostService;
+
+    @Autowired
+    private SqlQueryProperties properties;
+
+    @Autowired
+    private SqlStatsService sqlStatsService;
+
+    @Autowired
+    @Qualifier("sqlBackgroundExecutor")
+    private ThreadPoolTaskExecutor backgroundExecutor;
+
+    // 精确总数缓存 key: 规范化后的基础SQL
+    private Cache<String, CachedCount> countCache;
+
+    // 正在计算中的精确总数，避免同一SQL并发重复COUNT
+    private final Map<String, CompletableFuture<Long>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        SqlQueryProperties.Count config = properties.getCount();
+        boolean enabled = !config.getCacheTtl().isZero();
+        countCache = Caffeine.newBuilder()
+                .maximumSize(enabled ? config.getCacheMaxEntries() : 0)
+                .expireAfterWrite(enabled ? config.getCacheTtl() : Duration.ofSeconds(1))
+                .build();
+    }
+
+    /**
+     * 查询总数
+     *
+     * @param baseSql   不含分页的基础SQL
+     * @param countPlan 统计总数的计划
+     * @return 总数结果，查询失败时返回null
+     */
+    public CountResult count(String baseSql, CountPlanner.Plan countPlan) {
+        if (countPlan.isConstant()) {
+            // 无GROUP BY的聚合查询结果恒为一行，不查库
+            return new CountResult(1, true, "plan");
+        }
+        String countSql = countPlan.sql();
+        String cacheKey = SqlNormalizer.normalize(baseSql);
+        CachedCount cached = countCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return new CountResult(cached.total(), true, "cache");
+        }
+
+        if (properties.getCount().isEstimateFirst() && isEstimable(countPlan)) {
+            Long estimate = explainEstimate(baseSql);
+            if (estimate != null) {
+                // 精确总数在后台计算，下次翻页时命中缓存
+                exactCount(baseSql, cacheKey, countSql, true);
+                return new CountResult(estimate, false, "estimate");
+            }
+        }
+
+        try {
+            Long exact = exactCount(baseSql, cacheKey, countSql, false).join();
+            return exact != null ? new CountResult(exact, true, "exact") : null;
+        } catch (Exception e) {
+            log.warn("查询总数失败，将使用实际返回数据作为总数: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 使涉及指定表的总数缓存失效，表名为空时清空全部
+     *
+     * @return 失效的条数
+     */
+    public long invalidate(String tableName) {
+        if (tableName == null || tableName.trim().isEmpty()) {
+            long size = countCache.estimatedSize();
+            countCache.invalidateAll();
+            return size;
+        }
+        String table = tableName.trim().replace("`", "").toLowerCase(Locale.ROOT);
+        long before = countCache.estimatedSize();
+        countCache.asMap().values().removeIf(entry -> entry.tables().stream().anyMatch(t -> SqlTables.matches(table, t)));
+        return before - countCache.estimatedSize();
+    }
+
+    /**
+     * 计算精确总数，同一SQL已有计算在进行时复用其结果
+     *
+     * @param background 是否提交到后台线程池执行
+     */
+    private CompletableFuture<Long> exactCount(String baseSql, String cacheKey, String countSql, boolean background) {
+        CompletableFuture<Long> created = new CompletableFuture<>();
+        CompletableFuture<Long> existing = inFlight.putIfAbsent(cacheKey, created);
+        if (existing != null) {
+            return existing;
+        }
+        if (background) {
+            try {
+                backgroundExecutor.execute(() -> runExactCount(baseSql, cacheKey, countSql, created));
+                return created;
+            } catch (TaskRejectedException e) {
+                log.debug("后台线程池已满，放弃后台计算总数: {}", countSql);
+                inFlight.remove(cacheKey, created);
+                created.cancel(false);
+                return created;
+            }
+        }
+        runExactCount(baseSql, cacheKey, countSql, created);
+        return created;
+    }
+
+    private void runExactCount(String baseSql, String cacheKey, String countSql, CompletableFuture<Long> future) {
+        long start = System.nanoTime();
+        try {
+            // COUNT使用独立的 count-timeout 预算并在分析连接池执行，超时后按实际返回数据计算总数
+            Long total = queryGuard.count(QueryGuard.Workload.ANALYTICAL, countSql, rs -> rs.next() ? rs.getLong(1) : null);
+            if (total != null) {
+                countCache.put(cacheKey, new CachedCount(total, SqlTables.extract(countSql)));
+            }
+            future.complete(total);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        } finally {
+            // 总数统计耗时计入基础SQL的指纹，便于发现翻页时COUNT代价高的查询
+            sqlStatsService.recordCount(baseSql, countSql, System.nanoTime() - start);
+            inFlight.remove(cacheKey, future);
+        }
+    }
+
+    /**
+     * 使用EXPLAIN估算结果行数（取驱动表的 rows * filtered），执行计划与代价检查共用缓存
+     */
+    private Long explainEstimate(String baseSql) {
+        return queryCostService.explain(baseSql).estimatedResultRows();
+    }
+
+    /**
+     * 聚合、去重类查询的EXPLAIN行数与结果行数相差太大，不做估算
+     */
+    private boolean isEstimable(CountPlanner.Plan countPlan) {
+        return countPlan.shape() == CountPlanner.Shape.SIMPLE;
+    }
+
+    /**
+     * 缓存的精确总数
+     *
+     * @param total  总数
+     * @param tables 基础SQL引用的表，用于按表失效
+     */
+    private record CachedCount(long total, Set<String> tables) {
+    }
+
+    /**
+     * 总数结果
+     *
+     * @param total  总数
+     * @param exact  是否为精确值
+     * @param source 来源：exact（实时COUNT）、cache（缓存）、estimate（EXPLAIN估算）、plan（由查询形态确定）
+     */
+    public record CountResult(long total, boolean exact, String source) {
+    }
+}
@@ -0,0 +1,372 @@
+package com.simonking.boot.mcpserver.service;
+
+import com.simonking.boot.mcpserver.columnar.LocalQueryEngine;
+import com.simonking.boot.mcpserver.columnar.LocalResultSet;
+import com.simonking.boot.mcpserver.config.SqlQueryProperties;
+import com.simonking.boot.mcpserver.sql.StreamingTableExtractor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+
+/**
+ * <p>PURPOSE: 查询资源预算
+ * <p>DESCRIPTION: 所有由模型生成的SQL都经由此处执行：按 mcp.sql.budget 配置设置 Statement 的超时、最大行数和抓取行数，
+ * 并为SELECT添加MySQL服务端 MAX_EXECUTION_TIME 提示。看门狗线程在超时后仍未结束（如结果集读取阶段）
+ * 或调用线程被中断（调用方已放弃）时主动 cancel 语句，释放连接和工作线程。
+ * 超时和取消统一转换为 {@link QueryBudgetExceededException}。
+ * 交互查询（分页数据、EXPLAIN）使用主连接池，重量级查询（精确COUNT、超出代价上限的查询）使用分析连接池，
+ * 避免大查询占满连接后交互查询排队；未配置分析连接池时都使用主连接池。
+ * 只引用本地列式缓存表的查询由 {@link ColumnarCacheService} 在本地执行，不占用连接。
+ * 执行耗时按连接池、来源（jdbc/local）和结果（success/timeout/cancelled/error）记录为 mcp.sql.executions 指标，
+ * 数据查询另按SQL指纹汇总到 {@link SqlStatsService}
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Service
+@Slf4j
+public class QueryGuard {
+
+    // MySQL错误码：超过MAX_EXECUTION_TIME（ER_QUERY_TIMEOUT）
+    private static final int MYSQL_QUERY_TIMEOUT = 3024;
+
+    private static final Pattern LEADING_SELECT = Pattern.compile("(?i)^\\s*SELECT\\b");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired(required = false)
+    @Qualifier("analyticalJdbcTemplate")
+    private JdbcTemplate analyticalJdbcTemplate;
+
+    @Autowired
+    private SqlQueryProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SqlStatsService sqlStatsService;
+
+    @Autowired
+    private ColumnarCacheService columnarCacheService;
+
+    // 正在执行的查询
+    private final Set<RunningQuery> running = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService watchdog;
+
+    @PostConstruct
+    public void init() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "sql-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        watchdog = executor;
+        // 定期检查调用线程是否已被中断（调用方放弃等待）
+        watchdog.scheduleWithFixedDelay(this::cancelAbandoned, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running.forEach(query -> query.cancel(QueryBudgetExceededException.Reason.QUERY_CANCELLED));
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * 执行数据查询（使用 query-timeout 和 max-rows 预算）
+     */
+    public <T> T query(String sql, ResultSetExtractor<T> extractor, Object... args) {
+        return query(Workload.INTERACTIVE, sql, extractor, args);
+    }
+
+    /**
+     * 在指定连接池上执行数据查询
+     */
+    public <T> T query(Workload workload, String sql, ResultSetExtractor<T> extractor, Object... args) {
+        return query(workload, sql, sql, extractor, args);
+    }
+
+    /**
+     * 执行分页查询：统计按不含分页的基础SQL归入指纹（与总数统计同一指纹），慢查询日志记录实际执行的SQL
+     *
+     * @param baseSql 不含分页的基础SQL
+     * @param sql     实际执行的分页SQL（LIMIT、游标条件）
+     */
+    public <T> T query(Workload workload, String baseSql, String sql, ResultSetExtractor<T> extractor, Object... args) {
+        SqlQueryProperties.Budget budget = properties.getBudget();
+        long start = System.nanoTime();
+        T result = null;
+        boolean success = false;
+        try {
+            result = execute(workload, sql, budget.getQueryTimeout(), budget.getMaxRows(), extractor, args);
+            success = true;
+            return result;
+        } finally {
+            sqlStatsService.recordQuery(baseSql, sql, workload, System.nanoTime() - start, rowCount(result), success);
+        }
+    }
+
+    /**
+     * 执行总数统计、EXPLAIN等辅助查询（使用 count-timeout 预算）
+     */
+    public <T> T count(String sql, ResultSetExtractor<T> extractor) {
+        return count(Workload.INTERACTIVE, sql, extractor);
+    }
+
+    /**
+     * 在指定连接池上执行辅助查询
+     */
+    public <T> T count(Workload workload, String sql, ResultSetExtractor<T> extractor) {
+        return execute(workload, sql, properties.getBudget().getCountTimeout(), 0, extractor);
+    }
+
+    /**
+     * 查询结果是否可能被 max-rows 截断
+     */
+    public boolean isTruncated(int rowCount) {
+        int maxRows = properties.getBudget().getMaxRows();
+        return maxRows > 0 && rowCount >= maxRows;
+    }
+
+    /**
+     * 当前正在执行的查询数
+     */
+    public int getRunningCount() {
+        return running.size();
+    }
+
+    /**
+     * 在给定预算下执行查询
+     *
+     * @param timeout 执行时间上限，为null或0时不限制
+     * @param maxRows 最大返回行数，为0时不限制
+     */
+    public <T> T execute(String sql, Duration timeout, int maxRows, ResultSetExtractor<T> extractor, Object... args) {
+        return execute(Workload.INTERACTIVE, sql, timeout, maxRows, extractor, args);
+    }
+
+    /**
+     * 在指定连接池上、给定预算下执行查询
+     */
+    public <T> T execute(Workload workload, String sql, Duration timeout, int maxRows, ResultSetExtractor<T> extractor,
+                         Object... args) {
+        SqlQueryProperties.Budget budget = properties.getBudget();
+        JdbcTemplate template = workload == Workload.ANALYTICAL && analyticalJdbcTemplate != null
+                ? analyticalJdbcTemplate : jdbcTemplate;
+        Timer.Sample localSample = Timer.start(meterRegistry);
+        Optional<LocalQueryEngine.Result> local = columnarCacheService.execute(sql, maxRows, args);
+        if (local.isPresent()) {
+            return extractLocal(workload, template, sql, local.get(), extractor, localSample);
+        }
+        long timeoutMillis = timeout != null ? timeout.toMillis() : 0;
+        String statementSql = timeoutMillis > 0 && budget.isServerHint() ? withMaxExecutionTime(sql, timeoutMillis) : sql;
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        RunningQuery query = new RunningQuery(Thread.currentThread());
+        running.add(query);
+        ScheduledFuture<?> deadline = timeoutMillis > 0
+                ? watchdog.schedule(() -> query.cancel(QueryBudgetExceededException.Reason.QUERY_TIMEOUT),
+                timeoutMillis + budget.getCancelGrace().toMillis(), TimeUnit.MILLISECONDS)
+                : null;
+        try {
+            T result = template.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(statementSql);
+                if (timeoutMillis > 0) {
+                    ps.setQueryTimeout((int) Math.max(1, (timeoutMillis + 999) / 1000));
+                }
+                if (maxRows > 0) {
+                    ps.setMaxRows(maxRows);
+                }
+                if (budget.getFetchSize() > 0) {
+                    ps.setFetchSize(budget.getFetchSize());
+                }
+                query.attach(ps);
+                return ps;
+            }, args.length > 0 ? new ArgumentPreparedStatementSetter(args) : null, extractor);
+            outcome = "success";
+            return result;
+        } catch (DataAccessException e) {
+            QueryBudgetExceededException.Reason reason = query.cancelReason != null ? query.cancelReason
+                    : isTimeout(e) ? QueryBudgetExceededException.Reason.QUERY_TIMEOUT : null;
+            if (reason != null) {
+                outcome = reason == QueryBudgetExceededException.Reason.QUERY_TIMEOUT ? "timeout" : "cancelled";
+                log.warn("查询超出资源预算({}): 上限{}ms, 已执行{}ms, SQL: {}", reason, timeoutMillis, query.elapsedMillis(), sql);
+                throw new QueryBudgetExceededException(reason, timeoutMillis, query.elapsedMillis(), e);
+            }
+            throw e;
+        } finally {
+            running.remove(query);
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+            sample.stop(Timer.builder("mcp.sql.executions")
+                    .description("SQL执行耗时（含读取结果集）")
+                    .tag("workload", workload.name().toLowerCase(Locale.ROOT))
+                    .tag("source", "jdbc")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * 用本地执行的结果调用结果集提取器
+     */
+    private <T> T extractLocal(Workload workload, JdbcTemplate template, String sql, LocalQueryEngine.Result result,
+                               ResultSetExtractor<T> extractor, Timer.Sample sample) {
+        String outcome = "error";
+        try (ResultSet rs = LocalResultSet.of(result)) {
+            T extracted = extractor.extractData(rs);
+            outcome = "success";
+            return extracted;
+        } catch (SQLException e) {
+            throw template.getExceptionTranslator().translate("本地执行", sql, e);
+        } finally {
+            sample.stop(Timer.builder("mcp.sql.executions")
+                    .description("SQL执行耗时（含读取结果集）")
+                    .tag("workload", workload.name().toLowerCase(Locale.ROOT))
+                    .tag("source", "local")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * 查询返回的行数，无法得知时返回-1
+     */
+    private static long rowCount(Object result) {
+        if (result instanceof StreamingTableExtractor.Table table) {
+            return table.rowCount();
+        }
+        return result instanceof Collection<?> rows ? rows.size() : -1;
+    }
+
+    /**
+     * 在最外层SELECT后添加 MAX_EXECUTION_TIME 优化器提示（MySQL 5.7.8+，仅对只读SELECT生效）
+     */
+    static String withMaxExecutionTime(String sql, long timeoutMillis) {
+        if (sql.contains("MAX_EXECUTION_TIME") || !LEADING_SELECT.matcher(sql).find()) {
+            return sql;
+        }
+        return LEADING_SELECT.matcher(sql).replaceFirst("$0 /*+ MAX_EXECUTION_TIME(" + timeoutMillis + ") */");
+    }
+
+    private void cancelAbandoned() {
+        for (RunningQuery query : running) {
+            if (query.thread.isInterrupted()) {
+                query.cancel(QueryBudgetExceededException.Reason.QUERY_CANCELLED);
+            }
+        }
+    }
+
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof QueryTimeoutException || t instanceof SQLTimeoutException) {
+                return true;
+            }
+            if (t instanceof SQLException sqlException && sqlException.getErrorCode() == MYSQL_QUERY_TIMEOUT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 查询负载类型，决定使用的连接池
+     */
+    public enum Workload {
+        /**
+         * 交互查询：分页数据、EXPLAIN，使用主连接池
+         */
+        INTERACTIVE,
+        /**
+         * 重量级查询：精确COUNT、超出代价上限的查询，使用分析连接池
+         */
+        ANALYTICAL
+    }
+
+    /**
+     * 正在执行的查询
+     */
+    private static final class RunningQuery {
+        private final Thread thread;
+        private final long startNanos = System.nanoTime();
+        private volatile Statement statement;
+        private volatile QueryBudgetExceededException.Reason cancelReason;
+
+        private RunningQuery(Thread thread) {
+            this.thread = thread;
+        }
+
+        private void attach(Statement statement) {
+            this.statement = statement;
+            // 语句创建前已被取消
+            if (cancelReason != null) {
+                cancelQuietly(statement);
+            }
+        }
+
+        private synchronized void cancel(QueryBudgetExceededException.Reason reason) {
+            if (cancelReason != null) {
+                return;
+            }
+            cancelReason = reason;
+            Statement current = statement;
+            if (current != null) {
+                cancelQuietly(current);
+            }
+        }
+
+        private long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+
+        private static void cancelQuietly(Statement statement) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                log.debug("取消查询失败: {}", e.getMessage());
+            }
+        }
+    }
+}
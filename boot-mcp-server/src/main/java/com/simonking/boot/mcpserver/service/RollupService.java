@@ -0,0 +1,330 @@
+package com.simonking.boot.mcpserver.service;
+
+import com.simonking.boot.mcpserver.cache.QueryResultCache;
+import com.simonking.boot.mcpserver.config.SqlQueryProperties;
+import com.simonking.boot.mcpserver.sql.RollupRewriter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+
+/**
+ * <p>PURPOSE: 预聚合汇总表维护与查询路由
+ * <p>DESCRIPTION: 按 mcp.sql.rollup 配置在业务库中维护汇总表（维度列 + sum_度量列 + row_cnt）：
+ * 汇总表为空时全量汇总，之后每个刷新间隔只删除并重新汇总最近 refresh-months 个月，删除和写入在同一事务中完成；
+ * 刷新后使汇总表的查询结果缓存失效。至少成功刷新过一次的汇总表才参与查询改写（见 {@link RollupRewriter}），
+ * 改写后的查询执行失败时停用该汇总表，直到下次刷新成功
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Service
+@Slf4j
+public class RollupService {
+
+    // 配置中的表名、列名只允许字母、数字和下划线（直接拼接到DDL/DML中）
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z][A-Za-z0-9_]*");
+
+    // 写汇总表使用主连接池：分析连接池可能指向只读副本
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QueryResultCache queryResultCache;
+
+    @Autowired
+    private QueryCountService queryCountService;
+
+    @Autowired
+    private SqlQueryProperties properties;
+
+    // 汇总名称 -> 定义，按配置顺序
+    private final Map<String, RollupRewriter.Target> targets = new LinkedHashMap<>();
+
+    // 汇总名称 -> 刷新状态
+    private final Map<String, State> states = new LinkedHashMap<>();
+
+    // 定时刷新与手动刷新互斥（刷新时执行JDBC，不用synchronized）
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    @PostConstruct
+    public void init() {
+        for (SqlQueryProperties.RollupTable table : properties.getRollup().getTables()) {
+            RollupRewriter.Target target = toTarget(table);
+            if (target != null) {
+                targets.put(target.name(), target);
+                states.put(target.name(), new State());
+            }
+        }
+    }
+
+    /**
+     * 定时增量刷新，首次在启动后立即执行（汇总表为空时全量汇总）
+     */
+    @Scheduled(fixedDelayString = "${mcp.sql.rollup.refresh-interval:10m}", initialDelay = 0)
+    public void scheduledRefresh() {
+        if (properties.getRollup().isEnabled() && !targets.isEmpty()) {
+            refresh(null, false);
+        }
+    }
+
+    /**
+     * 刷新汇总表
+     *
+     * @param name 汇总名称，为空时刷新全部
+     * @param full 是否全量重建
+     * @return 刷新后的状态
+     */
+    public List<Status> refresh(String name, boolean full) {
+        refreshLock.lock();
+        try {
+            for (RollupRewriter.Target target : targets.values()) {
+                if (name == null || name.isBlank() || target.name().equalsIgnoreCase(name.trim())) {
+                    refreshOne(target, full);
+                }
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+        return status();
+    }
+
+    /**
+     * 尝试把聚合查询改写为查询汇总表，未开启、没有可用的汇总表或不能改写时返回空
+     */
+    public Optional<Route> route(String sql) {
+        if (!properties.getRollup().isEnabled() || targets.isEmpty()) {
+            return Optional.empty();
+        }
+        List<RollupRewriter.Target> ready = new ArrayList<>(targets.size());
+        for (RollupRewriter.Target target : targets.values()) {
+            if (states.get(target.name()).ready) {
+                ready.add(target);
+            }
+        }
+        if (ready.isEmpty()) {
+            return Optional.empty();
+        }
+        return RollupRewriter.rewrite(sql, ready).map(rewrite -> new Route(rewrite.target().name(),
+                rewrite.target().table(), rewrite.sql(), states.get(rewrite.target().name()).refreshedAt));
+    }
+
+    /**
+     * 改写后的查询执行失败（如汇总表被删除）时停用汇总表，下次刷新成功后恢复
+     */
+    public void disable(String name, String reason) {
+        State state = states.get(name);
+        if (state != null) {
+            state.ready = false;
+            state.lastError = reason;
+            log.warn("汇总表 {} 已停用，下次刷新成功后恢复: {}", name, reason);
+        }
+    }
+
+    /**
+     * 各汇总表的刷新状态
+     */
+    public List<Status> status() {
+        List<Status> result = new ArrayList<>(targets.size());
+        for (RollupRewriter.Target target : targets.values()) {
+            State state = states.get(target.name());
+            result.add(new Status(target.name(), target.source(), target.table(), state.ready, state.refreshedAt,
+                    state.refreshMillis, state.refreshedFrom, state.lastError));
+        }
+        return result;
+    }
+
+    public boolean isEnabled() {
+        return properties.getRollup().isEnabled();
+    }
+
+    private void refreshOne(RollupRewriter.Target target, boolean full) {
+        State state = states.get(target.name());
+        long start = System.currentTimeMillis();
+        try {
+            jdbcTemplate.execute(createTableSql(target));
+            boolean rebuild = full || isEmpty(target);
+            String from = rebuild ? null : YearMonth.now().minusMonths(Math.max(1, properties.getRollup().getRefreshMonths()) - 1)
+                    .toString().replace("-", "");
+            int rows = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> replace(connection, target, from));
+            queryResultCache.invalidate(target.table());
+            queryCountService.invalidate(target.table());
+
+            state.refreshedAt = Instant.now();
+            state.refreshMillis = System.currentTimeMillis() - start;
+            state.refreshedFrom = from;
+            state.lastError = null;
+            state.ready = true;
+            log.info("汇总表 {} 刷新完成({}): 写入{}行, 耗时{}ms", target.table(),
+                    from == null ? "全量" : "自" + from + "起", rows, state.refreshMillis);
+        } catch (Exception e) {
+            // 刷新失败时保留上一次的汇总结果，未成功刷新过的汇总表不参与改写
+            state.lastError = e.getMessage();
+            log.warn("汇总表 {} 刷新失败: {}", target.table(), e.getMessage());
+        }
+    }
+
+    /**
+     * 在一个事务中删除并重新汇总，from为空时处理全部月份
+     */
+    private static int replace(Connection connection, RollupRewriter.Target target, String from) throws SQLException {
+        String where = from != null ? " WHERE " + target.monthColumn() + " >= ?" : "";
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM " + target.table() + where);
+             PreparedStatement insert = connection.prepareStatement(insertSql(target, where))) {
+            if (from != null) {
+                delete.setString(1, from);
+                insert.setString(1, from);
+            }
+            delete.executeUpdate();
+            int rows = insert.executeUpdate();
+            connection.commit();
+            return rows;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private boolean isEmpty(RollupRewriter.Target target) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.setMaxRows(1);
+                return !statement.executeQuery("SELECT 1 FROM " + target.table()).next();
+            }
+        }));
+    }
+
+    /**
+     * 建表语句：按汇总查询的结果建空表，列类型由数据库推导
+     */
+    private static String createTableSql(RollupRewriter.Target target) {
+        return "CREATE TABLE IF NOT EXISTS " + target.table() + " AS " + selectSql(target) + " WHERE 1 = 0"
+                + " GROUP BY " + String.join(", ", target.dimensions());
+    }
+
+    private static String insertSql(RollupRewriter.Target target, String where) {
+        List<String> columns = new ArrayList<>(target.dimensions());
+        target.measures().forEach(measure -> columns.add(RollupRewriter.sumColumn(measure)));
+        columns.add(RollupRewriter.ROW_COUNT_COLUMN);
+        return "INSERT INTO " + target.table() + " (" + String.join(", ", columns) + ") " + selectSql(target) + where
+                + " GROUP BY " + String.join(", ", target.dimensions());
+    }
+
+    private static String selectSql(RollupRewriter.Target target) {
+        StringBuilder sb = new StringBuilder("SELECT ").append(String.join(", ", target.dimensions()));
+        for (String measure : target.measures()) {
+            sb.append(", SUM(").append(measure).append(") AS ").append(RollupRewriter.sumColumn(measure));
+        }
+        return sb.append(", COUNT(*) AS ").append(RollupRewriter.ROW_COUNT_COLUMN)
+                .append(" FROM ").append(target.source()).toString();
+    }
+
+    /**
+     * 校验配置并转换为改写用的定义，配置有误时记录日志并跳过
+     */
+    private static RollupRewriter.Target toTarget(SqlQueryProperties.RollupTable table) {
+        Set<String> dimensions = identifiers(table.getDimensions());
+        Set<String> measures = identifiers(table.getMeasures());
+        String month = identifier(table.getMonthColumn());
+        boolean hasDate = table.getDateColumn() != null && !table.getDateColumn().isBlank();
+        String date = hasDate ? identifier(table.getDateColumn()) : null;
+        RollupRewriter.DatePattern datePattern = hasDate ? RollupRewriter.DatePattern.of(table.getDatePattern()).orElse(null) : null;
+        if (table.getName() == null || identifier(table.getSource()) == null || identifier(table.getTable()) == null
+                || dimensions == null || measures == null || measures.isEmpty()
+                || month == null || !dimensions.contains(month) || (hasDate && (date == null || datePattern == null))) {
+            log.warn("汇总表配置无效，已忽略: {}（需要name、source、table、measures，month-column必须是维度列之一，"
+                    + "表名和列名只能包含字母、数字和下划线，date-pattern须为按年月日排列的格式，如yyyyMMdd、yyyy-MM-dd）",
+                    table.getName());
+            return null;
+        }
+        return new RollupRewriter.Target(table.getName(), identifier(table.getSource()), identifier(table.getTable()),
+                month, date, datePattern, dimensions, measures);
+    }
+
+    private static Set<String> identifiers(List<String> names) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String name : names) {
+            String identifier = identifier(name);
+            if (identifier == null) {
+                return null;
+            }
+            result.add(identifier);
+        }
+        return result;
+    }
+
+    private static String identifier(String name) {
+        String trimmed = name != null ? name.trim() : "";
+        return IDENTIFIER.matcher(trimmed).matches() ? trimmed.toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * 查询改写结果
+     *
+     * @param rollup      汇总名称
+     * @param table       汇总表
+     * @param sql         改写后的SQL
+     * @param refreshedAt 汇总表最近刷新时间
+     */
+    public record Route(String rollup, String table, String sql, Instant refreshedAt) {
+    }
+
+    /**
+     * 汇总表状态
+     *
+     * @param name          汇总名称
+     * @param source        源表
+     * @param table         汇总表
+     * @param ready         是否参与查询改写
+     * @param refreshedAt   最近刷新成功时间
+     * @param refreshMillis 最近刷新耗时
+     * @param refreshedFrom 最近一次增量刷新的起始月份，全量时为null
+     * @param lastError     最近一次失败原因
+     */
+    public record Status(String name, String source, String table, boolean ready, Instant refreshedAt,
+                         long refreshMillis, String refreshedFrom, String lastError) {
+    }
+
+    /**
+     * 刷新状态（在刷新锁内修改，查询路由时读取）
+     */
+    private static final class State {
+        private volatile boolean ready;
+        private volatile Instant refreshedAt;
+        private volatile long refreshMillis;
+        private volatile String refreshedFrom;
+        private volatile String lastError;
+    }
+}
@@ -0,0 +1,298 @@
+package com.simonking.boot.mcpserver.service;
+
+import com.simonking.boot.mcpserver.config.SqlQueryProperties;
+import com.simonking.boot.mcpserver.sql.SqlTables;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * <p>PURPOSE: 数据库元数据目录
+ * <p>DESCRIPTION: 通过 information_schema 批量读取表、列、注释、主键和索引（每类一次查询），
+ * 保存为不可变的内存快照并定时刷新，表名模糊查找直接在内存中完成。
+ * information_schema 不可用时（如部分数据库代理）回退为一次 DatabaseMetaData 批量读取，连接均由JdbcTemplate管理
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Service
+@Slf4j
+public class SchemaCatalogService {
+
+    private static final String TABLES_SQL = """
+            SELECT TABLE_NAME, TABLE_COMMENT, TABLE_ROWS FROM information_schema.TABLES
+            WHERE TABLE_SCHEMA = COALESCE(?, DATABASE()) AND TABLE_TYPE = 'BASE TABLE'
+            """;
+    private static final String COLUMNS_SQL = """
+            SELECT TABLE_NAME, COLUMN_NAME, COLUMN_TYPE, IS_NULLABLE, COLUMN_COMMENT FROM information_schema.COLUMNS
+            WHERE TABLE_SCHEMA = COALESCE(?, DATABASE()) ORDER BY TABLE_NAME, ORDINAL_POSITION
+            """;
+    private static final String INDEXES_SQL = """
+            SELECT TABLE_NAME, INDEX_NAME, NON_UNIQUE, COLUMN_NAME FROM information_schema.STATISTICS
+            WHERE TABLE_SCHEMA = COALESCE(?, DATABASE()) ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SqlQueryProperties properties;
+
+    private volatile Snapshot snapshot;
+
+    // 首次加载的锁（加载时执行JDBC查询，不用synchronized，避免虚拟线程阻塞时占住载体线程）
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    /**
+     * 定时刷新元数据快照，首次在启动后立即执行；刷新失败时保留上一次的快照
+     */
+    @Scheduled(fixedDelayString = "${mcp.sql.catalog.refresh-interval:10m}", initialDelay = 0)
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        try {
+            Snapshot loaded = load();
+            snapshot = loaded;
+            log.info("数据库元数据快照刷新完成: 表{}张, 耗时{}ms", loaded.tables().size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("数据库元数据快照刷新失败，继续使用上一次的快照: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按表名模式查找表，支持部分表名（大小写不敏感）及 * / % 通配符
+     */
+    public List<TableInfo> find(String tablePattern) {
+        Snapshot current = current();
+        String pattern = tablePattern == null ? "" : tablePattern.trim().replace("`", "").toLowerCase(Locale.ROOT);
+        if (pattern.isEmpty() || pattern.equals("%") || pattern.equals("*")) {
+            return new ArrayList<>(current.tables().values());
+        }
+        String glob = pattern.replace('%', '*');
+        if (!glob.startsWith("*")) glob = "*" + glob;
+        if (!glob.endsWith("*")) glob = glob + "*";
+        List<TableInfo> matched = new ArrayList<>();
+        for (Map.Entry<String, TableInfo> entry : current.tables().entrySet()) {
+            if (SqlTables.matches(glob, entry.getKey())) {
+                matched.add(entry.getValue());
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 查询表的主键列，表不存在或快照未加载时返回空列表
+     */
+    public List<String> primaryKey(String tableName) {
+        Snapshot current = snapshot;
+        if (current == null || tableName == null) return List.of();
+        TableInfo table = current.tables().get(tableName.toLowerCase(Locale.ROOT));
+        return table != null ? table.primaryKey() : List.of();
+    }
+
+    /**
+     * 按表名查询表信息，表不存在或快照未加载时返回null
+     */
+    public TableInfo table(String tableName) {
+        Snapshot current = snapshot;
+        if (current == null || tableName == null) return null;
+        return current.tables().get(tableName.toLowerCase(Locale.ROOT));
+    }
+
+    public Instant getLoadedAt() {
+        Snapshot current = snapshot;
+        return current != null ? current.loadedAt() : null;
+    }
+
+    /**
+     * 当前快照，尚未加载成功时同步加载一次
+     */
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            loadLock.lock();
+            try {
+                if (snapshot == null) {
+                    snapshot = load();
+                }
+                current = snapshot;
+            } finally {
+                loadLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        String schema = properties.getCatalog().getSchema();
+        try {
+            return loadFromInformationSchema(schema);
+        } catch (Exception e) {
+            log.debug("information_schema不可用，改用DatabaseMetaData读取元数据: {}", e.getMessage());
+            return loadFromMetaData(schema);
+        }
+    }
+
+    private Snapshot loadFromInformationSchema(String schema) {
+        Map<String, TableBuilder> builders = new TreeMap<>();
+        jdbcTemplate.query(TABLES_SQL, rs -> {
+            String name = rs.getString("TABLE_NAME");
+            long rows = rs.getLong("TABLE_ROWS");
+            builders.put(name.toLowerCase(Locale.ROOT),
+                    new TableBuilder(name, rs.getString("TABLE_COMMENT"), rs.wasNull() ? null : rows));
+        }, schema);
+        jdbcTemplate.query(COLUMNS_SQL, rs -> {
+            TableBuilder table = builders.get(rs.getString("TABLE_NAME").toLowerCase(Locale.ROOT));
+            if (table != null) {
+                table.columns.add(new ColumnInfo(rs.getString("COLUMN_NAME"), rs.getString("COLUMN_TYPE"),
+                        "YES".equals(rs.getString("IS_NULLABLE")), rs.getString("COLUMN_COMMENT")));
+            }
+        }, schema);
+        jdbcTemplate.query(INDEXES_SQL, rs -> {
+            TableBuilder table = builders.get(rs.getString("TABLE_NAME").toLowerCase(Locale.ROOT));
+            if (table != null) {
+                table.addIndexColumn(rs.getString("INDEX_NAME"), rs.getInt("NON_UNIQUE") == 0, rs.getString("COLUMN_NAME"));
+            }
+        }, schema);
+        return build(builders);
+    }
+
+    /**
+     * 回退方案：同一连接内批量读取全部表和列（不按表逐个查询），主键按表读取，不读取其他索引
+     */
+    private Snapshot loadFromMetaData(String schema) {
+        Map<String, TableBuilder> builders = jdbcTemplate.execute((ConnectionCallback<Map<String, TableBuilder>>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String catalog = schema != null ? schema : connection.getCatalog();
+            Map<String, TableBuilder> result = new TreeMap<>();
+            try (ResultSet rs = metaData.getTables(catalog, null, "%", new String[]{"TABLE"})) {
+                while (rs.next()) {
+                    String name = rs.getString("TABLE_NAME");
+                    result.put(name.toLowerCase(Locale.ROOT), new TableBuilder(name, rs.getString("REMARKS"), null));
+                }
+            }
+            try (ResultSet rs = metaData.getColumns(catalog, null, "%", "%")) {
+                while (rs.next()) {
+                    TableBuilder table = result.get(rs.getString("TABLE_NAME").toLowerCase(Locale.ROOT));
+                    if (table != null) {
+                        table.columns.add(new ColumnInfo(rs.getString("COLUMN_NAME"), rs.getString("TYPE_NAME"),
+                                rs.getInt("NULLABLE") == DatabaseMetaData.columnNullable, rs.getString("REMARKS")));
+                    }
+                }
+            }
+            for (TableBuilder table : result.values()) {
+                try (ResultSet rs = metaData.getPrimaryKeys(catalog, null, table.name)) {
+                    while (rs.next()) {
+                        table.addIndexColumn("PRIMARY", true, rs.getString("COLUMN_NAME"));
+                    }
+                }
+            }
+            return result;
+        });
+        return build(builders);
+    }
+
+    private Snapshot build(Map<String, TableBuilder> builders) {
+        Map<String, TableInfo> tables = new LinkedHashMap<>();
+        builders.forEach((key, builder) -> tables.put(key, builder.build()));
+        return new Snapshot(Collections.unmodifiableMap(tables), Instant.now());
+    }
+
+    private static final class TableBuilder {
+        private final String name;
+        private final String comment;
+        private final Long rows;
+        private final List<ColumnInfo> columns = new ArrayList<>();
+        private final Map<String, IndexBuilder> indexes = new LinkedHashMap<>();
+
+        private TableBuilder(String name, String comment, Long rows) {
+            this.name = name;
+            this.comment = comment;
+            this.rows = rows;
+        }
+
+        private void addIndexColumn(String indexName, boolean unique, String column) {
+            indexes.computeIfAbsent(indexName, k -> new IndexBuilder(unique)).columns.add(column);
+        }
+
+        private TableInfo build() {
+            List<String> primaryKey = List.of();
+            List<IndexInfo> indexInfos = new ArrayList<>();
+            for (Map.Entry<String, IndexBuilder> entry : indexes.entrySet()) {
+                List<String> indexColumns = List.copyOf(entry.getValue().columns);
+                if ("PRIMARY".equalsIgnoreCase(entry.getKey())) {
+                    primaryKey = indexColumns;
+                } else {
+                    indexInfos.add(new IndexInfo(entry.getKey(), entry.getValue().unique, indexColumns));
+                }
+            }
+            return new TableInfo(name, comment, rows, List.copyOf(columns), primaryKey, List.copyOf(indexInfos));
+        }
+    }
+
+    private static final class IndexBuilder {
+        private final boolean unique;
+        private final List<String> columns = new ArrayList<>();
+
+        private IndexBuilder(boolean unique) {
+            this.unique = unique;
+        }
+    }
+
+    /**
+     * 元数据快照
+     *
+     * @param tables   表名（小写） -> 表信息，按表名排序
+     * @param loadedAt 加载时间
+     */
+    public record Snapshot(Map<String, TableInfo> tables, Instant loadedAt) {
+    }
+
+    /**
+     * 表信息
+     *
+     * @param name       表名
+     * @param comment    表注释
+     * @param rows       估算行数（information_schema.TABLES.TABLE_ROWS，可能为空）
+     * @param columns    列信息，按列顺序
+     * @param primaryKey 主键列
+     * @param indexes    主键以外的索引
+     */
+    public record TableInfo(String name, String comment, Long rows, List<ColumnInfo> columns,
+                            List<String> primaryKey, List<IndexInfo> indexes) {
+    }
+
+    /**
+     * 列信息
+     */
+    public record ColumnInfo(String name, String type, boolean nullable, String comment) {
+    }
+
+    /**
+     * 索引信息
+     */
+    public record IndexInfo(String name, boolean unique, List<String> columns) {
+    }
+}
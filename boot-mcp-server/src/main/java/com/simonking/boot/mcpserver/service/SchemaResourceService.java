@@ -0,0 +1,307 @@
+package com.simonking.boot.mcpserver.service;
+
+import com.simonking.boot.mcpserver.config.SqlQueryProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * <p>PURPOSE: 表名、表结构说明资源
+ * <p>DESCRIPTION: 启动时一次性读取 database-info.txt、database-tablestructural.txt，
+ * 并把表结构说明按表拆分，工具调用时直接返回内存中的不可变快照，不再每次读取、解码文件。
+ * 说明文件位于文件系统且开启 mcp.sql.schema.watch 时，文件修改后自动重新加载
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Service
+@Slf4j
+public class SchemaResourceService {
+
+    // 表结构块起始行，如：1、医保基金银行单据表 hif_bank_doc_d (
+    private static final Pattern TABLE_HEADER = Pattern.compile("^\\d+、\\s*(.*?)\\s*`?(\\w+)`?\\s*\\($");
+    // 说明章节标题，如：关联关系说明：
+    private static final Pattern SECTION_HEADER = Pattern.compile("^\\S.*[：:]$");
+    private static final Pattern ITEM_HEADER = Pattern.compile("^\\d+、");
+    // 说明条目中的标识符（表名、列名），\w 只匹配ASCII字符，"hif_bank_doc_d表的" 中取到 hif_bank_doc_d
+    private static final Pattern IDENTIFIER = Pattern.compile("\\w+");
+
+    @Autowired
+    private SqlQueryProperties properties;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    private volatile Snapshot snapshot;
+
+    private WatchService watchService;
+
+    @PostConstruct
+    public void init() {
+        snapshot = load();
+        log.info("表结构说明加载完成: 表{}张", snapshot.tableBlocks().size());
+        if (properties.getSchema().isWatch()) {
+            startWatch();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * 表名说明全文
+     */
+    public String getTables() {
+        return snapshot.tables();
+    }
+
+    /**
+     * 表结构说明全文
+     */
+    public String getStructure() {
+        return snapshot.structure();
+    }
+
+    /**
+     * 已知的表名（小写）
+     */
+    public Set<String> getTableNames() {
+        return snapshot.tableBlocks().keySet();
+    }
+
+    /**
+     * 返回指定表的结构说明，以及涉及这些表的关联关系、枚举值说明
+     *
+     * @param tableNames 表名，大小写不敏感
+     */
+    public String getStructure(Collection<String> tableNames) {
+        Snapshot current = snapshot;
+        StringBuilder sb = new StringBuilder(current.title()).append("\n\n");
+        Set<String> found = new LinkedHashSet<>();
+        List<String> missing = new ArrayList<>();
+        for (String name : tableNames) {
+            String table = name.trim().replace("`", "").toLowerCase(Locale.ROOT);
+            if (table.isEmpty() || found.contains(table)) continue;
+            String block = current.tableBlocks().get(table);
+            if (block == null) {
+                missing.add(name.trim());
+                continue;
+            }
+            found.add(table);
+            sb.append(block).append("\n\n");
+        }
+
+        for (Map.Entry<String, List<String>> section : current.notes().entrySet()) {
+            List<String> related = new ArrayList<>();
+            for (String item : section.getValue()) {
+                if (mentionsAny(item, found)) {
+                    related.add(item);
+                }
+            }
+            if (!related.isEmpty()) {
+                sb.append(section.getKey()).append("\n");
+                related.forEach(item -> sb.append(item).append("\n"));
+                sb.append("\n");
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            sb.append("未找到以下表的结构说明：").append(String.join("、", missing))
+                    .append("\n可查询的表：").append(String.join("、", current.tableBlocks().keySet()));
+        }
+        return sb.toString().trim();
+    }
+
+    private Snapshot load() {
+        SqlQueryProperties.Schema config = properties.getSchema();
+        String tables = read(config.getTablesFile());
+        String structure = read(config.getStructureFile());
+        return parse(tables, structure);
+    }
+
+    private String read(String fileName) {
+        Resource resource = resourceLoader.getResource(properties.getSchema().getLocation() + fileName);
+        try (InputStream in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.error("读取说明文件失败: {}", resource, e);
+            return "";
+        }
+    }
+
+    /**
+     * 条目中是否出现了某个表名，按完整的标识符匹配（hif_bank_doc_d 不匹配 hif_bank_doc_detl_d）
+     */
+    private static boolean mentionsAny(String item, Set<String> tables) {
+        Matcher matcher = IDENTIFIER.matcher(item);
+        while (matcher.find()) {
+            if (tables.contains(matcher.group().toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 拆分表结构说明：编号的建表块按表名归档，其余章节（关联关系、枚举值）按条目归档
+     */
+    static Snapshot parse(String tables, String structure) {
+        String[] lines = structure.replace("\r\n", "\n").split("\n");
+        String title = "";
+        Map<String, String> tableBlocks = new LinkedHashMap<>();
+        Map<String, List<String>> notes = new LinkedHashMap<>();
+
+        String currentTable = null;
+        StringBuilder block = null;
+        List<String> currentSection = null;
+        StringBuilder item = null;
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (currentTable != null) {
+                block.append("\n").append(line);
+                if (trimmed.equals(")")) {
+                    tableBlocks.put(currentTable, block.toString());
+                    currentTable = null;
+                }
+                continue;
+            }
+            Matcher header = TABLE_HEADER.matcher(trimmed);
+            if (currentSection == null && header.matches()) {
+                currentTable = header.group(2).toLowerCase(Locale.ROOT);
+                block = new StringBuilder(line);
+                continue;
+            }
+            if (trimmed.isEmpty()) {
+                item = flushItem(currentSection, item);
+                continue;
+            }
+            if (SECTION_HEADER.matcher(trimmed).matches() && !ITEM_HEADER.matcher(trimmed).find()) {
+                item = flushItem(currentSection, item);
+                if (tableBlocks.isEmpty() && currentSection == null) {
+                    title = trimmed;
+                } else {
+                    currentSection = new ArrayList<>();
+                    notes.put(trimmed, currentSection);
+                }
+                continue;
+            }
+            if (currentSection != null) {
+                if (ITEM_HEADER.matcher(trimmed).find()) {
+                    item = flushItem(currentSection, item);
+                    item = new StringBuilder(line);
+                } else if (item != null) {
+                    item.append("\n").append(line);
+                }
+            }
+        }
+        flushItem(currentSection, item);
+        notes.replaceAll((k, v) -> Collections.unmodifiableList(v));
+
+        return new Snapshot(tables, structure, title,
+                Collections.unmodifiableMap(tableBlocks), Collections.unmodifiableMap(notes));
+    }
+
+    private static StringBuilder flushItem(List<String> section, StringBuilder item) {
+        if (section != null && item != null) {
+            section.add(item.toString());
+        }
+        return null;
+    }
+
+    /**
+     * 监听说明文件所在目录，文件修改后重新加载
+     */
+    private void startWatch() {
+        SqlQueryProperties.Schema config = properties.getSchema();
+        Path directory;
+        try {
+            Resource resource = resourceLoader.getResource(config.getLocation() + config.getStructureFile());
+            if (!resource.isFile()) {
+                log.warn("说明文件不在文件系统中，忽略监听配置: {}", resource);
+                return;
+            }
+            directory = resource.getFile().toPath().toAbsolutePath().getParent();
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+        } catch (IOException e) {
+            log.warn("监听说明文件失败: {}", e.getMessage());
+            return;
+        }
+
+        Set<String> watched = Set.of(config.getTablesFile(), config.getStructureFile());
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    boolean changed = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.context() instanceof Path path && watched.contains(path.getFileName().toString())) {
+                            changed = true;
+                        }
+                    }
+                    key.reset();
+                    if (changed) {
+                        snapshot = load();
+                        log.info("说明文件已修改，重新加载完成: 表{}张", snapshot.tableBlocks().size());
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // 应用关闭
+            }
+        }, "schema-watch");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("开始监听说明文件目录: {}", directory);
+    }
+
+    /**
+     * 说明文件快照
+     *
+     * @param tables      表名说明全文
+     * @param structure   表结构说明全文
+     * @param title       表结构说明标题行
+     * @param tableBlocks 表名（小写） -> 建表块
+     * @param notes       章节标题 -> 条目（关联关系、枚举值说明）
+     */
+    record Snapshot(String tables, String structure, String title,
+                    Map<String, String> tableBlocks, Map<String, List<String>> notes) {
+    }
+}
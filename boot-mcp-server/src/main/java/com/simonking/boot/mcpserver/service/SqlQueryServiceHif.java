@@ -1,22 +1,12 @@
 package com.simonking.boot.mcpserver.service;
 
+import com.simonking.boot.mcpserver.sql.SqlStatements;
+import com.simonking.boot.mcpserver.sql.StreamingTableExtractor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-
 
 /**
  * <p>PURPOSE:
@@ -37,7 +27,10 @@ import java.util.Set;
 public class SqlQueryServiceHif {
 
     @Autowired
-    private JdbcTemplate jdbcTemplate;
+    private QueryGuard queryGuard;
+
+    @Autowired
+    private SchemaResourceService schemaResourceService;
 
     /**
      * 执行SQL查询并返回结果
@@ -50,19 +43,20 @@ public class SqlQueryServiceHif {
     public String executeQuery(String sql) {
         try {
             // 安全检查
-            if (!isValidSelectQuery(sql)) {
-                return "安全限制：只允许执行SELECT查询语句，不支持INSERT、UPDATE、DELETE等操作";
+            String rejectReason = SqlStatements.rejectReason(sql);
+            if (rejectReason != null) {
+                return "安全限制：只允许执行SELECT查询语句，不支持INSERT、UPDATE、DELETE等操作（" + rejectReason + "）";
             }
 
 
             // 清理和优化SQL
-            String cleanSql = cleanSql(sql);
+            String cleanSql = SqlStatements.clean(sql);
             String limitedSql = cleanSql;
 
             log.info("执行SQL: {}", limitedSql);
 
             long startTime = System.currentTimeMillis();
-            List<Map<String, Object>> result = jdbcTemplate.queryForList(limitedSql);
+            StreamingTableExtractor.Table result = queryGuard.query(limitedSql, new StreamingTableExtractor());
             long executionTime = System.currentTimeMillis() - startTime;
 
             return formatSuccessResult(result, limitedSql, executionTime);
@@ -81,13 +75,7 @@ public class SqlQueryServiceHif {
         返回当前系统支持查询的所有表名及说明说明
         """)
     public String getDatabaseTables() {
-        try {
-            ClassPathResource resource = new ClassPathResource("database-info.txt");
-            return new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            log.error("获取数据库表名失败", e);
-            return "";
-        }
+        return schemaResourceService.getTables();
     }
 
     /**
@@ -98,65 +86,29 @@ public class SqlQueryServiceHif {
         返回当前系统支持查询的所有表结构说明
         """)
     public String getDatabaseStructure() {
-        try {
-            ClassPathResource resource = new ClassPathResource("database-tablestructural.txt");
-            return new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            log.error("获取数据库表结构失败", e);
-            return "";
-        }
+        return schemaResourceService.getStructure();
     }
 
 
 
     // 私有辅助方法
-    private boolean isValidSelectQuery(String sql) {
-        if (sql == null || sql.trim().isEmpty()) return false;
-
-        String upperSql = sql.trim().toUpperCase();
-
-        // 只允许SELECT语句
-        if (!upperSql.startsWith("SELECT")) return false;
-
-        // 检查是否包含危险关键字
-        String[] dangerousKeywords = {
-                "INSERT", "UPDATE", "DELETE", "DROP", "CREATE", "ALTER",
-                "TRUNCATE", "EXEC", "EXECUTE", "DECLARE"
-        };
-
-        for (String keyword : dangerousKeywords) {
-            if (upperSql.contains(keyword)) return false;
-        }
-
-        return true;
-    }
-
-    private String cleanSql(String sql) {
-        return sql.trim().replaceAll(";+$", ""); // 移除末尾的分号
-    }
-
-    private String addLimitIfNeeded(String sql, int maxRows) {
-        String upperSql = sql.toUpperCase();
-        if (!upperSql.contains("LIMIT")) {
-            return sql + " LIMIT " + maxRows;
-        }
-        return sql;
-    }
-
-    private String formatSuccessResult(List<Map<String, Object>> data, String sql, long executionTime) {
+    private String formatSuccessResult(StreamingTableExtractor.Table table, String sql, long executionTime) {
         StringBuilder sb = new StringBuilder();
 
         sb.append("医保基金系统查询执行成功！\n\n");
         sb.append("执行的SQL：\n```sql\n").append(sql).append("\n```\n\n");
         sb.append("查询统计：\n");
-        sb.append("- 返回记录数：").append(data.size()).append("条\n");
+        sb.append("- 返回记录数：").append(table.rowCount()).append("条\n");
+        if (queryGuard.isTruncated(table.rowCount())) {
+            sb.append("- 结果已达到最大返回行数，后续数据未返回，请增加过滤条件或使用分页查询\n");
+        }
         sb.append("- 执行时间：").append(executionTime).append("ms\n\n");
 
-        if (data.isEmpty()) {
+        if (table.isEmpty()) {
             sb.append("查询结果：无数据\n");
         } else {
             sb.append("查询结果：\n");
-            sb.append(formatAsTable(data));
+            sb.append(table.text());
         }
 
         return sb.toString();
@@ -176,59 +128,4 @@ public class SqlQueryServiceHif {
         return sb.toString();
     }
 
-    private String formatAsTable(List<Map<String, Object>> data) {
-        if (data.isEmpty()) return "无数据";
-
-        // 获取所有列名
-        Set<String> allColumns = new LinkedHashSet<>();
-        for (Map<String, Object> row : data) {
-            allColumns.addAll(row.keySet());
-        }
-
-        List<String> columns = new ArrayList<>(allColumns);
-        StringBuilder sb = new StringBuilder();
-
-        // 计算列宽
-        Map<String, Integer> columnWidths = new HashMap<>();
-        for (String col : columns) {
-            int maxWidth = col.length();
-            for (Map<String, Object> row : data) {
-                Object value = row.get(col);
-                String strValue = value != null ? value.toString() : "NULL";
-                maxWidth = Math.max(maxWidth, strValue.length());
-            }
-            columnWidths.put(col, Math.min(maxWidth, 25)); // 限制最大列宽
-        }
-
-        // 表头
-        sb.append("```\n");
-        for (String col : columns) {
-            sb.append(String.format("%-" + columnWidths.get(col) + "s | ", col));
-        }
-        sb.append("\n");
-
-        // 分隔线
-        for (String col : columns) {
-            sb.append(String.join("", Collections.nCopies(columnWidths.get(col), "-")));
-            sb.append("-+-");
-        }
-        sb.append("\n");
-
-        // 数据行
-        for (Map<String, Object> row : data) {
-            for (String col : columns) {
-                Object value = row.get(col);
-                String strValue = value != null ? value.toString() : "NULL";
-                if (strValue.length() > 25) {
-                    strValue = strValue.substring(0, 22) + "...";
-                }
-                sb.append(String.format("%-" + columnWidths.get(col) + "s | ", strValue));
-            }
-            sb.append("\n");
-        }
-        sb.append("```\n");
-
-        return sb.toString();
-    }
-
 }
@@ -1,23 +1,38 @@
 package com.simonking.boot.mcpserver.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.simonking.boot.mcpserver.cache.CachedSql;
+import com.simonking.boot.mcpserver.cache.QueryResultCache;
+import com.simonking.boot.mcpserver.cache.SqlCacheStats;
+import com.simonking.boot.mcpserver.cache.SqlCacheStore;
+import com.simonking.boot.mcpserver.config.SqlQueryProperties;
+import com.simonking.boot.mcpserver.format.TableRenderer;
+import com.simonking.boot.mcpserver.metrics.ToolOutcome;
+import com.simonking.boot.mcpserver.sql.ExplainPlan;
+import com.simonking.boot.mcpserver.sql.JsonTableExtractor;
+import com.simonking.boot.mcpserver.sql.KeysetPaginator;
+import com.simonking.boot.mcpserver.sql.ParsedSql;
+import com.simonking.boot.mcpserver.sql.SqlStatements;
+import com.simonking.boot.mcpserver.sql.StreamingTableExtractor;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -37,12 +52,52 @@ import java.util.concurrent.ConcurrentHashMap;
 @Service
 @Slf4j
 public class SqlQueryServiceHif0911 {
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    private static final DateTimeFormatter CACHE_TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    @Autowired
+    private QueryGuard queryGuard;
+
+    @Autowired
+    private QueryCountService queryCountService;
+
+    @Autowired
+    private QueryCostService queryCostService;
+
+    @Autowired
+    private QueryResultCache queryResultCache;
+
+    @Autowired
+    private SchemaResourceService schemaResourceService;
+
+    @Autowired
+    private SchemaCatalogService schemaCatalogService;
+
+    @Autowired
+    private SqlStatsService sqlStatsService;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private ColumnarCacheService columnarCacheService;
+
     @Autowired
-    private JdbcTemplate jdbcTemplate;
+    private SqlQueryProperties properties;
 
-    // SQL缓存 - 使用ConcurrentHashMap保证线程安全
-    // key: 查询描述的hash值, value: 包含SQL和相关信息的Map
-    private final Map<String, Map<String, Object>> sqlCache = new ConcurrentHashMap<>();
+    private TableRenderer tableRenderer;
+
+    @PostConstruct
+    public void init() {
+        tableRenderer = new TableRenderer(properties.getTableFormat());
+    }
+
+    // SQL缓存 - 有界缓存，容量、有效期和淘汰策略见 mcp.sql.sql-cache 配置
+    // key: 规范化后的查询描述, value: 查询描述和SQL
+    @Autowired
+    private SqlCacheStore sqlCache;
 
     /**
      * 执行SQL查询并返回结果（支持分页）
@@ -53,13 +108,19 @@ public class SqlQueryServiceHif0911 {
         - page: 页码（从1开始，默认为1）
         - pageSize: 每页大小（默认为10，最大100）
         - queryDescription: 查询描述（用于缓存，可选）
+        - cursor: 分页游标（可选，取自上一次结果分页导航中的cursor，传入后忽略page，翻页更快）
+        - resultFormat: 结果格式（可选，默认text为格式化文本；json为紧凑的列式JSON，
+          data.columns为列名和JDBC类型，data.rows为按列顺序排列的行数组，pagination为分页信息）
         返回查询结果的格式化文本和分页信息
         """)
-    public String executeQuery(String sql, Integer page, Integer pageSize, String queryDescription) {
+    public String executeQuery(String sql, Integer page, Integer pageSize, String queryDescription, String cursor,
+                               String resultFormat) {
         try {
             // 安全检查
-            if (!isValidSelectQuery(sql)) {
-                return "安全限制：只允许执行SELECT查询语句，不支持INSERT、UPDATE、DELETE等操作";
+            String rejectReason = SqlStatements.rejectReason(sql);
+            if (rejectReason != null) {
+                ToolOutcome.fail("rejected");
+                return "安全限制：只允许执行SELECT查询语句，不支持INSERT、UPDATE、DELETE等操作（" + rejectReason + "）";
             }
 
             // 参数处理
@@ -67,8 +128,21 @@ public class SqlQueryServiceHif0911 {
             if (pageSize == null || pageSize <= 0) pageSize = 10;
             if (pageSize > 100) pageSize = 100;
 
+            boolean json = "json".equalsIgnoreCase(resultFormat != null ? resultFormat.trim() : null);
+
             // 清理SQL
-            String cleanSql = cleanSql(sql);
+            String cleanSql = SqlStatements.clean(sql);
+
+            // 只用到汇总表维度列的聚合查询改写为查询预聚合汇总表
+            RollupService.Route rollup = rollupService.route(cleanSql).orElse(null);
+            String execSql = rollup != null ? rollup.sql() : cleanSql;
+
+            // 执行前代价检查（EXPLAIN估算扫描行数，超过上限时按配置警告或拒绝）
+            QueryCostService.Verdict costVerdict = queryCostService.check(execSql);
+            if (costVerdict != null && costVerdict.rejected()) {
+                ToolOutcome.fail("cost_rejected");
+                return formatCostRejectedResult(execSql, costVerdict);
+            }
 
             // 缓存SQL（如果提供了查询描述）
             if (queryDescription != null && !queryDescription.trim().isEmpty()) {
@@ -77,15 +151,63 @@ public class SqlQueryServiceHif0911 {
 
             long startTime = System.currentTimeMillis();
 
-            // 执行分页查询
-            Map<String, Object> paginationResult = executeWithPagination(cleanSql, page, pageSize);
+            // 执行分页查询（开启结果缓存时优先读取缓存）
+            Map<String, Object> paginationResult;
+            try {
+                paginationResult = executeWithResultCache(execSql, page, pageSize, cursor, json, workloadOf(costVerdict));
+            } catch (DataAccessException e) {
+                if (rollup == null) {
+                    throw e;
+                }
+                // 汇总表不可用时停用并回退到查询源表，源表的扫描代价要重新检查
+                rollupService.disable(rollup.rollup(), e.getMessage());
+                rollup = null;
+                costVerdict = queryCostService.check(cleanSql);
+                if (costVerdict != null && costVerdict.rejected()) {
+                    ToolOutcome.fail("cost_rejected");
+                    return formatCostRejectedResult(cleanSql, costVerdict);
+                }
+                paginationResult = executeWithResultCache(cleanSql, page, pageSize, cursor, json, workloadOf(costVerdict));
+            }
 
             long executionTime = System.currentTimeMillis() - startTime;
 
-            return formatSuccessResult(paginationResult, cleanSql, executionTime, page, pageSize);
+            if (json) {
+                return formatJsonResult(paginationResult, cleanSql, executionTime, costVerdict, rollup);
+            }
+            return formatSuccessResult(paginationResult, cleanSql, executionTime, pageSize, costVerdict, rollup);
 
+        } catch (QueryBudgetExceededException e) {
+            ToolOutcome.fail("budget_exceeded");
+            return formatBudgetExceededResult(sql, e);
         } catch (Exception e) {
             log.error("SQL执行失败: " + sql, e);
+            ToolOutcome.fail("error");
+            return formatErrorResult(sql, e.getMessage());
+        }
+    }
+
+    /**
+     * 分析SQL执行代价并给出优化建议
+     */
+    @Tool(description = """
+        分析SQL的执行代价并给出优化建议（只做EXPLAIN，不执行查询）。参数：
+        - sql: 要分析的SQL查询语句（仅支持SELECT语句）
+        返回执行计划、预计扫描行数、索引使用情况，以及补充过滤条件、改写条件或新建索引的建议。
+        executeQuery提示预计扫描行数过大或拒绝执行时，先调用本工具按建议调整SQL再查询
+        """)
+    public String adviseQuery(String sql) {
+        try {
+            String rejectReason = SqlStatements.rejectReason(sql);
+            if (rejectReason != null) {
+                ToolOutcome.fail("rejected");
+                return "安全限制：只允许分析SELECT查询语句（" + rejectReason + "）";
+            }
+            String cleanSql = SqlStatements.clean(sql);
+            return formatAdvice(cleanSql, queryCostService.advise(cleanSql));
+        } catch (Exception e) {
+            log.error("SQL代价分析失败: " + sql, e);
+            ToolOutcome.fail("error");
             return formatErrorResult(sql, e.getMessage());
         }
     }
@@ -94,7 +216,7 @@ public class SqlQueryServiceHif0911 {
      * 根据查询描述从缓存中获取SQL
      */
     @Tool(description = """
-        根据查询描述从内存缓存中获取之前生成的SQL语句。参数：
+        根据查询描述从内存缓存中获取之前生成的SQL语句，未完全一致时返回描述相似的缓存SQL及相似度。参数：
         - queryDescription: 查询需求的自然语言描述
         返回缓存的SQL语句，如果不存在则提示需要AI生成
         """)
@@ -103,21 +225,34 @@ public class SqlQueryServiceHif0911 {
             return "查询描述不能为空";
         }
 
-        String cacheKey = generateCacheKey(queryDescription);
-        Map<String, Object> cachedData = sqlCache.get(cacheKey);
+        String cacheKey = SqlCacheStore.keyOf(queryDescription);
+        CachedSql cachedData = sqlCache.get(cacheKey);
 
         if (cachedData != null) {
-            String sql = (String) cachedData.get("sql");
-            String originalDescription = (String) cachedData.get("description");
-            java.util.Date cacheTime = (java.util.Date) cachedData.get("cacheTime");
-
             StringBuilder result = new StringBuilder();
             result.append("✅ 找到缓存的SQL语句:\n\n");
-            result.append("查询描述: ").append(originalDescription).append("\n");
-            result.append("缓存时间: ").append(cacheTime).append("\n\n");
-            result.append("SQL语句:\n```sql\n").append(sql).append("\n```\n\n");
+            result.append("查询描述: ").append(cachedData.description()).append("\n");
+            result.append("缓存时间: ").append(formatCacheTime(cachedData)).append("\n\n");
+            result.append("SQL语句:\n```sql\n").append(cachedData.sql()).append("\n```\n\n");
             result.append("💡 您可以直接使用executeQuery工具执行此SQL，或根据需要进行修改");
 
+            return result.toString();
+        }
+
+        // 未精确命中时按描述相似度查找
+        List<SqlCacheStore.SimilarSql> similarSqls = sqlCache.findSimilar(queryDescription);
+        if (!similarSqls.isEmpty()) {
+            StringBuilder result = new StringBuilder();
+            result.append(String.format("🔎 未找到完全一致的缓存，找到 %d 条相似的缓存SQL（按相似度排序）:\n\n", similarSqls.size()));
+            int index = 1;
+            for (SqlCacheStore.SimilarSql similar : similarSqls) {
+                CachedSql cached = similar.cachedSql();
+                result.append(String.format("%d. 相似度: %.0f%%\n", index++, similar.score() * 100));
+                result.append("   查询描述: ").append(cached.description()).append("\n");
+                result.append("   缓存时间: ").append(formatCacheTime(cached)).append("\n");
+                result.append("   SQL语句:\n```sql\n").append(cached.sql()).append("\n```\n\n");
+            }
+            result.append("💡 请核对年份、区划、统计口径等条件是否与当前需求一致：一致时可直接使用executeQuery执行，否则在此基础上修改");
             return result.toString();
         } else {
             return "❌ 未找到相关的缓存SQL\n\n" +
@@ -125,7 +260,7 @@ public class SqlQueryServiceHif0911 {
                     "💡 建议:\n" +
                     "1. 请使用AI生成新的SQL语句\n" +
                     "2. 确保查询描述准确，以便后续缓存\n" +
-                    "3. 可以先使用getDatabaseTables和getDatabaseStructure获取表结构信息";
+                    "3. 可以先使用getDatabaseTables获取表名，再使用getTableStructure获取相关表的结构信息";
         }
     }
 
@@ -137,8 +272,7 @@ public class SqlQueryServiceHif0911 {
         返回清空结果
         """)
     public String clearSqlCache() {
-        int cacheSize = sqlCache.size();
-        sqlCache.clear();
+        long cacheSize = sqlCache.clear();
         return String.format("✅ SQL缓存已清空，共清除了 %d 条缓存记录", cacheSize);
     }
 
@@ -150,31 +284,165 @@ public class SqlQueryServiceHif0911 {
         返回缓存的SQL列表
         """)
     public String listCachedSqls() {
-        if (sqlCache.isEmpty()) {
-            return "📝 当前没有缓存的SQL语句";
+        List<Map.Entry<String, CachedSql>> entries = sqlCache.snapshot();
+        if (entries.isEmpty()) {
+            return "📝 当前没有缓存的SQL语句\n\n" + formatCacheStats(sqlCache.stats());
         }
 
         StringBuilder result = new StringBuilder();
         result.append("📋 当前缓存的SQL语句列表:\n\n");
 
         int index = 1;
-        for (Map.Entry<String, Map<String, Object>> entry : sqlCache.entrySet()) {
-            Map<String, Object> cachedData = entry.getValue();
-            String description = (String) cachedData.get("description");
-            String sql = (String) cachedData.get("sql");
-            java.util.Date cacheTime = (java.util.Date) cachedData.get("cacheTime");
-
-            result.append(String.format("%d. 查询描述: %s\n", index++, description));
-            result.append(String.format("   缓存时间: %s\n", cacheTime));
+        for (Map.Entry<String, CachedSql> entry : entries) {
+            CachedSql cachedData = entry.getValue();
+            String sql = cachedData.sql();
+
+            result.append(String.format("%d. 查询描述: %s\n", index++, cachedData.description()));
+            result.append(String.format("   缓存时间: %s\n", formatCacheTime(cachedData)));
             result.append(String.format("   SQL摘要: %s...\n",
                     sql.length() > 50 ? sql.substring(0, 50) : sql));
             result.append("\n");
         }
 
-        result.append(String.format("共 %d 条缓存记录", sqlCache.size()));
+        result.append(String.format("共 %d 条缓存记录\n\n", entries.size()));
+        result.append(formatCacheStats(sqlCache.stats()));
         return result.toString();
     }
 
+    /**
+     * 查看SQL缓存统计
+     */
+    @Tool(description = """
+        查看SQL缓存的运行统计，包括淘汰策略、缓存条数、命中次数、未命中次数、命中率和淘汰次数。
+        返回缓存统计信息
+        """)
+    public String getSqlCacheStats() {
+        return formatCacheStats(sqlCache.stats());
+    }
+
+    /**
+     * 查看SQL指纹执行统计
+     */
+    @Tool(description = """
+        查看按SQL指纹（去掉具体取值后的语句结构）汇总的执行统计，用于找出最耗资源的查询。参数：
+        - topN: 返回前几条（默认10，最多100）
+        - orderBy: 排序方式，total=累计耗时（默认）、p99=p99耗时、count=执行次数、rows=返回行数、count_time=总数统计耗时
+        返回各指纹的执行次数、失败次数、耗时、行数和总数统计耗时
+        """)
+    public String getSqlStats(Integer topN, String orderBy) {
+        if (!properties.getStats().isEnabled()) {
+            return "📝 SQL执行统计未开启（mcp.sql.stats.enabled=false）";
+        }
+        int limit = topN == null || topN <= 0 ? 10 : Math.min(topN, 100);
+        SqlStatsService.Order order = SqlStatsService.Order.parse(orderBy);
+        List<SqlStatsService.Snapshot> top = sqlStatsService.top(limit, order);
+        if (top.isEmpty()) {
+            return "📝 暂无SQL执行统计";
+        }
+        String[] columns = {"编号", "执行次数", "失败", "累计ms", "平均ms", "p50ms", "p99ms", "最大ms",
+                "平均行数", "COUNT次数", "COUNT累计ms", "最近执行", "指纹"};
+        List<String[]> rows = new ArrayList<>(top.size());
+        for (SqlStatsService.Snapshot stats : top) {
+            rows.add(new String[]{
+                    stats.id(), String.valueOf(stats.executions()), String.valueOf(stats.errors()),
+                    String.format("%.1f", stats.totalMs()), String.format("%.1f", stats.avgMs()),
+                    String.format("%.1f", stats.p50Ms()), String.format("%.1f", stats.p99Ms()),
+                    String.format("%.1f", stats.maxMs()),
+                    stats.executions() > 0 ? String.valueOf(stats.rowsTotal() / stats.executions()) : "-",
+                    String.valueOf(stats.countRuns()), String.format("%.1f", stats.countTotalMs()),
+                    CACHE_TIME_FORMATTER.format(stats.lastSeen()), TableRenderer.cellText(stats.fingerprint())});
+        }
+        return String.format("📈 SQL指纹执行统计（按%s排序，共%d个指纹，p50/p99取最近%d次执行）：\n%s",
+                order.name().toLowerCase(Locale.ROOT), sqlStatsService.size(),
+                properties.getStats().getSampleSize(), tableRenderer.render(columns, rows));
+    }
+
+    /**
+     * 查看或刷新预聚合汇总表
+     */
+    @Tool(description = """
+        查看预聚合汇总表的状态，或立即刷新汇总表（仅在开启汇总表时有效）。汇总表按月份、区划等维度预先汇总统计表，
+        executeQuery 中匹配的聚合查询会自动改写为查询汇总表。参数：
+        - name: 汇总名称（可选，为空表示全部）
+        - refresh: 是否立即刷新（可选，默认false只查看状态）
+        - full: 刷新时是否全量重建（可选，默认false只重新汇总最近几个月）
+        返回各汇总表的源表、刷新时间和是否参与查询改写
+        """)
+    public String manageRollups(String name, Boolean refresh, Boolean full) {
+        if (!rollupService.isEnabled()) {
+            return "📝 预聚合汇总表未开启（mcp.sql.rollup.enabled=false）";
+        }
+        List<RollupService.Status> statuses = Boolean.TRUE.equals(refresh)
+                ? rollupService.refresh(name, Boolean.TRUE.equals(full)) : rollupService.status();
+        if (statuses.isEmpty()) {
+            return "📝 没有配置汇总表（mcp.sql.rollup.tables）";
+        }
+        String[] columns = {"汇总名称", "源表", "汇总表", "参与改写", "刷新时间", "刷新耗时ms", "刷新范围", "最近错误"};
+        List<String[]> rows = new ArrayList<>(statuses.size());
+        for (RollupService.Status status : statuses) {
+            rows.add(new String[]{
+                    status.name(), status.source(), status.table(), status.ready() ? "是" : "否",
+                    status.refreshedAt() != null ? CACHE_TIME_FORMATTER.format(status.refreshedAt()) : "-",
+                    status.refreshedAt() != null ? String.valueOf(status.refreshMillis()) : "-",
+                    status.refreshedAt() == null ? "-" : status.refreshedFrom() == null ? "全量" : "自" + status.refreshedFrom() + "起",
+                    status.lastError() != null ? status.lastError() : "-"});
+        }
+        return "📦 预聚合汇总表：\n" + tableRenderer.render(columns, rows);
+    }
+
+    /**
+     * 查看或刷新本地列式缓存
+     */
+    @Tool(description = """
+        查看本地列式缓存的状态，或立即刷新缓存表（仅在开启本地缓存时有效）。区划表等维表和统计表最近的分区缓存在内存中，
+        只引用这些表的简单查询在本地执行，不访问数据库；统计表只缓存了最近的分区，查询须带不早于覆盖起点的日期条件。参数：
+        - table: 表名（可选，为空表示全部）
+        - refresh: 是否立即刷新（可选，默认false只查看状态）
+        - full: 刷新时是否全量重新加载（可选，默认false只重新加载最近几天）
+        返回各缓存表的行数、内存占用、覆盖起点和本地执行次数
+        """)
+    public String manageLocalCache(String table, Boolean refresh, Boolean full) {
+        if (!columnarCacheService.isEnabled()) {
+            return "📝 本地列式缓存未开启（mcp.sql.local-cache.enabled=false）";
+        }
+        List<ColumnarCacheService.Status> statuses = Boolean.TRUE.equals(refresh)
+                ? columnarCacheService.refresh(table, Boolean.TRUE.equals(full)) : columnarCacheService.status();
+        if (statuses.isEmpty()) {
+            return "📝 没有配置本地缓存表（mcp.sql.local-cache.tables）";
+        }
+        String[] columns = {"表名", "增量列", "已加载", "行数", "内存KB", "覆盖起点", "刷新时间", "刷新耗时ms", "本地执行次数", "最近错误"};
+        List<String[]> rows = new ArrayList<>(statuses.size());
+        for (ColumnarCacheService.Status status : statuses) {
+            rows.add(new String[]{
+                    status.table(), status.incrementalColumn() != null ? status.incrementalColumn() : "-",
+                    status.loaded() ? "是" : "否", String.valueOf(status.rows()), String.valueOf(status.bytes() / 1024),
+                    status.coveredFrom() != null ? status.coveredFrom() : status.loaded() ? "全部" : "-",
+                    status.loadedAt() != null ? CACHE_TIME_FORMATTER.format(status.loadedAt()) : "-",
+                    status.loadedAt() != null ? String.valueOf(status.refreshMillis()) : "-",
+                    String.valueOf(status.hits()), status.lastError() != null ? status.lastError() : "-"});
+        }
+        return "🗄️ 本地列式缓存：\n" + tableRenderer.render(columns, rows);
+    }
+
+    /**
+     * 使查询结果缓存失效
+     */
+    @Tool(description = """
+        使查询结果缓存和分页总数缓存失效。参数：
+        - tableName: 表名（支持*通配符，如 hif_*_stt_d），为空时清空全部结果缓存
+        返回失效的缓存条数
+        """)
+    public String invalidateResultCache(String tableName) {
+        // 总数缓存不受结果缓存开关影响，始终一起失效
+        long counts = queryCountService.invalidate(tableName);
+        String scope = tableName == null || tableName.trim().isEmpty() ? "全部表" : "表 " + tableName.trim();
+        if (!queryResultCache.isEnabled()) {
+            return String.format("✅ 已使%s的分页总数缓存失效，共 %d 条（查询结果缓存未开启）", scope, counts);
+        }
+        long invalidated = queryResultCache.invalidate(tableName);
+        return String.format("✅ 已使%s的查询结果缓存失效，共 %d 条；分页总数缓存 %d 条", scope, invalidated, counts);
+    }
+
     /**
      * 获取医保基金系统数据库结构信息（静态版本）
      */
@@ -183,13 +451,7 @@ public class SqlQueryServiceHif0911 {
         返回当前系统支持查询的所有表名及说明说明
         """)
     public String getDatabaseTables() {
-        try {
-            ClassPathResource resource = new ClassPathResource("database-info.txt");
-            return new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            log.error("获取数据库表名失败", e);
-            return "获取数据库表名信息失败";
-        }
+        return schemaResourceService.getTables();
     }
 
     /**
@@ -200,165 +462,201 @@ public class SqlQueryServiceHif0911 {
         返回当前系统支持查询的所有表结构说明
         """)
     public String getDatabaseStructure() {
-        try {
-            ClassPathResource resource = new ClassPathResource("database-tablestructural.txt");
-            return new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            log.error("获取数据库表结构失败", e);
-            return "获取数据库表结构信息失败";
+        return schemaResourceService.getStructure();
+    }
+
+    /**
+     * 获取指定表的结构信息
+     */
+    @Tool(description = """
+        获取医保基金系统中指定表的结构信息，只返回所需表的字段说明及相关的关联关系、枚举值说明。参数：
+        - tableNames: 表名，多个表用逗号分隔（如 hif_bank_doc_d,hif_bank_doc_detl_d）
+        返回指定表的结构说明
+        """)
+    public String getTableStructure(String tableNames) {
+        if (tableNames == null || tableNames.trim().isEmpty()) {
+            return "请提供表名，多个表用逗号分隔。可查询的表：" + String.join("、", schemaResourceService.getTableNames());
         }
+        return schemaResourceService.getStructure(List.of(tableNames.split("[,，\\s]+")));
     }
 
     // ==================== 私有方法 ====================
 
     /**
-     * 执行分页查询
+     * 超出扫描行数上限（仅警告）的查询放到分析连接池执行
      */
-    private Map<String, Object> executeWithPagination(String sql, int page, int pageSize) {
-        Map<String, Object> result = new HashMap<>();
+    private static QueryGuard.Workload workloadOf(QueryCostService.Verdict costVerdict) {
+        return costVerdict != null && costVerdict.exceeded()
+                ? QueryGuard.Workload.ANALYTICAL : QueryGuard.Workload.INTERACTIVE;
+    }
 
-        // 1. 先查询总记录数（只有当需要分页时才查询）
-        String countSql = buildCountSql(sql);
-        Integer totalCount = null;
-        try {
-            totalCount = jdbcTemplate.queryForObject(countSql, Integer.class);
-        } catch (Exception e) {
-            log.warn("查询总数失败，将使用实际返回数据作为总数: " + e.getMessage());
+    /**
+     * 执行分页查询，命中结果缓存时直接返回缓存结果
+     */
+    private Map<String, Object> executeWithResultCache(String sql, int page, int pageSize, String cursor, boolean json,
+                                                       QueryGuard.Workload workload) {
+        String cacheKey = QueryResultCache.keyOf(sql, page, pageSize, cursor, json ? "json" : "text");
+        QueryResultCache.Entry cached = queryResultCache.get(cacheKey);
+        if (cached != null) {
+            Map<String, Object> result = new HashMap<>(cached.result());
+            result.put("cachedAt", cached.cachedAt());
+            return result;
         }
 
-        // 2. 执行分页数据查询
-        String paginatedSql = buildPaginatedSql(sql, page, pageSize);
-        List<Map<String, Object>> data = jdbcTemplate.queryForList(paginatedSql);
-
-        // 3. 计算分页信息
-        int actualCount = data.size();
-        int total = totalCount != null ? totalCount : actualCount;
-        int totalPages = (int) Math.ceil((double) total / pageSize);
-
-        result.put("data", data);
-        result.put("pagination", Map.of(
-                "current", page,
-                "pageSize", pageSize,
-                "total", total,
-                "totalPages", totalPages,
-                "hasNext", page < totalPages,
-                "hasPrev", page > 1
-        ));
-
+        Map<String, Object> result = executeWithPagination(sql, page, pageSize, cursor, json, workload);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> pagination = (Map<String, Object>) result.get("pagination");
+        // 总数为估算值时不缓存，避免估算值在缓存期内一直不更新
+        if (Boolean.TRUE.equals(pagination.get("totalExact"))) {
+            queryResultCache.put(cacheKey, sql, result);
+        }
         return result;
     }
 
     /**
-     * 构建统计总数的SQL
+     * 执行分页查询
+     * 能推导出唯一排序时使用游标（seek）分页，否则回退到LIMIT offset
      */
-    private String buildCountSql(String sql) {
-        // 简单的COUNT SQL构建 - 对于复杂查询可能需要优化
-        String upperSql = sql.toUpperCase().trim();
-        if (upperSql.contains("GROUP BY")) {
-            // 如果包含GROUP BY，需要用子查询
-            return String.format("SELECT COUNT(*) FROM (%s) as count_table", sql);
+    private Map<String, Object> executeWithPagination(String sql, int page, int pageSize, String cursor, boolean json,
+                                                      QueryGuard.Workload workload) {
+        Map<String, Object> result = new HashMap<>();
+
+        // 1. 先查询总记录数（优先使用缓存，可配置为先返回估算值）
+        QueryCountService.CountResult totalCount = queryCountService.count(sql, ParsedSql.of(sql).countPlan());
+
+        // 2. 执行分页数据查询
+        // 结果逐行直接写成文本表格或列式JSON，不物化为 List<Map>
+        KeysetPaginator.Plan keysetPlan = KeysetPaginator.plan(sql, schemaCatalogService::primaryKey).orElse(null);
+        ResultSetExtractor<StreamingTableExtractor.Table> extractor = json
+                ? new JsonTableExtractor() : new StreamingTableExtractor(tableRenderer);
+        StreamingTableExtractor.Table table;
+        boolean seek = keysetPlan != null && cursor != null && !cursor.trim().isEmpty();
+        if (seek) {
+            KeysetPaginator.Cursor position = keysetPlan.decodeCursor(cursor);
+            page = position.page();
+            table = queryGuard.query(workload, sql, keysetPlan.seekSql(), extractor, keysetPlan.seekArgs(position, pageSize));
+        } else if (keysetPlan != null) {
+            table = queryGuard.query(workload, sql, keysetPlan.offsetSql((page - 1) * pageSize, pageSize), extractor);
         } else {
-            // 简单查询，直接替换SELECT部分
-            return sql.replaceFirst("(?i)SELECT.*?FROM", "SELECT COUNT(*) FROM");
+            String paginatedSql = SqlStatements.paginatedSql(sql, page, pageSize);
+            table = queryGuard.query(workload, sql, paginatedSql, extractor);
         }
-    }
 
-    /**
-     * 构建分页SQL
-     */
-    private String buildPaginatedSql(String sql, int page, int pageSize) {
-        int offset = (page - 1) * pageSize;
-        String upperSql = sql.toUpperCase();
-
-        if (upperSql.contains("LIMIT")) {
-            // 如果已经有LIMIT，替换它
-            return sql.replaceFirst("(?i)LIMIT\\s+\\d+(?:\\s*,\\s*\\d+)?",
-                    String.format("LIMIT %d, %d", offset, pageSize));
-        } else {
-            // 添加LIMIT
-            return String.format("%s LIMIT %d, %d", sql, offset, pageSize);
+        // 3. 计算分页信息
+        int actualCount = table.rowCount();
+        long total = totalCount != null ? totalCount.total() : actualCount;
+        int totalPages = (int) Math.ceil((double) total / pageSize);
+        boolean hasNext = page < totalPages;
+
+        Map<String, Object> pagination = new LinkedHashMap<>();
+        pagination.put("current", page);
+        pagination.put("pageSize", pageSize);
+        pagination.put("total", total);
+        pagination.put("totalExact", totalCount == null || totalCount.exact());
+        pagination.put("totalSource", totalCount != null ? totalCount.source() : "page");
+        pagination.put("totalPages", totalPages);
+        pagination.put("hasNext", hasNext);
+        pagination.put("hasPrev", page > 1);
+        String nextCursor = keysetPlan != null && hasNext && !table.isEmpty()
+                ? keysetPlan.encodeCursor(table.lastRow(), page + 1) : null;
+        // 本页按游标查询或返回了下一页游标时才是游标分页（排序键为NULL时无法生成游标）
+        pagination.put("mode", seek || nextCursor != null ? "keyset" : "offset");
+        if (nextCursor != null) {
+            pagination.put("nextCursor", nextCursor);
         }
+
+        result.put("table", table.text());
+        result.put("rowCount", actualCount);
+        result.put("pagination", pagination);
+
+        return result;
     }
 
     /**
      * 缓存SQL
      */
     private void cacheSql(String queryDescription, String sql) {
-        String cacheKey = generateCacheKey(queryDescription);
-        Map<String, Object> cacheData = new LinkedHashMap<>();
-        cacheData.put("description", queryDescription);
-        cacheData.put("sql", sql);
-        cacheData.put("cacheTime", new java.util.Date());
-
-        sqlCache.put(cacheKey, cacheData);
+        String cacheKey = SqlCacheStore.keyOf(queryDescription);
+        sqlCache.put(cacheKey, new CachedSql(queryDescription, sql, Instant.now()));
         log.info("缓存SQL成功: {}", queryDescription);
     }
 
-    /**
-     * 生成缓存键
-     */
-    private String generateCacheKey(String queryDescription) {
-        // 简化查询描述，去除特殊字符和多余空格，转小写
-        return queryDescription.trim().toLowerCase()
-                .replaceAll("[^a-zA-Z0-9\\u4e00-\\u9fa5\\s]", "")
-                .replaceAll("\\s+", " ");
+    private String formatCacheTime(CachedSql cachedData) {
+        return CACHE_TIME_FORMATTER.format(cachedData.cacheTime());
     }
 
-    /**
-     * 验证SQL安全性
-     */
-    private boolean isValidSelectQuery(String sql) {
-        if (sql == null || sql.trim().isEmpty()) return false;
-
-        String upperSql = sql.trim().toUpperCase();
-        if (!upperSql.startsWith("SELECT")) return false;
-
-        String[] dangerousKeywords = {
-                "INSERT", "UPDATE", "DELETE", "DROP", "CREATE", "ALTER",
-                "TRUNCATE", "EXEC", "EXECUTE", "DECLARE"
-        };
-
-        for (String keyword : dangerousKeywords) {
-            if (upperSql.contains(keyword)) return false;
+    private String formatCacheStats(SqlCacheStats stats) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("📈 SQL缓存统计:\n");
+        sb.append(String.format("- 淘汰策略：%s\n", stats.policy()));
+        sb.append(String.format("- 缓存条数：%d\n", stats.size()));
+        sb.append(String.format("- 缓存权重：%d\n", stats.weight()));
+        sb.append(String.format("- 命中次数：%d\n", stats.hits()));
+        sb.append(String.format("- 未命中次数：%d\n", stats.misses()));
+        sb.append(String.format("- 命中率：%.2f%%\n", stats.hitRate() * 100));
+        sb.append(String.format("- 淘汰次数：%d\n", stats.evictions()));
+        sb.append(String.format("- 持久化方式：%s\n", sqlCache.getPersistenceType()));
+        if (sqlCache.getPersistenceType() != SqlQueryProperties.PersistenceType.NONE) {
+            sb.append(String.format("- 启动恢复：%d条，耗时%dms\n", sqlCache.getRestoredEntries(), sqlCache.getRestoreMillis()));
         }
-        return true;
-    }
-
-    /**
-     * 清理SQL
-     */
-    private String cleanSql(String sql) {
-        return sql.trim().replaceAll(";+$", "");
+        return sb.toString();
     }
 
     /**
      * 格式化成功结果
      */
-    private String formatSuccessResult(Map<String, Object> result, String originalSql,
-                                       long executionTime, int page, int pageSize) {
+    private String formatSuccessResult(Map<String, Object> result, String originalSql, long executionTime, int pageSize,
+                                       QueryCostService.Verdict costVerdict, RollupService.Route rollup) {
         StringBuilder sb = new StringBuilder();
 
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> data = (List<Map<String, Object>>) result.get("data");
+        int rowCount = (Integer) result.get("rowCount");
         @SuppressWarnings("unchecked")
         Map<String, Object> pagination = (Map<String, Object>) result.get("pagination");
+        int page = (Integer) pagination.get("current");
 
         sb.append("✅ 医保基金系统查询执行成功！\n\n");
         sb.append("📊 查询统计：\n");
         sb.append(String.format("- 当前页：第%d页\n", page));
         sb.append(String.format("- 每页大小：%d条\n", pageSize));
-        sb.append(String.format("- 当前页记录数：%d条\n", data.size()));
-        sb.append(String.format("- 总记录数：%d条\n", pagination.get("total")));
+        sb.append(String.format("- 当前页记录数：%d条\n", rowCount));
+        if ((Boolean) pagination.get("totalExact")) {
+            sb.append(String.format("- 总记录数：%d条\n", pagination.get("total")));
+        } else {
+            sb.append(String.format("- 总记录数：约%d条（EXPLAIN估算值，精确总数正在后台计算）\n", pagination.get("total")));
+        }
         sb.append(String.format("- 总页数：%d页\n", pagination.get("totalPages")));
-        sb.append(String.format("- 执行时间：%dms\n\n", executionTime));
+        sb.append(String.format("- 分页方式：%s\n", "keyset".equals(pagination.get("mode")) ? "游标分页" : "偏移分页"));
+        sb.append(String.format("- 执行时间：%dms\n", executionTime));
+        if (costVerdict != null) {
+            sb.append(String.format("- 执行计划：预计扫描约%d行，%s\n",
+                    costVerdict.plan().getExaminedRows(), costVerdict.indexSummary()));
+        }
+        if (result.get("cachedAt") instanceof Instant cachedAt) {
+            sb.append(String.format("- 数据来源：查询结果缓存（缓存于 %s）\n", CACHE_TIME_FORMATTER.format(cachedAt)));
+        } else {
+            sb.append("- 数据来源：数据库实时查询\n");
+        }
+        if (rollup != null) {
+            sb.append(String.format("- 预聚合汇总表：%s（%s，刷新于 %s）\n", rollup.table(), rollup.rollup(),
+                    CACHE_TIME_FORMATTER.format(rollup.refreshedAt())));
+        }
+        sb.append("\n");
+        if (costVerdict != null && costVerdict.exceeded()) {
+            sb.append(String.format("⚠️ 代价警告：预计扫描行数超过上限（%d行），再次查询前建议：\n", costVerdict.limit()));
+            costVerdict.suggestions().forEach(suggestion -> sb.append("- ").append(suggestion).append("\n"));
+            sb.append("\n");
+        }
 
         sb.append("🔍 基础SQL（不含分页）：\n```sql\n").append(originalSql).append("\n```\n\n");
+        if (rollup != null) {
+            sb.append("⚡ 实际执行SQL（已改写为查询汇总表）：\n```sql\n").append(rollup.sql()).append("\n```\n\n");
+        }
 
-        if (data.isEmpty()) {
+        if (rowCount == 0) {
             sb.append("📝 查询结果：当前页无数据\n");
         } else {
             sb.append("📋 查询结果：\n");
-            sb.append(formatAsTable(data));
+            sb.append(result.get("table"));
         }
 
         // 分页导航提示
@@ -368,7 +666,12 @@ public class SqlQueryServiceHif0911 {
                 sb.append(String.format("- 上一页：page=%d\n", page - 1));
             }
             if ((Boolean) pagination.get("hasNext")) {
-                sb.append(String.format("- 下一页：page=%d\n", page + 1));
+                Object nextCursor = pagination.get("nextCursor");
+                if (nextCursor != null) {
+                    sb.append(String.format("- 下一页：cursor=%s（游标翻页，推荐）或 page=%d\n", nextCursor, page + 1));
+                } else {
+                    sb.append(String.format("- 下一页：page=%d\n", page + 1));
+                }
             }
         }
 
@@ -376,72 +679,132 @@ public class SqlQueryServiceHif0911 {
     }
 
     /**
-     * 格式化错误结果
+     * 格式化JSON结果：分页、执行计划等信息与列式数据合并为一个JSON对象，数据部分原样嵌入不再重新序列化
      */
-    private String formatErrorResult(String sql, String error) {
+    private String formatJsonResult(Map<String, Object> result, String sql, long executionTime,
+                                    QueryCostService.Verdict costVerdict, RollupService.Route rollup)
+            throws JsonProcessingException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("success", true);
+        body.put("sql", sql);
+        body.put("executionMs", executionTime);
+        body.put("source", result.get("cachedAt") instanceof Instant ? "cache" : "database");
+        body.put("rowCount", result.get("rowCount"));
+        body.put("pagination", result.get("pagination"));
+        if (rollup != null) {
+            Map<String, Object> rollupInfo = new LinkedHashMap<>();
+            rollupInfo.put("name", rollup.rollup());
+            rollupInfo.put("table", rollup.table());
+            rollupInfo.put("sql", rollup.sql());
+            rollupInfo.put("refreshedAt", rollup.refreshedAt().toString());
+            body.put("rollup", rollupInfo);
+        }
+        if (costVerdict != null) {
+            Map<String, Object> plan = new LinkedHashMap<>();
+            plan.put("examinedRows", costVerdict.plan().getExaminedRows());
+            plan.put("index", costVerdict.indexSummary());
+            if (costVerdict.exceeded()) {
+                plan.put("warnings", costVerdict.suggestions());
+            }
+            body.put("plan", plan);
+        }
+        body.put("data", new RawValue((String) result.get("table")));
+        return JSON_MAPPER.writeValueAsString(body);
+    }
+
+    /**
+     * 格式化代价检查拒绝执行的结果
+     */
+    private String formatCostRejectedResult(String sql, QueryCostService.Verdict verdict) {
         StringBuilder sb = new StringBuilder();
-        sb.append("❌ 医保基金系统查询执行失败！\n\n");
+        sb.append("🚫 查询预计代价过高，已拒绝执行！\n\n");
         sb.append("🔍 执行的SQL：\n```sql\n").append(sql).append("\n```\n\n");
-        sb.append("💥 错误信息：").append(error).append("\n\n");
-        sb.append("🔧 建议检查：\n");
-        sb.append("- 表名是否正确（hif_iption_type_stt_d、hif_cert_stt_d等）\n");
-        sb.append("- 字段名是否准确（admdvs、biz_date、iption_cnt等）\n");
-        sb.append("- 日期格式是否正确（YYYYMMDD或YYYYMM）\n");
-        sb.append("- SQL语法是否有误\n");
-        sb.append("- 是否有权限访问相关表\n");
+        sb.append(String.format("- 预计扫描行数：约%d行（上限%d行）\n", verdict.plan().getExaminedRows(), verdict.limit()));
+        sb.append(String.format("- 索引使用：%s\n\n", verdict.indexSummary()));
+        sb.append("🔧 请按以下建议调整SQL后重试：\n");
+        if (verdict.suggestions().isEmpty()) {
+            sb.append("- 缩短时间范围或增加医保区划（admdvs）等过滤条件\n");
+        }
+        verdict.suggestions().forEach(suggestion -> sb.append("- ").append(suggestion).append("\n"));
         return sb.toString();
     }
 
     /**
-     * 格式化表格显示
+     * 格式化代价分析结果
      */
-    private String formatAsTable(List<Map<String, Object>> data) {
-        if (data.isEmpty()) return "无数据";
-
-        Set<String> allColumns = new LinkedHashSet<>();
-        for (Map<String, Object> row : data) {
-            allColumns.addAll(row.keySet());
-        }
-
-        List<String> columns = new ArrayList<>(allColumns);
+    private String formatAdvice(String sql, QueryCostService.Verdict verdict) {
         StringBuilder sb = new StringBuilder();
-
-        Map<String, Integer> columnWidths = new HashMap<>();
-        for (String col : columns) {
-            int maxWidth = col.length();
-            for (Map<String, Object> row : data) {
-                Object value = row.get(col);
-                String strValue = value != null ? value.toString() : "NULL";
-                maxWidth = Math.max(maxWidth, strValue.length());
+        sb.append("🩺 SQL代价分析\n\n");
+        sb.append("🔍 分析的SQL：\n```sql\n").append(sql).append("\n```\n\n");
+        ExplainPlan plan = verdict.plan();
+        if (plan.isAvailable()) {
+            String[] columns = {"table", "type", "key", "possible_keys", "rows", "filtered", "Extra"};
+            List<String[]> rows = new ArrayList<>();
+            for (ExplainPlan.Step step : plan.getSteps()) {
+                rows.add(new String[]{
+                        TableRenderer.cellText(step.table()), TableRenderer.cellText(step.accessType()),
+                        TableRenderer.cellText(step.key()), TableRenderer.cellText(step.possibleKeys()),
+                        String.valueOf(step.rows()), String.format("%.1f%%", step.filtered()),
+                        TableRenderer.cellText(step.extra())});
             }
-            columnWidths.put(col, Math.min(maxWidth, 25));
+            sb.append("📋 执行计划：\n").append(tableRenderer.render(columns, rows)).append("\n");
+            sb.append(String.format("- 预计扫描行数：约%d行（上限%d行）%s\n", plan.getExaminedRows(), verdict.limit(),
+                    verdict.exceeded() ? "，超过上限" : ""));
+        } else {
+            sb.append("📋 执行计划：无法获取（数据库不支持EXPLAIN或SQL有误）\n");
         }
+        sb.append(String.format("- 索引使用：%s\n\n", verdict.indexSummary()));
 
-        sb.append("```\n");
-        for (String col : columns) {
-            sb.append(String.format("%-" + columnWidths.get(col) + "s | ", col));
+        if (verdict.suggestions().isEmpty()) {
+            sb.append("💡 优化建议：未发现明显问题\n");
+        } else {
+            sb.append("💡 优化建议：\n");
+            verdict.suggestions().forEach(suggestion -> sb.append("- ").append(suggestion).append("\n"));
         }
-        sb.append("\n");
+        return sb.toString();
+    }
 
-        for (String col : columns) {
-            sb.append(String.join("", Collections.nCopies(columnWidths.get(col), "-")));
-            sb.append("-+-");
+    /**
+     * 格式化超出资源预算的结果：给出结构化的超限信息，引导模型收窄查询后重试
+     */
+    private String formatBudgetExceededResult(String sql, QueryBudgetExceededException e) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("⏱️ 查询超出资源限制，已取消执行！\n\n");
+        sb.append("🔍 执行的SQL：\n```sql\n").append(sql).append("\n```\n\n");
+        sb.append("💥 超限信息：\n```json\n{");
+        boolean first = true;
+        for (Map.Entry<String, Object> entry : e.toMap().entrySet()) {
+            sb.append(first ? "" : ", ").append('"').append(entry.getKey()).append("\": ");
+            sb.append(entry.getValue() instanceof Number ? entry.getValue() : "\"" + entry.getValue() + "\"");
+            first = false;
         }
-        sb.append("\n");
-
-        for (Map<String, Object> row : data) {
-            for (String col : columns) {
-                Object value = row.get(col);
-                String strValue = value != null ? value.toString() : "NULL";
-                if (strValue.length() > 25) {
-                    strValue = strValue.substring(0, 22) + "...";
-                }
-                sb.append(String.format("%-" + columnWidths.get(col) + "s | ", strValue));
-            }
-            sb.append("\n");
+        sb.append("}\n```\n\n");
+        if (e.getReason() == QueryBudgetExceededException.Reason.QUERY_CANCELLED) {
+            sb.append("🔧 查询已被取消（请求已放弃或服务正在关闭），如仍需要结果请重新执行\n");
+            return sb.toString();
         }
-        sb.append("```\n");
+        sb.append("🔧 请缩小查询范围后重试：\n");
+        sb.append("- 缩短时间范围（biz_date、year、month等日期条件）\n");
+        sb.append("- 增加医保区划（admdvs）等过滤条件\n");
+        sb.append("- 避免没有关联条件的JOIN和大表之间的多表关联\n");
+        sb.append("- 先用GROUP BY汇总，再按需查询明细\n");
+        return sb.toString();
+    }
 
+    /**
+     * 格式化错误结果
+     */
+    private String formatErrorResult(String sql, String error) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("❌ 医保基金系统查询执行失败！\n\n");
+        sb.append("🔍 执行的SQL：\n```sql\n").append(sql).append("\n```\n\n");
+        sb.append("💥 错误信息：").append(error).append("\n\n");
+        sb.append("🔧 建议检查：\n");
+        sb.append("- 表名是否正确（hif_iption_type_stt_d、hif_cert_stt_d等）\n");
+        sb.append("- 字段名是否准确（admdvs、biz_date、iption_cnt等）\n");
+        sb.append("- 日期格式是否正确（YYYYMMDD或YYYYMM）\n");
+        sb.append("- SQL语法是否有误\n");
+        sb.append("- 是否有权限访问相关表\n");
         return sb.toString();
     }
 }
@@ -1,21 +1,16 @@
 package com.simonking.boot.mcpserver.service;
 
+import com.simonking.boot.mcpserver.format.TableRenderer;
+import com.simonking.boot.mcpserver.sql.SqlStatements;
+import com.simonking.boot.mcpserver.sql.StreamingTableExtractor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
-import java.sql.DatabaseMetaData;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * <p>PURPOSE:
@@ -36,7 +31,12 @@ import java.util.stream.Collectors;
 public class SqlQueryServiceMeta {
 
     @Autowired
-    private JdbcTemplate jdbcTemplate;
+    private QueryGuard queryGuard;
+
+    @Autowired
+    private SchemaCatalogService schemaCatalogService;
+
+    private final TableRenderer tableRenderer = new TableRenderer(TableRenderer.Mode.MARKDOWN);
 
     /**
      * 获取数据库表结构信息，用于帮助AI理解数据库结构
@@ -50,44 +50,8 @@ public class SqlQueryServiceMeta {
     public String getDatabaseSchema(String tablePattern, Boolean includeColumns) {
         try {
             if (includeColumns == null) includeColumns = true;
-
-            DatabaseMetaData metaData = jdbcTemplate.getDataSource().getConnection().getMetaData();
-            List<Map<String, Object>> tableInfo = new ArrayList<>();
-
-            // 获取匹配的表
-            String pattern = tablePattern != null ? "%" + tablePattern + "%" : "%";
-            ResultSet tables = metaData.getTables(null, null, pattern, new String[]{"TABLE"});
-
-            while (tables.next()) {
-                String tableName = tables.getString("TABLE_NAME");
-                String tableComment = tables.getString("REMARKS");
-
-                Map<String, Object> table = new HashMap<>();
-                table.put("tableName", tableName);
-                table.put("comment", tableComment);
-
-                if (includeColumns) {
-                    List<Map<String, Object>> columns = new ArrayList<>();
-                    ResultSet rs = metaData.getColumns(null, null, tableName, null);
-
-                    while (rs.next()) {
-                        Map<String, Object> column = new HashMap<>();
-                        column.put("columnName", rs.getString("COLUMN_NAME"));
-                        column.put("dataType", rs.getString("TYPE_NAME"));
-                        column.put("columnSize", rs.getInt("COLUMN_SIZE"));
-                        column.put("nullable", rs.getBoolean("NULLABLE"));
-                        column.put("comment", rs.getString("REMARKS"));
-                        columns.add(column);
-                    }
-                    rs.close();
-                    table.put("columns", columns);
-                }
-                tableInfo.add(table);
-            }
-            tables.close();
-
-            return formatSchemaInfo(tableInfo);
-        } catch (SQLException e) {
+            return formatSchemaInfo(schemaCatalogService.find(tablePattern), includeColumns);
+        } catch (Exception e) {
             log.error("获取数据库表结构失败", e);
             return "获取数据库表结构失败: " + e.getMessage();
         }
@@ -104,25 +68,23 @@ public class SqlQueryServiceMeta {
         """)
     public String executeQuery(String sql, Integer maxRows) {
         try {
-            // 安全检查：只允许SELECT语句
-            if (!sql.trim().toUpperCase().startsWith("SELECT")) {
-                return "出于安全考虑，只允许执行SELECT查询语句";
+            // 安全检查：只允许单条SELECT语句
+            String rejectReason = SqlStatements.rejectReason(sql);
+            if (rejectReason != null) {
+                return "出于安全考虑，只允许执行SELECT查询语句（" + rejectReason + "）";
             }
 
-            if (maxRows == null) maxRows = 100;
+            if (maxRows == null || maxRows <= 0) maxRows = 100;
 
-            // 添加LIMIT限制
-            String limitedSql = sql;
-            if (!sql.toUpperCase().contains("LIMIT")) {
-                limitedSql += " LIMIT " + maxRows;
-            }
+            // 最外层没有LIMIT时添加LIMIT限制（子查询、字符串或列名中的LIMIT不算）
+            String limitedSql = SqlStatements.limitedSql(SqlStatements.clean(sql), maxRows);
 
-            List<Map<String, Object>> result = jdbcTemplate.queryForList(limitedSql);
+            StreamingTableExtractor.Table result = queryGuard.query(limitedSql, new StreamingTableExtractor(tableRenderer));
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("rowCount", result.size());
-            response.put("data", result);
+            response.put("rowCount", result.rowCount());
+            response.put("table", result.text());
             response.put("sql", limitedSql);
 
             return formatQueryResult(response);
@@ -131,6 +93,9 @@ public class SqlQueryServiceMeta {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
             errorResponse.put("error", e.getMessage());
+            if (e instanceof QueryBudgetExceededException budgetExceeded) {
+                errorResponse.put("budget", budgetExceeded.toMap());
+            }
             errorResponse.put("sql", sql);
             return formatQueryResult(errorResponse);
         }
@@ -168,29 +133,34 @@ public class SqlQueryServiceMeta {
         """, queryDescription);
     }
 
-    private String formatSchemaInfo(List<Map<String, Object>> tableInfo) {
+    private String formatSchemaInfo(List<SchemaCatalogService.TableInfo> tables, boolean includeColumns) {
         StringBuilder sb = new StringBuilder();
         sb.append("数据库表结构信息：\n\n");
 
-        for (Map<String, Object> table : tableInfo) {
-            sb.append("表名: ").append(table.get("tableName"));
-            if (table.get("comment") != null) {
-                sb.append(" (").append(table.get("comment")).append(")");
+        for (SchemaCatalogService.TableInfo table : tables) {
+            sb.append("表名: ").append(table.name());
+            if (table.comment() != null && !table.comment().isEmpty()) {
+                sb.append(" (").append(table.comment()).append(")");
             }
             sb.append("\n");
 
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> columns = (List<Map<String, Object>>) table.get("columns");
-            if (columns != null) {
+            if (includeColumns) {
                 sb.append("列信息:\n");
-                for (Map<String, Object> column : columns) {
-                    sb.append("  - ").append(column.get("columnName"))
-                            .append(" (").append(column.get("dataType")).append(")");
-                    if (column.get("comment") != null) {
-                        sb.append(" - ").append(column.get("comment"));
+                for (SchemaCatalogService.ColumnInfo column : table.columns()) {
+                    sb.append("  - ").append(column.name())
+                            .append(" (").append(column.type()).append(")");
+                    if (column.comment() != null && !column.comment().isEmpty()) {
+                        sb.append(" - ").append(column.comment());
                     }
                     sb.append("\n");
                 }
+                if (!table.primaryKey().isEmpty()) {
+                    sb.append("主键: ").append(String.join(", ", table.primaryKey())).append("\n");
+                }
+                for (SchemaCatalogService.IndexInfo index : table.indexes()) {
+                    sb.append(index.unique() ? "唯一索引: " : "索引: ").append(index.name())
+                            .append(" (").append(String.join(", ", index.columns())).append(")\n");
+                }
             }
             sb.append("\n");
         }
@@ -206,31 +176,18 @@ public class SqlQueryServiceMeta {
             sb.append("执行的SQL: ").append(result.get("sql")).append("\n");
             sb.append("返回记录数: ").append(result.get("rowCount")).append("\n\n");
 
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> data = (List<Map<String, Object>>) result.get("data");
-            if (data != null && !data.isEmpty()) {
-                // 格式化为表格
-                Set<String> allKeys = data.stream()
-                        .flatMap(row -> row.keySet().stream())
-                        .collect(Collectors.toSet());
-
+            if ((Integer) result.get("rowCount") > 0) {
                 sb.append("查询结果:\n");
-                // 表头
-                sb.append(String.join(" | ", allKeys)).append("\n");
-                sb.append(String.join(" | ", Collections.nCopies(allKeys.size(), "---"))).append("\n");
-
-                // 数据行
-                for (Map<String, Object> row : data) {
-                    List<String> values = allKeys.stream()
-                            .map(key -> String.valueOf(row.get(key)))
-                            .collect(Collectors.toList());
-                    sb.append(String.join(" | ", values)).append("\n");
-                }
+                sb.append(result.get("table"));
             }
         } else {
             sb.append("查询执行失败！\n\n");
             sb.append("错误信息: ").append(result.get("error")).append("\n");
             sb.append("执行的SQL: ").append(result.get("sql")).append("\n");
+            if (result.get("budget") != null) {
+                sb.append("超限信息: ").append(result.get("budget")).append("\n");
+                sb.append("请缩小时间范围或增加过滤条件后重试\n");
+            }
         }
 
         return sb.toString();
@@ -1,7 +1,8 @@
 package com.simonking.boot.mcpserver.service;
+import com.simonking.boot.mcpserver.sql.SqlStatements;
+import com.simonking.boot.mcpserver.sql.StreamingTableExtractor;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 
@@ -27,7 +28,7 @@ import java.util.*;
 public class SqlQueryServiceScript {
 
     @Autowired
-    private JdbcTemplate jdbcTemplate;
+    private QueryGuard queryGuard;
 
     /**
      * 执行SQL查询并返回结果
@@ -41,21 +42,22 @@ public class SqlQueryServiceScript {
     public String executeQuery(String sql, Integer maxRows) {
         try {
             // 安全检查
-            if (!isValidSelectQuery(sql)) {
-                return "安全限制：只允许执行SELECT查询语句，不支持INSERT、UPDATE、DELETE等操作";
+            String rejectReason = SqlStatements.rejectReason(sql);
+            if (rejectReason != null) {
+                return "安全限制：只允许执行SELECT查询语句，不支持INSERT、UPDATE、DELETE等操作（" + rejectReason + "）";
             }
 
             if (maxRows == null || maxRows <= 0) maxRows = 50;
             if (maxRows > 200) maxRows = 200;
 
             // 清理和优化SQL
-            String cleanSql = cleanSql(sql);
-            String limitedSql = addLimitIfNeeded(cleanSql, maxRows);
+            String cleanSql = SqlStatements.clean(sql);
+            String limitedSql = SqlStatements.limitedSql(cleanSql, maxRows);
 
             log.info("执行SQL: {}", limitedSql);
 
             long startTime = System.currentTimeMillis();
-            List<Map<String, Object>> result = jdbcTemplate.queryForList(limitedSql);
+            StreamingTableExtractor.Table result = queryGuard.query(limitedSql, new StreamingTableExtractor());
             long executionTime = System.currentTimeMillis() - startTime;
 
             return formatSuccessResult(result, limitedSql, executionTime);
@@ -84,7 +86,7 @@ public class SqlQueryServiceScript {
             response.append("```sql\n").append(suggestedSql).append("\n```\n\n");
 
             // 基本验证
-            if (!isValidSelectQuery(suggestedSql)) {
+            if (!SqlStatements.isValidSelectQuery(suggestedSql)) {
                 response.append("SQL验证失败：只允许SELECT查询语句\n\n");
             } else {
                 response.append("SQL基本验证通过\n\n");
@@ -129,53 +131,20 @@ public class SqlQueryServiceScript {
     }
 
     // 私有辅助方法
-    private boolean isValidSelectQuery(String sql) {
-        if (sql == null || sql.trim().isEmpty()) return false;
-
-        String upperSql = sql.trim().toUpperCase();
-
-        // 只允许SELECT语句
-        if (!upperSql.startsWith("SELECT")) return false;
-
-        // 检查是否包含危险关键字
-        String[] dangerousKeywords = {
-                "INSERT", "UPDATE", "DELETE", "DROP", "CREATE", "ALTER",
-                "TRUNCATE", "EXEC", "EXECUTE", "DECLARE"
-        };
-
-        for (String keyword : dangerousKeywords) {
-            if (upperSql.contains(keyword)) return false;
-        }
-
-        return true;
-    }
-
-    private String cleanSql(String sql) {
-        return sql.trim().replaceAll(";+$", ""); // 移除末尾的分号
-    }
-
-    private String addLimitIfNeeded(String sql, int maxRows) {
-        String upperSql = sql.toUpperCase();
-        if (!upperSql.contains("LIMIT")) {
-            return sql + " LIMIT " + maxRows;
-        }
-        return sql;
-    }
-
-    private String formatSuccessResult(List<Map<String, Object>> data, String sql, long executionTime) {
+    private String formatSuccessResult(StreamingTableExtractor.Table table, String sql, long executionTime) {
         StringBuilder sb = new StringBuilder();
 
         sb.append("医保基金系统查询执行成功！\n\n");
         sb.append("执行的SQL：\n```sql\n").append(sql).append("\n```\n\n");
         sb.append("查询统计：\n");
-        sb.append("- 返回记录数：").append(data.size()).append("条\n");
+        sb.append("- 返回记录数：").append(table.rowCount()).append("条\n");
         sb.append("- 执行时间：").append(executionTime).append("ms\n\n");
 
-        if (data.isEmpty()) {
+        if (table.isEmpty()) {
             sb.append("📝 查询结果：无数据\n");
         } else {
             sb.append("📋 查询结果：\n");
-            sb.append(formatAsTable(data));
+            sb.append(table.text());
         }
 
         return sb.toString();
@@ -195,61 +164,6 @@ public class SqlQueryServiceScript {
         return sb.toString();
     }
 
-    private String formatAsTable(List<Map<String, Object>> data) {
-        if (data.isEmpty()) return "无数据";
-
-        // 获取所有列名
-        Set<String> allColumns = new LinkedHashSet<>();
-        for (Map<String, Object> row : data) {
-            allColumns.addAll(row.keySet());
-        }
-
-        List<String> columns = new ArrayList<>(allColumns);
-        StringBuilder sb = new StringBuilder();
-
-        // 计算列宽
-        Map<String, Integer> columnWidths = new HashMap<>();
-        for (String col : columns) {
-            int maxWidth = col.length();
-            for (Map<String, Object> row : data) {
-                Object value = row.get(col);
-                String strValue = value != null ? value.toString() : "NULL";
-                maxWidth = Math.max(maxWidth, strValue.length());
-            }
-            columnWidths.put(col, Math.min(maxWidth, 25)); // 限制最大列宽
-        }
-
-        // 表头
-        sb.append("```\n");
-        for (String col : columns) {
-            sb.append(String.format("%-" + columnWidths.get(col) + "s | ", col));
-        }
-        sb.append("\n");
-
-        // 分隔线
-        for (String col : columns) {
-            sb.append(String.join("", Collections.nCopies(columnWidths.get(col), "-")));
-            sb.append("-+-");
-        }
-        sb.append("\n");
-
-        // 数据行
-        for (Map<String, Object> row : data) {
-            for (String col : columns) {
-                Object value = row.get(col);
-                String strValue = value != null ? value.toString() : "NULL";
-                if (strValue.length() > 25) {
-                    strValue = strValue.substring(0, 22) + "...";
-                }
-                sb.append(String.format("%-" + columnWidths.get(col) + "s | ", strValue));
-            }
-            sb.append("\n");
-        }
-        sb.append("```\n");
-
-        return sb.toString();
-    }
-
     /**
      * 医保基金系统数据库结构模板
      */
@@ -0,0 +1,295 @@
+package com.simonking.boot.mcpserver.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.simonking.boot.mcpserver.config.SqlQueryProperties;
+import com.simonking.boot.mcpserver.sql.SqlNormalizer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * <p>PURPOSE: SQL指纹执行统计与慢查询日志
+ * <p>DESCRIPTION: 按 {@link SqlNormalizer#fingerprint(String)} 得到的指纹汇总每类语句的执行次数、失败次数、
+ * 累计/最大耗时、最近若干次执行的p50/p99、返回行数，以及翻页时总数统计（COUNT）的次数和耗时。
+ * 指纹数量受 mcp.sql.stats.max-fingerprints 限制，长时间未执行的指纹按 retention 丢弃；
+ * 耗时达到 slow-threshold 的执行写入独立的慢查询日志（logger: mcp.sql.slow），可单独配置输出位置
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+@Service
+public class SqlStatsService {
+
+    private static final Logger SLOW_LOG = LoggerFactory.getLogger("mcp.sql.slow");
+
+    @Autowired
+    private SqlQueryProperties properties;
+
+    // key: SQL指纹
+    private Cache<String, FingerprintStats> stats;
+
+    @PostConstruct
+    public void init() {
+        SqlQueryProperties.Stats config = properties.getStats();
+        stats = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, config.getMaxFingerprints()))
+                .expireAfterAccess(config.getRetention())
+                .build();
+    }
+
+    /**
+     * 记录一次数据查询
+     *
+     * @param baseSql      归入指纹的SQL（分页查询为不含分页的基础SQL）
+     * @param sql          实际执行的SQL，写入慢查询日志
+     * @param workload     使用的连接池
+     * @param elapsedNanos 耗时（含读取结果集）
+     * @param rows         返回行数，未知时为-1
+     * @param success      是否执行成功
+     */
+    public void recordQuery(String baseSql, String sql, QueryGuard.Workload workload, long elapsedNanos, long rows,
+                            boolean success) {
+        SqlQueryProperties.Stats config = properties.getStats();
+        if (!config.isEnabled() || baseSql == null) {
+            return;
+        }
+        FingerprintStats entry = entry(baseSql, config);
+        entry.recordQuery(elapsedNanos, rows, success);
+        if (isSlow(elapsedNanos, config)) {
+            SLOW_LOG.warn("慢查询 {}ms, 连接池{}, 返回{}行, {}, 指纹{}, SQL: {}",
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), workload.name().toLowerCase(Locale.ROOT),
+                    rows >= 0 ? rows : "?", success ? "成功" : "失败", entry.id, sql);
+        }
+    }
+
+    /**
+     * 记录一次总数统计，耗时计入基础SQL的指纹
+     *
+     * @param baseSql      不含分页的基础SQL
+     * @param countSql     实际执行的COUNT语句
+     * @param elapsedNanos 耗时
+     */
+    public void recordCount(String baseSql, String countSql, long elapsedNanos) {
+        SqlQueryProperties.Stats config = properties.getStats();
+        if (!config.isEnabled() || baseSql == null) {
+            return;
+        }
+        FingerprintStats entry = entry(baseSql, config);
+        entry.recordCount(elapsedNanos);
+        if (isSlow(elapsedNanos, config)) {
+            SLOW_LOG.warn("慢总数统计 {}ms, 指纹{}, SQL: {}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos), entry.id, countSql);
+        }
+    }
+
+    /**
+     * 按指定维度取前N个指纹的统计
+     */
+    public List<Snapshot> top(int limit, Order order) {
+        return stats.asMap().values().stream()
+                .map(FingerprintStats::snapshot)
+                .sorted(order.comparator.reversed())
+                .limit(Math.max(1, limit))
+                .toList();
+    }
+
+    /**
+     * 当前统计的指纹数
+     */
+    public long size() {
+        return stats.estimatedSize();
+    }
+
+    /**
+     * 清空统计
+     */
+    public void reset() {
+        stats.invalidateAll();
+    }
+
+    private FingerprintStats entry(String sql, SqlQueryProperties.Stats config) {
+        String fingerprint = SqlNormalizer.fingerprint(sql);
+        return stats.get(fingerprint, key -> new FingerprintStats(key, sql, config.getSampleSize()));
+    }
+
+    private static boolean isSlow(long elapsedNanos, SqlQueryProperties.Stats config) {
+        long threshold = config.getSlowThreshold() != null ? config.getSlowThreshold().toNanos() : 0;
+        return threshold > 0 && elapsedNanos >= threshold;
+    }
+
+    /**
+     * 指纹的短编号：SHA-256前6字节的十六进制
+     */
+    static String fingerprintId(String fingerprint) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(fingerprint.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(fingerprint.hashCode());
+        }
+    }
+
+    /**
+     * 排序维度
+     */
+    public enum Order {
+        /**
+         * 累计耗时
+         */
+        TOTAL(Comparator.comparingDouble(Snapshot::totalMs)),
+        /**
+         * p99耗时
+         */
+        P99(Comparator.comparingDouble(Snapshot::p99Ms)),
+        /**
+         * 执行次数
+         */
+        COUNT(Comparator.comparingLong(Snapshot::executions)),
+        /**
+         * 累计返回行数
+         */
+        ROWS(Comparator.comparingLong(Snapshot::rowsTotal)),
+        /**
+         * 总数统计累计耗时
+         */
+        COUNT_TIME(Comparator.comparingDouble(Snapshot::countTotalMs));
+
+        private final Comparator<Snapshot> comparator;
+
+        Order(Comparator<Snapshot> comparator) {
+            this.comparator = comparator;
+        }
+
+        /**
+         * 解析排序维度（大小写不敏感），为空或无法识别时按累计耗时
+         */
+        public static Order parse(String value) {
+            if (value == null || value.isBlank()) {
+                return TOTAL;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                return TOTAL;
+            }
+        }
+    }
+
+    /**
+     * 指纹统计快照
+     *
+     * @param id             指纹短编号
+     * @param fingerprint    指纹（字面量替换为?）
+     * @param sampleSql      首次出现时的原始SQL
+     * @param executions     执行次数
+     * @param errors         失败次数
+     * @param totalMs        累计耗时
+     * @param avgMs          平均耗时
+     * @param p50Ms          最近若干次执行的中位耗时
+     * @param p99Ms          最近若干次执行的p99耗时
+     * @param maxMs          最大耗时
+     * @param rowsTotal      累计返回行数
+     * @param rowsMax        单次最多返回行数
+     * @param countRuns      总数统计次数
+     * @param countTotalMs   总数统计累计耗时
+     * @param firstSeen      首次执行时间
+     * @param lastSeen       最近执行时间
+     */
+    public record Snapshot(String id, String fingerprint, String sampleSql, long executions, long errors,
+                           double totalMs, double avgMs, double p50Ms, double p99Ms, double maxMs,
+                           long rowsTotal, long rowsMax, long countRuns, double countTotalMs,
+                           Instant firstSeen, Instant lastSeen) {
+    }
+
+    /**
+     * 单个指纹的累计统计，耗时样本为定长环形缓冲区
+     */
+    private static final class FingerprintStats {
+        private final String id;
+        private final String fingerprint;
+        private final String sampleSql;
+        private final Instant firstSeen = Instant.now();
+        private final long[] samples;
+        private int sampleCount;
+        private int sampleIndex;
+        private long executions;
+        private long errors;
+        private long totalNanos;
+        private long maxNanos;
+        private long rowsTotal;
+        private long rowsMax;
+        private long countRuns;
+        private long countTotalNanos;
+        private Instant lastSeen = firstSeen;
+
+        private FingerprintStats(String fingerprint, String sampleSql, int sampleSize) {
+            this.id = fingerprintId(fingerprint);
+            this.fingerprint = fingerprint;
+            this.sampleSql = sampleSql;
+            this.samples = new long[Math.max(1, sampleSize)];
+        }
+
+        private synchronized void recordQuery(long elapsedNanos, long rows, boolean success) {
+            executions++;
+            if (!success) {
+                errors++;
+            }
+            totalNanos += elapsedNanos;
+            maxNanos = Math.max(maxNanos, elapsedNanos);
+            if (rows > 0) {
+                rowsTotal += rows;
+                rowsMax = Math.max(rowsMax, rows);
+            }
+            samples[sampleIndex] = elapsedNanos;
+            sampleIndex = (sampleIndex + 1) % samples.length;
+            sampleCount = Math.min(sampleCount + 1, samples.length);
+            lastSeen = Instant.now();
+        }
+
+        private synchronized void recordCount(long elapsedNanos) {
+            countRuns++;
+            countTotalNanos += elapsedNanos;
+            lastSeen = Instant.now();
+        }
+
+        private synchronized Snapshot snapshot() {
+            long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            return new Snapshot(id, fingerprint, sampleSql, executions, errors,
+                    millis(totalNanos), executions > 0 ? millis(totalNanos) / executions : 0,
+                    millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)), millis(maxNanos),
+                    rowsTotal, rowsMax, countRuns, millis(countTotalNanos), firstSeen, lastSeen);
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.min(sorted.length - 1, Math.max(0, index))];
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
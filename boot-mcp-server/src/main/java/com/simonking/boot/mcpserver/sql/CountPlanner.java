@@ -0,0 +1,219 @@
+package com.simonking.boot.mcpserver.sql;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.statement.select.AllColumns;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import net.sf.jsqlparser.statement.select.SetOperation;
+import net.sf.jsqlparser.statement.select.SetOperationList;
+import net.sf.jsqlparser.statement.select.UnionOp;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+
+/**
+ * <p>PURPOSE: COUNT语句规划
+ * <p>DESCRIPTION: 按查询形态选择结果正确且代价最低的COUNT写法：
+ * 所有形态都去掉不影响行数的ORDER BY；普通查询直接 SELECT COUNT(*)；
+ * 无GROUP BY的聚合查询结果恒为一行，不查库；GROUP BY、LIMIT子查询的SELECT列表替换为常量1，
+ * 使MySQL可以只扫描索引而不回表读取整行；DISTINCT、HAVING保留SELECT列表后包一层子查询；
+ * UNION ALL 按分支分别计数后相加，不物化合并结果。
+ * 规划在 {@link ParsedSql} 构造期间进行，会临时修改语法树并在生成SQL后恢复
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public final class CountPlanner {
+
+    private CountPlanner() {
+    }
+
+    /**
+     * 为解析后的SELECT生成COUNT计划
+     */
+    static Plan plan(Select select) {
+        if (select instanceof PlainSelect plain) {
+            return planPlain(plain);
+        }
+        if (select instanceof SetOperationList list) {
+            return planSetOperation(list);
+        }
+        return wrap(select.toString(), Shape.DERIVED);
+    }
+
+    private static Plan planPlain(PlainSelect plain) {
+        boolean limited = plain.getLimit() != null || plain.getOffset() != null || plain.getFetch() != null;
+        boolean grouped = plain.getGroupBy() != null;
+        boolean aggregate = !grouped && ParsedSql.hasAggregate(plain);
+
+        List<OrderByElement> orderBy = plain.getOrderByElements();
+        List<SelectItem<?>> items = plain.getSelectItems();
+        // 带LIMIT时ORDER BY只决定取哪几行，不影响行数，同样可以去掉
+        plain.setOrderByElements(null);
+        try {
+            if (aggregate && plain.getHaving() == null) {
+                if (!limited) {
+                    return new Plan("SELECT 1", Shape.CONSTANT);
+                }
+                return wrap(plain.toString(), Shape.DERIVED);
+            }
+            if (plain.getDistinct() != null || plain.getHaving() != null || aggregate) {
+                // DISTINCT、HAVING的结果依赖SELECT列表，保留原列表
+                return wrap(plain.toString(), Shape.DERIVED);
+            }
+            if (grouped) {
+                if (!groupByReferencesAlias(plain)) {
+                    plain.setSelectItems(List.of(SelectItem.from(new LongValue(1))));
+                }
+                return wrap(plain.toString(), Shape.GROUP_BY);
+            }
+            if (limited) {
+                plain.setSelectItems(List.of(SelectItem.from(new LongValue(1))));
+                return wrap(plain.toString(), Shape.LIMITED);
+            }
+            plain.setSelectItems(List.of(SelectItem.from(
+                    new Function().withName("COUNT").withParameters(new ExpressionList<>(new AllColumns())))));
+            return new Plan(plain.toString(), Shape.SIMPLE);
+        } finally {
+            plain.setSelectItems(items);
+            plain.setOrderByElements(orderBy);
+        }
+    }
+
+    private static Plan planSetOperation(SetOperationList list) {
+        List<OrderByElement> orderBy = list.getOrderByElements();
+        list.setOrderByElements(null);
+        try {
+            boolean hasWith = list.getWithItemsList() != null && !list.getWithItemsList().isEmpty();
+            if (!hasWith && !ParsedSql.topLevelLimit(list) && isUnionAll(list)) {
+                // UNION ALL 的总数等于各分支总数之和
+                StringBuilder sb = new StringBuilder("SELECT ");
+                for (int i = 0; i < list.getSelects().size(); i++) {
+                    if (i > 0) sb.append(" + ");
+                    sb.append('(').append(plan(list.getSelects().get(i)).sql()).append(')');
+                }
+                return new Plan(sb.toString(), Shape.UNION_ALL);
+            }
+            return wrap(list.toString(), Shape.DERIVED);
+        } finally {
+            list.setOrderByElements(orderBy);
+        }
+    }
+
+    private static boolean isUnionAll(SetOperationList list) {
+        for (SetOperation operation : list.getOperations()) {
+            if (!(operation instanceof UnionOp union) || !union.isAll()) {
+                return false;
+            }
+        }
+        for (Select branch : list.getSelects()) {
+            if (!(branch instanceof PlainSelect)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * GROUP BY中是否引用了SELECT列表的别名（MySQL允许），此时不能替换SELECT列表
+     */
+    private static boolean groupByReferencesAlias(PlainSelect plain) {
+        Set<String> aliases = new HashSet<>();
+        for (SelectItem<?> item : plain.getSelectItems()) {
+            if (item.getAlias() != null) {
+                aliases.add(unquote(item.getAlias().getName()));
+            }
+        }
+        if (aliases.isEmpty()) {
+            return false;
+        }
+        ExpressionList<?> groupBy = plain.getGroupBy().getGroupByExpressionList();
+        if (groupBy == null) {
+            return true;
+        }
+        for (Expression expression : groupBy) {
+            if (!(expression instanceof Column column)) {
+                // 表达式或序号（GROUP BY 1）都依赖SELECT列表
+                return true;
+            }
+            if (column.getTable() == null && aliases.contains(unquote(column.getColumnName()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String unquote(String identifier) {
+        return identifier.replace("`", "").replace("\"", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static Plan wrap(String inner, Shape shape) {
+        return new Plan("SELECT COUNT(*) FROM (" + inner + ") AS count_table", shape);
+    }
+
+    /**
+     * 查询形态
+     */
+    public enum Shape {
+        /**
+         * 普通查询，直接 SELECT COUNT(*)（EXPLAIN估算行数可信）
+         */
+        SIMPLE,
+        /**
+         * 无GROUP BY的聚合查询，结果恒为一行
+         */
+        CONSTANT,
+        /**
+         * GROUP BY查询，按分组子查询计数
+         */
+        GROUP_BY,
+        /**
+         * 带LIMIT的查询，按截断后的子查询计数
+         */
+        LIMITED,
+        /**
+         * UNION ALL，各分支计数相加
+         */
+        UNION_ALL,
+        /**
+         * 其他（DISTINCT、HAVING、UNION等），整体作为子查询计数
+         */
+        DERIVED,
+        /**
+         * SQL无法解析，使用正则改写
+         */
+        UNPARSED
+    }
+
+    /**
+     * COUNT计划
+     *
+     * @param sql   统计总行数的SQL
+     * @param shape 查询形态
+     */
+    public record Plan(String sql, Shape shape) {
+
+        /**
+         * 结果恒为一行时无需执行COUNT
+         */
+        public boolean isConstant() {
+            return shape == Shape.CONSTANT;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.simonking.boot.mcpserver.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+
+/**
+ * <p>PURPOSE: EXPLAIN执行计划
+ * <p>DESCRIPTION: 将MySQL传统格式EXPLAIN的结果行转换为执行步骤，估算扫描行数并判断是否使用了索引。
+ * 扫描行数按嵌套循环估算：同一id内每一步的rows乘以前面各步按filtered过滤后的行数，各步累加；
+ * 不同id（子查询、派生表）分别估算后相加。非MySQL数据库（如H2）的EXPLAIN没有rows列，此时计划不可用
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public final class ExplainPlan {
+
+    private static final ExplainPlan EMPTY = new ExplainPlan(List.of(), 0);
+
+    private final List<Step> steps;
+    private final long examinedRows;
+
+    private ExplainPlan(List<Step> steps, long examinedRows) {
+        this.steps = steps;
+        this.examinedRows = examinedRows;
+    }
+
+    /**
+     * 不可用的计划（EXPLAIN失败或数据库不支持）
+     */
+    public static ExplainPlan empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 由EXPLAIN结果行（列名大小写不敏感）构造执行计划
+     */
+    public static ExplainPlan from(List<Map<String, Object>> rows) {
+        List<Step> steps = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            if (!(row.get("rows") instanceof Number rowCount)) {
+                // 没有rows列，不是MySQL格式的执行计划
+                return EMPTY;
+            }
+            double filtered = row.get("filtered") instanceof Number f ? f.doubleValue() : 100.0;
+            steps.add(new Step(
+                    Objects.toString(row.get("id"), ""),
+                    (String) row.get("table"),
+                    (String) row.get("type"),
+                    (String) row.get("possible_keys"),
+                    (String) row.get("key"),
+                    rowCount.longValue(),
+                    filtered,
+                    (String) row.get("Extra")));
+        }
+
+        double examined = 0;
+        double fanout = 1;
+        String currentId = null;
+        for (Step step : steps) {
+            if (!step.id().equals(currentId)) {
+                currentId = step.id();
+                fanout = 1;
+            }
+            examined += fanout * step.rows();
+            fanout *= Math.max(1.0, step.rows() * step.filtered() / 100.0);
+        }
+        return new ExplainPlan(Collections.unmodifiableList(steps), (long) Math.min(examined, Long.MAX_VALUE));
+    }
+
+    /**
+     * 是否得到了可用的执行计划
+     */
+    public boolean isAvailable() {
+        return !steps.isEmpty();
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * 估算的扫描行数
+     */
+    public long getExaminedRows() {
+        return examinedRows;
+    }
+
+    /**
+     * 估算的结果行数（驱动表的 rows * filtered）
+     */
+    public Long estimatedResultRows() {
+        if (steps.isEmpty()) return null;
+        Step first = steps.get(0);
+        return Math.round(first.rows() * first.filtered() / 100.0);
+    }
+
+    /**
+     * 全表扫描的步骤
+     */
+    public List<Step> fullScans() {
+        List<Step> result = new ArrayList<>();
+        for (Step step : steps) {
+            if (step.isFullScan()) {
+                result.add(step);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 是否所有访问实际表的步骤都使用了索引
+     */
+    public boolean isIndexUsed() {
+        return isAvailable() && fullScans().isEmpty();
+    }
+
+    /**
+     * 执行步骤（EXPLAIN的一行）
+     *
+     * @param id           SELECT编号
+     * @param table        表名或派生表名（如 &lt;derived2&gt;）
+     * @param accessType   访问类型（const、ref、range、index、ALL等）
+     * @param possibleKeys 可用的索引
+     * @param key          实际选择的索引，未使用索引时为null
+     * @param rows         估算扫描行数
+     * @param filtered     按条件过滤后剩余的百分比
+     * @param extra        附加信息（Using filesort、Using temporary等）
+     */
+    public record Step(String id, String table, String accessType, String possibleKeys, String key,
+                       long rows, double filtered, String extra) {
+
+        /**
+         * 是否全表扫描（ALL）或全索引扫描（index）
+         */
+        public boolean isFullScan() {
+            if (table == null || table.startsWith("<")) {
+                // 派生表、UNION结果等临时表
+                return false;
+            }
+            String type = accessType != null ? accessType.toUpperCase(Locale.ROOT) : "";
+            return type.equals("ALL") || type.equals("INDEX");
+        }
+
+        public boolean hasExtra(String text) {
+            return extra != null && extra.contains(text);
+        }
+    }
+}
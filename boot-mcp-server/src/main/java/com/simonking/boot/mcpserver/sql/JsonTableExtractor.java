@@ -0,0 +1,128 @@
+package com.simonking.boot.mcpserver.sql;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.JDBCType;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * <p>PURPOSE: 流式列式JSON输出
+ * <p>DESCRIPTION: 直接从ResultSet逐行写出紧凑的列式JSON：{"columns":[{"name":..,"type":..}],"rows":[[..],..]}，
+ * type为JDBC类型名（VARCHAR、DECIMAL、DATE等），行按列顺序输出为数组，不重复列名。
+ * 日期时间输出为ISO-8601字符串，数值保持数字类型。与 {@link StreamingTableExtractor} 返回相同的结果结构，
+ * 便于分页、游标和结果缓存复用同一套逻辑
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public class JsonTableExtractor implements ResultSetExtractor<StreamingTableExtractor.Table> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Override
+    public StreamingTableExtractor.Table extractData(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] columns = new String[columnCount];
+        Object[] lastValues = new Object[columnCount];
+        int rowCount = 0;
+
+        StringWriter writer = new StringWriter(256 + columnCount * 64);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("columns");
+            for (int i = 0; i < columnCount; i++) {
+                columns[i] = JdbcUtils.lookupColumnName(metaData, i + 1);
+                generator.writeStartObject();
+                generator.writeStringField("name", columns[i]);
+                generator.writeStringField("type", typeName(metaData, i + 1));
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("rows");
+            while (rs.next()) {
+                generator.writeStartArray();
+                for (int i = 0; i < columnCount; i++) {
+                    Object value = JdbcUtils.getResultSetValue(rs, i + 1);
+                    lastValues[i] = value;
+                    writeValue(generator, value);
+                }
+                generator.writeEndArray();
+                rowCount++;
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Map<String, Object> lastRow = null;
+        if (rowCount > 0) {
+            lastRow = new LinkedCaseInsensitiveMap<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                lastRow.put(columns[i], lastValues[i]);
+            }
+        }
+        return new StreamingTableExtractor.Table(List.of(columns), rowCount, writer.toString(), lastRow);
+    }
+
+    private static String typeName(ResultSetMetaData metaData, int column) throws SQLException {
+        int type = metaData.getColumnType(column);
+        try {
+            return JDBCType.valueOf(type).getName();
+        } catch (IllegalArgumentException e) {
+            // 驱动自定义类型
+            return metaData.getColumnTypeName(column);
+        }
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof BigDecimal decimal) {
+            generator.writeNumber(decimal);
+        } else if (value instanceof BigInteger integer) {
+            generator.writeNumber(integer);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Number number) {
+            generator.writeNumber(number.doubleValue());
+        } else if (value instanceof Boolean bool) {
+            generator.writeBoolean(bool);
+        } else if (value instanceof Timestamp timestamp) {
+            generator.writeString(timestamp.toLocalDateTime().toString());
+        } else if (value instanceof java.sql.Date date) {
+            generator.writeString(date.toLocalDate().toString());
+        } else if (value instanceof Time time) {
+            generator.writeString(time.toLocalTime().toString());
+        } else if (value instanceof byte[] bytes) {
+            generator.writeBinary(bytes);
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.simonking.boot.mcpserver.sql;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.SelectItem;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+
+/**
+ * <p>PURPOSE: 基于游标（seek）的分页
+ * <p>DESCRIPTION: 以ORDER BY键（补齐主键保证唯一）作为游标，翻页时使用
+ * WHERE (k1, k2, ...) > (?, ?, ...) 代替 LIMIT offset，避免深分页时扫描并丢弃大量数据。
+ * MySQL中NULL在升序时排在最前、降序时排在最后，可能为NULL的降序键额外匹配 IS NULL，避免翻页时漏掉这些行。
+ * 基于 {@link ParsedSql} 的语法树判断，无法推导出唯一排序（多表、GROUP BY、DISTINCT、集合运算、未知主键等）时返回空，
+ * 由调用方回退到LIMIT offset。
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public final class KeysetPaginator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // 表结构文档中明确给出主键的业务表，其余表只依赖数据库元数据，查不到主键时回退到LIMIT offset
+    private static final Map<String, List<String>> PRIMARY_KEYS = Map.of(
+            "hif_bank_doc_d", List.of("bank_doc_id"),
+            "hif_bank_doc_detl_d", List.of("bank_doc_detl_id"),
+            "hif_iption_type_stt_d", List.of("iption_data_type", "biz_date", "admdvs"),
+            "hif_cert_stt_d", List.of("biz_date", "biz_msg_no", "admdvs", "bankacct", "bank_acct_name")
+    );
+
+    private KeysetPaginator() {
+    }
+
+    /**
+     * 为SQL生成游标分页计划，无法保证唯一排序时返回空
+     */
+    public static Optional<Plan> plan(String sql) {
+        return plan(sql, table -> List.of());
+    }
+
+    /**
+     * 为SQL生成游标分页计划，主键优先由primaryKeyLookup提供（如数据库元数据），查不到时使用内置的业务表主键
+     */
+    public static Optional<Plan> plan(String sql, Function<String, List<String>> primaryKeyLookup) {
+        // 只支持单表、无GROUP BY/DISTINCT/HAVING/聚合/LIMIT/集合运算的普通查询，WHERE中可以有子查询
+        if (!(ParsedSql.of(sql).getSelect() instanceof PlainSelect select)
+                || select.getWithItemsList() != null && !select.getWithItemsList().isEmpty()
+                || !(select.getFromItem() instanceof Table table)
+                || select.getJoins() != null && !select.getJoins().isEmpty()
+                || select.getGroupBy() != null || select.getDistinct() != null || select.getHaving() != null
+                || ParsedSql.hasAggregate(select)
+                || select.getLimit() != null || select.getOffset() != null || select.getFetch() != null) {
+            return Optional.empty();
+        }
+
+        String tableName = SqlTables.simpleName(table.getName());
+        List<String> primaryKey = primaryKeyLookup.apply(tableName);
+        if (primaryKey == null || primaryKey.isEmpty()) {
+            primaryKey = PRIMARY_KEYS.get(tableName);
+        }
+        if (primaryKey == null) {
+            return Optional.empty();
+        }
+
+        // 解析已有排序键：只支持普通列，且不能是SELECT列表中的别名
+        Set<String> aliases = new HashSet<>();
+        for (SelectItem<?> item : select.getSelectItems()) {
+            if (item.getAlias() != null) {
+                aliases.add(unquote(item.getAlias().getName()).toLowerCase(Locale.ROOT));
+            }
+        }
+        List<SortKey> keys = new ArrayList<>();
+        if (select.getOrderByElements() != null) {
+            for (OrderByElement element : select.getOrderByElements()) {
+                if (!(element.getExpression() instanceof Column column) || element.getNullOrdering() != null) {
+                    return Optional.empty();
+                }
+                String name = unquote(column.getColumnName());
+                if (aliases.contains(name.toLowerCase(Locale.ROOT))) return Optional.empty();
+                // 主键列不为NULL，其余列按可能为NULL处理
+                boolean nullable = primaryKey.stream().noneMatch(name::equalsIgnoreCase);
+                keys.add(new SortKey(column.toString(), name, !element.isAsc(), nullable));
+            }
+        }
+        // 补齐主键作为唯一排序的决胜键
+        for (String pk : primaryKey) {
+            boolean present = keys.stream().anyMatch(k -> k.column().equalsIgnoreCase(pk));
+            if (!present) {
+                keys.add(new SortKey("`" + pk + "`", pk, false, false));
+            }
+        }
+
+        StringBuilder head = new StringBuilder("SELECT ");
+        for (int i = 0; i < select.getSelectItems().size(); i++) {
+            if (i > 0) head.append(", ");
+            head.append(select.getSelectItems().get(i));
+        }
+        head.append(" FROM ").append(table);
+        String where = select.getWhere() != null ? select.getWhere().toString() : null;
+        return Optional.of(new Plan(sql, head.toString(), where, Collections.unmodifiableList(keys)));
+    }
+
+    private static String unquote(String identifier) {
+        return identifier.replace("`", "").replace("\"", "");
+    }
+
+    /**
+     * 排序键
+     *
+     * @param expression SQL中的列引用（可能带表别名和反引号）
+     * @param column     结果集中的列名
+     * @param descending 是否降序
+     * @param nullable   是否可能为NULL（主键列为false）
+     */
+    public record SortKey(String expression, String column, boolean descending, boolean nullable) {
+    }
+
+    /**
+     * 游标内容
+     *
+     * @param page   游标所指向的页码
+     * @param values 上一页最后一行的排序键值
+     */
+    public record Cursor(int page, List<Object> values) {
+    }
+
+    /**
+     * 游标分页计划
+     */
+    public static final class Plan {
+        private final String sqlHash;
+        private final String head;
+        private final String where;
+        private final List<SortKey> keys;
+        private final String orderBy;
+
+        private Plan(String sql, String head, String where, List<SortKey> keys) {
+            this.sqlHash = Integer.toHexString(sql.hashCode());
+            this.head = head;
+            this.where = where;
+            this.keys = keys;
+            StringBuilder sb = new StringBuilder(" ORDER BY ");
+            for (int i = 0; i < keys.size(); i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(keys.get(i).expression()).append(keys.get(i).descending() ? " DESC" : " ASC");
+            }
+            this.orderBy = sb.toString();
+        }
+
+        public List<SortKey> getKeys() {
+            return keys;
+        }
+
+        /**
+         * 按唯一排序键的OFFSET分页SQL（无游标时跳页使用）
+         */
+        public String offsetSql(int offset, int pageSize) {
+            return head + (where != null ? " WHERE " + where : "") + orderBy
+                    + String.format(" LIMIT %d, %d", offset, pageSize);
+        }
+
+        /**
+         * 基于游标的seek分页SQL，参数由 {@link #seekArgs(Cursor, int)} 提供
+         */
+        public String seekSql() {
+            StringBuilder predicate = new StringBuilder("(");
+            for (int i = 0; i < keys.size(); i++) {
+                if (i > 0) predicate.append(" OR ");
+                predicate.append("(");
+                for (int j = 0; j < i; j++) {
+                    predicate.append(keys.get(j).expression()).append(" = ? AND ");
+                }
+                SortKey key = keys.get(i);
+                if (key.descending() && key.nullable()) {
+                    // 降序时NULL排在所有非NULL值之后（游标值不会是NULL，见encodeCursor）
+                    predicate.append("(").append(key.expression()).append(" < ? OR ")
+                            .append(key.expression()).append(" IS NULL)");
+                } else {
+                    predicate.append(key.expression()).append(key.descending() ? " < ?" : " > ?");
+                }
+                predicate.append(")");
+            }
+            predicate.append(")");
+
+            String condition = where != null ? "(" + where + ") AND " + predicate : predicate.toString();
+            return head + " WHERE " + condition + orderBy + " LIMIT ?";
+        }
+
+        public Object[] seekArgs(Cursor cursor, int pageSize) {
+            List<Object> args = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                for (int j = 0; j <= i; j++) {
+                    args.add(cursor.values().get(j));
+                }
+            }
+            args.add(pageSize);
+            return args.toArray();
+        }
+
+        /**
+         * 由当前页最后一行生成下一页游标，排序键缺失或为NULL时返回null
+         */
+        public String encodeCursor(Map<String, Object> lastRow, int nextPage) {
+            List<Object> values = new ArrayList<>(keys.size());
+            for (SortKey key : keys) {
+                Object value = lastRow.get(key.column());
+                if (value == null) return null;
+                values.add(value instanceof Number && !(value instanceof BigDecimal) ? value : value.toString());
+            }
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("h", sqlHash);
+            payload.put("p", nextPage);
+            payload.put("k", values);
+            try {
+                return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(payload));
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        /**
+         * 解析游标，游标损坏或不属于当前SQL时抛出IllegalArgumentException
+         */
+        public Cursor decodeCursor(String cursor) {
+            Map<String, Object> payload;
+            try {
+                byte[] json = Base64.getUrlDecoder().decode(cursor.trim());
+                payload = MAPPER.readValue(new String(json, StandardCharsets.UTF_8), new TypeReference<>() {
+                });
+            } catch (Exception e) {
+                throw new IllegalArgumentException("分页游标无法解析，请去掉cursor参数后按page重新查询");
+            }
+            Object values = payload.get("k");
+            if (!sqlHash.equals(payload.get("h")) || !(values instanceof List<?> list) || list.size() != keys.size()) {
+                throw new IllegalArgumentException("分页游标与当前SQL不匹配，请去掉cursor参数后按page重新查询");
+            }
+            int page = payload.get("p") instanceof Number n ? n.intValue() : 1;
+            return new Cursor(page, new ArrayList<>(list));
+        }
+    }
+}
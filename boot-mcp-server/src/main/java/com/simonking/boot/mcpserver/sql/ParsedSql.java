@@ -0,0 +1,345 @@
+package com.simonking.boot.mcpserver.sql;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.parser.CCJSqlParser;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.Statements;
+import net.sf.jsqlparser.statement.select.Limit;
+import net.sf.jsqlparser.statement.select.Offset;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import net.sf.jsqlparser.statement.select.SetOperationList;
+import net.sf.jsqlparser.util.TablesNamesFinder;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * <p>PURPOSE: 解析后的SQL
+ * <p>DESCRIPTION: 使用JSqlParser将SQL解析为语法树，只读校验、引用表、COUNT语句（见 {@link CountPlanner}）和LIMIT改写都基于语法树完成，
+ * 列名中包含关键字（如 update_time、CREATE_USER）不再被误判，子查询中的LIMIT也不会被当作外层LIMIT。
+ * 解析结果按SQL文本缓存，同一条SQL在校验、计数、分页、游标计划之间只解析一次。
+ * JSqlParser不支持的MySQL方言回退为按单词匹配的关键字检查和正则改写
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public final class ParsedSql {
+
+    // 解析结果缓存（键为清理后的SQL文本）
+    private static final Cache<String, ParsedSql> CACHE = Caffeine.newBuilder()
+            .maximumSize(2048)
+            .build();
+
+    // 无法解析时的关键字黑名单（按完整单词匹配，字面量内容不参与匹配）
+    private static final Pattern FALLBACK_FORBIDDEN = Pattern.compile(
+            "(?i)\\b(INSERT|UPDATE|DELETE|REPLACE|MERGE|DROP|CREATE|ALTER|TRUNCATE|RENAME|GRANT|REVOKE|"
+                    + "EXEC|EXECUTE|CALL|DECLARE|HANDLER|LOAD|LOCK|INTO|OUTFILE|DUMPFILE)\\b");
+    private static final Pattern FALLBACK_HEAD = Pattern.compile("(?is)^\\s*\\(*\\s*(SELECT|WITH)\\b.*");
+    static final Set<String> AGGREGATE_FUNCTIONS = Set.of(
+            "COUNT", "SUM", "AVG", "MIN", "MAX", "GROUP_CONCAT", "STD", "STDDEV", "STDDEV_POP", "STDDEV_SAMP",
+            "VARIANCE", "VAR_POP", "VAR_SAMP", "BIT_AND", "BIT_OR", "BIT_XOR", "JSON_ARRAYAGG", "JSON_OBJECTAGG");
+    private static final Pattern FALLBACK_LIMIT = Pattern.compile("(?i)LIMIT\\s+\\d+(?:\\s*,\\s*\\d+)?");
+
+    private final String sql;
+    private final boolean parsed;
+    private final Select select;
+    private final String rejectReason;
+    private final Set<String> tables;
+    private final boolean hasLimit;
+    private final String unlimitedSql;
+    private final CountPlanner.Plan countPlan;
+
+    private ParsedSql(String sql) {
+        this.sql = sql;
+        Statements statements = parseStatements(sql);
+        if (statements == null) {
+            // 解析失败：回退为关键字检查和正则改写
+            this.parsed = false;
+            this.select = null;
+            this.rejectReason = fallbackRejectReason(sql);
+            this.tables = Collections.unmodifiableSet(SqlTables.extractByPattern(sql));
+            this.hasLimit = sql.toUpperCase(Locale.ROOT).contains("LIMIT");
+            this.unlimitedSql = null;
+            this.countPlan = new CountPlanner.Plan(fallbackCountSql(sql), CountPlanner.Shape.UNPARSED);
+            return;
+        }
+
+        this.parsed = true;
+        Statement statement = statements.size() == 1 ? statements.get(0) : null;
+        this.select = statement instanceof Select s ? s : null;
+        this.rejectReason = rejectReason(statements, select);
+        if (select == null) {
+            this.tables = Set.of();
+            this.hasLimit = false;
+            this.unlimitedSql = null;
+            this.countPlan = null;
+            return;
+        }
+        this.tables = tablesOf(select);
+        this.hasLimit = topLevelLimit(select);
+        this.unlimitedSql = hasLimit && select instanceof PlainSelect plain ? withoutLimit(plain) : null;
+        this.countPlan = CountPlanner.plan(select);
+    }
+
+    /**
+     * 获取SQL的解析结果（带缓存），sql应为清理后的文本
+     */
+    public static ParsedSql of(String sql) {
+        return CACHE.get(sql, ParsedSql::new);
+    }
+
+    /**
+     * 解析SQL（不使用缓存）
+     */
+    public static ParsedSql parse(String sql) {
+        return new ParsedSql(sql);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * 是否成功解析为语法树（false表示使用了回退逻辑）
+     */
+    public boolean isParsed() {
+        return parsed;
+    }
+
+    /**
+     * 解析得到的SELECT语法树，未解析或不是SELECT时为null。语法树在多线程间共享，只能读取不能修改
+     */
+    public Select getSelect() {
+        return select;
+    }
+
+    public boolean isReadOnly() {
+        return rejectReason == null;
+    }
+
+    /**
+     * 不允许执行的原因，允许执行时为null
+     */
+    public String getRejectReason() {
+        return rejectReason;
+    }
+
+    /**
+     * 引用的表名（去掉库名和反引号，小写），不含WITH定义的临时结果集
+     */
+    public Set<String> getTables() {
+        return tables;
+    }
+
+    /**
+     * 最外层是否已有LIMIT（子查询中的LIMIT不算）
+     */
+    public boolean hasLimit() {
+        return hasLimit;
+    }
+
+    /**
+     * 统计总行数的计划
+     */
+    public CountPlanner.Plan countPlan() {
+        return countPlan;
+    }
+
+    /**
+     * 统计总行数的SQL
+     */
+    public String countSql() {
+        return countPlan != null ? countPlan.sql() : null;
+    }
+
+    /**
+     * 分页SQL：最外层已有LIMIT时替换，否则追加
+     */
+    public String paginatedSql(int offset, int pageSize) {
+        String limit = " LIMIT " + offset + ", " + pageSize;
+        if (!hasLimit) {
+            return sql + limit;
+        }
+        if (unlimitedSql != null) {
+            return unlimitedSql + limit;
+        }
+        if (select != null) {
+            // UNION等集合查询：整体作为子查询再分页
+            return "SELECT * FROM (" + sql + ") AS page_table" + limit;
+        }
+        return FALLBACK_LIMIT.matcher(sql).replaceFirst("LIMIT " + offset + ", " + pageSize);
+    }
+
+    /**
+     * 限制最大返回行数：最外层没有LIMIT时追加，已有时保持不变
+     */
+    public String limitedSql(int maxRows) {
+        return hasLimit ? sql : sql + " LIMIT " + maxRows;
+    }
+
+    private static Statements parseStatements(String sql) {
+        // 与 CCJSqlParserUtil.parse 相同：先用简单模式解析，失败再开启复杂解析；直接在调用线程解析，不额外创建线程
+        for (boolean complex : new boolean[]{false, true}) {
+            try {
+                CCJSqlParser parser = CCJSqlParserUtil.newParser(sql).withAllowComplexParsing(complex);
+                return parser.Statements();
+            } catch (Exception | StackOverflowError e) {
+                // 继续尝试，两次都失败时回退
+            }
+        }
+        return null;
+    }
+
+    private static String rejectReason(Statements statements, Select select) {
+        if (statements.size() != 1) {
+            return "不允许一次执行多条语句";
+        }
+        if (select == null) {
+            return "不是SELECT语句（" + statements.get(0).getClass().getSimpleName().toUpperCase(Locale.ROOT) + "）";
+        }
+        List<Select> selects = select instanceof SetOperationList list ? list.getSelects() : List.of(select);
+        for (Select item : selects) {
+            if (item instanceof PlainSelect plain) {
+                if (plain.getIntoTables() != null && !plain.getIntoTables().isEmpty()) {
+                    return "不允许SELECT ... INTO";
+                }
+                if (plain.getForMode() != null) {
+                    return "不允许加锁读（FOR " + plain.getForMode() + "）";
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Set<String> tablesOf(Select select) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : new TablesNamesFinder().getTables((Statement) select)) {
+            names.add(SqlTables.simpleName(name));
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    static boolean topLevelLimit(Select select) {
+        if (select.getLimit() != null || select.getOffset() != null || select.getFetch() != null) {
+            return true;
+        }
+        // JSqlParser把 UNION 末尾的LIMIT挂在最后一个SELECT上，MySQL中它作用于整个结果
+        if (select instanceof SetOperationList list && !list.getSelects().isEmpty()) {
+            Select last = list.getSelects().get(list.getSelects().size() - 1);
+            return last.getLimit() != null || last.getOffset() != null;
+        }
+        return false;
+    }
+
+    /**
+     * 去掉最外层LIMIT/OFFSET后的SQL（构造期间临时修改语法树，完成后恢复）
+     */
+    private static String withoutLimit(PlainSelect plain) {
+        Limit limit = plain.getLimit();
+        Offset offset = plain.getOffset();
+        plain.setLimit(null);
+        plain.setOffset(null);
+        try {
+            return plain.toString();
+        } finally {
+            plain.setLimit(limit);
+            plain.setOffset(offset);
+        }
+    }
+
+    /**
+     * SELECT列表中是否有聚合函数，包括嵌套在表达式中的（如 ROUND(SUM(x), 2)、IFNULL(SUM(x), 0)），
+     * 不进入子查询（子查询中的聚合不使外层成为聚合查询）
+     */
+    static boolean hasAggregate(PlainSelect plain) {
+        AggregateFinder finder = new AggregateFinder();
+        for (SelectItem<?> item : plain.getSelectItems()) {
+            if (item.getExpression() != null) {
+                item.getExpression().accept(finder);
+            }
+            if (finder.found) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 遍历表达式树查找聚合函数调用，函数参数、运算、CASE等由父类递归处理
+     */
+    private static final class AggregateFinder extends ExpressionVisitorAdapter {
+        private boolean found;
+
+        @Override
+        public void visit(Function function) {
+            if (function.getName() != null && AGGREGATE_FUNCTIONS.contains(function.getName().toUpperCase(Locale.ROOT))) {
+                found = true;
+                return;
+            }
+            super.visit(function);
+        }
+    }
+
+    private static String fallbackRejectReason(String sql) {
+        String masked = maskLiterals(sql);
+        if (!FALLBACK_HEAD.matcher(masked).matches()) {
+            return "SQL无法解析且不是以SELECT开头";
+        }
+        if (masked.indexOf(';') >= 0) {
+            return "不允许一次执行多条语句";
+        }
+        Matcher matcher = FALLBACK_FORBIDDEN.matcher(masked);
+        if (matcher.find()) {
+            return "SQL无法解析且包含关键字 " + matcher.group(1).toUpperCase(Locale.ROOT);
+        }
+        return null;
+    }
+
+    private static String fallbackCountSql(String sql) {
+        if (sql.toUpperCase(Locale.ROOT).contains("GROUP BY")) {
+            return String.format("SELECT COUNT(*) FROM (%s) as count_table", sql);
+        }
+        return sql.replaceFirst("(?i)SELECT.*?FROM", "SELECT COUNT(*) FROM");
+    }
+
+    /**
+     * 将字符串字面量内容替换为空格，保证关键字匹配不受字面量影响
+     */
+    static String maskLiterals(String sql) {
+        char[] chars = sql.toCharArray();
+        char quote = 0;
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            if (quote == 0) {
+                if (c == '\'' || c == '"') quote = c;
+            } else if (c == '\\') {
+                chars[i] = ' ';
+                if (i + 1 < chars.length) chars[++i] = ' ';
+            } else if (c == quote) {
+                quote = 0;
+            } else {
+                chars[i] = ' ';
+            }
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,253 @@
+package com.simonking.boot.mcpserver.sql;
+
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.StringValue;
+import net.sf.jsqlparser.expression.operators.relational.Between;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.InExpression;
+import net.sf.jsqlparser.expression.operators.relational.LikeExpression;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.select.FromItem;
+import net.sf.jsqlparser.statement.select.Join;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SetOperationList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * <p>PURPOSE: 过滤条件中的列
+ * <p>DESCRIPTION: 基于 {@link ParsedSql} 的语法树，收集最外层查询（UNION时为各分支）WHERE和JOIN ON中
+ * 按表参与等值比较和范围比较的列，并找出会导致索引失效的写法（列被函数包裹、LIKE以%开头）。
+ * 用于EXPLAIN代价检查后给出补充过滤条件和索引的建议，子查询内部的条件不做分析
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public final class PredicateColumns {
+
+    private static final PredicateColumns EMPTY = new PredicateColumns();
+
+    // 表名 -> 等值比较（=、IN）的列，按出现顺序
+    private final Map<String, Set<String>> equalityColumns = new LinkedHashMap<>();
+    // 表名 -> 范围比较（>、<、BETWEEN、LIKE）的列，按出现顺序
+    private final Map<String, Set<String>> rangeColumns = new LinkedHashMap<>();
+    // 别名 -> 表名
+    private final Map<String, String> aliases = new HashMap<>();
+    // 没有WHERE条件的表
+    private final Set<String> unfilteredTables = new LinkedHashSet<>();
+    private final List<String> issues = new ArrayList<>();
+
+    private PredicateColumns() {
+    }
+
+    /**
+     * 分析SQL的过滤条件，无法解析时返回空结果
+     */
+    public static PredicateColumns of(String sql) {
+        Select select = ParsedSql.of(sql).getSelect();
+        if (select == null) {
+            return EMPTY;
+        }
+        PredicateColumns result = new PredicateColumns();
+        List<Select> branches = select instanceof SetOperationList list ? list.getSelects() : List.of(select);
+        for (Select branch : branches) {
+            if (branch instanceof PlainSelect plain) {
+                result.collect(plain);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 将别名（如EXPLAIN结果中的table列）解析为表名
+     */
+    public String tableOf(String aliasOrTable) {
+        String name = SqlTables.simpleName(aliasOrTable);
+        return aliases.getOrDefault(name, name);
+    }
+
+    /**
+     * 表上参与等值比较的列（小写）
+     */
+    public Set<String> equalityColumns(String table) {
+        return equalityColumns.getOrDefault(table, Set.of());
+    }
+
+    /**
+     * 表上参与范围比较的列（小写）
+     */
+    public Set<String> rangeColumns(String table) {
+        return rangeColumns.getOrDefault(table, Set.of());
+    }
+
+    /**
+     * 表上参与过滤的所有列
+     */
+    public boolean isFiltered(String table, String column) {
+        return equalityColumns(table).contains(column) || rangeColumns(table).contains(column);
+    }
+
+    /**
+     * 查询中没有任何WHERE条件的表
+     */
+    public Set<String> getUnfilteredTables() {
+        return Collections.unmodifiableSet(unfilteredTables);
+    }
+
+    /**
+     * 会导致索引失效的写法
+     */
+    public List<String> getIssues() {
+        return Collections.unmodifiableList(issues);
+    }
+
+    private void collect(PlainSelect plain) {
+        // 别名 -> 表名
+        Map<String, String> tables = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        register(plain.getFromItem(), tables, names);
+        if (plain.getJoins() != null) {
+            for (Join join : plain.getJoins()) {
+                register(join.getFromItem(), tables, names);
+            }
+        }
+        aliases.putAll(tables);
+        String defaultTable = names.size() == 1 ? names.get(0) : null;
+        Collector collector = new Collector(tables, defaultTable);
+        if (plain.getWhere() != null) {
+            plain.getWhere().accept(collector);
+        } else {
+            unfilteredTables.addAll(names);
+        }
+        if (plain.getJoins() != null) {
+            for (Join join : plain.getJoins()) {
+                for (Expression on : join.getOnExpressions()) {
+                    on.accept(collector);
+                }
+            }
+        }
+    }
+
+    private static void register(FromItem item, Map<String, String> tables, List<String> names) {
+        if (!(item instanceof Table table)) {
+            return;
+        }
+        String name = SqlTables.simpleName(table.getName());
+        names.add(name);
+        tables.put(name, name);
+        if (table.getAlias() != null) {
+            tables.put(SqlTables.simpleName(table.getAlias().getName()), name);
+        }
+    }
+
+    /**
+     * 遍历条件表达式，AND/OR/括号由父类递归处理
+     */
+    private final class Collector extends ExpressionVisitorAdapter {
+        private final Map<String, String> tables;
+        private final String defaultTable;
+
+        private Collector(Map<String, String> tables, String defaultTable) {
+            this.tables = tables;
+            this.defaultTable = defaultTable;
+        }
+
+        @Override
+        public void visit(EqualsTo expr) {
+            comparison(expr, true);
+        }
+
+        @Override
+        public void visit(GreaterThan expr) {
+            comparison(expr, false);
+        }
+
+        @Override
+        public void visit(GreaterThanEquals expr) {
+            comparison(expr, false);
+        }
+
+        @Override
+        public void visit(MinorThan expr) {
+            comparison(expr, false);
+        }
+
+        @Override
+        public void visit(MinorThanEquals expr) {
+            comparison(expr, false);
+        }
+
+        @Override
+        public void visit(InExpression expr) {
+            operand(expr.getLeftExpression(), true);
+        }
+
+        @Override
+        public void visit(Between expr) {
+            operand(expr.getLeftExpression(), false);
+        }
+
+        @Override
+        public void visit(LikeExpression expr) {
+            operand(expr.getLeftExpression(), false);
+            if (!expr.isNot() && expr.getRightExpression() instanceof StringValue pattern
+                    && pattern.getValue().startsWith("%")) {
+                issues.add("LIKE '" + pattern.getValue() + "' 以%开头，无法使用 " + expr.getLeftExpression() + " 上的索引");
+            }
+        }
+
+        private void comparison(BinaryExpression expr, boolean equality) {
+            operand(expr.getLeftExpression(), equality);
+            operand(expr.getRightExpression(), equality);
+        }
+
+        private void operand(Expression expr, boolean equality) {
+            if (expr instanceof Column column) {
+                record(column, equality);
+            } else if (expr instanceof Function function && function.getParameters() != null) {
+                for (Expression parameter : function.getParameters()) {
+                    if (parameter instanceof Column column) {
+                        issues.add("列 " + column + " 被函数 " + function.getName() + " 包裹，无法使用索引，"
+                                + "建议改写为对列本身的范围条件（如 biz_date BETWEEN '20250101' AND '20250131'）");
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void record(Column column, boolean equality) {
+            String table = column.getTable() != null && column.getTable().getName() != null
+                    ? tables.get(SqlTables.simpleName(column.getTable().getName()))
+                    : defaultTable;
+            if (table == null) {
+                return;
+            }
+            String name = SqlTables.simpleName(column.getColumnName());
+            (equality ? equalityColumns : rangeColumns).computeIfAbsent(table, k -> new LinkedHashSet<>()).add(name);
+        }
+    }
+}
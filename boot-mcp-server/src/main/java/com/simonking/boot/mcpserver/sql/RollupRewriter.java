@@ -0,0 +1,554 @@
+package com.simonking.boot.mcpserver.sql;
+
+import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.expression.AnalyticExpression;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.CastExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.StringValue;
+import net.sf.jsqlparser.expression.operators.arithmetic.Division;
+import net.sf.jsqlparser.expression.operators.relational.Between;
+import net.sf.jsqlparser.expression.operators.relational.ExistsExpression;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.LikeExpression;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.create.table.ColDataType;
+import net.sf.jsqlparser.statement.select.AllColumns;
+import net.sf.jsqlparser.statement.select.AllTableColumns;
+import net.sf.jsqlparser.statement.select.GroupByElement;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import net.sf.jsqlparser.statement.select.ParenthesedSelect;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectItem;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalQuery;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * <p>PURPOSE: 预聚合汇总表查询改写
+ * <p>DESCRIPTION: 汇总表按 维度列 + sum_度量列 + row_cnt 预先聚合源表（如按月、区划汇总的 hif_cert_stt_d）。
+ * 单表聚合查询的过滤、分组、排序只用到汇总表的维度列，聚合只有 SUM(度量列)、AVG(度量列)、COUNT(*)、
+ * COUNT(DISTINCT 维度列)、MIN/MAX(维度列) 时，基于语法树把表换成汇总表：SUM(m) 改为 SUM(sum_m)，
+ * COUNT(*) 改为 COALESCE(SUM(row_cnt), 0)（没有匹配行时与COUNT一样为0，SELECT列表等顶层位置再转换为整数，
+ * 结果类型与COUNT相同），AVG(m) 改为 SUM(sum_m) / SUM(row_cnt)，改写的列保留原来的列名。
+ * 日期列（biz_date）上按整月对齐的条件（如 BETWEEN '20250101' AND '20250131'、LIKE '202501%'）转换为月份列的条件，
+ * 只转换与汇总表配置的日期格式一致的字面量，
+ * 不能对齐整月、用到非维度列、有子查询或窗口函数的查询不改写
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public final class RollupRewriter {
+
+    /**
+     * 汇总表中的源表行数列
+     */
+    public static final String ROW_COUNT_COLUMN = "row_cnt";
+
+    private RollupRewriter() {
+    }
+
+    /**
+     * 汇总表中度量列的合计列名
+     */
+    public static String sumColumn(String measure) {
+        return "sum_" + measure;
+    }
+
+    /**
+     * 尝试把查询改写为查询汇总表，按目标顺序取第一个能改写的；不能改写时返回空
+     *
+     * @param sql     清理后的SQL
+     * @param targets 可用的汇总表
+     */
+    public static Optional<Rewrite> rewrite(String sql, List<Target> targets) {
+        // 先用缓存的语法树快速筛选，只有单表且有对应汇总表时才重新解析一份可修改的语法树
+        ParsedSql parsed = ParsedSql.of(sql);
+        if (!(parsed.getSelect() instanceof PlainSelect) || parsed.getTables().size() != 1) {
+            return Optional.empty();
+        }
+        String source = parsed.getTables().iterator().next();
+        for (Target target : targets) {
+            if (!target.source().equals(source)) {
+                continue;
+            }
+            if (ParsedSql.parse(sql).getSelect() instanceof PlainSelect plain && new Rewriting(target, plain).apply()) {
+                return Optional.of(new Rewrite(target, plain.toString()));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 汇总表定义（表名、列名均为小写）
+     *
+     * @param name        汇总名称
+     * @param source      源表
+     * @param table       汇总表
+     * @param monthColumn 月份列（yyyyMM，必须是维度列之一）
+     * @param dateColumn  源表日期列，整月对齐的条件可转换为月份列条件，为null时不转换
+     * @param datePattern 日期列的格式，dateColumn不为null时必须提供
+     * @param dimensions  维度列
+     * @param measures    度量列
+     */
+    public record Target(String name, String source, String table, String monthColumn, String dateColumn,
+                         DatePattern datePattern, Set<String> dimensions, Set<String> measures) {
+    }
+
+    /**
+     * 日期列的字符串格式（如 yyyyMMdd、yyyy-MM-dd）。年、月、日必须按此顺序排列、分隔符相同，
+     * 字符串顺序才与日期顺序一致，整月对齐的比较才能转换为月份比较
+     */
+    public static final class DatePattern {
+        private static final Pattern SUPPORTED = Pattern.compile("yyyy([-/.]?)MM([-/.]?)dd");
+
+        private final String pattern;
+        private final DateTimeFormatter date;
+        // 整月、整年的LIKE前缀格式，如 yyyy-MM-dd 对应 yyyy-MM、yyyy-MM- 和 yyyy、yyyy-
+        private final Map<String, DateTimeFormatter> monthPrefixes = new LinkedHashMap<>();
+        private final Map<String, DateTimeFormatter> yearPrefixes = new LinkedHashMap<>();
+
+        private DatePattern(String pattern, String yearSeparator, String monthSeparator) {
+            this.pattern = pattern;
+            this.date = DateTimeFormatter.ofPattern(pattern);
+            for (String prefix : List.of("yyyy" + yearSeparator + "MM", "yyyy" + yearSeparator + "MM" + monthSeparator)) {
+                monthPrefixes.putIfAbsent(prefix, DateTimeFormatter.ofPattern(prefix));
+            }
+            for (String prefix : List.of("yyyy", "yyyy" + yearSeparator)) {
+                yearPrefixes.putIfAbsent(prefix, DateTimeFormatter.ofPattern(prefix));
+            }
+        }
+
+        /**
+         * 解析日期格式，不支持的格式返回空
+         */
+        public static Optional<DatePattern> of(String pattern) {
+            Matcher matcher = pattern != null ? SUPPORTED.matcher(pattern.trim()) : null;
+            return matcher != null && matcher.matches()
+                    ? Optional.of(new DatePattern(pattern.trim(), matcher.group(1), matcher.group(2)))
+                    : Optional.empty();
+        }
+
+        /**
+         * 月初的日期字面量（如 '20250101'）返回所在月份，否则返回null
+         */
+        YearMonth monthStart(Expression expression) {
+            LocalDate value = dateOf(expression);
+            return value != null && value.getDayOfMonth() == 1 ? YearMonth.from(value) : null;
+        }
+
+        /**
+         * 月末（及之后，如 '20250231'）的日期字面量返回所在月份，否则返回null
+         */
+        YearMonth monthEnd(Expression expression) {
+            // 按SMART规则解析，超出当月天数的日期（如 '20250231'）落到月末
+            LocalDate value = dateOf(expression);
+            return value != null && value.getDayOfMonth() == value.lengthOfMonth() ? YearMonth.from(value) : null;
+        }
+
+        /**
+         * 整月或整年的LIKE前缀（不含%）转换为月份列（yyyyMM）的前缀，不是整月或整年时返回null
+         */
+        String monthPrefix(String prefix) {
+            for (Map.Entry<String, DateTimeFormatter> entry : monthPrefixes.entrySet()) {
+                YearMonth month = parse(prefix, entry.getKey(), entry.getValue(), YearMonth::from);
+                if (month != null) {
+                    return String.format("%04d%02d", month.getYear(), month.getMonthValue());
+                }
+            }
+            for (Map.Entry<String, DateTimeFormatter> entry : yearPrefixes.entrySet()) {
+                Year year = parse(prefix, entry.getKey(), entry.getValue(), Year::from);
+                if (year != null) {
+                    return String.format("%04d", year.getValue());
+                }
+            }
+            return null;
+        }
+
+        private LocalDate dateOf(Expression expression) {
+            String text = expression instanceof StringValue value ? value.getValue()
+                    : expression instanceof LongValue value ? value.getStringValue() : null;
+            return text != null ? parse(text, pattern, date, LocalDate::from) : null;
+        }
+
+        /**
+         * 按格式解析字面量，长度须与格式一致（yyyy 可以解析超过4位的年份）
+         */
+        private static <T> T parse(String text, String pattern, DateTimeFormatter formatter, TemporalQuery<T> query) {
+            if (text.length() != pattern.length()) {
+                return null;
+            }
+            try {
+                return formatter.parse(text, query);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 改写结果
+     *
+     * @param target 使用的汇总表
+     * @param sql    改写后的SQL
+     */
+    public record Rewrite(Target target, String sql) {
+    }
+
+    /**
+     * 单次改写：直接修改语法树，发现不能改写的写法时标记失败
+     */
+    private static final class Rewriting extends ExpressionVisitorAdapter {
+        private final Target target;
+        private final PlainSelect plain;
+        // 列可以使用的限定名：表名、别名
+        private final Set<String> qualifiers = new HashSet<>();
+        private final Set<String> selectAliases = new HashSet<>();
+        private boolean routable = true;
+        private boolean hasAggregate;
+        private boolean qualified;
+        private boolean inWhere;
+        // GROUP BY、HAVING、ORDER BY 中可以引用SELECT列别名
+        private boolean aliasesVisible;
+
+        private Rewriting(Target target, PlainSelect plain) {
+            this.target = target;
+            this.plain = plain;
+        }
+
+        private boolean apply() {
+            if (!(plain.getFromItem() instanceof Table table) || table.getSchemaName() != null
+                    || (plain.getJoins() != null && !plain.getJoins().isEmpty())
+                    || plain.getWithItemsList() != null || plain.getDistinct() != null
+                    || plain.getWindowDefinitions() != null) {
+                return false;
+            }
+            qualifiers.add(SqlTables.simpleName(table.getName()));
+            if (table.getAlias() != null) {
+                qualifiers.add(SqlTables.simpleName(table.getAlias().getName()));
+            }
+
+            for (SelectItem<?> item : plain.getSelectItems()) {
+                if (item.getAlias() != null) {
+                    selectAliases.add(SqlTables.simpleName(item.getAlias().getName()));
+                }
+            }
+            List<SelectItem<?>> items = new ArrayList<>(plain.getSelectItems().size());
+            for (SelectItem<?> item : plain.getSelectItems()) {
+                String original = item.getExpression().toString();
+                Expression rewritten = rewriteTop(item.getExpression());
+                Alias alias = item.getAlias();
+                if (alias == null && !rewritten.toString().equals(original)) {
+                    // 保持结果列名不变
+                    alias = new Alias("`" + original.replace("`", "") + "`", true);
+                }
+                items.add(SelectItem.from(rewritten, alias));
+            }
+            plain.setSelectItems(items);
+            if (plain.getWhere() != null) {
+                inWhere = true;
+                plain.getWhere().accept(this);
+                inWhere = false;
+            }
+            aliasesVisible = true;
+            GroupByElement groupBy = plain.getGroupBy();
+            if (groupBy != null) {
+                if (groupBy.getGroupingSets() != null && !groupBy.getGroupingSets().isEmpty()) {
+                    return false;
+                }
+                if (groupBy.getGroupByExpressionList() != null) {
+                    for (Object expression : groupBy.getGroupByExpressionList()) {
+                        ((Expression) expression).accept(this);
+                    }
+                }
+            }
+            if (plain.getHaving() != null) {
+                plain.setHaving(rewriteTop(plain.getHaving()));
+            }
+            if (plain.getOrderByElements() != null) {
+                for (OrderByElement element : plain.getOrderByElements()) {
+                    element.setExpression(rewriteTop(element.getExpression()));
+                }
+            }
+            if (!routable || !hasAggregate) {
+                return false;
+            }
+
+            table.setName(target.table());
+            if (table.getAlias() == null && qualified) {
+                // 列以源表名限定（如 hif_cert_stt_d.admdvs），以源表名作为汇总表别名
+                table.setAlias(new Alias(qualifiers.iterator().next(), false));
+            }
+            return true;
+        }
+
+        /**
+         * 改写可以整体替换的表达式（SELECT项、HAVING、ORDER BY），AVG只能出现在这些位置
+         */
+        private Expression rewriteTop(Expression expression) {
+            if (expression instanceof Function function && isFunction(function, "AVG")) {
+                String measure = measureOf(function);
+                if (measure == null) {
+                    routable = false;
+                    return expression;
+                }
+                hasAggregate = true;
+                return new Division()
+                        .withLeftExpression(sumOf(sumColumn(measure)))
+                        .withRightExpression(sumOf(ROW_COUNT_COLUMN));
+            }
+            boolean countAll = expression instanceof Function function && isFunction(function, "COUNT")
+                    && !function.isDistinct() && (function.isAllColumns() || isCountAll(function));
+            expression.accept(this);
+            if (countAll) {
+                // SUM的结果为DECIMAL，转换为整数保持COUNT的BIGINT类型
+                return new CastExpression()
+                        .withLeftExpression(expression)
+                        .withType(new ColDataType("SIGNED"))
+                        .withUseCastKeyword(true);
+            }
+            return expression;
+        }
+
+        @Override
+        public void visit(Function function) {
+            String name = function.getName() != null ? function.getName().toUpperCase(Locale.ROOT) : "";
+            if (!ParsedSql.AGGREGATE_FUNCTIONS.contains(name)) {
+                super.visit(function);
+                return;
+            }
+            if (inWhere) {
+                routable = false;
+                return;
+            }
+            hasAggregate = true;
+            switch (name) {
+                case "SUM" -> {
+                    String measure = measureOf(function);
+                    if (measure == null) {
+                        routable = false;
+                    } else {
+                        function.setParameters(new ExpressionList<>(new Column(sumColumn(measure))));
+                    }
+                }
+                case "COUNT" -> {
+                    if (function.isDistinct()) {
+                        // 维度列的不同取值在汇总表中不变
+                        super.visit(function);
+                    } else if (function.isAllColumns() || isCountAll(function)) {
+                        // 没有匹配行时SUM为NULL，COUNT为0
+                        function.setName("COALESCE");
+                        function.setAllColumns(false);
+                        function.setParameters(new ExpressionList<>(sumOf(ROW_COUNT_COLUMN), new LongValue(0)));
+                    } else {
+                        routable = false;
+                    }
+                }
+                // 维度列的最值在汇总表中不变
+                case "MIN", "MAX" -> super.visit(function);
+                default -> routable = false;
+            }
+        }
+
+        @Override
+        public void visit(Column column) {
+            String name = SqlTables.simpleName(column.getColumnName());
+            Table table = column.getTable();
+            if (table != null && table.getName() != null) {
+                if (table.getSchemaName() != null || !qualifiers.contains(SqlTables.simpleName(table.getName()))) {
+                    routable = false;
+                    return;
+                }
+                qualified = true;
+            } else if (aliasesVisible && selectAliases.contains(name)) {
+                return;
+            }
+            if (!target.dimensions().contains(name)) {
+                routable = false;
+            }
+        }
+
+        @Override
+        public void visit(Between between) {
+            if (!isDateColumn(between.getLeftExpression())) {
+                super.visit(between);
+                return;
+            }
+            YearMonth start = target.datePattern().monthStart(between.getBetweenExpressionStart());
+            YearMonth end = target.datePattern().monthEnd(between.getBetweenExpressionEnd());
+            if (start == null || end == null) {
+                routable = false;
+                return;
+            }
+            between.setLeftExpression(monthColumn((Column) between.getLeftExpression()));
+            between.setBetweenExpressionStart(monthValue(start));
+            between.setBetweenExpressionEnd(monthValue(end));
+        }
+
+        @Override
+        public void visit(GreaterThanEquals expr) {
+            dateComparison(expr, target.datePattern().monthStart(expr.getRightExpression()));
+        }
+
+        @Override
+        public void visit(GreaterThan expr) {
+            dateComparison(expr, target.datePattern().monthEnd(expr.getRightExpression()));
+        }
+
+        @Override
+        public void visit(MinorThan expr) {
+            dateComparison(expr, target.datePattern().monthStart(expr.getRightExpression()));
+        }
+
+        @Override
+        public void visit(MinorThanEquals expr) {
+            dateComparison(expr, target.datePattern().monthEnd(expr.getRightExpression()));
+        }
+
+        @Override
+        public void visit(LikeExpression expr) {
+            if (!isDateColumn(expr.getLeftExpression())) {
+                super.visit(expr);
+                return;
+            }
+            String prefix = expr.getRightExpression() instanceof StringValue value && expr.getEscape() == null
+                    && value.getValue().endsWith("%")
+                    ? target.datePattern().monthPrefix(value.getValue().substring(0, value.getValue().length() - 1)) : null;
+            if (prefix == null) {
+                routable = false;
+                return;
+            }
+            expr.setLeftExpression(monthColumn((Column) expr.getLeftExpression()));
+            expr.setRightExpression(new StringValue(prefix + "%"));
+        }
+
+        @Override
+        public void visit(AnalyticExpression expr) {
+            routable = false;
+        }
+
+        @Override
+        public void visit(AllColumns allColumns) {
+            routable = false;
+        }
+
+        @Override
+        public void visit(AllTableColumns allTableColumns) {
+            routable = false;
+        }
+
+        @Override
+        public void visit(ParenthesedSelect select) {
+            routable = false;
+        }
+
+        @Override
+        public void visit(Select select) {
+            routable = false;
+        }
+
+        @Override
+        public void visit(ExistsExpression expr) {
+            routable = false;
+        }
+
+        /**
+         * 日期列与字面量的比较：字面量按整月对齐时转换为月份列的比较，否则不能改写
+         */
+        private void dateComparison(BinaryExpression expr, YearMonth month) {
+            if (!isDateColumn(expr.getLeftExpression())) {
+                super.visitBinaryExpression(expr);
+                return;
+            }
+            if (month == null) {
+                routable = false;
+                return;
+            }
+            expr.setLeftExpression(monthColumn((Column) expr.getLeftExpression()));
+            expr.setRightExpression(monthValue(month));
+        }
+
+        private boolean isDateColumn(Expression expression) {
+            return inWhere && target.dateColumn() != null && expression instanceof Column column
+                    && SqlTables.simpleName(column.getColumnName()).equals(target.dateColumn());
+        }
+
+        private Column monthColumn(Column dateColumn) {
+            Column column = new Column(dateColumn.getTable(), target.monthColumn());
+            column.accept(this);
+            return column;
+        }
+
+        /**
+         * SUM/AVG的参数为单个度量列时返回列名，否则返回null
+         */
+        private String measureOf(Function function) {
+            if (function.isDistinct() || function.getParameters() == null || function.getParameters().size() != 1
+                    || !(function.getParameters().get(0) instanceof Column column)) {
+                return null;
+            }
+            String name = SqlTables.simpleName(column.getColumnName());
+            Table table = column.getTable();
+            if (table != null && table.getName() != null) {
+                if (!qualifiers.contains(SqlTables.simpleName(table.getName()))) {
+                    return null;
+                }
+                qualified = true;
+            }
+            return target.measures().contains(name) ? name : null;
+        }
+    }
+
+    private static boolean isFunction(Function function, String name) {
+        return function.getName() != null && function.getName().equalsIgnoreCase(name);
+    }
+
+    /**
+     * COUNT(1)、COUNT('x') 等对常量计数
+     */
+    private static boolean isCountAll(Function function) {
+        ExpressionList<?> parameters = function.getParameters();
+        return parameters != null && parameters.size() == 1
+                && (parameters.get(0) instanceof LongValue || parameters.get(0) instanceof StringValue
+                || parameters.get(0) instanceof AllColumns);
+    }
+
+    private static Function sumOf(String column) {
+        return new Function().withName("SUM").withParameters(new ExpressionList<>(new Column(column)));
+    }
+
+    private static StringValue monthValue(YearMonth month) {
+        return new StringValue(String.format("%04d%02d", month.getYear(), month.getMonthValue()));
+    }
+}
@@ -0,0 +1,160 @@
+package com.simonking.boot.mcpserver.sql;
+
+import java.util.regex.Pattern;
+
+
+/**
+ * <p>PURPOSE: SQL文本规范化
+ * <p>DESCRIPTION: 合并空白、去除末尾分号、字面量以外的部分转小写，
+ * 用于生成与书写格式无关的缓存键；{@link #fingerprint(String)} 进一步去掉注释并把字面量替换为?，
+ * 用于按SQL结构（而不是具体取值）汇总执行统计
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public final class SqlNormalizer {
+
+    // IN列表不论多少个值都视为同一结构
+    private static final Pattern IN_LIST = Pattern.compile("\\bin\\(\\?(?:,\\?)*\\)");
+
+    private SqlNormalizer() {
+    }
+
+    public static String normalize(String sql) {
+        if (sql == null) return "";
+        String trimmed = sql.trim().replaceAll(";+$", "").trim();
+        StringBuilder sb = new StringBuilder(trimmed.length());
+        char quote = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (quote != 0) {
+                sb.append(c);
+                if (c == '\\' && i + 1 < trimmed.length()) {
+                    sb.append(trimmed.charAt(++i));
+                } else if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                continue;
+            }
+            if (pendingSpace && sb.length() > 0) {
+                sb.append(' ');
+            }
+            pendingSpace = false;
+            if (c == '\'' || c == '"') {
+                quote = c;
+                sb.append(c);
+            } else {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * SQL指纹：去掉注释（含优化器提示），字符串和数字字面量替换为?，IN列表合并为 in(?+)，
+     * 运算符和标点两侧不留空白，其余部分同 {@link #normalize(String)}。反引号中的标识符保持原样
+     */
+    public static String fingerprint(String sql) {
+        if (sql == null) return "";
+        String trimmed = sql.trim().replaceAll(";+$", "").trim();
+        int length = trimmed.length();
+        StringBuilder sb = new StringBuilder(length);
+        boolean pendingSpace = false;
+        int i = 0;
+        while (i < length) {
+            char c = trimmed.charAt(i);
+            // 注释视为空白
+            if (c == '/' && i + 1 < length && trimmed.charAt(i + 1) == '*') {
+                int end = trimmed.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                pendingSpace = true;
+                continue;
+            }
+            if ((c == '-' && i + 1 < length && trimmed.charAt(i + 1) == '-') || c == '#') {
+                int end = trimmed.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+                pendingSpace = true;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+                continue;
+            }
+            // 只在两个单词之间保留一个空格，运算符和标点两侧的空白去掉（a = 1 与 a=1 视为相同）
+            if (pendingSpace && sb.length() > 0 && isWordChar(c)
+                    && (isWordChar(sb.charAt(sb.length() - 1)) || sb.charAt(sb.length() - 1) == ')')) {
+                sb.append(' ');
+            }
+            pendingSpace = false;
+
+            if (c == '\'' || c == '"') {
+                i = skipQuoted(trimmed, i, c);
+                sb.append('?');
+            } else if (c == '`') {
+                int end = trimmed.indexOf('`', i + 1);
+                end = end < 0 ? length : end + 1;
+                sb.append(trimmed, i, end);
+                i = end;
+            } else if (Character.isDigit(c) && !isIdentifierPart(sb)) {
+                // 数字（含小数、科学计数法、十六进制）
+                i++;
+                while (i < length && (Character.isLetterOrDigit(trimmed.charAt(i)) || trimmed.charAt(i) == '.')) {
+                    i++;
+                }
+                sb.append('?');
+            } else {
+                sb.append(Character.toLowerCase(c));
+                i++;
+            }
+        }
+        return IN_LIST.matcher(sb).replaceAll("in(?+)");
+    }
+
+    /**
+     * 跳过引号括起的字面量，返回结束引号之后的位置（支持反斜杠转义和连续两个引号）
+     */
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return sql.length();
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '`' || c == '?' || c == '\'' || c == '"';
+    }
+
+    /**
+     * 已输出内容的最后一个字符是否为标识符的一部分（如 t1、col_2 中的数字不是字面量）
+     */
+    private static boolean isIdentifierPart(StringBuilder sb) {
+        if (sb.length() == 0) return false;
+        char last = sb.charAt(sb.length() - 1);
+        return Character.isLetterOrDigit(last) || last == '_' || last == '$';
+    }
+}
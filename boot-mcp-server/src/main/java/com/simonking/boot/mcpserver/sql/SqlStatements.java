@@ -0,0 +1,66 @@
+package com.simonking.boot.mcpserver.sql;
+
+
+/**
+ * <p>PURPOSE: SQL语句校验与分页改写
+ * <p>DESCRIPTION: 各查询服务共用的只读校验、SQL清理、COUNT语句和LIMIT分页语句生成，
+ * 均为无状态静态方法，便于单独做基准测试。校验和改写委托给按SQL缓存的 {@link ParsedSql}
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public final class SqlStatements {
+
+    private SqlStatements() {
+    }
+
+    /**
+     * 验证SQL安全性：只允许单条SELECT语句（基于语法树判断，列名中的关键字不影响）
+     */
+    public static boolean isValidSelectQuery(String sql) {
+        return rejectReason(sql) == null;
+    }
+
+    /**
+     * SQL不允许执行的原因，允许执行时返回null
+     */
+    public static String rejectReason(String sql) {
+        if (sql == null || sql.trim().isEmpty()) return "SQL为空";
+        return ParsedSql.of(clean(sql)).getRejectReason();
+    }
+
+    /**
+     * 清理SQL：去掉首尾空白和末尾的分号
+     */
+    public static String clean(String sql) {
+        return sql.trim().replaceAll(";+$", "");
+    }
+
+    /**
+     * 构建统计总数的SQL
+     */
+    public static String countSql(String sql) {
+        return ParsedSql.of(sql).countSql();
+    }
+
+    /**
+     * 构建分页SQL：最外层已有LIMIT时替换，否则追加
+     */
+    public static String paginatedSql(String sql, int page, int pageSize) {
+        return ParsedSql.of(sql).paginatedSql((page - 1) * pageSize, pageSize);
+    }
+
+    /**
+     * 限制最大返回行数：最外层没有LIMIT时追加LIMIT
+     */
+    public static String limitedSql(String sql, int maxRows) {
+        return ParsedSql.of(sql).limitedSql(maxRows);
+    }
+}
@@ -0,0 +1,75 @@
+package com.simonking.boot.mcpserver.sql;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * <p>PURPOSE: 提取SQL引用的表名
+ * <p>DESCRIPTION: 从SQL语法树中提取引用的表名（去掉库名前缀和反引号，统一小写），用于结果缓存的表级过期与失效；
+ * SQL无法解析时按FROM/JOIN后的表名识别
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public final class SqlTables {
+
+    private static final String ALIAS =
+            "(?:\\s+(?:AS\\s+)?(?!(?:WHERE|JOIN|LEFT|RIGHT|INNER|OUTER|CROSS|ON|GROUP|ORDER|LIMIT|HAVING|UNION)\\b)`?\\w+`?)?";
+    private static final Pattern TABLE_REF = Pattern.compile(
+            "(?i)\\b(?:FROM|JOIN)\\s+(?:`?\\w+`?\\s*\\.\\s*)?`?(\\w+)`?" + ALIAS
+                    + "((?:\\s*,\\s*(?:`?\\w+`?\\s*\\.\\s*)?`?\\w+`?" + ALIAS + ")*)");
+    private static final Pattern COMMA_TABLE = Pattern.compile(
+            ",\\s*(?:`?\\w+`?\\s*\\.\\s*)?`?(\\w+)`?");
+
+    private SqlTables() {
+    }
+
+    public static Set<String> extract(String sql) {
+        return ParsedSql.of(sql).getTables();
+    }
+
+    /**
+     * 按FROM/JOIN后的表名识别（SQL无法解析时使用）
+     */
+    static Set<String> extractByPattern(String sql) {
+        Set<String> tables = new LinkedHashSet<>();
+        Matcher matcher = TABLE_REF.matcher(sql);
+        while (matcher.find()) {
+            tables.add(matcher.group(1).toLowerCase(Locale.ROOT));
+            if (matcher.group(2) != null && !matcher.group(2).isEmpty()) {
+                Matcher comma = COMMA_TABLE.matcher(matcher.group(2));
+                while (comma.find()) {
+                    tables.add(comma.group(1).toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * 去掉库名前缀和引号后的小写表名
+     */
+    static String simpleName(String name) {
+        String simple = name.substring(name.lastIndexOf('.') + 1);
+        return simple.replace("`", "").replace("\"", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 表名是否匹配配置中的模式（支持*通配符，忽略大小写）
+     */
+    public static boolean matches(String pattern, String table) {
+        String regex = "\\Q" + pattern.toLowerCase(Locale.ROOT).replace("*", "\\E.*\\Q") + "\\E";
+        return table.toLowerCase(Locale.ROOT).matches(regex);
+    }
+}
@@ -0,0 +1,138 @@
+package com.simonking.boot.mcpserver.sql;
+
+import com.simonking.boot.mcpserver.format.TableRenderer;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * <p>PURPOSE: 流式表格输出
+ * <p>DESCRIPTION: 直接从ResultSet逐行写出表格文本（格式由 {@link TableRenderer} 决定），不再先物化为 List&lt;Map&gt;。
+ * 列信息只读取一次；定宽文本的列宽按前若干行样本计算，样本之后的行复用同一个行缓冲直接写入，
+ * 超出样本宽度的值不截断（只截断超过最大列宽的值），仅影响对齐
+ * <p>CALLED BY: wanjian
+ * <p>CREATE DATE: 2026/10/17
+ * <p>UPDATE DATE: 2026/10/17
+ * <p>UPDATE USER:
+ * <p>HISTORY: 1.0
+ *
+ * @author wanjian
+ * @version 1.0
+ * @see
+ * @since java 1.8
+ */
+public class StreamingTableExtractor implements ResultSetExtractor<StreamingTableExtractor.Table> {
+
+    // 计算列宽的样本行数
+    public static final int DEFAULT_SAMPLE_ROWS = 50;
+
+    private static final TableRenderer DEFAULT_RENDERER = new TableRenderer(TableRenderer.Mode.FIXED_WIDTH);
+
+    private final TableRenderer renderer;
+    private final int sampleRows;
+
+    public StreamingTableExtractor() {
+        this(DEFAULT_RENDERER);
+    }
+
+    public StreamingTableExtractor(TableRenderer renderer) {
+        this(renderer, DEFAULT_SAMPLE_ROWS);
+    }
+
+    public StreamingTableExtractor(TableRenderer renderer, int sampleRows) {
+        this.renderer = renderer;
+        this.sampleRows = renderer.needsWidths() ? Math.max(1, sampleRows) : 0;
+    }
+
+    @Override
+    public Table extractData(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] columns = new String[columnCount];
+        int[] widths = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = JdbcUtils.lookupColumnName(metaData, i + 1);
+            widths[i] = renderer.cellWidth(columns[i]);
+        }
+
+        // 最后一行的原始值（用于生成游标），逐行覆盖
+        Object[] lastValues = new Object[columnCount];
+
+        // 1. 读取样本行并计算列宽（不需要列宽的格式不取样本）
+        List<String[]> sample = new ArrayList<>(Math.min(sampleRows, 64));
+        boolean more = false;
+        while (rs.next()) {
+            if (sample.size() == sampleRows) {
+                more = true;
+                break;
+            }
+            String[] cells = new String[columnCount];
+            readRow(rs, lastValues, cells);
+            for (int i = 0; i < columnCount; i++) {
+                widths[i] = Math.max(widths[i], renderer.cellWidth(cells[i]));
+            }
+            sample.add(cells);
+        }
+
+        int rowCount = sample.size();
+        if (rowCount == 0 && !more) {
+            return new Table(List.of(columns), 0, "", null);
+        }
+
+        // 2. 写表头和样本行
+        StringBuilder sb = new StringBuilder(256 + columnCount * 16 * (Math.max(rowCount, sampleRows) + 2));
+        renderer.header(sb, columns, widths);
+        for (String[] cells : sample) {
+            renderer.row(sb, cells, widths);
+        }
+        sample.clear();
+
+        // 3. 剩余行复用同一个行缓冲直接写出
+        if (more) {
+            String[] buffer = new String[columnCount];
+            do {
+                readRow(rs, lastValues, buffer);
+                renderer.row(sb, buffer, widths);
+                rowCount++;
+            } while (rs.next());
+        }
+        renderer.footer(sb);
+
+        Map<String, Object> lastRow = new LinkedCaseInsensitiveMap<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            lastRow.put(columns[i], lastValues[i]);
+        }
+        return new Table(List.of(columns), rowCount, sb.toString(), lastRow);
+    }
+
+    private static void readRow(ResultSet rs, Object[] values, String[] cells) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            Object value = JdbcUtils.getResultSetValue(rs, i + 1);
+            values[i] = value;
+            cells[i] = TableRenderer.cellText(value);
+        }
+    }
+
+    /**
+     * 表格输出结果
+     *
+     * @param columns  列名
+     * @param rowCount 行数
+     * @param text     渲染后的表格文本（无数据时为空字符串）
+     * @param lastRow  最后一行的原始值（列名大小写不敏感），无数据时为null
+     */
+    public record Table(List<String> columns, int rowCount, String text, Map<String, Object> lastRow) {
+
+        public boolean isEmpty() {
+            return rowCount == 0;
+        }
+    }
+}
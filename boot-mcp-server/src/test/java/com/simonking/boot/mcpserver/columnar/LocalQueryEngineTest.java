@@ -0,0 +1,340 @@
+package com.simonking.boot.mcpserver.columnar;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.JDBCType;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 期望值按MySQL（utf8mb4_general_ci、div_precision_increment=4）的结果编写
+ */
+class LocalQueryEngineTest {
+
+    private static final List<String> CERT_COLUMNS = List.of("id", "admdvs", "biz_date", "cnt", "amt", "rate");
+    private static final int[] CERT_TYPES = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.BIGINT, Types.DECIMAL, Types.DOUBLE};
+
+    private static final ColumnarTable CERT = table("cert", CERT_COLUMNS, CERT_TYPES, 10,
+            row(1L, "110000", "20250101", 10L, new BigDecimal("1.50"), 0.5),
+            row(2L, "110000", "20250102", 20L, new BigDecimal("2.25"), null),
+            row(3L, "120000", "20250101", null, new BigDecimal("0.10"), 1.0),
+            row(4L, "Abc", "20250103", 5L, null, 2.0),
+            row(5L, null, "20250103", 0L, new BigDecimal("3.00"), 0.0),
+            row(6L, "abc", "20250104", 7L, new BigDecimal("1.00"), 1.0));
+
+    private static final ColumnarTable ADMDVS = table("admdvs", List.of("code", "name"),
+            new int[]{Types.VARCHAR, Types.VARCHAR}, 0,
+            row("110000", "北京"), row("120000", "天津"), row("ABC", "测试"));
+
+    /**
+     * 取值带末尾空格的字符串列
+     */
+    private static final ColumnarTable PADDED = table("padded", List.of("code", "label"),
+            new int[]{Types.VARCHAR, Types.VARCHAR}, 0,
+            row("110000 ", "a"), row("110000", "b"), row("ABC  ", "c"));
+
+    /**
+     * 小数精度超过18位的列按对象存储
+     */
+    private static final ColumnarTable WIDE = table("wide", List.of("id", "amt"),
+            new int[]{Types.BIGINT, Types.DECIMAL}, 30,
+            row(1L, new BigDecimal("1.50")));
+
+    /**
+     * 只缓存了 biz_date >= 20250103 的分区
+     */
+    private static final ColumnarTable WINDOW = load("win", "biz_date", "20250103",
+            row(4L, "20250103"), row(6L, "20250104"));
+
+    private static final Map<String, ColumnarTable> TABLES = Map.of(
+            "cert", CERT, "admdvs", ADMDVS, "padded", PADDED, "wide", WIDE, "win", WINDOW);
+
+    private static Object[] row(Object... values) {
+        return values;
+    }
+
+    private static ColumnarTable table(String name, List<String> labels, int[] types, int precision, Object[]... rows) {
+        List<ColumnVector.Builder> builders = new ArrayList<>();
+        for (int i = 0; i < types.length; i++) {
+            builders.add(ColumnVector.builder(labels.get(i), types[i], JDBCType.valueOf(types[i]).getName(),
+                    precision, types[i] == Types.DECIMAL ? 2 : 0));
+        }
+        for (Object[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                builders.get(i).append(row[i]);
+            }
+        }
+        return ColumnarTable.of(name, labels, builders, rows.length);
+    }
+
+    private static ColumnarTable load(String name, String partitionColumn, Object coveredFrom, Object[]... rows) {
+        LocalQueryEngine.Result result = new LocalQueryEngine.Result(List.of("id", "biz_date"),
+                new int[]{Types.BIGINT, Types.VARCHAR}, new String[]{"BIGINT", "VARCHAR"}, Arrays.asList(rows));
+        try {
+            return ColumnarTable.load(name, LocalResultSet.of(result), partitionColumn, coveredFrom, 0);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Optional<LocalQueryEngine.Plan> plan(String sql, Object... args) {
+        return LocalQueryEngine.plan(sql, args, (schema, name) -> TABLES.get(name.toLowerCase(Locale.ROOT)));
+    }
+
+    private static LocalQueryEngine.Result run(String sql, Object... args) {
+        return plan(sql, args).orElseThrow(() -> new AssertionError("未在本地执行: " + sql)).run(0);
+    }
+
+    private static List<List<Object>> rows(String sql, Object... args) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (Object[] row : run(sql, args).rows()) {
+            rows.add(Arrays.asList(row));
+        }
+        return rows;
+    }
+
+    private static List<Object> column(String sql, Object... args) {
+        List<Object> values = new ArrayList<>();
+        for (Object[] row : run(sql, args).rows()) {
+            values.add(row[0]);
+        }
+        return values;
+    }
+
+    // ==================== 过滤 ====================
+
+    @Test
+    void comparisonsSkipNullRows() {
+        assertEquals(List.of(1L, 2L, 6L), column("SELECT id FROM cert WHERE cnt > 5"));
+        assertEquals(List.of(4L, 5L), column("SELECT id FROM cert WHERE NOT (cnt > 5)"));
+        assertEquals(List.of(3L, 4L, 6L), column("SELECT id FROM cert WHERE admdvs <> '110000'"));
+        assertEquals(List.of(3L), column("SELECT id FROM cert WHERE cnt IS NULL"));
+        assertEquals(List.of(1L, 2L, 5L, 6L), column("SELECT id FROM cert WHERE cnt > 5 OR admdvs IS NULL"));
+    }
+
+    @Test
+    void inListWithNull() {
+        assertEquals(List.of(1L, 2L), column("SELECT id FROM cert WHERE admdvs IN ('110000', NULL)"));
+        // x NOT IN (..., NULL) 对任何行都不为真
+        assertEquals(List.of(), column("SELECT id FROM cert WHERE admdvs NOT IN ('110000', NULL)"));
+    }
+
+    @Test
+    void stringComparisonIgnoresCase() {
+        assertEquals(List.of(4L, 6L), column("SELECT id FROM cert WHERE admdvs = 'ABC'"));
+        assertEquals(List.of(4L, 6L), column("SELECT id FROM cert WHERE admdvs LIKE 'a%'"));
+        assertEquals(List.of(4L, 6L), column("SELECT id FROM cert WHERE admdvs = ?", "aBc"));
+    }
+
+    @Test
+    void trailingSpacesAreIgnoredLikePadSpace() {
+        // utf8mb4_general_ci 为 PAD SPACE：'110000 ' = '110000'，LIKE 不补空格
+        assertEquals(List.of(1L, 2L), column("SELECT id FROM cert WHERE admdvs = '110000  '"));
+        assertEquals(List.of(1L, 2L), column("SELECT id FROM cert WHERE admdvs = ?", "110000 "));
+        assertEquals(List.of(1L, 2L), column("SELECT id FROM cert WHERE admdvs IN ('110000 ')"));
+        assertEquals(List.of(), column("SELECT id FROM cert WHERE admdvs LIKE '110000 '"));
+        assertEquals(List.of("a", "b"), column("SELECT label FROM padded WHERE code = '110000'"));
+        assertEquals(List.of("c"), column("SELECT label FROM padded WHERE code = 'abc'"));
+
+        assertEquals(2, rows("SELECT code, COUNT(*) FROM padded GROUP BY code").size());
+        assertEquals(2, rows("SELECT DISTINCT code FROM padded").size());
+        assertEquals(List.of(1L, 1L, 2L, 2L, 4L, 6L),
+                column("SELECT c.id FROM cert c JOIN padded p ON c.admdvs = p.code ORDER BY c.id"));
+    }
+
+    @Test
+    void decimalComparison() {
+        assertEquals(List.of(1L), column("SELECT id FROM cert WHERE amt = 1.5"));
+        assertEquals(List.of(1L, 2L, 5L), column("SELECT id FROM cert WHERE amt > 1"));
+    }
+
+    // ==================== 聚合 ====================
+
+    @Test
+    void aggregatesOverAllRows() {
+        LocalQueryEngine.Result result = run("SELECT COUNT(*), COUNT(cnt), SUM(cnt), AVG(cnt), MIN(admdvs),"
+                + " COUNT(DISTINCT admdvs), SUM(amt), AVG(amt), SUM(rate) FROM cert");
+        Object[] row = result.rows().get(0);
+        assertEquals(6L, row[0]);
+        assertEquals(5L, row[1]);
+        assertEquals(new BigDecimal("42"), row[2]);
+        assertEquals(new BigDecimal("8.4000"), row[3]);
+        assertEquals("110000", row[4]);
+        // 'Abc' 与 'abc' 在不区分大小写的排序规则下是同一个值
+        assertEquals(3L, row[5]);
+        assertEquals(new BigDecimal("7.85"), row[6]);
+        assertEquals(new BigDecimal("1.570000"), row[7]);
+        assertEquals(4.5, row[8]);
+        assertEquals(Types.BIGINT, result.sqlTypes()[0]);
+        assertEquals(Types.DECIMAL, result.sqlTypes()[2]);
+        assertEquals(Types.DOUBLE, result.sqlTypes()[8]);
+    }
+
+    @Test
+    void aggregatesOverEmptyInputReturnOneRow() {
+        assertEquals(List.of(Arrays.asList(0L, null, null)),
+                rows("SELECT COUNT(*), SUM(cnt), MAX(admdvs) FROM cert WHERE id > 100"));
+    }
+
+    @Test
+    void groupByMergesCaseAndKeepsNullGroup() {
+        List<List<Object>> rows = rows("SELECT admdvs, COUNT(*), SUM(cnt) FROM cert GROUP BY admdvs ORDER BY admdvs");
+        assertEquals(4, rows.size());
+        assertEquals(Arrays.asList(null, 1L, new BigDecimal("0")), rows.get(0));
+        assertEquals(List.of("110000", 2L, new BigDecimal("30")), rows.get(1));
+        assertEquals(Arrays.asList("120000", 1L, null), rows.get(2));
+        assertTrue("abc".equalsIgnoreCase((String) rows.get(3).get(0)));
+        assertEquals(List.of(2L, new BigDecimal("12")), rows.get(3).subList(1, 3));
+
+        assertEquals(2, rows("SELECT admdvs, COUNT(*) FROM cert GROUP BY admdvs HAVING COUNT(*) > 1").size());
+        assertEquals(4, rows("SELECT DISTINCT admdvs FROM cert").size());
+    }
+
+    // ==================== 算术 ====================
+
+    @Test
+    void decimalArithmeticKeepsMysqlScale() {
+        assertEquals(List.of(List.of(new BigDecimal("3.00"), new BigDecimal("0.500000"), new BigDecimal("2.5000"),
+                        new BigDecimal("15.0"), new BigDecimal("11.50"))),
+                rows("SELECT amt * 2, amt / 3, cnt / 4, cnt * 1.5, amt + cnt FROM cert WHERE id = 1"));
+    }
+
+    @Test
+    void divisionByZeroIsNull() {
+        assertEquals(List.of(
+                        Arrays.asList(null, null, null, null, new BigDecimal("1.0000")),
+                        Arrays.asList(null, null, null, null, null)),
+                rows("SELECT cnt / 0, cnt % 0, rate / 0, amt / 0, cnt / cnt FROM cert WHERE id IN (1, 5)"));
+    }
+
+    // ==================== 连接 ====================
+
+    @Test
+    void innerJoinMatchesKeysIgnoringCase() {
+        assertEquals(List.of(
+                        List.of(1L, "北京"), List.of(2L, "北京"), List.of(3L, "天津"), List.of(4L, "测试"), List.of(6L, "测试")),
+                rows("SELECT c.id, a.name FROM cert c JOIN admdvs a ON a.code = c.admdvs ORDER BY c.id"));
+    }
+
+    @Test
+    void leftJoinKeepsUnmatchedRows() {
+        List<List<Object>> rows = rows("SELECT c.id, a.name FROM cert c LEFT JOIN admdvs a ON a.code = c.admdvs ORDER BY c.id");
+        assertEquals(6, rows.size());
+        assertEquals(Arrays.asList(5L, null), rows.get(4));
+    }
+
+    @Test
+    void aggregateOverJoin() {
+        assertEquals(Arrays.asList(
+                        List.of("北京", new BigDecimal("30")), List.of("测试", new BigDecimal("12")), Arrays.asList("天津", null)),
+                rows("SELECT a.name, SUM(c.cnt) FROM cert c JOIN admdvs a ON a.code = c.admdvs GROUP BY a.name ORDER BY 2 DESC"));
+    }
+
+    // ==================== 排序与分页 ====================
+
+    @Test
+    void nullsSortFirstAscendingAndLastDescending() {
+        assertEquals(List.of(3L, 5L, 4L, 6L, 1L, 2L), column("SELECT id FROM cert ORDER BY cnt"));
+        assertEquals(List.of(2L, 1L, 6L, 4L, 5L, 3L), column("SELECT id FROM cert ORDER BY cnt DESC"));
+    }
+
+    @Test
+    void limitAndOffset() {
+        assertEquals(List.of(2L, 3L), column("SELECT id FROM cert ORDER BY id LIMIT 2 OFFSET 1"));
+        assertEquals(List.of(2L, 3L), column("SELECT id FROM cert ORDER BY id LIMIT 1, 2"));
+        assertEquals(1, plan("SELECT id FROM cert ORDER BY id").orElseThrow().run(1).rows().size());
+    }
+
+    // ==================== 覆盖范围 ====================
+
+    @Test
+    void partialTableRequiresConditionInsideWindow() {
+        assertEquals(List.of(4L, 6L), column("SELECT id FROM win WHERE biz_date >= '20250103'"));
+        assertEquals(List.of(6L), column("SELECT id FROM win WHERE biz_date = '20250104'"));
+        assertEquals(List.of(4L, 6L), column("SELECT id FROM win WHERE biz_date BETWEEN '20250103' AND '20250131'"));
+        assertEquals(List.of(4L, 6L), column("SELECT id FROM win WHERE biz_date >= ?", "20250103"));
+        assertEquals(List.of(4L, 6L), column("SELECT c.id FROM cert c JOIN win w ON w.id = c.id AND w.biz_date >= '20250103'"));
+
+        assertTrue(plan("SELECT id FROM win").isEmpty());
+        assertTrue(plan("SELECT id FROM win WHERE biz_date >= '20250101'").isEmpty());
+        assertTrue(plan("SELECT id FROM win WHERE biz_date = '20250102'").isEmpty());
+        assertTrue(plan("SELECT id FROM win WHERE biz_date >= ?", "20250101").isEmpty());
+        assertTrue(plan("SELECT c.id FROM cert c JOIN win w ON w.id = c.id").isEmpty());
+    }
+
+    // ==================== 回退 ====================
+
+    @Test
+    void unsupportedQueriesFallBack() {
+        assertTrue(plan("SELECT id FROM cert WHERE admdvs = 110000").isEmpty());
+        assertTrue(plan("SELECT UPPER(admdvs) FROM cert").isEmpty());
+        assertTrue(plan("SELECT id FROM cert LIMIT ALL").isEmpty());
+        assertTrue(plan("SELECT id FROM missing").isEmpty());
+        assertTrue(plan("SELECT SUM(amt) FROM wide").isEmpty());
+        assertTrue(plan("SELECT id FROM cert WHERE id IN (SELECT id FROM win WHERE biz_date >= '20250103')").isEmpty());
+    }
+
+    // ==================== 列存储 ====================
+
+    @Test
+    void scaledDecimalAndDictionaryColumnsRoundTrip() {
+        assertInstanceOf(ColumnVector.LongColumn.class, CERT.column(4));
+        assertInstanceOf(ColumnVector.DictionaryColumn.class, CERT.column(1));
+        assertInstanceOf(ColumnVector.ObjectColumn.class, WIDE.column(1));
+        assertEquals(new BigDecimal("1.50"), CERT.column(4).get(0));
+        assertNull(CERT.column(4).get(3));
+        assertTrue(CERT.column(1).isNull(4));
+        assertEquals("Abc", CERT.column(1).get(3));
+        assertEquals("abc", CERT.column(1).get(5));
+        assertEquals(4, CERT.columnIndex("AMT"));
+        assertThrows(IllegalArgumentException.class, () -> ColumnVector.builder("n", Types.BIGINT, "BIGINT", 0, 0).append("x"));
+    }
+
+    @Test
+    void mergeKeepsOldRowsInsideWindowAndAppendsReloaded() {
+        ColumnarTable old = load("win", "biz_date", "20250102",
+                row(1L, "20250102"), row(2L, "20250103"), row(3L, "20250104"), row(9L, null));
+        ColumnarTable reloaded = load("win", "biz_date", null, row(4L, "20250104"), row(5L, "20250105"));
+
+        ColumnarTable merged = old.merge(reloaded, "20250104", "20250103", 0);
+        assertEquals(3, merged.rowCount());
+        assertEquals(List.of(2L, 4L, 5L), Arrays.asList(merged.column(0).get(0), merged.column(0).get(1), merged.column(0).get(2)));
+        assertEquals("20250103", merged.coveredFrom());
+        assertEquals("20250105", merged.maxPartitionValue());
+
+        assertThrows(ColumnarTable.TooManyRowsException.class, () -> old.merge(reloaded, "20250104", "20250103", 2));
+    }
+
+    // ==================== 取值 ====================
+
+    @Test
+    void valuesCompareAndKey() {
+        assertEquals(0, Values.compare("ABC", "abc"));
+        assertEquals(0, Values.compare(1L, new BigDecimal("1.00")));
+        assertTrue(Values.compare(new BigDecimal("1.5"), 2L) < 0);
+        assertEquals(Values.key("Abc"), Values.key("aBC"));
+        assertEquals(0, Values.compare("abc  ", "ABC"));
+        assertEquals(Values.key("abc  "), Values.key("ABC"));
+        // 较短的一方补空格后比较：' ' 大于 '\t'
+        assertTrue(Values.compare("abc", "abc\t") > 0);
+        assertTrue(Values.compare("abc", "abcd") < 0);
+        assertEquals(Values.key(1L), Values.key(new BigDecimal("1.00")));
+        assertEquals(Values.key(2L), Values.key(2.0));
+        assertNull(Values.divide(1L, 0L, Values.Kind.DECIMAL));
+        assertNull(Values.modulo(1L, 0L, Values.Kind.INTEGER));
+        assertThrows(ArithmeticException.class, () -> Values.add(Long.MAX_VALUE, 1L, Values.Kind.INTEGER));
+    }
+}
@@ -0,0 +1,43 @@
+package com.simonking.boot.mcpserver.sql;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CountPlannerTest {
+
+    private static CountPlanner.Shape shape(String sql) {
+        return ParsedSql.parse(sql).countPlan().shape();
+    }
+
+    @Test
+    void plainSelectIsSimple() {
+        assertEquals(CountPlanner.Shape.SIMPLE, shape("SELECT admdvs, iption_cnt FROM hif_iption_type_stt_d WHERE biz_date = '20250101'"));
+    }
+
+    @Test
+    void topLevelAggregateIsConstant() {
+        assertEquals(CountPlanner.Shape.CONSTANT, shape("SELECT SUM(iption_cnt) FROM hif_iption_type_stt_d"));
+    }
+
+    @Test
+    void nestedAggregateIsConstant() {
+        assertEquals(CountPlanner.Shape.CONSTANT,
+                shape("SELECT ROUND(SUM(iption_cnt), 2) AS total FROM hif_iption_type_stt_d WHERE biz_date >= '20250101'"));
+        assertEquals(CountPlanner.Shape.CONSTANT, shape("SELECT IFNULL(SUM(x), 0) FROM t"));
+        assertEquals(CountPlanner.Shape.CONSTANT, shape("SELECT SUM(a) / COUNT(*) AS avg_a FROM t"));
+        assertEquals(CountPlanner.Shape.CONSTANT, shape("SELECT CASE WHEN MAX(a) > 0 THEN 1 ELSE 0 END FROM t"));
+    }
+
+    @Test
+    void aggregateInScalarSubqueryDoesNotMakeOuterAggregate() {
+        assertEquals(CountPlanner.Shape.SIMPLE, shape("SELECT a, (SELECT MAX(b) FROM u) AS m FROM t"));
+    }
+
+    @Test
+    void groupByAndLimit() {
+        assertEquals(CountPlanner.Shape.GROUP_BY, shape("SELECT admdvs, SUM(iption_cnt) FROM t GROUP BY admdvs"));
+        assertEquals(CountPlanner.Shape.LIMITED, shape("SELECT a FROM t ORDER BY a LIMIT 10"));
+        assertEquals(CountPlanner.Shape.DERIVED, shape("SELECT ROUND(SUM(a), 2) FROM t LIMIT 1"));
+    }
+}
@@ -0,0 +1,116 @@
+package com.simonking.boot.mcpserver.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeysetPaginatorTest {
+
+    private static final String STT = "SELECT admdvs, biz_date, iption_cnt FROM hif_iption_type_stt_d WHERE biz_date >= '20250101'";
+
+    @Test
+    void completesOrderByWithPrimaryKey() {
+        KeysetPaginator.Plan plan = KeysetPaginator.plan(STT).orElseThrow();
+        assertEquals(List.of("iption_data_type", "biz_date", "admdvs"),
+                plan.getKeys().stream().map(KeysetPaginator.SortKey::column).toList());
+        assertEquals(STT + " ORDER BY `iption_data_type` ASC, `biz_date` ASC, `admdvs` ASC LIMIT 20, 10",
+                plan.offsetSql(20, 10));
+    }
+
+    @Test
+    void aggregateQueriesAreNotPaginatedByKeyset() {
+        assertTrue(KeysetPaginator.plan("SELECT SUM(iption_cnt) FROM hif_iption_type_stt_d").isEmpty());
+        assertTrue(KeysetPaginator.plan("SELECT ROUND(SUM(iption_cnt), 2) AS total FROM hif_iption_type_stt_d "
+                + "WHERE biz_date >= '20250101'").isEmpty());
+        assertTrue(KeysetPaginator.plan("SELECT IFNULL(COUNT(*), 0) FROM hif_iption_type_stt_d").isEmpty());
+        assertTrue(KeysetPaginator.plan("SELECT admdvs, SUM(iption_cnt) FROM hif_iption_type_stt_d GROUP BY admdvs").isEmpty());
+    }
+
+    @Test
+    void unsupportedShapesFallBackToOffset() {
+        assertTrue(KeysetPaginator.plan("SELECT * FROM unknown_table").isEmpty());
+        assertTrue(KeysetPaginator.plan("SELECT DISTINCT admdvs FROM hif_iption_type_stt_d").isEmpty());
+        assertTrue(KeysetPaginator.plan(STT + " LIMIT 10").isEmpty());
+        assertTrue(KeysetPaginator.plan("SELECT a.admdvs FROM hif_iption_type_stt_d a JOIN admdvs_a b ON a.admdvs = b.admdvs").isEmpty());
+    }
+
+    @Test
+    void orderByAliasIsRejected() {
+        assertTrue(KeysetPaginator.plan("SELECT admdvs, iption_cnt AS cnt FROM hif_iption_type_stt_d ORDER BY cnt").isEmpty());
+        assertTrue(KeysetPaginator.plan("SELECT admdvs FROM hif_iption_type_stt_d ORDER BY iption_cnt + 1").isEmpty());
+    }
+
+    @Test
+    void primaryKeyLookupTakesPrecedence() {
+        KeysetPaginator.Plan plan = KeysetPaginator.plan("SELECT * FROM custom_t", table -> List.of("id")).orElseThrow();
+        assertEquals("SELECT * FROM custom_t WHERE ((`id` > ?)) ORDER BY `id` ASC LIMIT ?", plan.seekSql());
+    }
+
+    @Test
+    void descendingNullableKeyAlsoMatchesNulls() {
+        KeysetPaginator.Plan plan = KeysetPaginator.plan(STT + " ORDER BY iption_cnt DESC").orElseThrow();
+        String seek = plan.seekSql();
+        assertTrue(seek.contains("((iption_cnt < ? OR iption_cnt IS NULL))"), seek);
+        assertTrue(seek.endsWith(" ORDER BY iption_cnt DESC, `iption_data_type` ASC, `biz_date` ASC, `admdvs` ASC LIMIT ?"), seek);
+        // 4个排序键的展开条件共 1+2+3+4 个参数，再加LIMIT
+        Object[] args = plan.seekArgs(new KeysetPaginator.Cursor(2, List.of(5, "01", "20250101", "110000")), 10);
+        assertEquals(11, args.length);
+        assertEquals(10, args[10]);
+    }
+
+    @Test
+    void undocumentedTableWithoutLookupFallsBackToOffset() {
+        assertTrue(KeysetPaginator.plan("SELECT * FROM hif_cert_xml_d").isEmpty());
+        assertTrue(KeysetPaginator.plan("SELECT * FROM admdvs_a", table -> List.of()).isEmpty());
+    }
+
+    @Test
+    void descendingPrimaryKeyDoesNotMatchNulls() {
+        KeysetPaginator.Plan plan = KeysetPaginator.plan("SELECT * FROM hif_bank_doc_d ORDER BY bank_doc_id DESC").orElseThrow();
+        assertEquals("SELECT * FROM hif_bank_doc_d WHERE ((bank_doc_id < ?)) ORDER BY bank_doc_id DESC LIMIT ?", plan.seekSql());
+    }
+
+    @Test
+    void cursorRoundTrip() {
+        KeysetPaginator.Plan plan = KeysetPaginator.plan(STT).orElseThrow();
+        Map<String, Object> lastRow = new LinkedHashMap<>();
+        lastRow.put("iption_data_type", "01");
+        lastRow.put("biz_date", "20250102");
+        lastRow.put("admdvs", 110000L);
+        String cursor = plan.encodeCursor(lastRow, 3);
+
+        KeysetPaginator.Cursor decoded = plan.decodeCursor(cursor);
+        assertEquals(3, decoded.page());
+        assertEquals(List.of("01", "20250102", 110000), decoded.values());
+        assertArrayEquals(new Object[]{"01", "01", "20250102", "01", "20250102", 110000, 10},
+                plan.seekArgs(decoded, 10));
+    }
+
+    @Test
+    void nullSortKeyProducesNoCursor() {
+        KeysetPaginator.Plan plan = KeysetPaginator.plan(STT + " ORDER BY iption_cnt DESC").orElseThrow();
+        Map<String, Object> lastRow = new LinkedHashMap<>();
+        lastRow.put("iption_cnt", null);
+        lastRow.put("iption_data_type", "01");
+        lastRow.put("biz_date", "20250102");
+        lastRow.put("admdvs", "110000");
+        assertNull(plan.encodeCursor(lastRow, 2));
+    }
+
+    @Test
+    void cursorOfAnotherQueryIsRejected() {
+        KeysetPaginator.Plan plan = KeysetPaginator.plan(STT).orElseThrow();
+        KeysetPaginator.Plan other = KeysetPaginator.plan(STT + " AND admdvs = '110000'").orElseThrow();
+        String cursor = plan.encodeCursor(Map.of("iption_data_type", "01", "biz_date", "20250102", "admdvs", "110000"), 2);
+        assertThrows(IllegalArgumentException.class, () -> other.decodeCursor(cursor));
+        assertThrows(IllegalArgumentException.class, () -> plan.decodeCursor("not-a-cursor"));
+    }
+}
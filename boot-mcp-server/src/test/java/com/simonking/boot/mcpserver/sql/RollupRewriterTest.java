@@ -0,0 +1,156 @@
+package com.simonking.boot.mcpserver.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RollupRewriterTest {
+
+    private static final RollupRewriter.Target CERT = new RollupRewriter.Target("cert_monthly",
+            "hif_cert_stt_d", "mcp_rollup_cert_mon", "biz_mon", "biz_date", yyyyMMdd(),
+            Set.of("biz_mon", "prov_admdvs", "admdvs", "biz_msg_no"), Set.of("cert_cnt"));
+
+    private static final RollupRewriter.Target IPTION = new RollupRewriter.Target("iption_type_monthly",
+            "hif_iption_type_stt_d", "mcp_rollup_iption_type_mon", "biz_mon", "biz_date", yyyyMMdd(),
+            Set.of("biz_mon", "prov_admdvs", "admdvs", "iption_data_type"), Set.of("iption_cnt"));
+
+    private static RollupRewriter.DatePattern yyyyMMdd() {
+        return RollupRewriter.DatePattern.of("yyyyMMdd").orElseThrow();
+    }
+
+    private static Optional<String> rewrite(String sql) {
+        return RollupRewriter.rewrite(sql, List.of(IPTION, CERT)).map(RollupRewriter.Rewrite::sql);
+    }
+
+    private static void assertRewritten(String expected, String sql) {
+        assertEquals(Optional.of(expected), rewrite(sql));
+    }
+
+    private static void assertNotRewritten(String sql) {
+        assertTrue(rewrite(sql).isEmpty(), sql);
+    }
+
+    @Test
+    void sumWithGroupByAndMonthAlignedBetween() {
+        assertRewritten("SELECT admdvs, SUM(sum_cert_cnt) AS total FROM mcp_rollup_cert_mon"
+                        + " WHERE biz_mon BETWEEN '202501' AND '202503' GROUP BY admdvs ORDER BY total DESC",
+                "SELECT admdvs, SUM(cert_cnt) AS total FROM hif_cert_stt_d"
+                        + " WHERE biz_date BETWEEN '20250101' AND '20250331' GROUP BY admdvs ORDER BY total DESC");
+    }
+
+    @Test
+    void picksTargetBySourceTable() {
+        RollupRewriter.Rewrite rewrite = RollupRewriter.rewrite(
+                "SELECT iption_data_type, SUM(iption_cnt) FROM hif_iption_type_stt_d GROUP BY iption_data_type",
+                List.of(IPTION, CERT)).orElseThrow();
+        assertEquals("iption_type_monthly", rewrite.target().name());
+        assertEquals("SELECT iption_data_type, SUM(sum_iption_cnt) AS `SUM(iption_cnt)`"
+                + " FROM mcp_rollup_iption_type_mon GROUP BY iption_data_type", rewrite.sql());
+    }
+
+    @Test
+    void countAllBecomesNonNullInteger() {
+        // 无匹配月份时SUM(row_cnt)为NULL，COUNT(*)必须仍返回0；SUM的DECIMAL类型转回整数
+        assertRewritten("SELECT CAST(COALESCE(SUM(row_cnt), 0) AS SIGNED) AS `COUNT(*)` FROM mcp_rollup_cert_mon"
+                        + " WHERE biz_mon BETWEEN '209901' AND '209901'",
+                "SELECT COUNT(*) FROM hif_cert_stt_d WHERE biz_date BETWEEN '20990101' AND '20990131'");
+        assertRewritten("SELECT CAST(COALESCE(SUM(row_cnt), 0) AS SIGNED) AS n FROM mcp_rollup_cert_mon",
+                "SELECT COUNT(1) AS n FROM hif_cert_stt_d");
+    }
+
+    @Test
+    void countAllInsideExpressionsAndHaving() {
+        assertRewritten("SELECT COALESCE(SUM(row_cnt), 0) * 2 AS `COUNT(*) * 2` FROM mcp_rollup_cert_mon",
+                "SELECT COUNT(*) * 2 FROM hif_cert_stt_d");
+        assertRewritten("SELECT admdvs, CAST(COALESCE(SUM(row_cnt), 0) AS SIGNED) AS `COUNT(*)`"
+                        + " FROM mcp_rollup_cert_mon GROUP BY admdvs HAVING COALESCE(SUM(row_cnt), 0) > 10",
+                "SELECT admdvs, COUNT(*) FROM hif_cert_stt_d GROUP BY admdvs HAVING COUNT(*) > 10");
+    }
+
+    @Test
+    void avgBecomesSumOverRowCount() {
+        assertRewritten("SELECT admdvs, SUM(sum_cert_cnt) / SUM(row_cnt) AS `AVG(cert_cnt)`"
+                        + " FROM mcp_rollup_cert_mon GROUP BY admdvs",
+                "SELECT admdvs, AVG(cert_cnt) FROM hif_cert_stt_d GROUP BY admdvs");
+    }
+
+    @Test
+    void dimensionAggregatesAreKept() {
+        assertRewritten("SELECT COUNT(DISTINCT admdvs), MAX(biz_mon) FROM mcp_rollup_cert_mon",
+                "SELECT COUNT(DISTINCT admdvs), MAX(biz_mon) FROM hif_cert_stt_d");
+    }
+
+    @Test
+    void dateConditionsConvertToMonths() {
+        assertRewritten("SELECT SUM(sum_cert_cnt) AS `SUM(cert_cnt)` FROM mcp_rollup_cert_mon"
+                        + " WHERE biz_mon LIKE '202501%'",
+                "SELECT SUM(cert_cnt) FROM hif_cert_stt_d WHERE biz_date LIKE '202501%'");
+        assertRewritten("SELECT SUM(sum_cert_cnt) AS `SUM(cert_cnt)` FROM mcp_rollup_cert_mon"
+                        + " WHERE biz_mon >= '202501' AND biz_mon < '202504'",
+                "SELECT SUM(cert_cnt) FROM hif_cert_stt_d WHERE biz_date >= '20250101' AND biz_date < '20250401'");
+        assertRewritten("SELECT SUM(sum_cert_cnt) AS `SUM(cert_cnt)` FROM mcp_rollup_cert_mon"
+                        + " WHERE biz_mon <= '202501' AND biz_mon > '202412'",
+                "SELECT SUM(cert_cnt) FROM hif_cert_stt_d WHERE biz_date <= '20250131' AND biz_date > '20241231'");
+    }
+
+    @Test
+    void onlyLiteralsInTheConfiguredDatePatternConvert() {
+        // 日期列为 yyyyMMdd 时，'2025-01-01' 与 '20250101' 的字符串比较结果不同，不能转换
+        assertNotRewritten("SELECT SUM(cert_cnt) FROM hif_cert_stt_d WHERE biz_date >= '2025-01-01'");
+        assertNotRewritten("SELECT SUM(cert_cnt) FROM hif_cert_stt_d WHERE biz_date LIKE '2025-01%'");
+        assertNotRewritten("SELECT SUM(cert_cnt) FROM hif_cert_stt_d WHERE biz_date >= '2025010101'");
+        assertRewritten("SELECT SUM(sum_cert_cnt) AS `SUM(cert_cnt)` FROM mcp_rollup_cert_mon"
+                        + " WHERE biz_mon BETWEEN '202502' AND '202502'",
+                "SELECT SUM(cert_cnt) FROM hif_cert_stt_d WHERE biz_date BETWEEN '20250201' AND '20250231'");
+        assertRewritten("SELECT SUM(sum_cert_cnt) AS `SUM(cert_cnt)` FROM mcp_rollup_cert_mon WHERE biz_mon LIKE '2025%'",
+                "SELECT SUM(cert_cnt) FROM hif_cert_stt_d WHERE biz_date LIKE '2025%'");
+
+        RollupRewriter.Target dashed = new RollupRewriter.Target("cert_monthly", "hif_cert_stt_d", "mcp_rollup_cert_mon",
+                "biz_mon", "biz_date", RollupRewriter.DatePattern.of("yyyy-MM-dd").orElseThrow(),
+                Set.of("biz_mon", "admdvs"), Set.of("cert_cnt"));
+        assertEquals(Optional.of("SELECT SUM(sum_cert_cnt) AS `SUM(cert_cnt)` FROM mcp_rollup_cert_mon"
+                        + " WHERE biz_mon >= '202501' AND biz_mon LIKE '202502%'"),
+                RollupRewriter.rewrite("SELECT SUM(cert_cnt) FROM hif_cert_stt_d"
+                        + " WHERE biz_date >= '2025-01-01' AND biz_date LIKE '2025-02-%'", List.of(dashed))
+                        .map(RollupRewriter.Rewrite::sql));
+        assertEquals(Optional.empty(), RollupRewriter.rewrite(
+                "SELECT SUM(cert_cnt) FROM hif_cert_stt_d WHERE biz_date >= '20250101'", List.of(dashed)));
+    }
+
+    @Test
+    void unsupportedDatePatternsAreRejected() {
+        assertTrue(RollupRewriter.DatePattern.of("dd/MM/yyyy").isEmpty());
+        assertTrue(RollupRewriter.DatePattern.of("yyyy-MM-dd HH:mm:ss").isEmpty());
+        assertTrue(RollupRewriter.DatePattern.of(null).isEmpty());
+    }
+
+    @Test
+    void qualifiedColumnsKeepTheSourceNameAsAlias() {
+        assertRewritten("SELECT hif_cert_stt_d.admdvs, SUM(sum_cert_cnt) AS `SUM(hif_cert_stt_d.cert_cnt)`"
+                        + " FROM mcp_rollup_cert_mon hif_cert_stt_d GROUP BY hif_cert_stt_d.admdvs",
+                "SELECT hif_cert_stt_d.admdvs, SUM(hif_cert_stt_d.cert_cnt) FROM hif_cert_stt_d"
+                        + " GROUP BY hif_cert_stt_d.admdvs");
+    }
+
+    @Test
+    void rejectsDatesThatDoNotCoverWholeMonths() {
+        assertNotRewritten("SELECT SUM(cert_cnt) FROM hif_cert_stt_d WHERE biz_date BETWEEN '20250102' AND '20250131'");
+    }
+
+    @Test
+    void rejectsUnsupportedShapes() {
+        // 非维度列、非聚合查询、子查询、窗口函数、未汇总的度量、不认识的源表
+        assertNotRewritten("SELECT bankacct, SUM(cert_cnt) FROM hif_cert_stt_d GROUP BY bankacct");
+        assertNotRewritten("SELECT admdvs FROM hif_cert_stt_d");
+        assertNotRewritten("SELECT SUM(cert_cnt) FROM hif_cert_stt_d WHERE admdvs IN (SELECT admdvs FROM admdvs_a)");
+        assertNotRewritten("SELECT admdvs, SUM(cert_cnt) OVER (PARTITION BY admdvs) FROM hif_cert_stt_d");
+        assertNotRewritten("SELECT COUNT(cert_cnt) FROM hif_cert_stt_d");
+        assertNotRewritten("SELECT SUM(cert_cnt) FROM hif_other_stt_d");
+        assertNotRewritten("SELECT SUM(a.cert_cnt) FROM hif_cert_stt_d a JOIN admdvs_a b ON a.admdvs = b.admdvs");
+    }
+}